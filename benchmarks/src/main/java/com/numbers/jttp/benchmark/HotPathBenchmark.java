@@ -0,0 +1,128 @@
+package com.numbers.jttp.benchmark;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.jackson.*;
+import com.numbers.jttp.request.stream.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.*;
+import org.openjdk.jmh.runner.*;
+import org.openjdk.jmh.runner.options.*;
+
+/**
+ * measures the request/response hot path of JTTP against a local server, in
+ * synchronous, executor based async and non-blocking async mode, for several
+ * payload sizes. Every benchmark reports throughput and sampled latency
+ * percentiles.
+ * <p>
+ * Run with {@code java -cp target/benchmarks.jar
+ * com.numbers.jttp.benchmark.HotPathBenchmark} to include the allocation rate
+ * of the GC profiler, or with {@code java -jar target/benchmarks.jar
+ * HotPathBenchmark -prof gc}.
+ *
+ * @author Numbers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class HotPathBenchmark {
+
+    @Param({"sync", "async", "nonblocking"})
+    public String mode;
+
+    @Param({"1", "100", "10000"})
+    public int size;
+
+    private PayloadServer server;
+    private Jttp jttp;
+    private String objectUrl;
+    private String arrayUrl;
+    private String echoUrl;
+    private List<Item> body;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        server = new PayloadServer();
+        objectUrl = server.url("/object/" + size);
+        arrayUrl = server.url("/array/" + size);
+        echoUrl = server.url("/echo");
+        body = LongStream.range(0, size)
+                .mapToObj(Item::of)
+                .collect(Collectors.toList());
+
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setJsonMapper(new JacksonJsonMapper());
+        config.setDefaultAsync(!"sync".equals(mode));
+        config.setNonBlocking("nonblocking".equals(mode));
+        jttp = Jttp.fromConfig(config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        jttp.shutdown();
+        jttp.close();
+        server.close();
+    }
+
+    @Benchmark
+    public String asString() throws Exception
+    {
+        return jttp.get(arrayUrl)
+                .asString()
+                .get()
+                .getResponse();
+    }
+
+    @Benchmark
+    public Item asObject() throws Exception
+    {
+        return jttp.get(objectUrl)
+                .<Item>asObject(Item.class)
+                .get()
+                .getResponse();
+    }
+
+    @Benchmark
+    public List<Item> asObjects() throws Exception
+    {
+        return jttp.get(arrayUrl)
+                .asObjects(ArrayList.class, Item.class)
+                .get()
+                .getResponse();
+    }
+
+    @Benchmark
+    public int postBody() throws Exception
+    {
+        HttpBodyRequestStream request = jttp.post(echoUrl)
+                .body(body);
+        return request.execute()
+                .get()
+                .getStatusCode();
+    }
+
+    /**
+     * runs this benchmark with the GC profiler attached
+     *
+     * @param args unused
+     * @throws RunnerException if the benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(HotPathBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+    }
+
+}
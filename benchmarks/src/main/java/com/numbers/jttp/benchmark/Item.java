@@ -0,0 +1,53 @@
+package com.numbers.jttp.benchmark;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * the record served by the {@link PayloadServer PayloadServer}
+ *
+ * @author Numbers
+ */
+public class Item {
+
+    public long id;
+    public String name;
+    public double price;
+    public boolean available;
+    public List<String> tags;
+
+    /**
+     * creates an item with deterministic values for the given id
+     *
+     * @param id the id of the item
+     * @return a new item
+     */
+    static Item of(long id)
+    {
+        Item item = new Item();
+        item.id = id;
+        item.name = "item-" + id;
+        item.price = id * 1.25;
+        item.available = id % 2 == 0;
+        item.tags = Arrays.asList("tag-" + id % 7, "tag-" + id % 13);
+        return item;
+    }
+
+    /**
+     * creates an item with deterministic values for the given id, carrying
+     * the given amount of tags
+     *
+     * @param id   the id of the item
+     * @param tags the amount of tags of the item
+     * @return a new item
+     */
+    static Item of(long id, int tags)
+    {
+        Item item = of(id);
+        item.tags = IntStream.range(0, tags)
+                .mapToObj(tag -> "tag-" + tag)
+                .collect(Collectors.toList());
+        return item;
+    }
+
+}
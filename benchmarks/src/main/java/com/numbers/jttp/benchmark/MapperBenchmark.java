@@ -0,0 +1,79 @@
+package com.numbers.jttp.benchmark;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.*;
+import com.numbers.jttp.mapper.gson.*;
+import com.numbers.jttp.mapper.jackson.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * compares the shipped {@link JsonMapper JsonMapper} adapters on the
+ * {@code asObject} and {@code asObjects} paths against a local server.
+ * <p>
+ * Run with {@code java -jar target/benchmarks.jar MapperBenchmark}.
+ *
+ * @author Numbers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({"jackson", "gson"})
+    public String mapper;
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private PayloadServer server;
+    private Jttp jttp;
+    private String objectUrl;
+    private String arrayUrl;
+
+    @Setup
+    public void setUp() throws IOException
+    {
+        server = new PayloadServer();
+        objectUrl = server.url("/object/" + size);
+        arrayUrl = server.url("/array/" + size);
+
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setJsonMapper("gson".equals(mapper)
+                             ? new GsonJsonMapper()
+                             : new JacksonJsonMapper());
+        jttp = Jttp.fromConfig(config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        jttp.shutdown();
+        jttp.close();
+        server.close();
+    }
+
+    @Benchmark
+    public Item asObject() throws Exception
+    {
+        return jttp.get(objectUrl)
+                .<Item>asObject(Item.class)
+                .get()
+                .getResponse();
+    }
+
+    @Benchmark
+    public List<Item> asObjects() throws Exception
+    {
+        return jttp.get(arrayUrl)
+                .asObjects(ArrayList.class, Item.class)
+                .get()
+                .getResponse();
+    }
+
+}
@@ -0,0 +1,109 @@
+package com.numbers.jttp.benchmark;
+
+import com.numbers.jttp.mapper.jackson.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.apache.commons.io.*;
+import org.apache.commons.io.output.*;
+
+/**
+ * an embedded HTTP server on a random local port, serving pre-serialized JSON
+ * so the benchmarks measure the client rather than the server.
+ * <ul>
+ * <li>{@code GET /object/{size}} returns a single item with {@code size}
+ * tags</li>
+ * <li>{@code GET /array/{size}} returns an array of {@code size} items</li>
+ * <li>{@code POST /echo} consumes the body and returns an empty object</li>
+ * </ul>
+ *
+ * @author Numbers
+ */
+public final class PayloadServer implements Closeable {
+
+    private static final byte[] EMPTY_OBJECT = "{}".getBytes();
+
+    static {
+        // avoid Nagle delays between the response headers and body writes
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, byte[]> arrays = new ConcurrentHashMap<>();
+
+    /**
+     * starts the server
+     *
+     * @throws IOException if the server can not be bound
+     */
+    public PayloadServer() throws IOException
+    {
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime()
+                .availableProcessors() * 2);
+        server = HttpServer.create(new InetSocketAddress(InetAddress
+                .getLoopbackAddress(), 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/object/", exchange -> respond(exchange, objects
+                .computeIfAbsent(exchange.getRequestURI()
+                        .getPath()
+                        .substring("/object/".length()), PayloadServer::object)));
+        server.createContext("/array/", exchange -> respond(exchange, arrays
+                .computeIfAbsent(exchange.getRequestURI()
+                        .getPath()
+                        .substring("/array/".length()), PayloadServer::array)));
+        server.createContext("/echo", exchange -> {
+            IOUtils.copy(exchange.getRequestBody(), NullOutputStream.NULL_OUTPUT_STREAM);
+            respond(exchange, EMPTY_OBJECT);
+        });
+        server.start();
+    }
+
+    private static byte[] object(String size)
+    {
+        return new JacksonJsonMapper().writeValueAsBytes(Item.of(1, Integer
+                .parseInt(size)));
+    }
+
+    private static byte[] array(String size)
+    {
+        return new JacksonJsonMapper().writeValueAsBytes(LongStream
+                .range(0, Integer.parseInt(size))
+                .mapToObj(Item::of)
+                .collect(Collectors.toList()));
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws
+            IOException
+    {
+        exchange.getResponseHeaders()
+                .set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     *
+     * @param path the path of the resource, starting with a slash
+     * @return the absolute url of the resource on this server
+     */
+    public String url(String path)
+    {
+        return "http://127.0.0.1:" + server.getAddress()
+                .getPort() + path;
+    }
+
+    @Override
+    public void close()
+    {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+}
@@ -1,14 +1,34 @@
 package com.numbers.jttp;
 
+import com.numbers.jttp.batch.*;
+import com.numbers.jttp.cache.*;
+import com.numbers.jttp.compression.*;
 import com.numbers.jttp.mapper.*;
+import com.numbers.jttp.metrics.*;
 import com.numbers.jttp.request.*;
 import com.numbers.jttp.request.stream.*;
 import com.numbers.jttp.request.supplier.*;
+import com.numbers.jttp.resilience.*;
 import java.io.*;
+import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.logging.*;
+import java.util.stream.*;
 import org.apache.http.*;
 import org.apache.http.client.methods.*;
+import org.apache.http.config.*;
+import org.apache.http.conn.routing.*;
+import org.apache.http.conn.socket.*;
+import org.apache.http.conn.ssl.*;
 import org.apache.http.impl.client.*;
+import org.apache.http.impl.conn.*;
+import org.apache.http.impl.nio.client.*;
+import org.apache.http.impl.nio.conn.*;
+import org.apache.http.impl.nio.reactor.*;
+import org.apache.http.nio.conn.*;
+import org.apache.http.nio.conn.ssl.*;
+import org.apache.http.nio.reactor.*;
 
 /**
  * the central class of JTTP, all requests will be routed through an instance of
@@ -53,7 +73,9 @@ public final class Jttp implements Closeable {
         );
     }
 
-    private final CloseableHttpClient client = HttpClients.createSystem();
+    private final PoolingHttpClientConnectionManager connectionManager;
+    private final CloseableHttpClient client;
+    private final CloseableHttpAsyncClient asyncClient;
     private final RequestSupplier<HttpRequestBase> defaultRequestSupplier;
     private final RequestSupplier<HttpEntityEnclosingRequestBase> bodyRequestSupplier;
     private final JTTPConfig config;
@@ -75,6 +97,136 @@ public final class Jttp implements Closeable {
         this.defaultRequestSupplier = defaultRequestSupplier;
         this.bodyRequestSupplier = bodyRequestSupplier;
         this.config = config;
+        this.connectionManager = buildConnectionManager(config);
+        this.client = buildClient(config, connectionManager);
+        this.asyncClient = config.isNonBlocking() ? buildAsyncClient(config) : null;
+    }
+
+    /**
+     * builds the connection pool of the HTTP client with the pool sizes and
+     * connection time to live of the given config.
+     *
+     * @param config the config containing the connection pool settings
+     * @return a new pooling connection manager
+     */
+    private static PoolingHttpClientConnectionManager buildConnectionManager(
+            JTTPConfig config)
+    {
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder
+                .<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory
+                        .getSystemSocketFactory())
+                .build();
+        PoolingHttpClientConnectionManager manager
+                = new PoolingHttpClientConnectionManager(registry, null,
+                        DefaultSchemePortResolver.INSTANCE,
+                        new TimingDnsResolver(SystemDefaultDnsResolver.INSTANCE),
+                        config.getConnectionTimeToLive(), TimeUnit.MILLISECONDS);
+        manager.setMaxTotal(config.getMaxConnections());
+        manager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+        manager.setValidateAfterInactivity(config.getValidateAfterInactivity());
+        config.getMaxConnectionsPerHost()
+                .forEach((host, max) -> manager.setMaxPerRoute(toRoute(host), max));
+        return manager;
+    }
+
+    /**
+     * builds the pooled HTTP client with the connection settings of the given
+     * config. System properties (proxy, SSL) are still honored, but the pool
+     * sizes are taken from the config.
+     *
+     * @param config  the config containing the connection pool settings
+     * @param manager the connection pool of the client
+     * @return a new client backed by the pooling connection manager
+     */
+    private static CloseableHttpClient buildClient(JTTPConfig config,
+            PoolingHttpClientConnectionManager manager)
+    {
+        HttpClientBuilder builder = config.getHttpCache() == null
+                                    ? HttpClients.custom()
+                                    : config.getHttpCache()
+                                            .newClientBuilder();
+        builder.useSystemProperties()
+                .setConnectionManager(new TimingConnectionManager(manager))
+                .setRequestExecutor(new TimingRequestExecutor())
+                .disableContentCompression()
+                .addInterceptorLast(new AcceptEncodingInterceptor(config
+                        .getAcceptEncoding()))
+                .addInterceptorLast(new ContentDecodingInterceptor())
+                // retries are decided by the retry policy of the request only
+                .disableAutomaticRetries();
+
+        if (config.getIdleConnectionTimeout() > 0) {
+            builder.evictExpiredConnections()
+                    .evictIdleConnections(config.getIdleConnectionTimeout(),
+                            TimeUnit.MILLISECONDS);
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * builds and starts the non-blocking HTTP client with the connection
+     * settings of the given config. The client is driven by an I/O reactor
+     * with {@link JTTPConfig#getIoThreads() getIoThreads()} dispatcher
+     * threads.
+     *
+     * @param config the config containing the connection pool settings
+     * @return a new, started, client backed by a non-blocking connection pool
+     */
+    private static CloseableHttpAsyncClient buildAsyncClient(JTTPConfig config)
+    {
+        try {
+            ConnectingIOReactor reactor = new DefaultConnectingIOReactor(
+                    IOReactorConfig.custom()
+                            .setIoThreadCount(config.getIoThreads())
+                            .build());
+            Registry<SchemeIOSessionStrategy> registry = RegistryBuilder
+                    .<SchemeIOSessionStrategy>create()
+                    .register("http", NoopIOSessionStrategy.INSTANCE)
+                    .register("https", SSLIOSessionStrategy
+                            .getSystemDefaultStrategy())
+                    .build();
+            PoolingNHttpClientConnectionManager manager
+                    = new PoolingNHttpClientConnectionManager(reactor,
+                            ManagedNHttpClientConnectionFactory.INSTANCE,
+                            registry, DefaultSchemePortResolver.INSTANCE,
+                            SystemDefaultDnsResolver.INSTANCE,
+                            config.getConnectionTimeToLive(),
+                            TimeUnit.MILLISECONDS);
+            manager.setMaxTotal(config.getMaxConnections());
+            manager.setDefaultMaxPerRoute(config.getMaxConnectionsPerRoute());
+            config.getMaxConnectionsPerHost()
+                    .forEach((host, max) -> manager.setMaxPerRoute(toRoute(host), max));
+
+            // responses are decoded once buffered, see HttpRequestStreamImpl
+            CloseableHttpAsyncClient built = HttpAsyncClients.custom()
+                    .useSystemProperties()
+                    .setConnectionManager(manager)
+                    .addInterceptorLast(new AcceptEncodingInterceptor(config
+                            .getAcceptEncoding()))
+                    .build();
+            built.start();
+            return built;
+        } catch (IOReactorException ex) {
+            throw new IllegalStateException("unable to start I/O reactor", ex);
+        }
+    }
+
+    /**
+     * converts the host to the route used by the connection pool, resolving
+     * the default port and secure flag from the scheme.
+     *
+     * @param host the target host
+     * @return the direct route to the host
+     */
+    private static HttpRoute toRoute(HttpHost host)
+    {
+        boolean secure = "https".equalsIgnoreCase(host.getSchemeName());
+        int port = host.getPort() > 0 ? host.getPort() : secure ? 443 : 80;
+        return new HttpRoute(new HttpHost(host.getHostName(), port, host
+                .getSchemeName()), null, secure);
     }
 
     /**
@@ -85,8 +237,8 @@ public final class Jttp implements Closeable {
      */
     public HttpRequestStream get(String url)
     {
-        return HttpRequestStream.of(client, HttpRequestType.GET,
-                defaultRequestSupplier, url, config);
+        return HttpRequestStream.of(client, asyncClient,
+                HttpRequestType.GET, defaultRequestSupplier, url, config);
     }
 
     /**
@@ -97,20 +249,23 @@ public final class Jttp implements Closeable {
      */
     public HttpBodyRequestStream post(String url)
     {
-        return HttpBodyRequestStream.of(client, HttpRequestType.POST,
-                bodyRequestSupplier, url, config);
+        return HttpBodyRequestStream.of(client, asyncClient,
+                HttpRequestType.POST, bodyRequestSupplier, url, config);
     }
 
     /**
-     * creates a HTTP PATCH request stream with the given url.
+     * creates a HTTP PATCH request stream with the given url. The declared
+     * return type is kept for binary compatibility, the returned stream is a
+     * {@link HttpBodyRequestStream HttpBodyRequestStream} that can carry the
+     * patch document.
      *
      * @param url the url to use in the request
      * @return a request stream with body options
      */
     public HttpRequestStream patch(String url)
     {
-        return HttpRequestStream.of(client, HttpRequestType.PATCH,
-                defaultRequestSupplier, url, config);
+        return HttpBodyRequestStream.of(client, asyncClient,
+                HttpRequestType.PATCH, bodyRequestSupplier, url, config);
     }
 
     /**
@@ -121,8 +276,8 @@ public final class Jttp implements Closeable {
      */
     public HttpBodyRequestStream put(String url)
     {
-        return HttpBodyRequestStream.of(client, HttpRequestType.POST,
-                bodyRequestSupplier, url, config);
+        return HttpBodyRequestStream.of(client, asyncClient,
+                HttpRequestType.PUT, bodyRequestSupplier, url, config);
     }
 
     /**
@@ -133,8 +288,8 @@ public final class Jttp implements Closeable {
      */
     public HttpRequestStream delete(String url)
     {
-        return HttpRequestStream.of(client, HttpRequestType.DELETE,
-                defaultRequestSupplier, url, config);
+        return HttpRequestStream.of(client, asyncClient,
+                HttpRequestType.DELETE, defaultRequestSupplier, url, config);
     }
 
     /**
@@ -145,8 +300,43 @@ public final class Jttp implements Closeable {
      */
     public BodyResponselessHttpRequestStream head(String url)
     {
-        return HttpRequestStream.of(client, HttpRequestType.PATCH,
-                defaultRequestSupplier, url, config);
+        return HttpRequestStream.of(client, asyncClient,
+                HttpRequestType.HEAD, defaultRequestSupplier, url, config);
+    }
+
+    /**
+     * creates a batch making a request for every item, by default with at
+     * most {@link JTTPConfig#getMaxConnectionsPerRoute() the connections per
+     * route} requests in flight.
+     *
+     * @param <I>     the type of the items
+     * @param <R>     the type of the results of the requests
+     * @param items   the items to make requests for
+     * @param request the function making the async request of an item
+     * @return a batch to execute
+     */
+    public <I, R> Batch<I, R> batch(Collection<? extends I> items,
+                                    Function<? super I, ? extends CompletionStage<R>> request)
+    {
+        return batch(items.stream(), request);
+    }
+
+    /**
+     * creates a batch making a request for every item, by default with at
+     * most {@link JTTPConfig#getMaxConnectionsPerRoute() the connections per
+     * route} requests in flight. The items are taken from the stream only
+     * when their request is started.
+     *
+     * @param <I>     the type of the items
+     * @param <R>     the type of the results of the requests
+     * @param items   the items to make requests for
+     * @param request the function making the async request of an item
+     * @return a batch to execute
+     */
+    public <I, R> Batch<I, R> batch(Stream<? extends I> items,
+                                    Function<? super I, ? extends CompletionStage<R>> request)
+    {
+        return Batch.of(items, request, config.getMaxConnectionsPerRoute());
     }
 
     /**
@@ -158,6 +348,17 @@ public final class Jttp implements Closeable {
         config.service.shutdown();
     }
 
+    /**
+     * the connection pool of the blocking client, used to inspect the pool
+     * settings in tests.
+     *
+     * @return the connection manager of the blocking client
+     */
+    PoolingHttpClientConnectionManager getConnectionManager()
+    {
+        return connectionManager;
+    }
+
     /**
      * permanently closes the I/O requests if any are still open.
      *
@@ -167,6 +368,9 @@ public final class Jttp implements Closeable {
     public void close() throws IOException
     {
         client.close();
+        if (asyncClient != null) {
+            asyncClient.close();
+        }
     }
 
     /**
@@ -176,8 +380,32 @@ public final class Jttp implements Closeable {
 
         private ExecutorService service = Executors.newCachedThreadPool();
         private boolean async = false;
+        private boolean virtualThreads = false;
+        private boolean nonBlocking = false;
+        private boolean bufferRequestBodies = false;
+        private int ioThreads = Runtime.getRuntime().availableProcessors();
         private HttpHost defaultProxy;
         private JsonMapper mapper;
+        private int maxConnections = 200;
+        private int maxConnectionsPerRoute = 20;
+        private final Map<HttpHost, Integer> maxConnectionsPerHost = new HashMap<>();
+        private long connectionTimeToLive = -1;
+        private long idleConnectionTimeout = 60_000;
+        private int validateAfterInactivity = 2_000;
+        private MetricsListener metricsListener = MetricsListener.NOOP;
+        private boolean recordTimings = false;
+        private HttpCache httpCache;
+        private ObjectCache objectCache;
+        private RequestCoalescer requestCoalescer;
+        private List<String> acceptEncoding = AcceptEncodingInterceptor
+                .supportedEncodings();
+        private long compressionThreshold = 1024;
+        private RetryPolicy retryPolicy;
+        private HedgingPolicy hedgingPolicy;
+        private CircuitBreakers circuitBreakers;
+        private ConcurrencyLimiters concurrencyLimiters;
+        private RateLimiters rateLimiters;
+        private ScheduledExecutorService scheduler;
 
         /**
          *
@@ -189,6 +417,8 @@ public final class Jttp implements Closeable {
         }
 
         /**
+         * sets the mapper to use, this is optional if a mapper is registered
+         * as a service.
          *
          * @param mapper the object mapper to use for new requests with response
          *               body
@@ -207,6 +437,50 @@ public final class Jttp implements Closeable {
             this.async = async;
         }
 
+        /**
+         * enables the non-blocking I/O engine for async requests. Async
+         * requests are then executed on a selector based I/O reactor and their
+         * futures complete once the response has been received, without
+         * occupying a thread of the {@link #getService() executor} while
+         * waiting. The response body is buffered in memory before mapping.
+         * Synchronous requests always use the blocking engine, as do async
+         * requests with a multipart, inputstream, unbuffered mapped or
+         * compressed body, which are only streamed by the blocking engine.
+         * <p>
+         * Note: only the pool sizes and the connection time to live apply to
+         * the non-blocking connection pool.
+         *
+         * @param nonBlocking whether async requests should use non-blocking I/O
+         */
+        public void setNonBlocking(boolean nonBlocking)
+        {
+            this.nonBlocking = nonBlocking;
+        }
+
+        /**
+         * by default mapped request bodies are serialized straight into the
+         * connection with chunked transfer encoding. Buffered bodies are
+         * serialized once into memory instead, which gives them a known
+         * content length and guarantees repeated requests send the exact same
+         * bytes.
+         *
+         * @param buffered whether mapped request bodies should be buffered
+         */
+        public void setBufferRequestBodies(boolean buffered)
+        {
+            this.bufferRequestBodies = buffered;
+        }
+
+        /**
+         *
+         * @param threads the amount of I/O dispatcher threads used by the
+         *                non-blocking engine
+         */
+        public void setIoThreads(int threads)
+        {
+            this.ioThreads = threads;
+        }
+
         /**
          *
          * @param value whether or not async threads should be run as deamon or
@@ -214,7 +488,9 @@ public final class Jttp implements Closeable {
          */
         public void setDeamon(boolean value)
         {
+            virtualThreads = false;
             if (!value) {
+                service.shutdown();
                 service = Executors.newFixedThreadPool(Runtime.getRuntime()
                         .availableProcessors());
             } else {
@@ -223,6 +499,299 @@ public final class Jttp implements Closeable {
             }
         }
 
+        /**
+         *
+         * @param max the maximum amount of pooled connections over all routes
+         */
+        public void setMaxConnections(int max)
+        {
+            this.maxConnections = max;
+        }
+
+        /**
+         *
+         * @param max the maximum amount of pooled connections per route, unless
+         *            overridden for the host with
+         *            {@link #setMaxConnectionsPerHost(HttpHost, int)}
+         */
+        public void setMaxConnectionsPerRoute(int max)
+        {
+            this.maxConnectionsPerRoute = max;
+        }
+
+        /**
+         *
+         * @param host the host for which to override the per route maximum
+         * @param max  the maximum amount of pooled connections to the host
+         */
+        public void setMaxConnectionsPerHost(HttpHost host, int max)
+        {
+            maxConnectionsPerHost.put(host, max);
+        }
+
+        /**
+         *
+         * @param ms the maximum lifetime (in milliseconds) of a pooled
+         *           connection, or a value {@code <= 0} for no limit
+         */
+        public void setConnectionTimeToLive(long ms)
+        {
+            this.connectionTimeToLive = ms;
+        }
+
+        /**
+         *
+         * @param ms the time (in milliseconds) after which idle connections
+         *           are closed by a background evictor thread, or a value
+         *           {@code <= 0} to disable the evictor
+         */
+        public void setIdleConnectionTimeout(long ms)
+        {
+            this.idleConnectionTimeout = ms;
+        }
+
+        /**
+         *
+         * @param ms the period of inactivity (in milliseconds) after which a
+         *           pooled connection is revalidated before being leased, or
+         *           a value {@code <= 0} to disable validation
+         */
+        public void setValidateAfterInactivity(int ms)
+        {
+            this.validateAfterInactivity = ms;
+        }
+
+        /**
+         * sets the listener receiving the timings of every request, such as
+         * the time spent waiting for a pooled connection, DNS, connect, time to
+         * first byte and the transferred bytes. Connection level timings are
+         * only recorded by the blocking engine. The default listener disables
+         * timing, unless {@link #setRecordTimings(boolean) setRecordTimings}
+         * is enabled.
+         *
+         * @param listener the listener to report request timings to
+         */
+        public void setMetricsListener(MetricsListener listener)
+        {
+            this.metricsListener = listener == null
+                                   ? MetricsListener.NOOP
+                                   : listener;
+        }
+
+        /**
+         * records the timings of every request on its response, available
+         * through {@link com.numbers.jttp.response.HttpResponse#getTimings()
+         * getTimings()}. Timings are always recorded if an enabled
+         * {@link #setMetricsListener(MetricsListener) metrics listener} is set.
+         *
+         * @param record whether responses should carry their request timings
+         */
+        public void setRecordTimings(boolean record)
+        {
+            this.recordTimings = record;
+        }
+
+        /**
+         * installs an HTTP response cache in front of the blocking client,
+         * for example {@link HttpCache#inMemory(int) HttpCache.inMemory(1000)}.
+         * Requests on the non-blocking engine bypass the cache.
+         *
+         * @param cache the cache to use, or {@code null} to disable caching
+         */
+        public void setHttpCache(HttpCache cache)
+        {
+            this.httpCache = cache;
+        }
+
+        /**
+         * installs a cache of mapped responses, so repeated {@code GET}
+         * requests for the same URI, key headers and type are served without
+         * network access or deserialization.
+         *
+         * @param cache the cache to use, or {@code null} to disable caching
+         */
+        public void setObjectCache(ObjectCache cache)
+        {
+            this.objectCache = cache;
+        }
+
+        /**
+         * enables request coalescing: identical concurrent {@code GET} and
+         * {@code HEAD} requests (same URI, key headers and result type) share
+         * a single upstream execution and all receive its result. Streamed
+         * responses and downloads are never coalesced.
+         *
+         * @param coalesce whether identical concurrent requests should share
+         *                 their execution
+         */
+        public void setCoalesceRequests(boolean coalesce)
+        {
+            this.requestCoalescer = coalesce ? new RequestCoalescer() : null;
+        }
+
+        /**
+         * sets the content encodings advertised with {@code Accept-Encoding}
+         * on every request without an explicit header. Compressed responses
+         * are decoded while they are read, with pooled inflaters. By default
+         * {@code gzip}, {@code deflate} and, if the optional
+         * {@code org.brotli:dec} library is present, {@code br} are accepted.
+         * No encodings disables compression.
+         *
+         * @param encodings the encodings to accept, in order of preference
+         * @throws IllegalArgumentException if an encoding can not be decoded
+         */
+        public void setAcceptEncoding(String... encodings) throws
+                IllegalArgumentException
+        {
+            for (String encoding : encodings) {
+                if (!AcceptEncodingInterceptor.isSupported(encoding)) {
+                    throw new IllegalArgumentException(
+                            "unsupported encoding: " + encoding);
+                }
+            }
+            this.acceptEncoding = Arrays.asList(encodings.clone());
+        }
+
+        /**
+         * sets the size up to which bodies of requests with
+         * {@link com.numbers.jttp.request.stream.HttpBodyRequestStream#compress()
+         * compress()} are sent uncompressed. Bodies of unknown length, such as
+         * streamed objects, are always compressed.
+         *
+         * @param bytes the body size in bytes up to which bodies are sent as
+         *              is, defaults to 1024
+         */
+        public void setCompressionThreshold(long bytes)
+        {
+            this.compressionThreshold = bytes;
+        }
+
+        /**
+         * sets the policy retrying failed requests, which can be overridden
+         * per request. Async requests wait for their retry on the
+         * {@link #setScheduler(ScheduledExecutorService) scheduler}, without
+         * occupying a thread while backing off. The built-in retries of the
+         * blocking client are disabled while a policy is set, so failures are
+         * not retried twice.
+         *
+         * @param policy the policy to use, or {@code null} to disable retries
+         */
+        public void setRetryPolicy(RetryPolicy policy)
+        {
+            this.retryPolicy = policy;
+        }
+
+        /**
+         * sets the policy sending copies of slow {@code GET} and {@code HEAD}
+         * requests, which can be overridden per request. The first response
+         * to arrive is used and the other copies are aborted.
+         *
+         * @param policy the policy to use, or {@code null} to disable hedging
+         */
+        public void setHedgingPolicy(HedgingPolicy policy)
+        {
+            this.hedgingPolicy = policy;
+        }
+
+        /**
+         * sets the circuit breakers failing requests right away, with a
+         * {@link CircuitBreakerOpenException CircuitBreakerOpenException},
+         * while their host keeps failing. Every attempt of a retried or
+         * hedged request is counted.
+         *
+         * @param circuitBreakers the circuit breakers to use, or {@code null}
+         *                        to disable them
+         */
+        public void setCircuitBreakers(CircuitBreakers circuitBreakers)
+        {
+            this.circuitBreakers = circuitBreakers;
+        }
+
+        /**
+         * sets the limiters adapting the amount of requests in flight to each
+         * host to the capacity the host shows, by its round trip times and
+         * timeouts. Requests over the limit wait for their turn, or fail with
+         * a {@link ConcurrencyLimitExceededException
+         * ConcurrencyLimitExceededException}.
+         *
+         * @param concurrencyLimiters the limiters to use, or {@code null} to
+         *                            disable them
+         */
+        public void setConcurrencyLimiters(
+                ConcurrencyLimiters concurrencyLimiters)
+        {
+            this.concurrencyLimiters = concurrencyLimiters;
+        }
+
+        /**
+         * sets the rate limiters delaying requests to stay within a global,
+         * per host and per route rate. Async requests wait on the
+         * {@link #setScheduler(ScheduledExecutorService) scheduler}, so no
+         * thread is parked while waiting.
+         *
+         * @param rateLimiters the limiters to use, or {@code null} to disable
+         *                     them
+         */
+        public void setRateLimiters(RateLimiters rateLimiters)
+        {
+            this.rateLimiters = rateLimiters;
+        }
+
+        /**
+         * sets the scheduler on which delayed work of requests, such as the
+         * backoff before an async retry or a hedged copy, is timed. The delayed work itself runs
+         * on the {@link #getService() executor}.
+         *
+         * @param scheduler the scheduler to use, or {@code null} to use a
+         *                  single daemon thread created when first needed
+         */
+        public void setScheduler(ScheduledExecutorService scheduler)
+        {
+            this.scheduler = scheduler;
+        }
+
+        /**
+         * runs every async request on its own virtual thread instead of a
+         * pooled platform thread, so blocking requests can scale to a very
+         * high concurrency. Runtimes without virtual thread support (before
+         * Java 21) fall back to a cached thread pool.
+         *
+         * @param value whether async requests should run on virtual threads
+         */
+        public void setVirtualThreads(boolean value)
+        {
+            ExecutorService replacement = value
+                                          ? newVirtualThreadExecutor()
+                                          : Executors.newCachedThreadPool();
+            service.shutdown();
+            service = replacement;
+        }
+
+        /**
+         * creates a virtual thread per task executor through reflection, as
+         * the API is not available in the Java 8 baseline.
+         *
+         * @return a virtual thread per task executor, or a cached thread pool
+         *         if the runtime does not support virtual threads
+         */
+        private ExecutorService newVirtualThreadExecutor()
+        {
+            try {
+                ExecutorService executor = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+                virtualThreads = true;
+                return executor;
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                Logger.getLogger(JTTPConfig.class.getName())
+                        .log(Level.WARNING,
+                                "virtual threads are not supported, falling back to a cached thread pool",
+                                ex);
+                virtualThreads = false;
+                return Executors.newCachedThreadPool();
+            }
+        }
+
         /**
          *
          * @return the default Proxy used for requests
@@ -233,11 +802,18 @@ public final class Jttp implements Closeable {
         }
 
         /**
+         * returns the configured mapper. If no mapper has been configured, the
+         * first mapper available through
+         * {@link JsonMapper#discover() JsonMapper.discover()} is used.
          *
          * @return the default mapper used for requests
          */
         public JsonMapper getMapper()
         {
+            if (mapper == null) {
+                mapper = JsonMapper.discover()
+                        .orElse(null);
+            }
             return mapper;
         }
 
@@ -259,6 +835,240 @@ public final class Jttp implements Closeable {
             return async;
         }
 
+        /**
+         *
+         * @return true if async requests run on virtual threads
+         */
+        public boolean isVirtualThreads()
+        {
+            return virtualThreads;
+        }
+
+        /**
+         *
+         * @return true if async requests use the non-blocking I/O engine
+         */
+        public boolean isNonBlocking()
+        {
+            return nonBlocking;
+        }
+
+        /**
+         *
+         * @return true if mapped request bodies are buffered before sending
+         */
+        public boolean isBufferRequestBodies()
+        {
+            return bufferRequestBodies;
+        }
+
+        /**
+         *
+         * @return the amount of I/O dispatcher threads of the non-blocking
+         *         engine
+         */
+        public int getIoThreads()
+        {
+            return ioThreads;
+        }
+
+        /**
+         *
+         * @return the maximum amount of pooled connections over all routes
+         */
+        public int getMaxConnections()
+        {
+            return maxConnections;
+        }
+
+        /**
+         *
+         * @return the default maximum amount of pooled connections per route
+         */
+        public int getMaxConnectionsPerRoute()
+        {
+            return maxConnectionsPerRoute;
+        }
+
+        /**
+         *
+         * @return an unmodifiable map of hosts with an overridden maximum
+         */
+        public Map<HttpHost, Integer> getMaxConnectionsPerHost()
+        {
+            return Collections.unmodifiableMap(maxConnectionsPerHost);
+        }
+
+        /**
+         *
+         * @return the maximum lifetime (in milliseconds) of a pooled connection
+         */
+        public long getConnectionTimeToLive()
+        {
+            return connectionTimeToLive;
+        }
+
+        /**
+         *
+         * @return the idle time (in milliseconds) after which connections are
+         *         evicted
+         */
+        public long getIdleConnectionTimeout()
+        {
+            return idleConnectionTimeout;
+        }
+
+        /**
+         *
+         * @return the inactivity period (in milliseconds) after which pooled
+         *         connections are revalidated
+         */
+        public int getValidateAfterInactivity()
+        {
+            return validateAfterInactivity;
+        }
+
+        /**
+         *
+         * @return the listener receiving the timings of every request
+         */
+        public MetricsListener getMetricsListener()
+        {
+            return metricsListener;
+        }
+
+        /**
+         *
+         * @return true if responses carry their request timings
+         */
+        public boolean isRecordTimings()
+        {
+            return recordTimings;
+        }
+
+        /**
+         *
+         * @return the HTTP response cache, or {@code null} if caching is
+         *         disabled
+         */
+        public HttpCache getHttpCache()
+        {
+            return httpCache;
+        }
+
+        /**
+         *
+         * @return the cache of mapped responses, or {@code null} if disabled
+         */
+        public ObjectCache getObjectCache()
+        {
+            return objectCache;
+        }
+
+        /**
+         *
+         * @return true if identical concurrent requests share their execution
+         */
+        public boolean isCoalesceRequests()
+        {
+            return requestCoalescer != null;
+        }
+
+        /**
+         *
+         * @return the coalescer of identical concurrent requests, or
+         *         {@code null} if coalescing is disabled
+         */
+        public RequestCoalescer getRequestCoalescer()
+        {
+            return requestCoalescer;
+        }
+
+        /**
+         *
+         * @return an unmodifiable list of the accepted content encodings
+         */
+        public List<String> getAcceptEncoding()
+        {
+            return Collections.unmodifiableList(acceptEncoding);
+        }
+
+        /**
+         *
+         * @return the body size in bytes up to which compressed bodies are
+         *         sent as is
+         */
+        public long getCompressionThreshold()
+        {
+            return compressionThreshold;
+        }
+
+        /**
+         *
+         * @return the policy retrying failed requests, or {@code null} if
+         *         requests are not retried
+         */
+        public RetryPolicy getRetryPolicy()
+        {
+            return retryPolicy;
+        }
+
+        /**
+         *
+         * @return the policy sending copies of slow requests, or {@code null}
+         *         if requests are not hedged
+         */
+        public HedgingPolicy getHedgingPolicy()
+        {
+            return hedgingPolicy;
+        }
+
+        /**
+         *
+         * @return the circuit breakers of the hosts, or {@code null} if
+         *         disabled
+         */
+        public CircuitBreakers getCircuitBreakers()
+        {
+            return circuitBreakers;
+        }
+
+        /**
+         *
+         * @return the concurrency limiters of the hosts, or {@code null} if
+         *         disabled
+         */
+        public ConcurrencyLimiters getConcurrencyLimiters()
+        {
+            return concurrencyLimiters;
+        }
+
+        /**
+         *
+         * @return the rate limiters of the requests, or {@code null} if
+         *         disabled
+         */
+        public RateLimiters getRateLimiters()
+        {
+            return rateLimiters;
+        }
+
+        /**
+         *
+         * @return the scheduler timing delayed work of requests
+         */
+        public synchronized ScheduledExecutorService getScheduler()
+        {
+            if (scheduler == null) {
+                scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+                    Thread thread = new Thread(task, "jttp-scheduler");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            return scheduler;
+        }
+
     }
 
 }
@@ -0,0 +1,507 @@
+package com.numbers.jttp.batch;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.stream.*;
+import org.reactivestreams.*;
+
+/**
+ * a batch of requests, one for every item of its input, with a maximum amount
+ * of requests in flight. Items are taken from the input only when a request
+ * may be started, so large and lazily generated inputs are never held in
+ * memory at once. A failing request does not stop the batch, its failure is
+ * kept in the {@link BatchResult BatchResult} of its item.
+ * <p>
+ * The function making the requests should return without waiting for the
+ * response, by making async requests, otherwise the requests are made one
+ * after another. A batch can be executed only once.
+ * <pre>{@code
+ * jttp.batch(ids, id -> jttp.get(url + id).async().asObject(User.class))
+ *         .maxInFlight(50)
+ *         .stream()
+ *         .filter(BatchResult::isSuccess)
+ *         .forEach(result -> ...);
+ * }</pre>
+ *
+ * @author Numbers
+ * @param <I> the type of the items
+ * @param <R> the type of the results of the requests
+ */
+public final class Batch<I, R> {
+
+    private final Iterator<? extends I> items;
+    private final Function<? super I, ? extends CompletionStage<R>> request;
+    private int maxInFlight;
+    private boolean inputOrder;
+    private boolean started;
+
+    /**
+     *
+     * @param items       the items to make requests for
+     * @param request     the function making the request of an item
+     * @param maxInFlight the maximum amount of requests in flight
+     */
+    private Batch(Iterator<? extends I> items,
+                  Function<? super I, ? extends CompletionStage<R>> request,
+                  int maxInFlight)
+    {
+        this.items = items;
+        this.request = request;
+        maxInFlight(maxInFlight);
+    }
+
+    /**
+     * creates a batch making a request for every item of the given stream
+     *
+     * @param <I>         the type of the items
+     * @param <R>         the type of the results of the requests
+     * @param items       the items to make requests for
+     * @param request     the function making the request of an item
+     * @param maxInFlight the maximum amount of requests in flight
+     * @return the new batch, in completion order
+     */
+    public static <I, R> Batch<I, R> of(Stream<? extends I> items,
+                                        Function<? super I, ? extends CompletionStage<R>> request,
+                                        int maxInFlight)
+    {
+        return new Batch<>(items.iterator(), request, maxInFlight);
+    }
+
+    /**
+     *
+     * @param max the maximum amount of requests in flight
+     * @return this batch
+     */
+    public Batch<I, R> maxInFlight(int max)
+    {
+        if (max < 1) {
+            throw new IllegalArgumentException("max must be at least 1");
+        }
+        this.maxInFlight = max;
+        return this;
+    }
+
+    /**
+     * returns the results in the order of the items. A slow request holds
+     * back the results after it, while the requests after it keep running
+     * within the maximum in flight.
+     *
+     * @return this batch
+     */
+    public Batch<I, R> inputOrder()
+    {
+        this.inputOrder = true;
+        return this;
+    }
+
+    /**
+     * returns the results in the order the requests completed, which is the
+     * default
+     *
+     * @return this batch
+     */
+    public Batch<I, R> completionOrder()
+    {
+        this.inputOrder = false;
+        return this;
+    }
+
+    /**
+     * executes the batch while the returned stream is consumed. A new request
+     * is started once a result has been taken from the stream, so a slow
+     * consumer slows down the batch rather than buffering its results.
+     * Closing the stream cancels the requests in flight.
+     *
+     * @return a lazy stream of the results
+     */
+    public Stream<BatchResult<I, R>> stream()
+    {
+        start();
+        ResultIterator iterator = new ResultIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(
+                iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::cancel);
+    }
+
+    /**
+     * executes the batch without occupying a thread, a new request is
+     * started whenever one completes. Cancelling the returned future cancels
+     * the requests in flight and starts no more.
+     *
+     * @return a future of all results, in the order of the items
+     */
+    public CompletableFuture<List<BatchResult<I, R>>> execute()
+    {
+        start();
+        return new Execution().run();
+    }
+
+    /**
+     * returns a Reactive Streams publisher executing the batch once
+     * subscribed. Requests are only started for results the subscriber has
+     * requested, within the maximum in flight, so the subscriber controls
+     * the pace of the batch. Cancelling the subscription cancels the requests
+     * in flight. The batch accepts a single subscriber.
+     *
+     * @return a publisher of the results
+     */
+    public Publisher<BatchResult<I, R>> publisher()
+    {
+        return subscriber -> {
+            Objects.requireNonNull(subscriber, "subscriber can't be null");
+            try {
+                start();
+            } catch (IllegalStateException ex) {
+                subscriber.onSubscribe(new Subscription() {
+                    @Override
+                    public void request(long n)
+                    {
+                    }
+
+                    @Override
+                    public void cancel()
+                    {
+                    }
+                });
+                subscriber.onError(ex);
+                return;
+            }
+            subscriber.onSubscribe(new Publication(subscriber));
+        };
+    }
+
+    private void start()
+    {
+        if (started) {
+            throw new IllegalStateException("batch already executed");
+        }
+        started = true;
+    }
+
+    /**
+     * starts the request of an item
+     *
+     * @param index the position of the item in the input
+     * @param item  the item
+     * @return the started request
+     */
+    private Pending send(long index, I item)
+    {
+        CompletableFuture<R> future;
+        try {
+            future = request.apply(item)
+                    .toCompletableFuture();
+        } catch (RuntimeException ex) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+        return new Pending(index, future, future.handle((value, ex)
+                -> new BatchResult<>(index, item, value, unwrap(ex))));
+    }
+
+    private static Throwable unwrap(Throwable ex)
+    {
+        return ex instanceof CompletionException && ex.getCause() != null
+               ? ex.getCause()
+               : ex;
+    }
+
+    /**
+     * a started request
+     */
+    private final class Pending {
+
+        private final long index;
+        private final CompletableFuture<R> request;
+        private final CompletableFuture<BatchResult<I, R>> result;
+
+        private Pending(long index, CompletableFuture<R> request,
+                        CompletableFuture<BatchResult<I, R>> result)
+        {
+            this.index = index;
+            this.request = request;
+            this.result = result;
+        }
+
+    }
+
+    /**
+     * the results of a batch executed by the consumer of its stream
+     */
+    private final class ResultIterator implements Iterator<BatchResult<I, R>> {
+
+        private final Deque<Pending> pending = new ArrayDeque<>();
+        private final BlockingQueue<BatchResult<I, R>> completed
+                = new LinkedBlockingQueue<>();
+        private long index;
+
+        private void fill()
+        {
+            while (pending.size() < maxInFlight && items.hasNext()) {
+                Pending started = send(index++, items.next());
+                pending.add(started);
+                if (!inputOrder) {
+                    started.result.thenAccept(completed::add);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            fill();
+            return !pending.isEmpty();
+        }
+
+        @Override
+        public BatchResult<I, R> next()
+        {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (inputOrder) {
+                return pending.poll().result
+                        .join();
+            }
+            try {
+                BatchResult<I, R> result = completed.take();
+                pending.removeIf(started -> started.index == result
+                        .getIndex());
+                return result;
+            } catch (InterruptedException ex) {
+                Thread.currentThread()
+                        .interrupt();
+                throw new RuntimeException(ex);
+            }
+        }
+
+        private void cancel()
+        {
+            pending.forEach(started -> started.request.cancel(true));
+            pending.clear();
+        }
+
+    }
+
+    /**
+     * a batch executed by the completion of its requests
+     */
+    private final class Execution {
+
+        private final CompletableFuture<List<BatchResult<I, R>>> all
+                = new CompletableFuture<>();
+        private final List<BatchResult<I, R>> results = new ArrayList<>();
+        private final Map<Long, Pending> pending = new HashMap<>();
+        private final AtomicInteger work = new AtomicInteger();
+        private long index;
+
+        private CompletableFuture<List<BatchResult<I, R>>> run()
+        {
+            all.whenComplete((list, ex) -> {
+                if (all.isCancelled()) {
+                    List<Pending> cancelled;
+                    synchronized (this) {
+                        cancelled = new ArrayList<>(pending.values());
+                    }
+                    cancelled.forEach(started -> started.request.cancel(true));
+                }
+            });
+            drain();
+            return all;
+        }
+
+        /**
+         * starts requests while the maximum in flight allows. Requests that
+         * complete right away call this again, which is turned into another
+         * round of the loop rather than a deeper stack.
+         */
+        private void drain()
+        {
+            if (work.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (true) {
+                    long next;
+                    I item;
+                    synchronized (this) {
+                        if (all.isDone() || pending.size() >= maxInFlight
+                                || !items.hasNext()) {
+                            break;
+                        }
+                        next = index++;
+                        item = items.next();
+                    }
+                    Pending started = send(next, item);
+                    synchronized (this) {
+                        pending.put(next, started);
+                    }
+                    started.result.thenAccept(this::completed);
+                }
+                complete();
+                // handle all calls made during this round at once
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void completed(BatchResult<I, R> result)
+        {
+            synchronized (this) {
+                pending.remove(result.getIndex());
+                results.add(result);
+            }
+            drain();
+        }
+
+        private void complete()
+        {
+            synchronized (this) {
+                if (all.isDone() || !pending.isEmpty() || items.hasNext()) {
+                    return;
+                }
+                results.sort(Comparator.comparingLong(BatchResult::getIndex));
+            }
+            all.complete(results);
+        }
+
+    }
+
+    /**
+     * a batch executed on the demand of a subscriber. All signals to the
+     * subscriber and all requests are sent from {@link #drain() drain()}, of
+     * which at most one runs at a time.
+     */
+    private final class Publication implements Subscription {
+
+        private final Subscriber<? super BatchResult<I, R>> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private final Map<Long, Pending> pending = new LinkedHashMap<>();
+        private final Queue<BatchResult<I, R>> completed
+                = new ConcurrentLinkedQueue<>();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private boolean done;
+        private long index;
+
+        private Publication(Subscriber<? super BatchResult<I, R>> subscriber)
+        {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (n <= 0) {
+                error = new IllegalArgumentException(
+                        "requested amount must be positive, got " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current
+                        + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel()
+        {
+            cancelled = true;
+            drain();
+        }
+
+        private void drain()
+        {
+            if (work.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (!done) {
+                    emit();
+                }
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit()
+        {
+            if (cancelled || error != null) {
+                done = true;
+                pending.values()
+                        .forEach(started -> started.request.cancel(true));
+                pending.clear();
+                if (!cancelled) {
+                    subscriber.onError(error);
+                }
+                return;
+            }
+
+            long demand = requested.get();
+            long emitted = 0;
+            BatchResult<I, R> next;
+            while (emitted != demand && !cancelled
+                    && (next = poll()) != null) {
+                subscriber.onNext(next);
+                emitted++;
+            }
+            if (demand != Long.MAX_VALUE) {
+                demand = requested.addAndGet(-emitted);
+            }
+
+            try {
+                // every started request is owed to the subscriber
+                while (!cancelled && pending.size() < maxInFlight
+                        && pending.size() < demand && items.hasNext()) {
+                    Pending started = send(index++, items.next());
+                    pending.put(started.index, started);
+                    started.result.thenAccept(result -> {
+                        if (!inputOrder) {
+                            completed.add(result);
+                        }
+                        drain();
+                    });
+                }
+            } catch (RuntimeException ex) {
+                error = ex;
+                emit();
+                return;
+            }
+            if (!cancelled && pending.isEmpty() && !items.hasNext()) {
+                done = true;
+                subscriber.onComplete();
+            }
+        }
+
+        /**
+         *
+         * @return the next result to publish, or {@code null} if there is
+         *         none yet
+         */
+        private BatchResult<I, R> poll()
+        {
+            if (inputOrder) {
+                if (pending.isEmpty()) {
+                    return null;
+                }
+                Pending first = pending.values()
+                        .iterator()
+                        .next();
+                if (!first.result.isDone()) {
+                    return null;
+                }
+                pending.remove(first.index);
+                return first.result.join();
+            }
+            BatchResult<I, R> result = completed.poll();
+            if (result != null) {
+                pending.remove(result.getIndex());
+            }
+            return result;
+        }
+
+    }
+
+}
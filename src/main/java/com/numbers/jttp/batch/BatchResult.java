@@ -0,0 +1,101 @@
+package com.numbers.jttp.batch;
+
+import java.util.*;
+
+/**
+ * the outcome of the request of a single item of a {@link Batch Batch}:
+ * either the value the request completed with, or the failure it completed
+ * with.
+ *
+ * @author Numbers
+ * @param <I> the type of the items
+ * @param <R> the type of the results of the requests
+ */
+public final class BatchResult<I, R> {
+
+    private final long index;
+    private final I item;
+    private final R value;
+    private final Throwable failure;
+
+    /**
+     *
+     * @param index   the position of the item in the input
+     * @param item    the item
+     * @param value   the value the request completed with
+     * @param failure the failure the request completed with, or {@code null}
+     */
+    BatchResult(long index, I item, R value, Throwable failure)
+    {
+        this.index = index;
+        this.item = item;
+        this.value = value;
+        this.failure = failure;
+    }
+
+    /**
+     *
+     * @return the position of the item in the input, starting at 0
+     */
+    public long getIndex()
+    {
+        return index;
+    }
+
+    /**
+     *
+     * @return the item the request was made for
+     */
+    public I getItem()
+    {
+        return item;
+    }
+
+    /**
+     *
+     * @return {@code true} if the request completed normally
+     */
+    public boolean isSuccess()
+    {
+        return failure == null;
+    }
+
+    /**
+     *
+     * @return the value the request completed with, or {@code null} if it
+     *         failed
+     */
+    public R getValue()
+    {
+        return value;
+    }
+
+    /**
+     *
+     * @return the value the request completed with, or empty if it failed
+     */
+    public Optional<R> getOptionalValue()
+    {
+        return Optional.ofNullable(value);
+    }
+
+    /**
+     *
+     * @return the failure the request completed with, or {@code null} if it
+     *         succeeded
+     */
+    public Throwable getFailure()
+    {
+        return failure;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BatchResult{" + "index=" + index + ", item=" + item
+                + (failure == null
+                   ? ", value=" + value
+                   : ", failure=" + failure) + '}';
+    }
+
+}
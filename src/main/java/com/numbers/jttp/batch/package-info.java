@@ -0,0 +1,4 @@
+/**
+ * contains the batch execution of many requests with bounded parallelism
+ */
+package com.numbers.jttp.batch;
@@ -0,0 +1,225 @@
+package com.numbers.jttp.cache;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.security.*;
+import java.util.*;
+import java.util.logging.*;
+import java.util.stream.*;
+import org.apache.http.client.cache.*;
+import org.apache.http.impl.client.cache.*;
+
+/**
+ * a disk-backed {@link HttpCacheStorage HttpCacheStorage} writing every entry
+ * to its own file in a directory, named by the SHA-256 hash of its key. The
+ * least recently used entry is deleted once more than {@code maxEntries} are
+ * stored. Entries found in the directory on creation are kept, so the cache
+ * survives restarts.
+ *
+ * @author Numbers
+ */
+public class FileHttpCacheStorage implements HttpCacheStorage {
+
+    private static final String SUFFIX = ".entry";
+
+    private final Path directory;
+    private final int maxEntries;
+    private final HttpCacheEntrySerializer serializer
+            = new DefaultHttpCacheEntrySerializer();
+
+    /**
+     * the file names of the stored entries in least recently used order
+     */
+    private final LinkedHashMap<String, Boolean> index
+            = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     *
+     * @param directory  the directory to store the entries in
+     * @param maxEntries the maximum amount of stored entries
+     * @throws IOException if the directory can not be created or read
+     */
+    public FileHttpCacheStorage(Path directory, int maxEntries) throws
+            IOException
+    {
+        this.directory = Files.createDirectories(directory);
+        this.maxEntries = maxEntries;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(file -> file.getFileName()
+                    .toString()
+                    .endsWith(SUFFIX))
+                    .sorted(Comparator.comparingLong(this::lastModified))
+                    .forEach(file -> index.put(file.getFileName()
+                            .toString(), Boolean.TRUE));
+        }
+        evict();
+    }
+
+    @Override
+    public synchronized void putEntry(String key, HttpCacheEntry entry) throws
+            IOException
+    {
+        String name = fileName(key);
+        // every stored entry carries a fresh copy of its body, so the body of
+        // a replaced entry is no longer referenced
+        Resource replaced = readResource(directory.resolve(name));
+        Path temp = Files.createTempFile(directory, "put", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files
+                    .newOutputStream(temp))) {
+                serializer.writeTo(entry, out);
+            }
+            Files.move(temp, directory.resolve(name),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        if (replaced != null) {
+            replaced.dispose();
+        }
+        index.put(name, Boolean.TRUE);
+        evict();
+    }
+
+    @Override
+    public synchronized HttpCacheEntry getEntry(String key) throws IOException
+    {
+        String name = fileName(key);
+        if (index.get(name) == null) {
+            return null;
+        }
+        return read(directory.resolve(name));
+    }
+
+    @Override
+    public synchronized void removeEntry(String key) throws IOException
+    {
+        String name = fileName(key);
+        index.remove(name);
+        delete(directory.resolve(name));
+    }
+
+    @Override
+    public synchronized void updateEntry(String key,
+                                         HttpCacheUpdateCallback callback)
+            throws IOException, HttpCacheUpdateException
+    {
+        HttpCacheEntry updated = callback.update(getEntry(key));
+        if (updated == null) {
+            removeEntry(key);
+        } else {
+            putEntry(key, updated);
+        }
+    }
+
+    /**
+     *
+     * @return the amount of stored entries
+     */
+    public synchronized int size()
+    {
+        return index.size();
+    }
+
+    private HttpCacheEntry read(Path file) throws IOException
+    {
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(
+                file))) {
+            return serializer.readFrom(in);
+        } catch (NoSuchFileException ex) {
+            index.remove(file.getFileName()
+                    .toString());
+            return null;
+        } catch (HttpCacheEntrySerializationException ex) {
+            // a corrupt or incompatible entry is treated as a cache miss
+            Logger.getLogger(FileHttpCacheStorage.class.getName())
+                    .log(Level.WARNING, "discarding unreadable cache entry "
+                            + file, ex);
+            index.remove(file.getFileName()
+                    .toString());
+            Files.deleteIfExists(file);
+            return null;
+        }
+    }
+
+    private void evict() throws IOException
+    {
+        Iterator<String> names = index.keySet()
+                .iterator();
+        while (index.size() > maxEntries && names.hasNext()) {
+            Path file = directory.resolve(names.next());
+            names.remove();
+            delete(file);
+        }
+    }
+
+    /**
+     * deletes an entry file together with the resource holding its body
+     *
+     * @param file the entry file to delete
+     * @throws IOException if the file could not be deleted
+     */
+    private void delete(Path file) throws IOException
+    {
+        Resource resource = readResource(file);
+        if (resource != null) {
+            resource.dispose();
+        }
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     *
+     * @param file the entry file
+     * @return the resource holding the body of the entry, or {@code null} if
+     *         the entry does not exist or can not be read
+     * @throws IOException if the file could not be read
+     */
+    private Resource readResource(Path file) throws IOException
+    {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(
+                file))) {
+            return serializer.readFrom(in)
+                    .getResource();
+        } catch (HttpCacheEntrySerializationException | NoSuchFileException ex) {
+            Logger.getLogger(FileHttpCacheStorage.class.getName())
+                    .log(Level.FINE, "could not read body of " + file, ex);
+            return null;
+        }
+    }
+
+    private long lastModified(Path file)
+    {
+        try {
+            return Files.getLastModifiedTime(file)
+                    .toMillis();
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    private static String fileName(String key)
+    {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256")
+                    .digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2 + SUFFIX
+                    .length());
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.append(SUFFIX)
+                    .toString();
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+}
@@ -0,0 +1,184 @@
+package com.numbers.jttp.cache;
+
+import java.io.*;
+import java.nio.file.*;
+import org.apache.http.client.cache.*;
+import org.apache.http.impl.client.cache.*;
+
+/**
+ * an HTTP response cache in front of the blocking client, honoring
+ * {@code Cache-Control}, {@code ETag} and {@code Last-Modified}. Stale entries
+ * are revalidated with conditional requests ({@code If-None-Match},
+ * {@code If-Modified-Since}). Install it with
+ * {@link com.numbers.jttp.Jttp.JTTPConfig#setHttpCache(HttpCache)
+ * setHttpCache(HttpCache)}.
+ * <p>
+ * The cache is shared by all requests of the client, whatever their
+ * credentials, so it follows the rules of a shared cache: responses marked
+ * {@code private} are not stored, neither are responses to requests with an
+ * {@code Authorization} header unless the server marks them {@code public},
+ * {@code s-maxage} or {@code must-revalidate}.
+ * <p>
+ * Besides the raw responses, the cache remembers the objects recently mapped
+ * from cached responses by their validator and the credentials of the
+ * request, so a cache hit or a {@code 304 Not Modified} revalidation returns
+ * the previously mapped object without calling the mapper again. Such objects
+ * are shared between responses and should be treated as immutable.
+ *
+ * @author Numbers
+ */
+public class HttpCache {
+
+    private final HttpCacheStorage storage;
+    private final ResourceFactory resourceFactory;
+    private final MappedObjectCache mapped;
+    private int maxEntries;
+    private long maxObjectSize = 1024 * 1024;
+
+    /**
+     *
+     * @param storage         the storage of the cache entries
+     * @param resourceFactory the factory storing the cached response bodies
+     * @param maxEntries      the maximum amount of cached responses
+     */
+    protected HttpCache(HttpCacheStorage storage,
+                        ResourceFactory resourceFactory, int maxEntries)
+    {
+        this.storage = storage;
+        this.resourceFactory = resourceFactory;
+        this.maxEntries = maxEntries;
+        this.mapped = new MappedObjectCache(Math.min(maxEntries, 1024));
+    }
+
+    /**
+     * creates a cache keeping up to {@code maxEntries} responses in memory,
+     * evicting the least recently used entry when full.
+     *
+     * @param maxEntries the maximum amount of cached responses
+     * @return a new in-memory cache
+     */
+    public static HttpCache inMemory(int maxEntries)
+    {
+        CacheConfig config = CacheConfig.custom()
+                .setMaxCacheEntries(maxEntries)
+                .build();
+        return new HttpCache(new BasicHttpCacheStorage(config),
+                new HeapResourceFactory(), maxEntries);
+    }
+
+    /**
+     * creates a cache storing up to {@code maxEntries} responses in the given
+     * directory, evicting the least recently used entry when full. Entries
+     * written by an earlier cache on the same directory are reused.
+     *
+     * @param directory  the directory to store the cached responses in
+     * @param maxEntries the maximum amount of cached responses
+     * @return a new disk-backed cache
+     * @throws UncheckedIOException if the directory can not be created
+     */
+    public static HttpCache onDisk(Path directory, int maxEntries) throws
+            UncheckedIOException
+    {
+        try {
+            Path bodies = Files.createDirectories(directory.resolve("bodies"));
+            return new HttpCache(new FileHttpCacheStorage(directory,
+                    maxEntries), new FileResourceFactory(bodies.toFile()),
+                    maxEntries);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * creates a cache on a custom storage
+     *
+     * @param storage    the storage of the cache entries
+     * @param maxEntries the maximum amount of cached responses
+     * @return a new cache, storing response bodies in memory
+     */
+    public static HttpCache of(HttpCacheStorage storage, int maxEntries)
+    {
+        return new HttpCache(storage, new HeapResourceFactory(), maxEntries);
+    }
+
+    /**
+     *
+     * @param bytes the maximum size of a response body to be cached, larger
+     *              responses are passed through. Defaults to 1 MiB.
+     */
+    public void setMaxObjectSize(long bytes)
+    {
+        this.maxObjectSize = bytes;
+    }
+
+    /**
+     *
+     * @return the maximum size of a response body to be cached
+     */
+    public long getMaxObjectSize()
+    {
+        return maxObjectSize;
+    }
+
+    /**
+     *
+     * @return the storage of the cache entries
+     */
+    public HttpCacheStorage getStorage()
+    {
+        return storage;
+    }
+
+    /**
+     * creates a client builder with this cache installed. This method is
+     * used internally when building the client.
+     *
+     * @return a new caching client builder
+     */
+    public CachingHttpClientBuilder newClientBuilder()
+    {
+        return CachingHttpClientBuilder.create()
+                .setHttpCacheStorage(storage)
+                .setResourceFactory(resourceFactory)
+                .setCacheConfig(CacheConfig.custom()
+                        .setMaxCacheEntries(maxEntries)
+                        .setMaxObjectSize(maxObjectSize)
+                        .build());
+    }
+
+    /**
+     * returns the object previously mapped from a cached response
+     *
+     * @param <T>         the type of the mapped object
+     * @param uri         the URI of the request
+     * @param credentials the {@code Authorization} header of the request, or
+     *                    {@code null} if it has none
+     * @param validator   the {@code ETag} or {@code Last-Modified} value of
+     *                    the response
+     * @param type        the type the response was mapped to
+     * @return the mapped object, or {@code null} if not present
+     */
+    public <T> T getMapped(String uri, String credentials, String validator,
+                           Object type)
+    {
+        return mapped.get(uri, credentials, validator, type);
+    }
+
+    /**
+     * remembers an object mapped from a cacheable response
+     *
+     * @param uri         the URI of the request
+     * @param credentials the {@code Authorization} header of the request, or
+     *                    {@code null} if it has none
+     * @param validator   the {@code ETag} or {@code Last-Modified} value of
+     *                    the response
+     * @param type        the type the response was mapped to
+     * @param value       the mapped object
+     */
+    public void putMapped(String uri, String credentials, String validator,
+                          Object type, Object value)
+    {
+        mapped.put(uri, credentials, validator, type, value);
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.numbers.jttp.cache;
+
+import java.util.*;
+
+/**
+ * a small LRU cache of objects mapped from cached responses, keyed by the
+ * request URI and credentials, the validator of the response and the mapped
+ * type. Objects are never handed to a request with other credentials than
+ * the request they were mapped for. As the
+ * validator identifies the exact representation, an entry never needs to be
+ * invalidated, it is simply no longer found once the validator changes.
+ *
+ * @author Numbers
+ */
+class MappedObjectCache {
+
+    private final Map<Key, Object> entries;
+
+    /**
+     *
+     * @param maxEntries the maximum amount of remembered objects
+     */
+    MappedObjectCache(int maxEntries)
+    {
+        this.entries = new LinkedHashMap<Key, Object>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest)
+            {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    synchronized <T> T get(String uri, String credentials, String validator,
+                           Object type)
+    {
+        return (T) entries.get(new Key(uri, credentials, validator, type));
+    }
+
+    synchronized void put(String uri, String credentials, String validator,
+                          Object type, Object value)
+    {
+        entries.put(new Key(uri, credentials, validator, type), value);
+    }
+
+    private static final class Key {
+
+        private final String uri;
+        private final String credentials;
+        private final String validator;
+        private final Object type;
+
+        Key(String uri, String credentials, String validator, Object type)
+        {
+            this.uri = uri;
+            this.credentials = credentials;
+            this.validator = validator;
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return uri.equals(other.uri) && Objects.equals(credentials,
+                    other.credentials) && validator.equals(other.validator)
+                    && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(uri, credentials, validator, type);
+        }
+
+    }
+
+}
@@ -0,0 +1,477 @@
+package com.numbers.jttp.cache;
+
+import com.numbers.jttp.response.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.logging.*;
+import org.apache.http.*;
+
+/**
+ * an application level cache of mapped responses. Successful {@code GET}
+ * requests mapped with {@code asObject}, {@code asObjects} or {@code asMap}
+ * are cached by their URI, the values of the {@link #setKeyHeaders(String...)
+ * key headers} and the target type, so a hit costs neither a network round
+ * trip nor deserialization. Install it with
+ * {@link com.numbers.jttp.Jttp.JTTPConfig#setObjectCache(ObjectCache)
+ * setObjectCache(ObjectCache)}.
+ * <p>
+ * Entries expire a fixed time after being written. Once the total weight of
+ * the entries exceeds the maximum, entries are evicted in second chance
+ * (CLOCK) order, approximating least recently used eviction without locking
+ * on reads. Cached objects are shared between responses and should be treated
+ * as immutable.
+ *
+ * @author Numbers
+ */
+public class ObjectCache {
+
+    private final long ttlNanos;
+    private final long maxWeight;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> clock = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong weight = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private volatile ToLongFunction<Object> weigher = value -> 1;
+    private volatile RemovalListener removalListener = (key, value, cause) -> {
+    };
+    private volatile Set<String> keyHeaders = lowerCase("Accept",
+            "Authorization");
+
+    /**
+     * creates a cache where every entry weighs {@code 1}, so
+     * {@code maxWeight} is the maximum amount of entries until a
+     * {@link #setWeigher(ToLongFunction) weigher} is set.
+     *
+     * @param ttl       the time after which an entry expires
+     * @param unit      the unit of the ttl
+     * @param maxWeight the maximum total weight of the cached entries
+     */
+    public ObjectCache(long ttl, TimeUnit unit, long maxWeight)
+    {
+        this.ttlNanos = unit.toNanos(ttl);
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     *
+     * @param weigher the function computing the weight of a mapped object,
+     *                objects heavier than the maximum weight are not cached
+     */
+    public void setWeigher(ToLongFunction<Object> weigher)
+    {
+        this.weigher = weigher;
+    }
+
+    /**
+     *
+     * @param listener the listener notified of every removed entry
+     */
+    public void setRemovalListener(RemovalListener listener)
+    {
+        this.removalListener = listener;
+    }
+
+    /**
+     * sets the request headers that are part of the cache key, by default
+     * {@code Accept} and {@code Authorization}. Requests differing in any
+     * other header share their cached objects.
+     *
+     * @param headers the names of the headers that are part of the key
+     */
+    public void setKeyHeaders(String... headers)
+    {
+        this.keyHeaders = lowerCase(headers);
+    }
+
+    /**
+     * creates the key of a request
+     *
+     * @param uri     the URI of the request
+     * @param headers the headers of the request
+     * @param type    the type the response is mapped to
+     * @return the key of the request
+     */
+    public Key keyOf(URI uri, List<Header> headers, Object type)
+    {
+        Set<String> names = keyHeaders;
+        List<String> values = new ArrayList<>();
+        for (Header header : headers) {
+            if (names.contains(header.getName()
+                    .toLowerCase(Locale.ROOT))) {
+                values.add(header.getName()
+                        .toLowerCase(Locale.ROOT) + ":" + header.getValue());
+            }
+        }
+        Collections.sort(values);
+        return new Key(uri.toString(), values, type);
+    }
+
+    /**
+     *
+     * @param <T> the type of the mapped object
+     * @param key the key of the request
+     * @return the cached response, or {@code null} if absent or expired
+     */
+    @SuppressWarnings("unchecked")
+    public <T> JsonHttpResponse<T> get(Key key)
+    {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            remove(entry, RemovalCause.EXPIRED);
+            misses.increment();
+            return null;
+        }
+        entry.referenced = true;
+        hits.increment();
+        return (JsonHttpResponse<T>) entry.response;
+    }
+
+    /**
+     * caches a successful response
+     *
+     * @param key      the key of the request
+     * @param response the response to cache
+     */
+    public void put(Key key, JsonHttpResponse<?> response)
+    {
+        Entry current = entries.get(key);
+        if (current != null && current.response == response) {
+            // callers sharing a coalesced request put the same response
+            return;
+        }
+
+        long entryWeight = weigher.applyAsLong(response.getResponse());
+        if (entryWeight > maxWeight) {
+            return;
+        }
+
+        Entry entry = new Entry(key, response, entryWeight, System.nanoTime()
+                + ttlNanos);
+        Entry replaced = entries.put(key, entry);
+        weight.addAndGet(entryWeight);
+        if (replaced != null) {
+            weight.addAndGet(-replaced.weight);
+            notifyRemoval(replaced, RemovalCause.REPLACED);
+        }
+        clock.add(entry);
+        if (weight.get() > maxWeight || queued.incrementAndGet() > 2 * entries
+                .size() + 16) {
+            evict();
+        }
+    }
+
+    /**
+     * removes the cached response of a request
+     *
+     * @param key the key of the request
+     */
+    public void invalidate(Key key)
+    {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            remove(entry, RemovalCause.EXPLICIT);
+        }
+    }
+
+    /**
+     * removes all cached responses
+     */
+    public void invalidateAll()
+    {
+        entries.values()
+                .forEach(entry -> remove(entry, RemovalCause.EXPLICIT));
+    }
+
+    /**
+     *
+     * @return the amount of cached responses
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /**
+     *
+     * @return the total weight of the cached responses
+     */
+    public long getWeight()
+    {
+        return weight.get();
+    }
+
+    /**
+     *
+     * @return a snapshot of the statistics of this cache
+     */
+    public Stats getStats()
+    {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    /**
+     * evicts entries until the total weight is within the maximum. Entries
+     * read since they were last inspected get a second chance and are moved
+     * to the back of the queue.
+     */
+    private synchronized void evict()
+    {
+        long now = System.nanoTime();
+        while (weight.get() > maxWeight) {
+            Entry entry = clock.poll();
+            if (entry == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            if (entries.get(entry.key) != entry) {
+                continue;
+            }
+            if (entry.referenced && !entry.isExpired(now)) {
+                entry.referenced = false;
+                clock.add(entry);
+                queued.incrementAndGet();
+            } else if (remove(entry, entry.isExpired(now)
+                                     ? RemovalCause.EXPIRED
+                                     : RemovalCause.SIZE)) {
+                evictions.increment();
+            }
+        }
+
+        // replaced and removed entries stay queued until polled, compact the
+        // queue once they outnumber the live entries
+        if (queued.get() > 2 * entries.size() + 16) {
+            clock.removeIf(entry -> entries.get(entry.key) != entry);
+            queued.set(clock.size());
+        }
+    }
+
+    private boolean remove(Entry entry, RemovalCause cause)
+    {
+        if (!entries.remove(entry.key, entry)) {
+            return false;
+        }
+        weight.addAndGet(-entry.weight);
+        notifyRemoval(entry, cause);
+        return true;
+    }
+
+    private void notifyRemoval(Entry entry, RemovalCause cause)
+    {
+        try {
+            removalListener.onRemoval(entry.key, entry.response, cause);
+        } catch (RuntimeException ex) {
+            Logger.getLogger(ObjectCache.class.getName())
+                    .log(Level.WARNING, "removal listener failed", ex);
+        }
+    }
+
+    private static Set<String> lowerCase(String... names)
+    {
+        Set<String> lower = new HashSet<>();
+        for (String name : names) {
+            lower.add(name.toLowerCase(Locale.ROOT));
+        }
+        return lower;
+    }
+
+    /**
+     * the reason an entry was removed from the cache
+     */
+    public enum RemovalCause {
+        /**
+         * the entry outlived its time to live
+         */
+        EXPIRED,
+        /**
+         * the entry was evicted to stay within the maximum weight
+         */
+        SIZE,
+        /**
+         * the entry was replaced by a newer response
+         */
+        REPLACED,
+        /**
+         * the entry was invalidated
+         */
+        EXPLICIT
+    }
+
+    /**
+     * a listener notified of every entry removed from the cache
+     */
+    @FunctionalInterface
+    public interface RemovalListener {
+
+        /**
+         *
+         * @param key      the key of the removed entry
+         * @param response the removed response
+         * @param cause    the reason the entry was removed
+         */
+        void onRemoval(Key key, JsonHttpResponse<?> response,
+                       RemovalCause cause);
+
+    }
+
+    /**
+     * the key of a cached response: the request URI, the values of the key
+     * headers and the mapped type
+     */
+    public static final class Key {
+
+        private final String uri;
+        private final List<String> headers;
+        private final Object type;
+
+        Key(String uri, List<String> headers, Object type)
+        {
+            this.uri = uri;
+            this.headers = headers;
+            this.type = type;
+        }
+
+        /**
+         *
+         * @return the URI of the request
+         */
+        public String getUri()
+        {
+            return uri;
+        }
+
+        /**
+         *
+         * @return the type the response is mapped to
+         */
+        public Object getType()
+        {
+            return type;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return uri.equals(other.uri) && headers.equals(other.headers)
+                    && type.equals(other.type);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(uri, headers, type);
+        }
+
+        @Override
+        public String toString()
+        {
+            return uri + " " + headers + " " + type;
+        }
+
+    }
+
+    /**
+     * an immutable snapshot of the statistics of the cache
+     */
+    public static final class Stats {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+
+        Stats(long hitCount, long missCount, long evictionCount)
+        {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+        }
+
+        /**
+         *
+         * @return the amount of lookups that found a cached response
+         */
+        public long getHitCount()
+        {
+            return hitCount;
+        }
+
+        /**
+         *
+         * @return the amount of lookups that found no cached response
+         */
+        public long getMissCount()
+        {
+            return missCount;
+        }
+
+        /**
+         *
+         * @return the amount of entries evicted to stay within the maximum
+         *         weight
+         */
+        public long getEvictionCount()
+        {
+            return evictionCount;
+        }
+
+        /**
+         *
+         * @return the ratio of lookups that found a cached response, or
+         *         {@code 1} if there were no lookups
+         */
+        public double getHitRate()
+        {
+            long requests = hitCount + missCount;
+            return requests == 0 ? 1 : (double) hitCount / requests;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Stats{hits=" + hitCount + ", misses=" + missCount
+                    + ", evictions=" + evictionCount + "}";
+        }
+
+    }
+
+    /**
+     * a cached response with its weight, expiry and CLOCK reference bit
+     */
+    private static final class Entry {
+
+        private final Key key;
+        private final JsonHttpResponse<?> response;
+        private final long weight;
+        private final long expiresAt;
+        private volatile boolean referenced;
+
+        Entry(Key key, JsonHttpResponse<?> response, long weight,
+              long expiresAt)
+        {
+            this.key = key;
+            this.response = response;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isExpired(long now)
+        {
+            return now - expiresAt >= 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * contains the optional HTTP response cache and its storages
+ */
+package com.numbers.jttp.cache;
@@ -0,0 +1,65 @@
+package com.numbers.jttp.compression;
+
+import java.util.*;
+import java.util.stream.*;
+import org.apache.http.*;
+import org.apache.http.protocol.*;
+
+/**
+ * a request interceptor advertising the supported content codings with an
+ * {@code Accept-Encoding} header, unless the request already has one.
+ *
+ * @author Numbers
+ */
+public class AcceptEncodingInterceptor implements HttpRequestInterceptor {
+
+    private final String acceptEncoding;
+
+    /**
+     *
+     * @param encodings the encodings to advertise, in order of preference
+     */
+    public AcceptEncodingInterceptor(List<String> encodings)
+    {
+        this.acceptEncoding = encodings.stream()
+                .collect(Collectors.joining(", "));
+    }
+
+    @Override
+    public void process(HttpRequest request, HttpContext context)
+    {
+        if (!acceptEncoding.isEmpty() && !request.containsHeader(
+                HttpHeaders.ACCEPT_ENCODING)) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+    }
+
+    /**
+     *
+     * @return the encodings that can be decoded at runtime, in order of
+     *         preference
+     */
+    public static List<String> supportedEncodings()
+    {
+        List<String> encodings = new ArrayList<>();
+        for (ContentCoding coding : ContentCoding.values()) {
+            if (coding.isAvailable()) {
+                encodings.add(coding.token());
+            }
+        }
+        return encodings;
+    }
+
+    /**
+     *
+     * @param encoding an encoding token
+     * @return true if responses with the encoding can be decoded
+     */
+    public static boolean isSupported(String encoding)
+    {
+        return encoding.equalsIgnoreCase("identity") || ContentCoding.of(
+                encoding)
+                .isPresent();
+    }
+
+}
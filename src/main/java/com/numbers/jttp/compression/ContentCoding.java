@@ -0,0 +1,118 @@
+package com.numbers.jttp.compression;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * the content codings that can be decoded, by their HTTP token.
+ *
+ * @author Numbers
+ */
+enum ContentCoding {
+
+    /**
+     * gzip, also known as x-gzip
+     */
+    GZIP("gzip") {
+        @Override
+        InputStream decode(InputStream in) throws IOException
+        {
+            return new GzipInputStream(in, InflaterPool.SHARED);
+        }
+    },
+    /**
+     * zlib wrapped (or raw) deflate
+     */
+    DEFLATE("deflate") {
+        @Override
+        InputStream decode(InputStream in) throws IOException
+        {
+            return PooledInflaterInputStream.deflate(in, InflaterPool.SHARED);
+        }
+    },
+    /**
+     * brotli, only available if the optional {@code org.brotli:dec} library
+     * is present
+     */
+    BROTLI("br") {
+        @Override
+        InputStream decode(InputStream in) throws IOException
+        {
+            return new org.brotli.dec.BrotliInputStream(in);
+        }
+
+        @Override
+        boolean isAvailable()
+        {
+            return BROTLI_AVAILABLE;
+        }
+    };
+
+    private static final boolean BROTLI_AVAILABLE = isPresent(
+            "org.brotli.dec.BrotliInputStream");
+
+    private final String token;
+
+    private ContentCoding(String token)
+    {
+        this.token = token;
+    }
+
+    /**
+     *
+     * @param in the encoded stream
+     * @return a stream decoding the given stream
+     * @throws IOException if the encoded stream could not be read
+     */
+    abstract InputStream decode(InputStream in) throws IOException;
+
+    /**
+     *
+     * @return true if this coding can be decoded at runtime
+     */
+    boolean isAvailable()
+    {
+        return true;
+    }
+
+    /**
+     *
+     * @return the HTTP token of this coding
+     */
+    String token()
+    {
+        return token;
+    }
+
+    /**
+     *
+     * @param token the HTTP token, case insensitive
+     * @return the coding, or an empty optional if it is not supported
+     */
+    static Optional<ContentCoding> of(String token)
+    {
+        String lower = token.trim()
+                .toLowerCase(Locale.ROOT);
+        if (lower.equals("x-gzip")) {
+            return Optional.of(GZIP);
+        }
+        for (ContentCoding coding : values()) {
+            if (coding.token.equals(lower) && coding.isAvailable()) {
+                return Optional.of(coding);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isPresent(String className)
+    {
+        try {
+            Class.forName(className, false, ContentCoding.class
+                    .getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError ex) {
+            return false;
+        }
+    }
+
+}
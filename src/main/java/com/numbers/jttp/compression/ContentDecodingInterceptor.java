@@ -0,0 +1,62 @@
+package com.numbers.jttp.compression;
+
+import java.util.*;
+import org.apache.http.*;
+import org.apache.http.protocol.*;
+
+/**
+ * a response interceptor replacing the entity of a compressed response with a
+ * streaming decoder, removing the {@code Content-Encoding},
+ * {@code Content-Length} and {@code Content-MD5} headers as they describe the
+ * encoded body. Supports {@code gzip}, {@code deflate} and, if the optional
+ * {@code org.brotli:dec} library is present, {@code br}.
+ *
+ * @author Numbers
+ */
+public class ContentDecodingInterceptor implements HttpResponseInterceptor {
+
+    @Override
+    public void process(HttpResponse response, HttpContext context) throws
+            HttpException
+    {
+        decode(response);
+    }
+
+    /**
+     * decodes the entity of the given response in place, if it is encoded.
+     *
+     * @param response the response to decode
+     * @throws HttpException if the response uses an unsupported encoding
+     */
+    public static void decode(HttpResponse response) throws HttpException
+    {
+        HttpEntity entity = response.getEntity();
+        if (entity == null || entity.getContentLength() == 0) {
+            return;
+        }
+        Header encoding = entity.getContentEncoding();
+        if (encoding == null) {
+            return;
+        }
+
+        List<ContentCoding> codings = new ArrayList<>();
+        for (HeaderElement element : encoding.getElements()) {
+            String token = element.getName();
+            if (token.equalsIgnoreCase("identity")) {
+                continue;
+            }
+            codings.add(ContentCoding.of(token)
+                    .orElseThrow(() -> new HttpException(
+                            "Unsupported Content-Encoding: " + token)));
+        }
+        if (codings.isEmpty()) {
+            return;
+        }
+
+        response.setEntity(new DecompressingEntity(entity, codings));
+        response.removeHeaders(HTTP.CONTENT_LEN);
+        response.removeHeaders(HTTP.CONTENT_ENCODING);
+        response.removeHeaders("Content-MD5");
+    }
+
+}
@@ -0,0 +1,77 @@
+package com.numbers.jttp.compression;
+
+import java.io.*;
+import java.util.*;
+import org.apache.commons.io.*;
+import org.apache.http.*;
+import org.apache.http.entity.*;
+
+/**
+ * a response entity wrapper decoding the content of the wrapped entity while
+ * it is read, so the mapper reads the decompressed stream without the body
+ * ever being decompressed into memory first.
+ *
+ * @author Numbers
+ */
+class DecompressingEntity extends HttpEntityWrapper {
+
+    /**
+     * the codings in the order they were applied, decoded in reverse order
+     */
+    private final List<ContentCoding> codings;
+    private InputStream content;
+
+    /**
+     *
+     * @param entity  the encoded entity
+     * @param codings the codings in the order they were applied
+     */
+    DecompressingEntity(HttpEntity entity, List<ContentCoding> codings)
+    {
+        super(entity);
+        this.codings = codings;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException
+    {
+        if (!wrappedEntity.isStreaming()) {
+            return decode(wrappedEntity.getContent());
+        }
+        if (content == null) {
+            content = decode(wrappedEntity.getContent());
+        }
+        return content;
+    }
+
+    private InputStream decode(InputStream encoded) throws IOException
+    {
+        InputStream decoded = encoded;
+        for (int i = codings.size() - 1; i >= 0; i--) {
+            decoded = codings.get(i)
+                    .decode(decoded);
+        }
+        return decoded;
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException
+    {
+        try (InputStream in = getContent()) {
+            IOUtils.copy(in, outstream);
+        }
+    }
+
+    @Override
+    public Header getContentEncoding()
+    {
+        return null;
+    }
+
+    @Override
+    public long getContentLength()
+    {
+        return -1;
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.numbers.jttp.compression;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+/**
+ * a bounded pool of raw {@link Deflater Deflaters} with the default
+ * compression level, so compressing a request body does not allocate and
+ * free native zlib state every time.
+ *
+ * @author Numbers
+ */
+final class DeflaterPool {
+
+    /**
+     * the pool shared by all encoders
+     */
+    static final DeflaterPool SHARED = new DeflaterPool(Runtime.getRuntime()
+            .availableProcessors() * 2);
+
+    private final int maxIdle;
+    private final Queue<Deflater> deflaters = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idle = new AtomicInteger();
+
+    /**
+     *
+     * @param maxIdle the maximum amount of idle deflaters kept
+     */
+    DeflaterPool(int maxIdle)
+    {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     *
+     * @return a pooled or new raw deflater
+     */
+    Deflater acquire()
+    {
+        Deflater deflater = deflaters.poll();
+        if (deflater == null) {
+            return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        }
+        idle.decrementAndGet();
+        return deflater;
+    }
+
+    /**
+     * resets and returns a deflater to the pool, or frees it if the pool is
+     * full.
+     *
+     * @param deflater the deflater to return
+     */
+    void release(Deflater deflater)
+    {
+        if (idle.incrementAndGet() > maxIdle) {
+            idle.decrementAndGet();
+            deflater.end();
+            return;
+        }
+        deflater.reset();
+        deflaters.offer(deflater);
+    }
+
+    /**
+     *
+     * @return the amount of idle deflaters
+     */
+    int idle()
+    {
+        return idle.get();
+    }
+
+}
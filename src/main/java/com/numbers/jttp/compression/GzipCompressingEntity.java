@@ -0,0 +1,138 @@
+package com.numbers.jttp.compression;
+
+import java.io.*;
+import java.util.zip.*;
+import org.apache.http.*;
+import org.apache.http.entity.*;
+import org.apache.http.message.*;
+import org.apache.http.protocol.*;
+
+/**
+ * a request entity wrapper gzip compressing the wrapped entity while it is
+ * written to the connection, using a pooled deflater. The compressed length
+ * is unknown up front, so the entity is sent with chunked transfer encoding.
+ *
+ * @author Numbers
+ */
+public class GzipCompressingEntity extends HttpEntityWrapper {
+
+    private static final byte[] HEADER = {
+        0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final DeflaterPool pool;
+
+    /**
+     *
+     * @param entity the entity to compress
+     */
+    public GzipCompressingEntity(HttpEntity entity)
+    {
+        this(entity, DeflaterPool.SHARED);
+    }
+
+    /**
+     *
+     * @param entity the entity to compress
+     * @param pool   the pool to take the deflater from
+     */
+    GzipCompressingEntity(HttpEntity entity, DeflaterPool pool)
+    {
+        super(entity);
+        this.pool = pool;
+    }
+
+    /**
+     * decides whether a body is worth compressing
+     *
+     * @param entity    the body
+     * @param threshold the size in bytes up to which bodies are sent as is
+     * @return true if the body has an unknown length or is larger than the
+     *         threshold and is not encoded already
+     */
+    public static boolean shouldCompress(HttpEntity entity, long threshold)
+    {
+        long length = entity.getContentLength();
+        return entity.getContentEncoding() == null && (length < 0
+                || length > threshold);
+    }
+
+    @Override
+    public Header getContentEncoding()
+    {
+        return new BasicHeader(HTTP.CONTENT_ENCODING, "gzip");
+    }
+
+    @Override
+    public long getContentLength()
+    {
+        return -1;
+    }
+
+    @Override
+    public boolean isChunked()
+    {
+        return true;
+    }
+
+    /**
+     * compresses the whole body into memory, only
+     * {@link #writeTo(OutputStream) writeTo} compresses while streaming.
+     * Compressed requests are therefore sent on the blocking client, as the
+     * non-blocking client reads the content.
+     *
+     * @return a stream of the compressed body
+     * @throws IOException if the body could not be read
+     */
+    @Override
+    public InputStream getContent() throws IOException
+    {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        writeTo(compressed);
+        return new ByteArrayInputStream(compressed.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException
+    {
+        Deflater deflater = pool.acquire();
+        try {
+            outstream.write(HEADER);
+
+            CRC32 crc = new CRC32();
+            DeflaterOutputStream deflating = new DeflaterOutputStream(
+                    new FilterOutputStream(outstream) {
+                @Override
+                public void write(byte[] b, int off, int len) throws
+                        IOException
+                {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close()
+                {
+                    // the connection stream is closed by the client
+                }
+            }, deflater, 8192);
+            wrappedEntity.writeTo(new CheckedOutputStream(deflating, crc));
+            deflating.finish();
+
+            writeInt(outstream, crc.getValue());
+            writeInt(outstream, deflater.getBytesRead());
+            outstream.flush();
+        } finally {
+            pool.release(deflater);
+        }
+    }
+
+    private static void writeInt(OutputStream out, long value) throws
+            IOException
+    {
+        out.write((int) value & 0xFF);
+        out.write((int) (value >> 8) & 0xFF);
+        out.write((int) (value >> 16) & 0xFF);
+        out.write((int) (value >> 24) & 0xFF);
+    }
+
+}
@@ -0,0 +1,127 @@
+package com.numbers.jttp.compression;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * a gzip decoding stream using a pooled inflater, unlike
+ * {@link GZIPInputStream GZIPInputStream} which allocates its own. The header
+ * is parsed on creation and the CRC and size in the trailer are verified at
+ * the end of the data. Only the first member of the gzip file is read.
+ *
+ * @author Numbers
+ */
+class GzipInputStream extends PooledInflaterInputStream {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private final CRC32 crc = new CRC32();
+    private boolean trailerRead;
+
+    /**
+     *
+     * @param in   the gzip compressed stream
+     * @param pool the pool to take the inflater from
+     * @throws IOException if the header is invalid or could not be read
+     */
+    GzipInputStream(InputStream in, InflaterPool pool) throws IOException
+    {
+        super(in, pool, true);
+        try {
+            readHeader();
+        } catch (IOException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (trailerRead) {
+            return -1;
+        }
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            crc.update(b, off, n);
+        } else if (n < 0) {
+            readTrailer();
+        }
+        return n;
+    }
+
+    private void readHeader() throws IOException
+    {
+        if (readUShort(in) != 0x8b1f) {
+            throw new ZipException("Not in GZIP format");
+        }
+        if (readUByte(in) != 8) {
+            throw new ZipException("Unsupported compression method");
+        }
+        int flags = readUByte(in);
+        skipFully(in, 6);
+        if ((flags & FEXTRA) != 0) {
+            skipFully(in, readUShort(in));
+        }
+        if ((flags & FNAME) != 0) {
+            while (readUByte(in) != 0) {
+            }
+        }
+        if ((flags & FCOMMENT) != 0) {
+            while (readUByte(in) != 0) {
+            }
+        }
+        if ((flags & FHCRC) != 0) {
+            skipFully(in, 2);
+        }
+    }
+
+    private void readTrailer() throws IOException
+    {
+        trailerRead = true;
+        int remaining = inf.getRemaining();
+        InputStream trailer = remaining > 0
+                              ? new SequenceInputStream(
+                                      new ByteArrayInputStream(buf, len
+                                              - remaining, remaining), in)
+                              : in;
+        long expectedCrc = readUInt(trailer);
+        long expectedSize = readUInt(trailer);
+        if (expectedCrc != crc.getValue()) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+        if (expectedSize != (inf.getBytesWritten() & 0xFFFFFFFFL)) {
+            throw new ZipException("Corrupt GZIP trailer");
+        }
+    }
+
+    private static long readUInt(InputStream in) throws IOException
+    {
+        return readUShort(in) | ((long) readUShort(in) << 16);
+    }
+
+    private static int readUShort(InputStream in) throws IOException
+    {
+        return readUByte(in) | (readUByte(in) << 8);
+    }
+
+    private static int readUByte(InputStream in) throws IOException
+    {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("Unexpected end of GZIP stream");
+        }
+        return b;
+    }
+
+    private static void skipFully(InputStream in, int n) throws IOException
+    {
+        for (int i = 0; i < n; i++) {
+            readUByte(in);
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.numbers.jttp.compression;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.zip.*;
+
+/**
+ * a bounded pool of {@link Inflater Inflaters}, so decoding a response does
+ * not allocate and free native zlib state every time. Raw (gzip) and zlib
+ * wrapped (deflate) inflaters are pooled separately.
+ *
+ * @author Numbers
+ */
+final class InflaterPool {
+
+    /**
+     * the pool shared by all decoders
+     */
+    static final InflaterPool SHARED = new InflaterPool(Runtime.getRuntime()
+            .availableProcessors() * 4);
+
+    private final int maxIdle;
+    private final Queue<Inflater> raw = new ConcurrentLinkedQueue<>();
+    private final Queue<Inflater> wrapped = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger rawIdle = new AtomicInteger();
+    private final AtomicInteger wrappedIdle = new AtomicInteger();
+
+    /**
+     *
+     * @param maxIdle the maximum amount of idle inflaters kept per kind
+     */
+    InflaterPool(int maxIdle)
+    {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     *
+     * @param nowrap true for a raw inflater, false for zlib wrapped data
+     * @return a pooled or new inflater
+     */
+    Inflater acquire(boolean nowrap)
+    {
+        Inflater inflater = (nowrap ? raw : wrapped).poll();
+        if (inflater == null) {
+            return new Inflater(nowrap);
+        }
+        (nowrap ? rawIdle : wrappedIdle).decrementAndGet();
+        return inflater;
+    }
+
+    /**
+     * resets and returns an inflater to the pool, or frees it if the pool is
+     * full.
+     *
+     * @param inflater the inflater to return
+     * @param nowrap   the kind the inflater was acquired with
+     */
+    void release(Inflater inflater, boolean nowrap)
+    {
+        AtomicInteger idle = nowrap ? rawIdle : wrappedIdle;
+        if (idle.incrementAndGet() > maxIdle) {
+            idle.decrementAndGet();
+            inflater.end();
+            return;
+        }
+        inflater.reset();
+        (nowrap ? raw : wrapped).offer(inflater);
+    }
+
+    /**
+     *
+     * @param nowrap the kind of inflaters
+     * @return the amount of idle inflaters of the kind
+     */
+    int idle(boolean nowrap)
+    {
+        return (nowrap ? rawIdle : wrappedIdle).get();
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.numbers.jttp.compression;
+
+import java.io.*;
+import java.util.zip.*;
+
+/**
+ * an {@link InflaterInputStream InflaterInputStream} returning its inflater
+ * to the {@link InflaterPool InflaterPool} when closed.
+ *
+ * @author Numbers
+ */
+class PooledInflaterInputStream extends InflaterInputStream {
+
+    private final InflaterPool pool;
+    private final boolean nowrap;
+    private boolean released;
+
+    /**
+     *
+     * @param in     the compressed stream
+     * @param pool   the pool to take the inflater from
+     * @param nowrap true for raw deflate data, false for zlib wrapped data
+     */
+    PooledInflaterInputStream(InputStream in, InflaterPool pool, boolean nowrap)
+    {
+        super(in, pool.acquire(nowrap), 8192);
+        this.pool = pool;
+        this.nowrap = nowrap;
+    }
+
+    /**
+     * creates a stream decoding an HTTP {@code deflate} body, which is
+     * usually zlib wrapped, but raw deflate data is sent by some servers.
+     *
+     * @param in   the compressed stream
+     * @param pool the pool to take the inflater from
+     * @return a decoding stream
+     * @throws IOException if the stream could not be read
+     */
+    static InputStream deflate(InputStream in, InflaterPool pool) throws
+            IOException
+    {
+        PushbackInputStream peek = new PushbackInputStream(in, 2);
+        byte[] header = new byte[2];
+        int read = 0;
+        while (read < 2) {
+            int n = peek.read(header, read, 2 - read);
+            if (n < 0) {
+                break;
+            }
+            read += n;
+        }
+        peek.unread(header, 0, read);
+
+        int cmf = header[0] & 0xFF;
+        int flg = header[1] & 0xFF;
+        boolean zlib = read == 2 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg)
+                % 31 == 0;
+        return new PooledInflaterInputStream(peek, pool, !zlib);
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try {
+            super.close();
+        } finally {
+            if (!released) {
+                released = true;
+                pool.release(inf, nowrap);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * contains the content encoding negotiation and the streaming decoders of
+ * compressed responses
+ */
+package com.numbers.jttp.compression;
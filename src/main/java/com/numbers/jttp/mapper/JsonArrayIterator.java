@@ -0,0 +1,133 @@
+package com.numbers.jttp.mapper;
+
+import java.io.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * an iterator over the elements of a JSON array, reading a single element
+ * from the inputstream per call to {@link #next() next()}. The elements are
+ * only split, not parsed: the bytes of every element are handed to a mapping
+ * function, so only one element is held in memory at a time. Splitting works
+ * on the UTF-8 bytes directly, as the bytes of multi-byte characters never
+ * match the ASCII structural characters of JSON.
+ *
+ * @author Numbers
+ * @param <T> the type of the mapped elements
+ */
+final class JsonArrayIterator<T> implements Iterator<T> {
+
+    private final InputStream json;
+    private final Function<byte[], T> mapper;
+    private final ByteArrayOutputStream element = new ByteArrayOutputStream();
+    private boolean buffered;
+    private boolean finished;
+
+    /**
+     *
+     * @param json   the inputstream containing a JSON array
+     * @param mapper the function mapping the bytes of a single element
+     */
+    JsonArrayIterator(InputStream json, Function<byte[], T> mapper)
+    {
+        this.json = json instanceof BufferedInputStream
+                    ? json
+                    : new BufferedInputStream(json);
+        this.mapper = mapper;
+        try {
+            if (skipWhitespace() != '[') {
+                throw new IOException("expected a JSON array");
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        if (buffered) {
+            return true;
+        }
+        if (finished) {
+            return false;
+        }
+        try {
+            readElement();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return buffered;
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        buffered = false;
+        byte[] bytes = element.toByteArray();
+        element.reset();
+        return mapper.apply(bytes);
+    }
+
+    /**
+     * reads the bytes of the next element up to and including the comma or
+     * closing bracket following it
+     */
+    private void readElement() throws IOException
+    {
+        int depth = 0;
+        boolean inString = false;
+        boolean escaped = false;
+        int c = skipWhitespace();
+        if (c == ']') {
+            finished = true;
+            return;
+        }
+        while (true) {
+            if (c < 0) {
+                throw new EOFException("unterminated JSON array");
+            }
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '[' || c == '{') {
+                depth++;
+            } else if (c == ']' || c == '}') {
+                if (depth == 0) {
+                    // the closing bracket of the array itself
+                    finished = true;
+                    break;
+                }
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                break;
+            }
+            element.write(c);
+            c = json.read();
+        }
+        if (element.size() == 0) {
+            throw new IOException("empty JSON array element");
+        }
+        buffered = true;
+    }
+
+    private int skipWhitespace() throws IOException
+    {
+        int c;
+        do {
+            c = json.read();
+        } while (c == ' ' || c == '\t' || c == '\n' || c == '\r');
+        return c;
+    }
+
+}
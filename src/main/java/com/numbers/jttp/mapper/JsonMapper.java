@@ -1,17 +1,49 @@
 package com.numbers.jttp.mapper;
 
 import java.io.*;
+import java.lang.reflect.*;
+import java.nio.charset.*;
 import java.util.*;
+import java.util.logging.*;
 
 /**
  * a wrapper interface intended to be implemented by other frameworks that
  * specialize in JSON parsing and object mapping. An instance of this object is
  * required to use the JSON mapping available in JTTP.
+ * <p>
+ * Implementations can be registered as a {@link java.util.ServiceLoader}
+ * service, in which case they are used when no mapper is configured. JTTP
+ * ships adapters for Jackson and Gson, which are registered this way and are
+ * active when the respective library is on the classpath.
  *
  * @author Numbers
  */
 public interface JsonMapper {
 
+    /**
+     * looks up the first JsonMapper registered as a service that can be
+     * instantiated. Adapters of which the library is missing are skipped.
+     *
+     * @return the first available mapper, or an empty optional if none is
+     *         available
+     */
+    public static Optional<JsonMapper> discover()
+    {
+        Iterator<JsonMapper> mappers = ServiceLoader.load(JsonMapper.class)
+                .iterator();
+        while (true) {
+            try {
+                if (!mappers.hasNext()) {
+                    return Optional.empty();
+                }
+                return Optional.of(mappers.next());
+            } catch (ServiceConfigurationError | LinkageError ex) {
+                Logger.getLogger(JsonMapper.class.getName())
+                        .log(Level.FINE, "skipping unavailable mapper", ex);
+            }
+        }
+    }
+
     /**
      * maps the given inputStream to an object of the given class
      *
@@ -23,6 +55,58 @@ public interface JsonMapper {
      */
     <T> T readValue(InputStream json, Class<T> valueClass);
 
+    /**
+     * maps the given inputstream to an object of the given, possibly
+     * generic, type. The default implementation only supports plain classes.
+     *
+     * @param <T>  the type of the return object
+     * @param json the body inputstream
+     * @param type the type to which the inputstream has to be mapped to
+     * @return an instance of the given type with properties bound from the
+     *         JSON
+     * @throws UnsupportedOperationException if the mapper does not support
+     *                                       generic types
+     */
+    @SuppressWarnings("unchecked")
+    default <T> T readValue(InputStream json, Type type)
+    {
+        if (type instanceof Class) {
+            return readValue(json, (Class<T>) type);
+        }
+        throw new UnsupportedOperationException(
+                "generic types are not supported by " + getClass().getName());
+    }
+
+    /**
+     * maps the given inputstream to an object of the type captured by the
+     * given type token.
+     *
+     * @param <T>  the type of the return object
+     * @param json the body inputstream
+     * @param type the token of the type to which the inputstream has to be
+     *             mapped to
+     * @return an instance of the given type with properties bound from the
+     *         JSON
+     */
+    default <T> T readValue(InputStream json, TypeReference<T> type)
+    {
+        return readValue(json, type.getType());
+    }
+
+    /**
+     * maps the given UTF-8 encoded bytes to an object of the given class
+     *
+     * @param <T>        the type of the return object
+     * @param json       the JSON bytes
+     * @param valueClass the class to which the bytes have to be mapped to
+     * @return an instance of the given valueClass with properties bound from
+     *         the JSON
+     */
+    default <T> T readValue(byte[] json, Class<T> valueClass)
+    {
+        return readValue(new ByteArrayInputStream(json), valueClass);
+    }
+
     /**
      * maps the given inputstream to a {@link java.util.Collection Collection}
      * class of objects given as parameters
@@ -60,6 +144,31 @@ public interface JsonMapper {
                                                      Class<K> keyClass,
                                                      Class<V> valueClass);
 
+    /**
+     * lazily maps the elements of the JSON array in the given inputstream to
+     * objects of the given class. Implementations should parse a single array
+     * element per call to {@link Iterator#next() next()}, so that memory use
+     * does not depend on the size of the array.
+     * <p>
+     * The default implementation splits the array into its elements without
+     * parsing them, and maps every element on its own with
+     * {@link #readValue(byte[], Class) readValue(byte[], Class)}. Mappers with
+     * a streaming parser should override it to avoid scanning every element
+     * twice.
+     *
+     * @param <T>        the type of the array elements
+     * @param json       the body inputstream containing a JSON array
+     * @param valueClass the class to which each array element has to be
+     *                   mapped to
+     * @return an iterator over the mapped array elements
+     */
+    default <T> Iterator<T> readValueIterator(InputStream json,
+                                              Class<T> valueClass)
+    {
+        return new JsonArrayIterator<>(json, element -> readValue(element,
+                valueClass));
+    }
+
     /**
      * converts the given object to a valid JSON String
      *
@@ -67,4 +176,33 @@ public interface JsonMapper {
      * @return a valid JSON String representing the given object's state
      */
     String writeValue(Object o);
+
+    /**
+     * writes the JSON representation of the given object to the given
+     * outputstream as UTF-8. Implementations should serialize directly into
+     * the stream; the default implementation writes the result of
+     * {@link #writeValue(Object) writeValue(Object)}. The stream is not
+     * closed.
+     *
+     * @param o   the object to convert
+     * @param out the stream to write the JSON to
+     * @throws IOException if writing to the stream fails
+     */
+    default void writeValue(Object o, OutputStream out) throws IOException
+    {
+        out.write(writeValueAsBytes(o));
+    }
+
+    /**
+     * converts the given object to UTF-8 encoded JSON bytes. The default
+     * implementation encodes the result of
+     * {@link #writeValue(Object) writeValue(Object)}.
+     *
+     * @param o the object to convert
+     * @return the JSON representation of the given object's state
+     */
+    default byte[] writeValueAsBytes(Object o)
+    {
+        return writeValue(o).getBytes(StandardCharsets.UTF_8);
+    }
 }
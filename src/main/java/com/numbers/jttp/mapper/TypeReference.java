@@ -0,0 +1,44 @@
+package com.numbers.jttp.mapper;
+
+import java.lang.reflect.*;
+
+/**
+ * a type token capturing a generic type, for mapping JSON to types that can
+ * not be expressed as a {@link java.lang.Class Class}. Create it as an
+ * anonymous subclass:
+ * <pre>{@code
+ * new TypeReference<List<Map<String, Integer>>>() {}
+ * }</pre>
+ *
+ * @author Numbers
+ * @param <T> the captured type
+ */
+public abstract class TypeReference<T> {
+
+    private final Type type;
+
+    /**
+     * captures the type argument of the anonymous subclass
+     *
+     * @throws IllegalArgumentException if created without a type argument
+     */
+    protected TypeReference()
+    {
+        Type superclass = getClass().getGenericSuperclass();
+        if (!(superclass instanceof ParameterizedType)) {
+            throw new IllegalArgumentException(
+                    "TypeReference must be created with a type argument");
+        }
+        this.type = ((ParameterizedType) superclass).getActualTypeArguments()[0];
+    }
+
+    /**
+     *
+     * @return the captured type
+     */
+    public Type getType()
+    {
+        return type;
+    }
+
+}
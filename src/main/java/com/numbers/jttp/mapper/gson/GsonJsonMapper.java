@@ -0,0 +1,128 @@
+package com.numbers.jttp.mapper.gson;
+
+import com.google.gson.*;
+import com.google.gson.reflect.*;
+import com.google.gson.stream.*;
+import com.numbers.jttp.mapper.*;
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * a {@link com.numbers.jttp.mapper.JsonMapper JsonMapper} backed by
+ * {@link com.google.gson.Gson Gson}. JSON is decoded and encoded as UTF-8 and
+ * arrays are parsed incrementally with a {@link JsonReader JsonReader}.
+ * <p>
+ * This adapter is registered as a service and only available when Gson is on
+ * the classpath.
+ *
+ * @author Numbers
+ */
+public class GsonJsonMapper implements JsonMapper {
+
+    private final Gson gson;
+
+    /**
+     * creates a mapper with a default Gson instance
+     */
+    public GsonJsonMapper()
+    {
+        this(new Gson());
+    }
+
+    /**
+     *
+     * @param gson the configured Gson instance to delegate to
+     */
+    public GsonJsonMapper(Gson gson)
+    {
+        this.gson = gson;
+    }
+
+    @Override
+    public <T> T readValue(InputStream json, Class<T> valueClass)
+    {
+        return readValue(json, (Type) valueClass);
+    }
+
+    @Override
+    public <T> T readValue(InputStream json, Type type)
+    {
+        try (Reader reader = new InputStreamReader(json, StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, type);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public <T, C extends Collection> C readValues(InputStream json,
+                                                  Class<C> collectionClass,
+                                                  Class<T> valueClass)
+    {
+        return readValue(json, TypeToken.getParameterized(collectionClass,
+                valueClass)
+                .getType());
+    }
+
+    @Override
+    public <M extends Map<K, V>, K, V> Map<K, V> readValues(InputStream json,
+                                                            Class<M> mapClass,
+                                                            Class<K> keyClass,
+                                                            Class<V> valueClass)
+    {
+        return readValue(json, TypeToken.getParameterized(mapClass, keyClass,
+                valueClass)
+                .getType());
+    }
+
+    @Override
+    public <T> Iterator<T> readValueIterator(InputStream json,
+                                             Class<T> valueClass)
+    {
+        JsonReader reader = gson.newJsonReader(new InputStreamReader(json,
+                StandardCharsets.UTF_8));
+        try {
+            reader.beginArray();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext()
+            {
+                try {
+                    return reader.hasNext();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+
+            @Override
+            public T next()
+            {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return gson.fromJson(reader, valueClass);
+            }
+        };
+    }
+
+    @Override
+    public String writeValue(Object o)
+    {
+        return gson.toJson(o);
+    }
+
+    @Override
+    public void writeValue(Object o, OutputStream out) throws IOException
+    {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        gson.toJson(o, writer);
+        writer.flush();
+    }
+
+}
@@ -0,0 +1,4 @@
+/**
+ * contains the JSON mapper adapter for Gson
+ */
+package com.numbers.jttp.mapper.gson;
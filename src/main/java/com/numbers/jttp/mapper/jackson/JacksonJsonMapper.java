@@ -0,0 +1,151 @@
+package com.numbers.jttp.mapper.jackson;
+
+import com.fasterxml.jackson.core.*;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.type.*;
+import com.numbers.jttp.mapper.*;
+import java.io.*;
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * a {@link com.numbers.jttp.mapper.JsonMapper JsonMapper} backed by a Jackson
+ * {@link com.fasterxml.jackson.databind.ObjectMapper ObjectMapper}. Jackson
+ * parses and writes bytes directly and supports incremental array parsing.
+ * <p>
+ * This adapter is registered as a service and only available when
+ * jackson-databind is on the classpath.
+ *
+ * @author Numbers
+ */
+public class JacksonJsonMapper implements JsonMapper {
+
+    private final ObjectMapper mapper;
+    private final ObjectWriter writer;
+
+    /**
+     * creates a mapper with a default ObjectMapper
+     */
+    public JacksonJsonMapper()
+    {
+        this(new ObjectMapper());
+    }
+
+    /**
+     *
+     * @param mapper the configured ObjectMapper to delegate to
+     */
+    public JacksonJsonMapper(ObjectMapper mapper)
+    {
+        this.mapper = mapper;
+        this.writer = mapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public <T> T readValue(InputStream json, Class<T> valueClass)
+    {
+        try {
+            return mapper.readValue(json, valueClass);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public <T> T readValue(InputStream json, Type type)
+    {
+        try {
+            return mapper.readValue(json, mapper.getTypeFactory()
+                    .constructType(type));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public <T> T readValue(byte[] json, Class<T> valueClass)
+    {
+        try {
+            return mapper.readValue(json, valueClass);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public <T, C extends Collection> C readValues(InputStream json,
+                                                  Class<C> collectionClass,
+                                                  Class<T> valueClass)
+    {
+        CollectionType type = mapper.getTypeFactory()
+                .constructCollectionType(collectionClass, valueClass);
+        return readJavaType(json, type);
+    }
+
+    @Override
+    public <M extends Map<K, V>, K, V> Map<K, V> readValues(InputStream json,
+                                                            Class<M> mapClass,
+                                                            Class<K> keyClass,
+                                                            Class<V> valueClass)
+    {
+        MapType type = mapper.getTypeFactory()
+                .constructMapType(mapClass, keyClass, valueClass);
+        return readJavaType(json, type);
+    }
+
+    @Override
+    public <T> Iterator<T> readValueIterator(InputStream json,
+                                             Class<T> valueClass)
+    {
+        try {
+            return mapper.readerFor(valueClass)
+                    .readValues(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public String writeValue(Object o)
+    {
+        try {
+            return writer.writeValueAsString(o);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void writeValue(Object o, OutputStream out) throws IOException
+    {
+        writer.writeValue(out, o);
+    }
+
+    @Override
+    public byte[] writeValueAsBytes(Object o)
+    {
+        try {
+            return writer.writeValueAsBytes(o);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     *
+     * @param <T>  the type of the return object
+     * @param json the body inputstream
+     * @param type the resolved Jackson type
+     * @return the mapped object
+     */
+    private <T> T readJavaType(InputStream json, JavaType type)
+    {
+        try {
+            return mapper.readValue(json, type);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+}
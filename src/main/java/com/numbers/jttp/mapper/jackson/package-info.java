@@ -0,0 +1,4 @@
+/**
+ * contains the JSON mapper adapter for Jackson
+ */
+package com.numbers.jttp.mapper.jackson;
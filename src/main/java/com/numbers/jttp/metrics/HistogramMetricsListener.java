@@ -0,0 +1,114 @@
+package com.numbers.jttp.metrics;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * an in-memory {@link MetricsListener MetricsListener} keeping a
+ * {@link LatencyHistogram LatencyHistogram} per timing and a counter per
+ * outcome, tagged by host and method. Metrics are named in the form
+ * {@code name{host=example.com,method=GET}}, with the names:
+ * <ul>
+ * <li>histograms (nanoseconds): {@code queue_wait}, {@code throttle_wait},
+ * {@code lease}, {@code dns}, {@code connect}, {@code ttfb},
+ * {@code total}</li>
+ * <li>counters: {@code requests} (additionally tagged by {@code status}
+ * class), {@code failures} (additionally tagged by {@code cause}),
+ * {@code request_bytes}, {@code response_bytes}</li>
+ * </ul>
+ *
+ * @author Numbers
+ */
+public class HistogramMetricsListener implements MetricsListener {
+
+    private final ConcurrentMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void onComplete(RequestTimings timings)
+    {
+        String tags = tags(timings);
+        recordIfPresent("queue_wait", tags, timings.getQueueWaitNanos());
+        recordIfPresent("throttle_wait", tags, timings.getThrottleNanos());
+        recordIfPresent("dns", tags, timings.getDnsNanos());
+        recordIfPresent("connect", tags, timings.getConnectNanos());
+        recordIfPresent("lease", tags, timings.getLeaseNanos());
+        recordIfPresent("ttfb", tags, timings.getTimeToFirstByteNanos());
+        record("total", tags, timings.getTotalNanos());
+
+        count("requests", tags + ",status=" + timings.getStatusCode() / 100
+                + "xx", 1);
+        count("request_bytes", tags, timings.getRequestBytes());
+        count("response_bytes", tags, timings.getResponseBytes());
+    }
+
+    @Override
+    public void onFailure(RequestTimings timings, Throwable cause)
+    {
+        String tags = tags(timings);
+        record("total", tags, timings.getTotalNanos());
+        count("failures", tags + ",cause=" + cause.getClass()
+                .getSimpleName(), 1);
+    }
+
+    /**
+     *
+     * @param name   the name of the histogram
+     * @param host   the host tag
+     * @param method the method tag
+     * @return the histogram, or {@code null} if nothing was recorded for it
+     */
+    public LatencyHistogram getHistogram(String name, String host,
+                                         Object method)
+    {
+        return histograms.get(name + "{host=" + host + ",method=" + method
+                + "}");
+    }
+
+    /**
+     *
+     * @return an unmodifiable live view of all histograms by metric name
+     */
+    public Map<String, LatencyHistogram> getHistograms()
+    {
+        return Collections.unmodifiableMap(histograms);
+    }
+
+    /**
+     *
+     * @return a snapshot of all counters by metric name
+     */
+    public Map<String, Long> getCounters()
+    {
+        Map<String, Long> snapshot = new TreeMap<>();
+        counters.forEach((name, adder) -> snapshot.put(name, adder.sum()));
+        return snapshot;
+    }
+
+    private static String tags(RequestTimings timings)
+    {
+        return "host=" + timings.getHost() + ",method=" + timings.getMethod();
+    }
+
+    private void recordIfPresent(String name, String tags, long nanos)
+    {
+        if (nanos > 0) {
+            record(name, tags, nanos);
+        }
+    }
+
+    private void record(String name, String tags, long nanos)
+    {
+        histograms.computeIfAbsent(name + "{" + tags + "}",
+                key -> new LatencyHistogram())
+                .record(nanos);
+    }
+
+    private void count(String name, String tags, long amount)
+    {
+        counters.computeIfAbsent(name + "{" + tags + "}", key -> new LongAdder())
+                .add(amount);
+    }
+
+}
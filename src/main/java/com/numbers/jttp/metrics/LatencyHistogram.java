@@ -0,0 +1,124 @@
+package com.numbers.jttp.metrics;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * a lock-free histogram of non-negative values with log-linear buckets, in
+ * the style of HdrHistogram. Every power of two is split in 32 linear
+ * sub-buckets, so recorded values are kept with a relative error of at most
+ * about 3% over the full {@code long} range in a fixed amount of memory.
+ *
+ * @author Numbers
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS * (64 - SUB_BUCKET_BITS + 1);
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * records a single value, negative values are recorded as {@code 0}
+     *
+     * @param value the value to record
+     */
+    public void record(long value)
+    {
+        long recorded = Math.max(0, value);
+        counts.incrementAndGet(indexOf(recorded));
+        count.incrementAndGet();
+        sum.addAndGet(recorded);
+        max.accumulateAndGet(recorded, Math::max);
+    }
+
+    /**
+     *
+     * @return the amount of recorded values
+     */
+    public long getCount()
+    {
+        return count.get();
+    }
+
+    /**
+     *
+     * @return the largest recorded value
+     */
+    public long getMax()
+    {
+        return max.get();
+    }
+
+    /**
+     *
+     * @return the mean of the recorded values, or {@code 0} if empty
+     */
+    public double getMean()
+    {
+        long recorded = count.get();
+        return recorded == 0 ? 0 : (double) sum.get() / recorded;
+    }
+
+    /**
+     * returns the value at the given percentile, as the upper bound of the
+     * bucket containing it.
+     *
+     * @param percentile the percentile, between {@code 0} and {@code 100}
+     * @return the value at the percentile, or {@code 0} if empty
+     */
+    public long getValueAtPercentile(double percentile)
+    {
+        long recorded = count.get();
+        if (recorded == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * recorded));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * clears all recorded values. Values recorded concurrently may be lost.
+     */
+    public void reset()
+    {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    static int indexOf(long value)
+    {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) - SUB_BUCKETS;
+        return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+    }
+
+    static long upperBoundOf(int index)
+    {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+}
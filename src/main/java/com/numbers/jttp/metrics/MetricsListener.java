@@ -0,0 +1,54 @@
+package com.numbers.jttp.metrics;
+
+/**
+ * a listener receiving the timings of every request executed by a
+ * {@link com.numbers.jttp.Jttp Jttp} instance, to be implemented by metrics
+ * libraries. Listeners are called on the thread completing the request and
+ * should return quickly.
+ *
+ * @author Numbers
+ */
+public interface MetricsListener {
+
+    /**
+     * the default listener, which disables timing entirely so requests do not
+     * allocate any timing state
+     */
+    public static final MetricsListener NOOP = new MetricsListener() {
+        @Override
+        public boolean isEnabled()
+        {
+            return false;
+        }
+    };
+
+    /**
+     *
+     * @return false if requests should not record any timings for this
+     *         listener
+     */
+    public default boolean isEnabled()
+    {
+        return true;
+    }
+
+    /**
+     * called once a response has been received and handled.
+     *
+     * @param timings the timings of the request
+     */
+    public default void onComplete(RequestTimings timings)
+    {
+    }
+
+    /**
+     * called when a request failed without a handled response.
+     *
+     * @param timings the timings of the request up to the failure
+     * @param cause   the cause of the failure
+     */
+    public default void onFailure(RequestTimings timings, Throwable cause)
+    {
+    }
+
+}
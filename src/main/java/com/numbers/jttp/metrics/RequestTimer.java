@@ -0,0 +1,441 @@
+package com.numbers.jttp.metrics;
+
+import com.numbers.jttp.request.*;
+import java.util.logging.*;
+import org.apache.http.*;
+import org.apache.http.protocol.*;
+
+/**
+ * records the timings of a single request. A timer is stored in the
+ * {@link org.apache.http.protocol.HttpContext HttpContext} of the request and
+ * bound to the executing thread while the blocking client runs, so the client
+ * hooks of this package can record into it.
+ * <p>
+ * This class is used internally by the request streams, the recording methods
+ * are not meant to be called by users.
+ *
+ * @author Numbers
+ */
+public class RequestTimer implements RequestTimings {
+
+    /**
+     * the context attribute under which the timer of a request is stored
+     */
+    public static final String CONTEXT_KEY = "jttp.timer";
+
+    /**
+     * a disabled timer that ignores all recordings
+     */
+    public static final RequestTimer NONE = new RequestTimer(
+            MetricsListener.NOOP, null, false);
+
+    private static final ThreadLocal<RequestTimer> CURRENT = new ThreadLocal<>();
+
+    private final MetricsListener listener;
+    private final HttpRequestType method;
+    private final boolean enabled;
+    private final long start;
+    private volatile String host;
+    private volatile int statusCode;
+    private volatile long queuedAt;
+    private volatile long queueWait;
+    private volatile long throttle;
+    private volatile long lease;
+    private volatile long dns;
+    private volatile long connect;
+    private volatile boolean reused;
+    private volatile long sendStart;
+    private volatile long timeToFirstByte;
+    private volatile long handleStart;
+    private volatile long bodyRead;
+    private volatile long mapping;
+    private volatile long total;
+    private volatile long requestBytes;
+    private volatile long responseBytes;
+
+    /**
+     *
+     * @param listener the listener to report to
+     * @param method   the HTTP method of the request
+     * @param enabled  whether recordings should be kept
+     */
+    protected RequestTimer(MetricsListener listener, HttpRequestType method,
+                           boolean enabled)
+    {
+        this.listener = listener;
+        this.method = method;
+        this.enabled = enabled;
+        this.start = enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * starts a new timer for a request, or returns {@link #NONE NONE} if the
+     * listener is disabled
+     *
+     * @param listener the listener to report to
+     * @param method   the HTTP method of the request
+     * @return a started timer
+     */
+    public static RequestTimer start(MetricsListener listener,
+                                     HttpRequestType method)
+    {
+        return start(listener, method, false);
+    }
+
+    /**
+     * starts a new timer for a request, or returns {@link #NONE NONE} if the
+     * listener is disabled and the timings are not recorded for the response
+     *
+     * @param listener the listener to report to
+     * @param method   the HTTP method of the request
+     * @param record   whether to record the timings even if the listener is
+     *                 disabled
+     * @return a started timer
+     */
+    public static RequestTimer start(MetricsListener listener,
+                                     HttpRequestType method, boolean record)
+    {
+        return record || listener.isEnabled()
+               ? new RequestTimer(listener, method, true)
+               : NONE;
+    }
+
+    /**
+     *
+     * @param context the context of the request
+     * @return the timer stored in the context, or {@link #NONE NONE}
+     */
+    public static RequestTimer from(HttpContext context)
+    {
+        Object timer = context.getAttribute(CONTEXT_KEY);
+        return timer instanceof RequestTimer ? (RequestTimer) timer : NONE;
+    }
+
+    /**
+     *
+     * @return the timer bound to the current thread, or {@link #NONE NONE}
+     */
+    public static RequestTimer current()
+    {
+        RequestTimer timer = CURRENT.get();
+        return timer == null ? NONE : timer;
+    }
+
+    /**
+     * binds this timer to the current thread until {@link #unbind()} is
+     * called.
+     */
+    public void bind()
+    {
+        if (enabled) {
+            CURRENT.set(this);
+        }
+    }
+
+    /**
+     * removes the timer bound to the current thread
+     */
+    public void unbind()
+    {
+        if (enabled) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     *
+     * @return true if this timer keeps its recordings
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     *
+     * @param host the target host of the request
+     */
+    public void host(String host)
+    {
+        if (enabled) {
+            this.host = host;
+        }
+    }
+
+    /**
+     * marks the request as submitted to the executor
+     */
+    public void enqueued()
+    {
+        if (enabled) {
+            queuedAt = System.nanoTime();
+        }
+    }
+
+    /**
+     * marks the request as picked up by the executor, recording the time
+     * since {@link #enqueued() enqueued()} as queue wait
+     */
+    public void dequeued()
+    {
+        if (enabled && queuedAt != 0) {
+            queueWait += System.nanoTime() - queuedAt;
+            queuedAt = 0;
+        }
+    }
+
+    /**
+     *
+     * @param nanos the time spent waiting for a permit of a rate limiter
+     */
+    public void throttled(long nanos)
+    {
+        if (enabled) {
+            throttle += nanos;
+        }
+    }
+
+    /**
+     *
+     * @param nanos the time spent waiting for a pooled connection
+     */
+    public void leased(long nanos)
+    {
+        if (enabled) {
+            lease += nanos;
+        }
+    }
+
+    /**
+     *
+     * @param nanos the time spent resolving the host name
+     */
+    public void resolved(long nanos)
+    {
+        if (enabled) {
+            dns += nanos;
+        }
+    }
+
+    /**
+     *
+     * @param nanos the time spent establishing the connection
+     */
+    public void connected(long nanos)
+    {
+        if (enabled) {
+            connect += nanos;
+        }
+    }
+
+    /**
+     *
+     * @param reused whether the leased connection was already open
+     */
+    public void reused(boolean reused)
+    {
+        if (enabled) {
+            this.reused = reused;
+        }
+    }
+
+    /**
+     * marks the start of sending the request
+     */
+    public void sending()
+    {
+        if (enabled) {
+            sendStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * marks the reception of the response head
+     */
+    public void received()
+    {
+        if (enabled && sendStart != 0) {
+            timeToFirstByte = System.nanoTime() - sendStart;
+        }
+    }
+
+    /**
+     *
+     * @param nanos the time spent reading from the response body
+     */
+    public void bodyRead(long nanos)
+    {
+        if (enabled) {
+            bodyRead += nanos;
+        }
+    }
+
+    /**
+     * marks the start of handling the response
+     */
+    public void handling()
+    {
+        if (enabled) {
+            handleStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * marks the end of handling the response, recording the handling time
+     * not spent reading the body as mapping time
+     */
+    public void handled()
+    {
+        if (enabled && handleStart != 0) {
+            mapping = Math.max(0, System.nanoTime() - handleStart - bodyRead);
+        }
+    }
+
+    /**
+     *
+     * @param sent     the amount of bytes sent on the connection
+     * @param received the amount of bytes received on the connection
+     */
+    public void transferred(long sent, long received)
+    {
+        if (enabled) {
+            requestBytes += sent;
+            responseBytes += received;
+        }
+    }
+
+    /**
+     * stops the timer and reports the handled response to the listener
+     *
+     * @param response the handled response
+     */
+    public void complete(HttpResponse response)
+    {
+        if (enabled) {
+            statusCode = response.getStatusLine()
+                    .getStatusCode();
+            total = System.nanoTime() - start;
+            if (!listener.isEnabled()) {
+                return;
+            }
+            try {
+                listener.onComplete(this);
+            } catch (RuntimeException ex) {
+                Logger.getLogger(RequestTimer.class.getName())
+                        .log(Level.WARNING, "metrics listener failed", ex);
+            }
+        }
+    }
+
+    /**
+     * stops the timer and reports the failure to the listener
+     *
+     * @param cause the cause of the failure
+     */
+    public void fail(Throwable cause)
+    {
+        if (enabled) {
+            total = System.nanoTime() - start;
+            if (!listener.isEnabled()) {
+                return;
+            }
+            try {
+                listener.onFailure(this, cause);
+            } catch (RuntimeException ex) {
+                Logger.getLogger(RequestTimer.class.getName())
+                        .log(Level.WARNING, "metrics listener failed", ex);
+            }
+        }
+    }
+
+    @Override
+    public HttpRequestType getMethod()
+    {
+        return method;
+    }
+
+    @Override
+    public String getHost()
+    {
+        return host;
+    }
+
+    @Override
+    public int getStatusCode()
+    {
+        return statusCode;
+    }
+
+    @Override
+    public long getQueueWaitNanos()
+    {
+        return queueWait;
+    }
+
+    @Override
+    public long getThrottleNanos()
+    {
+        return throttle;
+    }
+
+    @Override
+    public long getLeaseNanos()
+    {
+        return lease;
+    }
+
+    @Override
+    public long getDnsNanos()
+    {
+        return dns;
+    }
+
+    @Override
+    public long getConnectNanos()
+    {
+        return connect;
+    }
+
+    @Override
+    public boolean isConnectionReused()
+    {
+        return reused;
+    }
+
+    @Override
+    public long getBodyReadNanos()
+    {
+        return bodyRead;
+    }
+
+    @Override
+    public long getMappingNanos()
+    {
+        return mapping;
+    }
+
+    @Override
+    public long getTimeToFirstByteNanos()
+    {
+        return timeToFirstByte;
+    }
+
+    @Override
+    public long getTotalNanos()
+    {
+        return total;
+    }
+
+    @Override
+    public long getRequestBytes()
+    {
+        return requestBytes;
+    }
+
+    @Override
+    public long getResponseBytes()
+    {
+        return responseBytes;
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.numbers.jttp.metrics;
+
+import com.numbers.jttp.request.*;
+
+/**
+ * a read-only view of the timings of a single request. All durations are in
+ * nanoseconds and are {@code 0} if the phase did not occur, for example when a
+ * pooled connection was reused no DNS lookup or connect is done.
+ *
+ * @author Numbers
+ */
+public interface RequestTimings {
+
+    /**
+     *
+     * @return the HTTP method of the request
+     */
+    HttpRequestType getMethod();
+
+    /**
+     *
+     * @return the target host of the request, or {@code null} if the request
+     *         failed before its URI was built
+     */
+    String getHost();
+
+    /**
+     *
+     * @return the response HTTP statuscode, or {@code 0} if no response was
+     *         received
+     */
+    int getStatusCode();
+
+    /**
+     *
+     * @return the time an async request waited for an executor thread
+     */
+    long getQueueWaitNanos();
+
+    /**
+     *
+     * @return the time spent waiting for the permits of rate limiters
+     */
+    long getThrottleNanos();
+
+    /**
+     *
+     * @return the time spent waiting for a connection from the pool
+     */
+    long getLeaseNanos();
+
+    /**
+     *
+     * @return the time spent resolving the host name
+     */
+    long getDnsNanos();
+
+    /**
+     *
+     * @return the time spent establishing the connection, including DNS and
+     *         the TLS handshake
+     */
+    long getConnectNanos();
+
+    /**
+     *
+     * @return true if the request was sent on a pooled connection that was
+     *         already open
+     */
+    boolean isConnectionReused();
+
+    /**
+     *
+     * @return the time from starting to send the request until the response
+     *         head was received
+     */
+    long getTimeToFirstByteNanos();
+
+    /**
+     *
+     * @return the time spent reading the response body from the connection
+     */
+    long getBodyReadNanos();
+
+    /**
+     *
+     * @return the time spent handling the response, such as mapping it to
+     *         objects, excluding the time spent reading the body
+     */
+    long getMappingNanos();
+
+    /**
+     *
+     * @return the time from starting the request until it was handled
+     */
+    long getTotalNanos();
+
+    /**
+     *
+     * @return the amount of bytes sent on the connection for the request
+     */
+    long getRequestBytes();
+
+    /**
+     *
+     * @return the amount of bytes received on the connection for the response
+     */
+    long getResponseBytes();
+
+}
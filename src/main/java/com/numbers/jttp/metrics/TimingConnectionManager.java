@@ -0,0 +1,155 @@
+package com.numbers.jttp.metrics;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.apache.http.*;
+import org.apache.http.conn.*;
+import org.apache.http.conn.routing.*;
+import org.apache.http.protocol.*;
+
+/**
+ * a connection manager that records the lease and connect times and the
+ * transferred bytes of requests into their {@link RequestTimer RequestTimer},
+ * delegating the actual connection management.
+ *
+ * @author Numbers
+ */
+public class TimingConnectionManager implements HttpClientConnectionManager {
+
+    private final HttpClientConnectionManager delegate;
+
+    /**
+     * the timers of leased connections, with the connection byte counts at
+     * the time of leasing
+     */
+    private final Map<HttpClientConnection, Lease> leases = new ConcurrentHashMap<>();
+
+    /**
+     *
+     * @param delegate the connection manager to delegate to
+     */
+    public TimingConnectionManager(HttpClientConnectionManager delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state)
+    {
+        RequestTimer timer = RequestTimer.current();
+        ConnectionRequest request = delegate.requestConnection(route, state);
+        if (!timer.isEnabled()) {
+            return request;
+        }
+
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit tunit) throws
+                    InterruptedException, ExecutionException,
+                    ConnectionPoolTimeoutException
+            {
+                long start = System.nanoTime();
+                HttpClientConnection connection = request.get(timeout, tunit);
+                timer.leased(System.nanoTime() - start);
+                timer.reused(connection.isOpen());
+                leases.put(connection, new Lease(timer, connection));
+                return connection;
+            }
+
+            @Override
+            public boolean cancel()
+            {
+                return request.cancel();
+            }
+        };
+    }
+
+    @Override
+    public void releaseConnection(HttpClientConnection conn, Object newState,
+                                  long validDuration, TimeUnit timeUnit)
+    {
+        Lease lease = leases.remove(conn);
+        if (lease != null) {
+            lease.release(conn);
+        }
+        delegate.releaseConnection(conn, newState, validDuration, timeUnit);
+    }
+
+    @Override
+    public void connect(HttpClientConnection conn, HttpRoute route,
+                        int connectTimeout, HttpContext context) throws
+            IOException
+    {
+        long start = System.nanoTime();
+        try {
+            delegate.connect(conn, route, connectTimeout, context);
+        } finally {
+            RequestTimer.from(context)
+                    .connected(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void upgrade(HttpClientConnection conn, HttpRoute route,
+                        HttpContext context) throws IOException
+    {
+        delegate.upgrade(conn, route, context);
+    }
+
+    @Override
+    public void routeComplete(HttpClientConnection conn, HttpRoute route,
+                              HttpContext context) throws IOException
+    {
+        delegate.routeComplete(conn, route, context);
+    }
+
+    @Override
+    public void closeIdleConnections(long idletime, TimeUnit tunit)
+    {
+        delegate.closeIdleConnections(idletime, tunit);
+    }
+
+    @Override
+    public void closeExpiredConnections()
+    {
+        delegate.closeExpiredConnections();
+    }
+
+    @Override
+    public void shutdown()
+    {
+        delegate.shutdown();
+    }
+
+    /**
+     * the timer of a leased connection and its byte counts when leased
+     */
+    private static final class Lease {
+
+        private final RequestTimer timer;
+        private final long sent;
+        private final long received;
+
+        Lease(RequestTimer timer, HttpClientConnection connection)
+        {
+            this.timer = timer;
+            HttpConnectionMetrics metrics = connection.getMetrics();
+            this.sent = metrics.getSentBytesCount();
+            this.received = metrics.getReceivedBytesCount();
+        }
+
+        void release(HttpClientConnection connection)
+        {
+            try {
+                HttpConnectionMetrics metrics = connection.getMetrics();
+                timer.transferred(metrics.getSentBytesCount() - sent, metrics
+                        .getReceivedBytesCount() - received);
+            } catch (RuntimeException ex) {
+                // the connection was shut down, its counts are lost
+            }
+        }
+
+    }
+
+}
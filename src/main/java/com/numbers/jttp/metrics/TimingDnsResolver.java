@@ -0,0 +1,37 @@
+package com.numbers.jttp.metrics;
+
+import java.net.*;
+import org.apache.http.conn.*;
+
+/**
+ * a DNS resolver that records the lookup time into the
+ * {@link RequestTimer RequestTimer} bound to the resolving thread.
+ *
+ * @author Numbers
+ */
+public class TimingDnsResolver implements DnsResolver {
+
+    private final DnsResolver delegate;
+
+    /**
+     *
+     * @param delegate the resolver doing the actual lookup
+     */
+    public TimingDnsResolver(DnsResolver delegate)
+    {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException
+    {
+        long start = System.nanoTime();
+        try {
+            return delegate.resolve(host);
+        } finally {
+            RequestTimer.current()
+                    .resolved(System.nanoTime() - start);
+        }
+    }
+
+}
@@ -0,0 +1,38 @@
+package com.numbers.jttp.metrics;
+
+import java.io.*;
+import org.apache.http.*;
+import org.apache.http.protocol.*;
+
+/**
+ * a request executor that records the time to first byte of requests into
+ * their {@link RequestTimer RequestTimer}.
+ *
+ * @author Numbers
+ */
+public class TimingRequestExecutor extends HttpRequestExecutor {
+
+    @Override
+    protected HttpResponse doSendRequest(HttpRequest request,
+                                         HttpClientConnection conn,
+                                         HttpContext context) throws
+            IOException, HttpException
+    {
+        RequestTimer.from(context)
+                .sending();
+        return super.doSendRequest(request, conn, context);
+    }
+
+    @Override
+    protected HttpResponse doReceiveResponse(HttpRequest request,
+                                             HttpClientConnection conn,
+                                             HttpContext context) throws
+            HttpException, IOException
+    {
+        HttpResponse response = super.doReceiveResponse(request, conn, context);
+        RequestTimer.from(context)
+                .received();
+        return response;
+    }
+
+}
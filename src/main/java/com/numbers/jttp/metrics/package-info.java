@@ -0,0 +1,5 @@
+/**
+ * contains the metrics listener SPI and the instrumentation recording request
+ * timings
+ */
+package com.numbers.jttp.metrics;
@@ -0,0 +1,233 @@
+package com.numbers.jttp.pagination;
+
+import com.numbers.jttp.request.stream.*;
+import com.numbers.jttp.response.HttpResponse;
+import com.numbers.jttp.response.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.regex.*;
+import org.apache.http.*;
+import org.apache.http.client.utils.*;
+
+/**
+ * describes how a paginated endpoint is read: how a page is requested and
+ * mapped, which items a page contains and where the next page is found.
+ * Pass it to {@link HttpRequestStream#paginate(Pagination) paginate} to
+ * iterate the items of all pages.
+ * <pre>{@code
+ * jttp.get(url)
+ *         .queryString("limit", "100")
+ *         .paginate(Pagination.linkHeader(User.class))
+ *         .forEach(user -> ...);
+ *
+ * jttp.get(url)
+ *         .paginate(Pagination.cursor(UserPage.class, UserPage::getUsers,
+ *                 UserPage::getNextCursor, "cursor"))
+ *         .forEach(user -> ...);
+ * }</pre>
+ *
+ * @author Numbers
+ * @param <P> the type of the pages
+ * @param <T> the type of the items
+ */
+public final class Pagination<P, T> {
+
+    private static final Pattern LINK = Pattern.compile("<([^>]*)>([^<]*)");
+    private static final Pattern REL = Pattern.compile(
+            ";\\s*rel\\s*=\\s*(?:\"([^\"]*)\"|([^\\s;,]*))",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * finds the URI of the page following a received page
+     *
+     * @param <P> the type of the pages
+     */
+    @FunctionalInterface
+    public interface NextPage<P> {
+
+        /**
+         *
+         * @param current  the URI of the received page
+         * @param response the received page
+         * @return the URI of the next page, or {@code null} if the received
+         *         page is the last
+         * @throws URISyntaxException if the URI of the next page contains bad
+         *                            syntax
+         */
+        URI next(URI current, JsonHttpResponse<P> response) throws
+                URISyntaxException;
+
+    }
+
+    private final Function<? super HttpRequestStream, ? extends CompletableFuture<JsonHttpResponse<P>>> reader;
+    private final Function<? super P, ? extends Collection<? extends T>> items;
+    private final NextPage<P> next;
+
+    /**
+     *
+     * @param reader the function requesting and mapping a page
+     * @param items  the function returning the items of a page
+     * @param next   the function finding the URI of the next page
+     */
+    private Pagination(
+            Function<? super HttpRequestStream, ? extends CompletableFuture<JsonHttpResponse<P>>> reader,
+            Function<? super P, ? extends Collection<? extends T>> items,
+            NextPage<P> next)
+    {
+        this.reader = Objects.requireNonNull(reader, "reader can't be null");
+        this.items = Objects.requireNonNull(items, "items can't be null");
+        this.next = Objects.requireNonNull(next, "next can't be null");
+    }
+
+    /**
+     * creates a pagination with custom page mapping and next page extraction
+     *
+     * @param <P>    the type of the pages
+     * @param <T>    the type of the items
+     * @param reader the function requesting and mapping a page, for example
+     *               {@code page -> page.asObject(UserPage.class)}
+     * @param items  the function returning the items of a page
+     * @param next   the function finding the URI of the next page
+     * @return the new pagination
+     */
+    public static <P, T> Pagination<P, T> of(
+            Function<? super HttpRequestStream, ? extends CompletableFuture<JsonHttpResponse<P>>> reader,
+            Function<? super P, ? extends Collection<? extends T>> items,
+            NextPage<P> next)
+    {
+        return new Pagination<>(reader, items, next);
+    }
+
+    /**
+     * creates a pagination of pages that are JSON arrays, linking to the next
+     * page with a {@code Link} header with relation {@code next}, as in
+     * {@code Link: <https://api.example.com/users?page=3>; rel="next"}.
+     * Relative links are resolved against the URI of the page.
+     *
+     * @param <T>   the type of the items
+     * @param clazz the class of the array elements to instantiate
+     * @return the new pagination
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Pagination<List<T>, T> linkHeader(Class<T> clazz)
+    {
+        return new Pagination<>(page -> page.<T, List<T>>asObjects(
+                (Class) ArrayList.class, clazz), Function.identity(),
+                (current, response) -> nextLink(current, response));
+    }
+
+    /**
+     * creates a pagination of pages that are JSON objects carrying a cursor
+     * token for the next page. The next page is requested with the cursor as
+     * the value of the given query parameter, replacing the cursor of the
+     * previous page. A {@code null} or empty cursor marks the last page.
+     *
+     * @param <P>       the type of the pages
+     * @param <T>       the type of the items
+     * @param pageClass the class of the pages to instantiate
+     * @param items     the function returning the items of a page
+     * @param cursor    the function returning the cursor of the next page
+     * @param parameter the name of the query parameter carrying the cursor
+     * @return the new pagination
+     */
+    public static <P, T> Pagination<P, T> cursor(Class<P> pageClass,
+                                                 Function<? super P, ? extends Collection<? extends T>> items,
+                                                 Function<? super P, String> cursor,
+                                                 String parameter)
+    {
+        Objects.requireNonNull(cursor, "cursor can't be null");
+        Objects.requireNonNull(parameter, "parameter can't be null");
+        return new Pagination<>(page -> page.<P>asObject(pageClass), items,
+                (current, response) -> {
+                    String token = cursor.apply(response.getResponse());
+                    if (token == null || token.isEmpty()) {
+                        return null;
+                    }
+                    return new URIBuilder(current).setParameter(parameter,
+                            token)
+                            .build();
+                });
+    }
+
+    /**
+     * finds the link with relation {@code next} in the {@code Link} headers
+     * of a response
+     *
+     * @param current  the URI of the response, to resolve relative links
+     *                 against
+     * @param response the response
+     * @return the URI of the next page, or {@code null} if the response has
+     *         no link to it
+     * @throws URISyntaxException if the link contains bad syntax
+     */
+    public static URI nextLink(URI current, HttpResponse response) throws
+            URISyntaxException
+    {
+        Header[] headers = response.getHeaderField("Link");
+        if (headers == null) {
+            return null;
+        }
+        for (Header header : headers) {
+            Matcher link = LINK.matcher(header.getValue());
+            while (link.find()) {
+                Matcher rel = REL.matcher(link.group(2));
+                while (rel.find()) {
+                    String relations = rel.group(1) != null
+                                       ? rel.group(1)
+                                       : rel.group(2);
+                    // a link may have several space separated relations
+                    for (String relation : relations.trim()
+                            .split("\\s+")) {
+                        if (relation.equalsIgnoreCase("next")) {
+                            // unlike URI.resolve, resolves query-only links
+                            return URIUtils.resolve(current, new URI(link
+                                    .group(1)
+                                    .trim()));
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * requests and maps a page
+     *
+     * @param page the request of the page
+     * @return a future of the mapped page
+     */
+    public CompletableFuture<JsonHttpResponse<P>> read(HttpRequestStream page)
+    {
+        return reader.apply(page);
+    }
+
+    /**
+     *
+     * @param page the mapped page
+     * @return the items of the page, or an empty collection if it has none
+     */
+    public Collection<? extends T> items(P page)
+    {
+        Collection<? extends T> found = page == null ? null : items.apply(page);
+        return found == null ? Collections.emptyList() : found;
+    }
+
+    /**
+     *
+     * @param current  the URI of the received page
+     * @param response the received page
+     * @return the URI of the next page, or {@code null} if the received page
+     *         is the last
+     * @throws URISyntaxException if the URI of the next page contains bad
+     *                            syntax
+     */
+    public URI next(URI current, JsonHttpResponse<P> response) throws
+            URISyntaxException
+    {
+        return next.next(current, response);
+    }
+
+}
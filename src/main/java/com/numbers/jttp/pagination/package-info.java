@@ -0,0 +1,4 @@
+/**
+ * contains the iteration of paginated endpoints
+ */
+package com.numbers.jttp.pagination;
@@ -31,5 +31,28 @@ public enum HttpRequestType {
     /**
      * HTTP PUT
      */
-    PUT
+    PUT;
+
+    /**
+     * safe methods only retrieve data, so identical concurrent requests may
+     * share a single execution.
+     *
+     * @return true for {@code GET} and {@code HEAD}
+     */
+    public boolean isSafe()
+    {
+        return this == GET || this == HEAD;
+    }
+
+    /**
+     * idempotent methods have the same effect whether they are sent once or
+     * several times, so a failed request may be sent again.
+     *
+     * @return true for the safe methods, {@code PUT} and {@code DELETE}
+     */
+    public boolean isIdempotent()
+    {
+        return isSafe() || this == PUT || this == DELETE;
+    }
+
 }
@@ -0,0 +1,163 @@
+package com.numbers.jttp.request;
+
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import org.apache.http.*;
+
+/**
+ * shares a single in-flight execution between identical concurrent requests
+ * (single-flight). Requests are identical when their method, URI, the values
+ * of the {@link #setKeyHeaders(String...) key headers} and the type of their
+ * result are equal. The execution is forgotten as soon as it completes, so
+ * later requests execute again.
+ *
+ * @author Numbers
+ */
+public class RequestCoalescer {
+
+    private final ConcurrentMap<Key, CompletableFuture<?>> inFlight
+            = new ConcurrentHashMap<>();
+    private final LongAdder coalesced = new LongAdder();
+    private volatile Set<String> keyHeaders = lowerCase("Accept",
+            "Authorization");
+
+    /**
+     * sets the request headers that distinguish otherwise identical requests,
+     * by default {@code Accept} and {@code Authorization}.
+     *
+     * @param headers the names of the headers that are part of the key
+     */
+    public void setKeyHeaders(String... headers)
+    {
+        this.keyHeaders = lowerCase(headers);
+    }
+
+    /**
+     * runs the execution, unless an identical request is already in flight,
+     * in which case its result is shared. Every caller receives its own
+     * future, cancelling it does not affect the other callers.
+     *
+     * @param <T>        the type of the result
+     * @param method     the method of the request
+     * @param uri        the URI of the request
+     * @param headers    the headers of the request
+     * @param resultType the type of the result
+     * @param execution  the supplier starting the request
+     * @return a future of the shared result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> coalesce(HttpRequestType method, URI uri,
+                                             List<Header> headers,
+                                             Object resultType,
+                                             Supplier<CompletableFuture<T>> execution)
+    {
+        Key key = new Key(method, uri.toString(), headerValues(headers),
+                resultType);
+        CompletableFuture<T> shared = new CompletableFuture<>();
+        CompletableFuture<?> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            return ((CompletableFuture<T>) existing).thenApply(Function
+                    .identity());
+        }
+
+        try {
+            execution.get()
+                    .whenComplete((result, ex) -> {
+                        inFlight.remove(key, shared);
+                        if (ex != null) {
+                            shared.completeExceptionally(ex);
+                        } else {
+                            shared.complete(result);
+                        }
+                    });
+        } catch (RuntimeException ex) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(ex);
+        }
+        return shared.thenApply(Function.identity());
+    }
+
+    /**
+     *
+     * @return the amount of requests that shared the execution of an
+     *         identical request
+     */
+    public long getCoalescedCount()
+    {
+        return coalesced.sum();
+    }
+
+    /**
+     *
+     * @return the amount of executions currently in flight
+     */
+    public int getInFlightCount()
+    {
+        return inFlight.size();
+    }
+
+    private List<String> headerValues(List<Header> headers)
+    {
+        Set<String> names = keyHeaders;
+        List<String> values = new ArrayList<>();
+        for (Header header : headers) {
+            String name = header.getName()
+                    .toLowerCase(Locale.ROOT);
+            if (names.contains(name)) {
+                values.add(name + ":" + header.getValue());
+            }
+        }
+        Collections.sort(values);
+        return values;
+    }
+
+    private static Set<String> lowerCase(String... names)
+    {
+        Set<String> lower = new HashSet<>();
+        for (String name : names) {
+            lower.add(name.toLowerCase(Locale.ROOT));
+        }
+        return lower;
+    }
+
+    private static final class Key {
+
+        private final HttpRequestType method;
+        private final String uri;
+        private final List<String> headers;
+        private final Object resultType;
+
+        Key(HttpRequestType method, String uri, List<String> headers,
+            Object resultType)
+        {
+            this.method = method;
+            this.uri = uri;
+            this.headers = headers;
+            this.resultType = resultType;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return method == other.method && uri.equals(other.uri) && headers
+                    .equals(other.headers) && resultType.equals(
+                    other.resultType);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(method, uri, headers, resultType);
+        }
+
+    }
+
+}
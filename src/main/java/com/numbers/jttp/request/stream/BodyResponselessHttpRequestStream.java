@@ -3,6 +3,7 @@ package com.numbers.jttp.request.stream;
 import com.numbers.jttp.*;
 import com.numbers.jttp.request.*;
 import com.numbers.jttp.request.supplier.*;
+import com.numbers.jttp.resilience.*;
 import com.numbers.jttp.response.HttpResponse;
 import java.io.*;
 import java.nio.file.*;
@@ -10,6 +11,7 @@ import java.util.concurrent.*;
 import org.apache.http.*;
 import org.apache.http.client.methods.*;
 import org.apache.http.impl.client.*;
+import org.apache.http.impl.nio.client.*;
 
 /**
  * The base interface for all HttpRequestStreams. This interface is meant for
@@ -34,9 +36,33 @@ public interface BodyResponselessHttpRequestStream {
                                  RequestSupplier<? extends HttpRequestBase> supplier,
                                  String url, Jttp.JTTPConfig config){
     
-        return new HttpRequestStreamImpl(client, requestType, supplier, url,
+        return new HttpRequestStreamImpl(client, null, requestType, supplier, url,
                 config);
     }
+
+    /**
+     * creates a request stream that executes async requests on the given
+     * non-blocking client.
+     *
+     * @param client      the client used for blocking execution
+     * @param asyncClient the client used for non-blocking async execution, or
+     *                    {@code null} to execute async requests on the
+     *                    executor of the config
+     * @param requestType the HTTP request type
+     * @param supplier    the request supplier
+     * @param url         the base url
+     * @param config      the config containing user defined default values
+     * @return a new request stream
+     */
+    public static BodyResponselessHttpRequestStream of(CloseableHttpClient client,
+                                 CloseableHttpAsyncClient asyncClient,
+                                 HttpRequestType requestType,
+                                 RequestSupplier<? extends HttpRequestBase> supplier,
+                                 String url, Jttp.JTTPConfig config){
+    
+        return new HttpRequestStreamImpl(client, asyncClient, requestType, supplier,
+                url, config);
+    }
     
     /**
      * enable async response handling on a separate thread
@@ -56,49 +82,61 @@ public interface BodyResponselessHttpRequestStream {
     BodyResponselessHttpRequestStream basicAuth(String username, String password);
 
     /**
-     * adds a file to the request with the given header key and filename in the
-     * header
+     * adds a file to the request as a multipart/form-data part with the given
+     * header key as name and the filename in the header. Only requests with a
+     * body can carry parts, requests without one throw an exception.
      *
      * @param key      the header key
      * @param file     the file to upload
      * @param fileName the filename for the header
      * @return this requestStream
+     * @throws UnsupportedOperationException if the request has no body, like
+     *                                       get, delete and head requests
      */
     BodyResponselessHttpRequestStream header(String key, File file,
                                              String fileName);
 
     /**
-     * adds a file to the request with the given header key and filename in the
-     * header
+     * adds a file to the request as a multipart/form-data part with the given
+     * header key as name and the filename in the header. Only requests with a
+     * body can carry parts, requests without one throw an exception.
      *
      * @param key      the header key
      * @param path     the Path from which to get the file
      * @param fileName the filename for the header
      * @return this requestStream
+     * @throws UnsupportedOperationException if the request has no body, like
+     *                                       get, delete and head requests
      */
     BodyResponselessHttpRequestStream header(String key, Path path,
                                              String fileName);
 
     /**
-     * adds a file to the request with the given header key and filename in the
-     * header
+     * adds a file to the request as a multipart/form-data part with the given
+     * header key as name and the filename in the header. Only requests with a
+     * body can carry parts, requests without one throw an exception.
      *
      * @param key              the header key
      * @param stream           the file inputstream
      * @param streamObjectName the filename for the header
      * @return this requestStream
+     * @throws UnsupportedOperationException if the request has no body, like
+     *                                       get, delete and head requests
      */
     BodyResponselessHttpRequestStream header(String key, InputStream stream,
                                              String streamObjectName);
 
     /**
-     * adds a file to the request with the given header key and filename in the
-     * header
+     * adds a file to the request as a multipart/form-data part with the given
+     * header key as name and the filename in the header. Only requests with a
+     * body can carry parts, requests without one throw an exception.
      *
      * @param key            the header key
      * @param bytes          the file byte input
      * @param byteObjectName the filename for the header
      * @return this requestStream
+     * @throws UnsupportedOperationException if the request has no body, like
+     *                                       get, delete and head requests
      */
     BodyResponselessHttpRequestStream header(String key, byte[] bytes,
                                              String byteObjectName);
@@ -153,6 +191,39 @@ public interface BodyResponselessHttpRequestStream {
      */
     BodyResponselessHttpRequestStream setConnectionTimeout(int ms);
 
+    /**
+     * sets the content encodings accepted for this request, overriding the
+     * default of the {@link com.numbers.jttp.Jttp.JTTPConfig JTTPConfig}.
+     * Compressed responses are decoded transparently.
+     *
+     * @param encodings the encodings to accept, in order of preference, or
+     *                  none to request an uncompressed response
+     * @return this requestStream
+     */
+    BodyResponselessHttpRequestStream acceptEncoding(String... encodings);
+
+    /**
+     * sets the policy retrying this request when it fails, overriding the
+     * default of the {@link com.numbers.jttp.Jttp.JTTPConfig JTTPConfig}.
+     *
+     * @param policy the policy to use, or {@code null} to send the request
+     *               only once
+     * @return this requestStream
+     */
+    BodyResponselessHttpRequestStream retry(RetryPolicy policy);
+
+    /**
+     * sets the policy sending copies of this request when it is slow,
+     * overriding the default of the
+     * {@link com.numbers.jttp.Jttp.JTTPConfig JTTPConfig}. Only {@code GET}
+     * and {@code HEAD} requests are hedged.
+     *
+     * @param policy the policy to use, or {@code null} to never hedge this
+     *               request
+     * @return this requestStream
+     */
+    BodyResponselessHttpRequestStream hedge(HedgingPolicy policy);
+
     /**
      * sets the proxy to use for this request.
      *
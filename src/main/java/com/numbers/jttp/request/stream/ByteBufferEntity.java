@@ -0,0 +1,91 @@
+package com.numbers.jttp.request.stream;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import org.apache.http.entity.*;
+
+/**
+ * a repeatable entity that writes the remaining bytes of a
+ * {@link java.nio.ByteBuffer ByteBuffer} without copying them into an
+ * intermediate array first. The position of the given buffer is never
+ * modified.
+ *
+ * @author Numbers
+ */
+class ByteBufferEntity extends AbstractHttpEntity {
+
+    private final ByteBuffer buffer;
+
+    /**
+     *
+     * @param buffer      the buffer containing the body between its position
+     *                    and limit
+     * @param contentType the content type of the body
+     */
+    ByteBufferEntity(ByteBuffer buffer, ContentType contentType)
+    {
+        this.buffer = buffer.duplicate();
+        setContentType(contentType.toString());
+    }
+
+    @Override
+    public boolean isRepeatable()
+    {
+        return true;
+    }
+
+    @Override
+    public long getContentLength()
+    {
+        return buffer.remaining();
+    }
+
+    @Override
+    public InputStream getContent()
+    {
+        ByteBuffer source = buffer.duplicate();
+        return new InputStream() {
+            @Override
+            public int read()
+            {
+                return source.hasRemaining() ? source.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length)
+            {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(length, source.remaining());
+                source.get(bytes, offset, count);
+                return count;
+            }
+
+            @Override
+            public int available()
+            {
+                return source.remaining();
+            }
+        };
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException
+    {
+        ByteBuffer source = buffer.duplicate();
+        WritableByteChannel channel = Channels.newChannel(outstream);
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+        outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming()
+    {
+        return false;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.numbers.jttp.request.stream;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/**
+ * copies response bodies to byte channels as raw bytes, so downloads neither
+ * decode characters nor allocate buffers proportional to the body size.
+ *
+ * @author Numbers
+ */
+final class ChannelTransfer {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ChannelTransfer()
+    {
+    }
+
+    /**
+     * copies all remaining bytes of the inputstream to the file, starting at
+     * the current position of the file. The copy is left to
+     * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)
+     * transferFrom}, which lets the file system write the bytes without an
+     * intermediate buffer where it can. Neither the inputstream nor the file
+     * are closed.
+     *
+     * @param in   the stream to read from
+     * @param file the file to write to
+     * @return the amount of bytes copied
+     * @throws IOException if an I/O error occurs
+     */
+    static long transfer(InputStream in, FileChannel file) throws IOException
+    {
+        ReadableByteChannel source = Channels.newChannel(in);
+        long start = file.position();
+        long position = start;
+        long copied;
+        // a blocking source only transfers nothing at its end
+        while ((copied = file.transferFrom(source, position, BUFFER_SIZE)) > 0) {
+            position += copied;
+        }
+        file.position(position);
+        return position - start;
+    }
+
+    /**
+     * copies all remaining bytes of the inputstream to the channel through a
+     * heap buffer. Neither the inputstream nor the channel are closed.
+     *
+     * @param in  the stream to read from
+     * @param out the channel to write to
+     * @return the amount of bytes copied
+     * @throws IOException if an I/O error occurs
+     */
+    static long transfer(InputStream in, WritableByteChannel out) throws
+            IOException
+    {
+        if (out instanceof FileChannel) {
+            return transfer(in, (FileChannel) out);
+        }
+
+        byte[] bytes = new byte[BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long total = 0;
+        int read;
+        while ((read = in.read(bytes)) >= 0) {
+            buffer.clear()
+                    .limit(read);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            total += read;
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,193 @@
+package com.numbers.jttp.request.stream;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.function.*;
+import java.util.stream.*;
+import org.reactivestreams.*;
+
+/**
+ * a publisher of the elements of a lazily read stream. Every subscriber
+ * starts its own request once it first requests elements, and elements are
+ * only read from the stream, and so parsed from the response body, while the
+ * subscriber has outstanding demand. Reading is done on the executor, so a
+ * subscriber is never blocked by the request or the connection. Cancelling
+ * the subscription closes the stream, releasing the connection.
+ *
+ * @author Numbers
+ * @param <T> the type of the elements
+ */
+final class ElementPublisher<T> implements Publisher<T> {
+
+    private final Supplier<? extends CompletionStage<Stream<T>>> source;
+    private final Executor executor;
+
+    /**
+     *
+     * @param source   the function starting the request, called once per
+     *                 subscriber on the executor
+     * @param executor the executor reading the elements
+     */
+    ElementPublisher(Supplier<? extends CompletionStage<Stream<T>>> source,
+                     Executor executor)
+    {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super T> subscriber)
+    {
+        Objects.requireNonNull(subscriber, "subscriber can't be null");
+        subscriber.onSubscribe(new ElementSubscription(subscriber));
+    }
+
+    /**
+     * the subscription of a single subscriber. All signals to the subscriber
+     * are sent from {@link #run() run()}, of which at most one runs at a time.
+     */
+    private final class ElementSubscription implements Subscription, Runnable {
+
+        private final Subscriber<? super T> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger work = new AtomicInteger();
+        private volatile boolean cancelled;
+        private volatile Throwable error;
+        private volatile Stream<T> stream;
+        private boolean started;
+        private boolean done;
+        private Iterator<T> iterator;
+
+        private ElementSubscription(Subscriber<? super T> subscriber)
+        {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n)
+        {
+            if (n <= 0) {
+                error = new IllegalArgumentException(
+                        "requested amount must be positive, got " + n);
+            } else {
+                requested.accumulateAndGet(n, (current, added) -> current
+                        + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel()
+        {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule()
+        {
+            if (work.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            int missed = 1;
+            do {
+                drain();
+                missed = work.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void drain()
+        {
+            if (done) {
+                // the request may complete after the subscription ended
+                closeStream();
+                return;
+            }
+            if (cancelled) {
+                finish();
+                return;
+            }
+            if (error != null) {
+                finish();
+                subscriber.onError(error);
+                return;
+            }
+            if (!started) {
+                started = true;
+                start();
+                return;
+            }
+            if (stream == null) {
+                return;
+            }
+
+            if (iterator == null) {
+                iterator = stream.iterator();
+            }
+            long demand = requested.get();
+            long emitted = 0;
+            try {
+                while (emitted != demand && !cancelled) {
+                    if (!iterator.hasNext()) {
+                        finish();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    subscriber.onNext(iterator.next());
+                    emitted++;
+                }
+            } catch (RuntimeException ex) {
+                finish();
+                subscriber.onError(ex);
+                return;
+            }
+            if (demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+        }
+
+        private void start()
+        {
+            try {
+                source.get()
+                        .whenComplete((result, ex) -> {
+                            if (ex != null) {
+                                error = ex instanceof CompletionException
+                                        && ex.getCause() != null
+                                        ? ex.getCause()
+                                        : ex;
+                            } else {
+                                stream = result;
+                            }
+                            schedule();
+                        });
+            } catch (RuntimeException ex) {
+                error = ex;
+                schedule();
+            }
+        }
+
+        /**
+         * ends the subscription, releasing the stream if it arrived already
+         */
+        private void finish()
+        {
+            done = true;
+            closeStream();
+        }
+
+        private void closeStream()
+        {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+
+    }
+
+}
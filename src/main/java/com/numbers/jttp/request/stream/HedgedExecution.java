@@ -0,0 +1,249 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.resilience.*;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.logging.*;
+import org.apache.http.client.methods.*;
+import org.apache.http.client.protocol.*;
+import org.apache.http.util.*;
+
+/**
+ * a single hedged attempt of a request. The original request is sent right
+ * away, every hedge delay without a response another copy is sent, up to the
+ * maximum of the {@link HedgingPolicy HedgingPolicy}. The first response that
+ * is not a server error wins, the other copies are aborted so their
+ * connections are released. If every copy fails, the outcome of the last one
+ * is used.
+ *
+ * @author Numbers
+ */
+final class HedgedExecution {
+
+    private final HedgingPolicy policy;
+    private final ScheduledExecutorService scheduler;
+    private final String host;
+    private final Supplier<HttpClientContext> contexts;
+    private final Function<HttpClientContext, CompletableFuture<CloseableHttpResponse>> hedge;
+    private final BiConsumer<HttpClientContext, HttpClientContext> adopt;
+    private final Consumer<HttpClientContext> abort;
+
+    private final CompletableFuture<CloseableHttpResponse> result
+            = new CompletableFuture<>();
+    private final List<Copy> copies = new ArrayList<>();
+    private HttpClientContext context;
+    private ScheduledFuture<?> scheduled;
+    private int hedges;
+    private int pending;
+    private boolean decided;
+
+    /**
+     *
+     * @param policy    the policy deciding the hedge delay
+     * @param scheduler the scheduler timing the copies
+     * @param host      the host of the request
+     * @param contexts  the supplier of contexts for the copies
+     * @param hedge     the function sending a copy without blocking
+     * @param adopt     the function adopting the state of the context of the
+     *                  winning copy into the context of the original request
+     * @param abort     the function aborting the request of a context
+     */
+    HedgedExecution(HedgingPolicy policy, ScheduledExecutorService scheduler,
+                    String host, Supplier<HttpClientContext> contexts,
+                    Function<HttpClientContext, CompletableFuture<CloseableHttpResponse>> hedge,
+                    BiConsumer<HttpClientContext, HttpClientContext> adopt,
+                    Consumer<HttpClientContext> abort)
+    {
+        this.policy = policy;
+        this.scheduler = scheduler;
+        this.host = host;
+        this.contexts = contexts;
+        this.hedge = hedge;
+        this.adopt = adopt;
+        this.abort = abort;
+    }
+
+    /**
+     * sends the original request with the given function, which may block
+     * until the response has been received, and schedules the copies.
+     * Cancelling the returned future aborts all copies.
+     *
+     * @param context  the context of the original request, which holds the
+     *                 state of the winning copy once completed
+     * @param original the function sending the original request
+     * @return a future of the winning response
+     */
+    CompletableFuture<CloseableHttpResponse> execute(HttpClientContext context,
+            Function<HttpClientContext, CompletableFuture<CloseableHttpResponse>> original)
+    {
+        this.context = context;
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                abortAll(null);
+            }
+        });
+
+        Copy first;
+        synchronized (this) {
+            first = new Copy(context);
+            copies.add(first);
+            pending++;
+            scheduleHedge();
+        }
+        start(first, original);
+        return result;
+    }
+
+    private void scheduleHedge()
+    {
+        if (hedges < policy.getMaxHedges()) {
+            scheduled = scheduler.schedule(this::sendHedge, policy.hedgeDelay(
+                    host), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sendHedge()
+    {
+        Copy copy;
+        synchronized (this) {
+            if (decided || result.isDone()) {
+                return;
+            }
+            copy = new Copy(contexts.get());
+            copies.add(copy);
+            hedges++;
+            pending++;
+            scheduleHedge();
+        }
+        start(copy, hedge);
+    }
+
+    private void start(Copy copy,
+                       Function<HttpClientContext, CompletableFuture<CloseableHttpResponse>> send)
+    {
+        CompletableFuture<CloseableHttpResponse> future;
+        try {
+            future = send.apply(copy.context);
+        } catch (RuntimeException ex) {
+            future = new CompletableFuture<>();
+            future.completeExceptionally(ex);
+        }
+        boolean aborted;
+        synchronized (this) {
+            copy.future = future;
+            aborted = copy.done;
+        }
+        if (aborted) {
+            future.cancel(true);
+        }
+        if (result.isDone()) {
+            abortAll(null);
+        }
+        future.whenComplete((response, ex) -> completed(copy, response, ex));
+    }
+
+    private void completed(Copy copy, CloseableHttpResponse response,
+                           Throwable ex)
+    {
+        synchronized (this) {
+            if (copy.done) {
+                // aborted after another copy won
+                release(response);
+                return;
+            }
+            copy.done = true;
+            pending--;
+            policy.record(host, System.nanoTime() - copy.started);
+
+            if (decided || result.isDone()) {
+                release(response);
+                return;
+            }
+            boolean won = ex == null && response.getStatusLine()
+                    .getStatusCode() < 500;
+            if (!won && pending > 0) {
+                // another copy may still succeed
+                release(response);
+                return;
+            }
+            decided = true;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+        }
+
+        // abort before adopting, the contexts of the losers must not change
+        abortAll(copy);
+        if (copy.context != context) {
+            adopt.accept(copy.context, context);
+        }
+        boolean completed = ex == null
+                            ? result.complete(response)
+                            : result.completeExceptionally(ex);
+        if (!completed) {
+            release(response);
+        }
+    }
+
+    /**
+     * aborts every copy but the winner. The request of a copy is aborted for
+     * copies sent on the blocking client, its future is cancelled for copies
+     * sent on the non-blocking client, which does not observe aborts.
+     *
+     * @param winner the copy to keep, or {@code null} to abort all copies
+     */
+    private void abortAll(Copy winner)
+    {
+        List<Copy> losers = new ArrayList<>();
+        List<CompletableFuture<CloseableHttpResponse>> sent = new ArrayList<>();
+        synchronized (this) {
+            for (Copy copy : copies) {
+                if (copy != winner && !copy.done) {
+                    copy.done = true;
+                    pending--;
+                    policy.record(host, System.nanoTime() - copy.started);
+                    losers.add(copy);
+                    if (copy.future != null) {
+                        sent.add(copy.future);
+                    }
+                }
+            }
+        }
+        losers.forEach(copy -> abort.accept(copy.context));
+        sent.forEach(future -> future.cancel(true));
+    }
+
+    private static void release(CloseableHttpResponse response)
+    {
+        if (response == null) {
+            return;
+        }
+        try {
+            EntityUtils.consume(response.getEntity());
+            response.close();
+        } catch (IOException ex) {
+            Logger.getLogger(HedgedExecution.class.getName())
+                    .log(Level.FINE, null, ex);
+        }
+    }
+
+    /**
+     * a single copy of the request
+     */
+    private final class Copy {
+
+        private final HttpClientContext context;
+        private final long started = System.nanoTime();
+        private CompletableFuture<CloseableHttpResponse> future;
+        private boolean done;
+
+        private Copy(HttpClientContext context)
+        {
+            this.context = context;
+        }
+
+    }
+
+}
@@ -3,11 +3,14 @@ package com.numbers.jttp.request.stream;
 import com.numbers.jttp.*;
 import com.numbers.jttp.request.*;
 import com.numbers.jttp.request.supplier.*;
+import com.numbers.jttp.resilience.*;
 import java.io.*;
+import java.nio.*;
 import java.nio.file.*;
 import org.apache.http.*;
 import org.apache.http.client.methods.*;
 import org.apache.http.impl.client.*;
+import org.apache.http.impl.nio.client.*;
 
 /**
  * an interface representing an HTTP request that may have a body and may return
@@ -31,9 +34,33 @@ public interface HttpBodyRequestStream extends HttpRequestStream {
                                  RequestSupplier<? extends HttpEntityEnclosingRequestBase> supplier,
                                  String url, Jttp.JTTPConfig config){
     
-        return new HttpBodyRequestStreamImpl(client, requestType, supplier, url,
+        return new HttpBodyRequestStreamImpl(client, null, requestType, supplier, url,
                 config);
     }
+
+    /**
+     * creates a request stream that executes async requests on the given
+     * non-blocking client.
+     *
+     * @param client      the client used for blocking execution
+     * @param asyncClient the client used for non-blocking async execution, or
+     *                    {@code null} to execute async requests on the
+     *                    executor of the config
+     * @param requestType the HTTP request type
+     * @param supplier    the request supplier
+     * @param url         the base url
+     * @param config      the config containing user defined default values
+     * @return a new request stream
+     */
+    public static HttpBodyRequestStream of(CloseableHttpClient client,
+                                 CloseableHttpAsyncClient asyncClient,
+                                 HttpRequestType requestType,
+                                 RequestSupplier<? extends HttpEntityEnclosingRequestBase> supplier,
+                                 String url, Jttp.JTTPConfig config){
+    
+        return new HttpBodyRequestStreamImpl(client, asyncClient, requestType, supplier,
+                url, config);
+    }
     
     /**
      * sets an array of key-value strings as a JSON body
@@ -51,6 +78,128 @@ public interface HttpBodyRequestStream extends HttpRequestStream {
      */
     HttpBodyRequestStream body(Object value);
 
+    /**
+     * sets the content of a file as the body. The file is streamed to the
+     * connection with a known content length.
+     *
+     * @param file the file to send
+     * @return this requestStream
+     */
+    HttpBodyRequestStream body(File file);
+
+    /**
+     * sets the content of a file as the body. The file is streamed to the
+     * connection with a known content length.
+     *
+     * @param path the path of the file to send
+     * @return this requestStream
+     */
+    HttpBodyRequestStream body(Path path);
+
+    /**
+     * sets an inputstream as the body. The stream is sent with chunked
+     * transfer encoding and closed once sent. As the stream can only be read
+     * once, the request can not be repeated.
+     *
+     * @param stream the stream to send
+     * @return this requestStream
+     */
+    HttpBodyRequestStream body(InputStream stream);
+
+    /**
+     * sets an inputstream of a known length as the body. The stream is closed
+     * once sent. As the stream can only be read once, the request can not be
+     * repeated.
+     *
+     * @param stream the stream to send
+     * @param length the amount of bytes in the stream, or a negative value to
+     *               use chunked transfer encoding
+     * @return this requestStream
+     */
+    HttpBodyRequestStream body(InputStream stream, long length);
+
+    /**
+     * sets the remaining bytes of a buffer as the body. The position of the
+     * buffer is not modified.
+     *
+     * @param buffer the buffer to send
+     * @return this requestStream
+     */
+    HttpBodyRequestStream body(ByteBuffer buffer);
+
+    /**
+     * sets a byte array as the body.
+     *
+     * @param bytes the bytes to send
+     * @return this requestStream
+     */
+    HttpBodyRequestStream body(byte[] bytes);
+
+    /**
+     * gzip compresses the body while it is sent, with
+     * {@code Content-Encoding: gzip}. Bodies with a known length up to the
+     * {@link com.numbers.jttp.Jttp.JTTPConfig#setCompressionThreshold(long)
+     * compression threshold} are sent uncompressed, as compressing them does
+     * not pay off. The server must accept compressed request bodies.
+     *
+     * @return this requestStream
+     */
+    HttpBodyRequestStream compress();
+
+    /**
+     * adds a text part to a multipart/form-data body. Parts are written to
+     * the connection one after another while the request is sent, and can not
+     * be combined with any of the {@code body} methods.
+     *
+     * @param name  the name of the form field
+     * @param value the text value of the part
+     * @return this requestStream
+     */
+    HttpBodyRequestStream part(String name, String value);
+
+    /**
+     * adds a part with the JSON representation of the given object to a
+     * multipart/form-data body.
+     *
+     * @param name  the name of the form field
+     * @param value the object to send as JSON
+     * @return this requestStream
+     */
+    HttpBodyRequestStream part(String name, Object value);
+
+    /**
+     * adds a file part to a multipart/form-data body. The file is streamed to
+     * the connection while the request is sent.
+     *
+     * @param name the name of the form field
+     * @param file the file to send
+     * @return this requestStream
+     */
+    HttpBodyRequestStream part(String name, File file);
+
+    /**
+     * adds a file part to a multipart/form-data body. The file is streamed to
+     * the connection while the request is sent.
+     *
+     * @param name the name of the form field
+     * @param path the path of the file to send
+     * @return this requestStream
+     */
+    HttpBodyRequestStream part(String name, Path path);
+
+    /**
+     * adds a stream part to a multipart/form-data body. The stream is copied
+     * to the connection while the request is sent. As the stream can only be
+     * read once, the request can not be repeated.
+     *
+     * @param name     the name of the form field
+     * @param stream   the stream to send
+     * @param fileName the filename of the part
+     * @return this requestStream
+     */
+    HttpBodyRequestStream part(String name, InputStream stream,
+                               String fileName);
+
     @Override
     HttpBodyRequestStream async();
 
@@ -85,6 +234,15 @@ public interface HttpBodyRequestStream extends HttpRequestStream {
     @Override
     HttpBodyRequestStream setConnectionTimeout(int ms);
 
+    @Override
+    HttpBodyRequestStream acceptEncoding(String... encodings);
+
+    @Override
+    HttpBodyRequestStream retry(RetryPolicy policy);
+
+    @Override
+    HttpBodyRequestStream hedge(HedgingPolicy policy);
+
     @Override
     HttpBodyRequestStream setProxy(HttpHost proxy);
 
@@ -1,16 +1,23 @@
 package com.numbers.jttp.request.stream;
 
 import com.numbers.jttp.*;
+import com.numbers.jttp.compression.*;
 import com.numbers.jttp.request.*;
 import com.numbers.jttp.request.supplier.*;
+import com.numbers.jttp.resilience.*;
 import java.io.*;
+import java.nio.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.logging.*;
 import java.util.stream.*;
 import org.apache.http.*;
 import org.apache.http.client.methods.*;
 import org.apache.http.entity.*;
+import org.apache.http.entity.mime.*;
+import org.apache.http.entity.mime.content.*;
 import org.apache.http.impl.client.*;
+import org.apache.http.impl.nio.client.*;
 
 /**
  * an implementation of the {@link HttpBodyRequestStream HttpBodyRequestStream},
@@ -26,6 +33,26 @@ class HttpBodyRequestStreamImpl extends HttpRequestStreamImpl implements HttpBod
      */
     protected List<HttpEntity> requestEntites;
 
+    /**
+     * the multipart body parts, or {@code null} if no part has been added
+     */
+    protected MultipartEntityBuilder multipart;
+
+    /**
+     * whether mapped bodies are serialized into memory before sending
+     */
+    protected final boolean bufferBodies;
+
+    /**
+     * the body size in bytes up to which compressed bodies are sent as is
+     */
+    protected final long compressionThreshold;
+
+    /**
+     * whether the body is gzip compressed while it is sent
+     */
+    protected boolean compress;
+
     /**
      * creates a HttpBodyRequestStream with the default supplied values, an
      * empty {@code basicAuth}, an empty {@code hearders} list, empty
@@ -33,18 +60,23 @@ class HttpBodyRequestStreamImpl extends HttpRequestStreamImpl implements HttpBod
      * {@code requestEntitities} list.
      *
      * @param client      the client to execute the request with
+     * @param asyncClient the non-blocking client to execute async requests
+     *                    with, or {@code null} to use the executor instead
      * @param requestType the HTTP request type
      * @param supplier    the HttpRequestBase supplier
      * @param url         the base url
      * @param config      the config containing user defined default values
      */
     HttpBodyRequestStreamImpl(CloseableHttpClient client,
+                                     CloseableHttpAsyncClient asyncClient,
                                      HttpRequestType requestType,
                                      RequestSupplier<? extends HttpEntityEnclosingRequestBase> supplier,
                                      String url, Jttp.JTTPConfig config)
     {
-        super(client, requestType, supplier, url, config);
+        super(client, asyncClient, requestType, supplier, url, config);
         requestEntites = new ArrayList<>();
+        bufferBodies = config.isBufferRequestBodies();
+        compressionThreshold = config.getCompressionThreshold();
     }
 
     @Override
@@ -78,14 +110,185 @@ class HttpBodyRequestStreamImpl extends HttpRequestStreamImpl implements HttpBod
     @Override
     public HttpBodyRequestStream body(Object value)
     {
-        StringEntity entity = new StringEntity(
-                mapper.writeValue(value),
-                ContentType.APPLICATION_JSON);
+        JsonEntity entity = new JsonEntity(value, mapper);
+        if (!bufferBodies) {
+            requestEntites.add(entity);
+            return this;
+        }
+
+        try {
+            requestEntites.add(entity.buffer()
+                    .toEntity());
+        } catch (IOException ex) {
+            Logger.getLogger(HttpBodyRequestStreamImpl.class.getName())
+                    .log(Level.SEVERE, null, ex);
+            throw new UncheckedIOException(ex);
+        }
+        return this;
+    }
+
+    @Override
+    public HttpBodyRequestStream body(File file)
+    {
+        requestEntites.add(new FileEntity(file,
+                ContentType.APPLICATION_OCTET_STREAM));
+        return this;
+    }
+
+    @Override
+    public HttpBodyRequestStream body(Path path)
+    {
+        return body(path.toFile());
+    }
+
+    @Override
+    public HttpBodyRequestStream body(InputStream stream)
+    {
+        return body(stream, -1);
+    }
+
+    @Override
+    public HttpBodyRequestStream body(InputStream stream, long length)
+    {
+        InputStreamEntity entity = new InputStreamEntity(stream, length,
+                ContentType.APPLICATION_OCTET_STREAM);
+        entity.setChunked(length < 0);
 
         requestEntites.add(entity);
         return this;
     }
 
+    @Override
+    public HttpBodyRequestStream body(ByteBuffer buffer)
+    {
+        requestEntites.add(new ByteBufferEntity(buffer,
+                ContentType.APPLICATION_OCTET_STREAM));
+        return this;
+    }
+
+    @Override
+    public HttpBodyRequestStream body(byte[] bytes)
+    {
+        requestEntites.add(new ByteArrayEntity(bytes,
+                ContentType.APPLICATION_OCTET_STREAM));
+        return this;
+    }
+
+    @Override
+    public HttpBodyRequestStream compress()
+    {
+        compress = true;
+        return this;
+    }
+
+    @Override
+    public HttpBodyRequestStream part(String name, String value)
+    {
+        return addPart(name, new StringBody(value, ContentType.create(
+                "text/plain", Consts.UTF_8)));
+    }
+
+    @Override
+    public HttpBodyRequestStream part(String name, Object value)
+    {
+        return addPart(name, new JsonContentBody(value, mapper));
+    }
+
+    @Override
+    public HttpBodyRequestStream part(String name, File file)
+    {
+        return addPart(name, new FileBody(file));
+    }
+
+    @Override
+    public HttpBodyRequestStream part(String name, Path path)
+    {
+        return part(name, path.toFile());
+    }
+
+    @Override
+    public HttpBodyRequestStream part(String name, InputStream stream,
+                                      String fileName)
+    {
+        return addPart(name, new InputStreamBody(stream, fileName));
+    }
+
+    /**
+     * adds a part to the multipart body, creating the body if needed
+     *
+     * @param name the name of the form field
+     * @param body the content of the part
+     * @return this requestStream
+     */
+    private HttpBodyRequestStream addPart(String name, ContentBody body)
+    {
+        if (multipart == null) {
+            multipart = MultipartEntityBuilder.create();
+        }
+        multipart.addPart(name, body);
+        return this;
+    }
+
+    /**
+     * configures the request fields and attaches the request body, if any.
+     *
+     * @param request the request to configure
+     * @throws IllegalStateException if more than one body has been set, or a
+     *                               body is combined with multipart parts
+     */
+    @Override
+    protected void configRequest(HttpRequestBase request)
+    {
+        super.configRequest(request);
+
+        if (requestEntites.size() > 1) {
+            throw new IllegalStateException(
+                    "only a single body can be sent, use parts instead");
+        }
+        if (multipart != null && !requestEntites.isEmpty()) {
+            throw new IllegalStateException(
+                    "a body can not be combined with multipart parts");
+        }
+        if (!(request instanceof HttpEntityEnclosingRequestBase)) {
+            return;
+        }
+        HttpEntity entity = multipart != null
+                            ? multipart.build()
+                            : requestEntites.isEmpty()
+                              ? null
+                              : requestEntites.get(0);
+        if (entity == null) {
+            return;
+        }
+        if (compress && GzipCompressingEntity.shouldCompress(entity,
+                compressionThreshold)) {
+            entity = new GzipCompressingEntity(entity);
+        }
+        ((HttpEntityEnclosingRequestBase) request).setEntity(entity);
+    }
+
+    /**
+     * multipart bodies can not be read from {@code getContent()} once they
+     * are larger than 25 KB or have a part of unknown length, inputstream
+     * bodies would be read on the I/O threads of the non-blocking client and
+     * unbuffered mapped bodies would be serialized into memory, as would the
+     * compressed form of a body.
+     */
+    @Override
+    protected boolean streamsBody()
+    {
+        if (multipart != null) {
+            return true;
+        }
+        if (requestEntites.isEmpty()) {
+            return false;
+        }
+        HttpEntity entity = requestEntites.get(0);
+        return entity.isStreaming() || entity instanceof JsonEntity
+                || compress && GzipCompressingEntity.shouldCompress(entity,
+                        compressionThreshold);
+    }
+
     /*
      * already implemented methods that need to return this type of
      * HttpRequestStream
@@ -105,34 +308,34 @@ class HttpBodyRequestStreamImpl extends HttpRequestStreamImpl implements HttpBod
         return this;
     }
 
+    /**
+     * adds the file as a part of a multipart/form-data body
+     */
     @Override
     public HttpBodyRequestStream header(String key, File file, String fileName)
     {
-        super.header(key, file, fileName);
-        return this;
+        return addPart(key, new FileBody(file,
+                ContentType.APPLICATION_OCTET_STREAM, fileName));
     }
 
     @Override
     public HttpBodyRequestStream header(String key, InputStream stream,
                                         String streamObjectName)
     {
-        super.header(key, stream, streamObjectName);
-        return this;
+        return addPart(key, new InputStreamBody(stream, streamObjectName));
     }
 
     @Override
     public HttpBodyRequestStream header(String key, Path path, String pathName)
     {
-        super.header(key, path, pathName);
-        return this;
+        return header(key, path.toFile(), pathName);
     }
 
     @Override
     public HttpBodyRequestStream header(String key, byte[] bytes,
                                         String byteObjectName)
     {
-        super.header(key, bytes, byteObjectName);
-        return this;
+        return addPart(key, new ByteArrayBody(bytes, byteObjectName));
     }
 
     @Override
@@ -170,6 +373,27 @@ class HttpBodyRequestStreamImpl extends HttpRequestStreamImpl implements HttpBod
         return this;
     }
 
+    @Override
+    public HttpBodyRequestStream acceptEncoding(String... encodings)
+    {
+        super.acceptEncoding(encodings);
+        return this;
+    }
+
+    @Override
+    public HttpBodyRequestStream retry(RetryPolicy policy)
+    {
+        super.retry(policy);
+        return this;
+    }
+
+    @Override
+    public HttpBodyRequestStream hedge(HedgingPolicy policy)
+    {
+        super.hedge(policy);
+        return this;
+    }
+
     @Override
     public HttpBodyRequestStream setProxy(HttpHost proxy)
     {
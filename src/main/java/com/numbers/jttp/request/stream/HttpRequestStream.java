@@ -1,17 +1,24 @@
 package com.numbers.jttp.request.stream;
 
 import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.*;
+import com.numbers.jttp.pagination.*;
 import com.numbers.jttp.request.*;
 import com.numbers.jttp.request.supplier.*;
+import com.numbers.jttp.resilience.*;
 import com.numbers.jttp.response.HttpResponse;
 import com.numbers.jttp.response.*;
 import java.io.*;
+import java.nio.channels.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.stream.*;
 import org.apache.http.*;
 import org.apache.http.client.methods.*;
 import org.apache.http.impl.client.*;
+import org.apache.http.impl.nio.client.*;
+import org.reactivestreams.*;
 
 /**
  * an interface representing an HTTP request that may return a response body
@@ -35,9 +42,33 @@ public interface HttpRequestStream extends BodyResponselessHttpRequestStream {
                                  RequestSupplier<? extends HttpRequestBase> supplier,
                                  String url, Jttp.JTTPConfig config){
     
-        return new HttpRequestStreamImpl(client, requestType, supplier, url,
+        return new HttpRequestStreamImpl(client, null, requestType, supplier, url,
                 config);
     }
+
+    /**
+     * creates a request stream that executes async requests on the given
+     * non-blocking client.
+     *
+     * @param client      the client used for blocking execution
+     * @param asyncClient the client used for non-blocking async execution, or
+     *                    {@code null} to execute async requests on the
+     *                    executor of the config
+     * @param requestType the HTTP request type
+     * @param supplier    the request supplier
+     * @param url         the base url
+     * @param config      the config containing user defined default values
+     * @return a new request stream
+     */
+    public static HttpRequestStream of(CloseableHttpClient client,
+                                 CloseableHttpAsyncClient asyncClient,
+                                 HttpRequestType requestType,
+                                 RequestSupplier<? extends HttpRequestBase> supplier,
+                                 String url, Jttp.JTTPConfig config){
+    
+        return new HttpRequestStreamImpl(client, asyncClient, requestType, supplier,
+                url, config);
+    }
     
     @Override
     HttpRequestStream async();
@@ -45,6 +76,12 @@ public interface HttpRequestStream extends BodyResponselessHttpRequestStream {
     @Override
     HttpRequestStream basicAuth(String username, String password);
 
+    @Override
+    HttpRequestStream retry(RetryPolicy policy);
+
+    @Override
+    HttpRequestStream hedge(HedgingPolicy policy);
+
     @Override
     HttpRequestStream header(String key, File file, String fileName);
 
@@ -73,6 +110,9 @@ public interface HttpRequestStream extends BodyResponselessHttpRequestStream {
     @Override
     HttpRequestStream setConnectionTimeout(int ms);
 
+    @Override
+    HttpRequestStream acceptEncoding(String... encodings);
+
     @Override
     HttpRequestStream setProxy(HttpHost proxy);
 
@@ -86,6 +126,28 @@ public interface HttpRequestStream extends BodyResponselessHttpRequestStream {
      */
     CompletableFuture<JsonHttpResponse<String>> asString();
 
+    /**
+     * executes the HTTP request and writes the response body to the given
+     * file, replacing it if it already exists. The body is copied as raw
+     * bytes without buffering it in memory.
+     *
+     * @param path the file to write the response body to
+     * @return a JsonHttpResponse with the written file and the amount of
+     *         bytes written to it
+     */
+    CompletableFuture<JsonHttpResponse<DownloadedFile>> asFile(Path path);
+
+    /**
+     * executes the HTTP request and writes the response body to the given
+     * channel. The body is copied as raw bytes without buffering it in memory,
+     * the channel is not closed.
+     *
+     * @param channel the channel to write the response body to
+     * @return a JsonHttpResponse with the amount of bytes written
+     */
+    CompletableFuture<JsonHttpResponse<Long>> asChannel(
+            WritableByteChannel channel);
+
     /**
      * executes the HTTP request and maps the response
      *
@@ -95,6 +157,65 @@ public interface HttpRequestStream extends BodyResponselessHttpRequestStream {
      */
     <T> CompletableFuture<JsonHttpResponse<T>> asObject(Class<? extends T> clazz);
 
+    /**
+     * executes the HTTP request and maps the response to a generic type
+     *
+     * @param <T>  the type of the object
+     * @param type the token of the type to instantiate
+     * @return a JsonHttpResponse with the response body converted to an Object
+     */
+    <T> CompletableFuture<JsonHttpResponse<T>> asObject(TypeReference<T> type);
+
+    /**
+     * executes the HTTP request and lazily maps the JSON array response to a
+     * stream of objects. Array elements are parsed one at a time while the
+     * stream is consumed, the stream has to be closed to release the
+     * underlying connection.
+     * <p>
+     * Note: the stream reads directly from the connection, this request
+     * therefore always uses blocking I/O.
+     *
+     * @param <T>   the type of the stream elements
+     * @param clazz the class of the array elements to instantiate
+     * @return a JsonHttpResponse with the response body converted to a lazy
+     *         Stream of objects
+     */
+    <T> CompletableFuture<JsonHttpResponse<Stream<T>>> asStream(Class<T> clazz);
+
+    /**
+     * lazily maps the JSON array response to a Reactive Streams publisher of
+     * objects. Every subscriber executes the request once it first requests
+     * elements, and array elements are only parsed while the subscriber has
+     * outstanding demand. Parsing is done on the executor, cancelling the
+     * subscription releases the underlying connection. A response with an
+     * error code is signalled as an IllegalStateException.
+     * <p>
+     * Note: on Java 9 or later, {@code org.reactivestreams.FlowAdapters}
+     * converts the publisher to a {@code java.util.concurrent.Flow.Publisher}.
+     *
+     * @param <T>   the type of the published elements
+     * @param clazz the class of the array elements to instantiate
+     * @return a publisher of the array elements
+     */
+    <T> Publisher<T> asPublisher(Class<T> clazz);
+
+    /**
+     * lazily iterates the items of all pages of a paginated endpoint,
+     * starting with the page at the URI of this request. Every page is
+     * requested async with the headers and settings of this request, and the
+     * next page is requested as soon as the items of a page are consumed, so
+     * the latency of the next request overlaps with processing the current
+     * page. A page with an error code is thrown as an IllegalStateException
+     * while the stream is consumed, closing the stream cancels the request of
+     * the next page.
+     *
+     * @param <P>        the type of the pages
+     * @param <T>        the type of the items
+     * @param pagination the way pages are read and linked
+     * @return a lazy Stream of the items of all pages
+     */
+    <P, T> Stream<T> paginate(Pagination<P, T> pagination);
+
     /**
      * executes the HTTP request and maps the response to a list of objects
      *
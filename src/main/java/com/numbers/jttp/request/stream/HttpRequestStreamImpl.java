@@ -1,26 +1,40 @@
 package com.numbers.jttp.request.stream;
 
 import com.numbers.jttp.*;
+import com.numbers.jttp.cache.*;
+import com.numbers.jttp.compression.*;
 import com.numbers.jttp.mapper.*;
+import com.numbers.jttp.metrics.*;
+import com.numbers.jttp.pagination.*;
 import com.numbers.jttp.request.*;
 import com.numbers.jttp.request.supplier.*;
+import com.numbers.jttp.resilience.*;
 import com.numbers.jttp.response.HttpResponse;
 import com.numbers.jttp.response.*;
 import java.io.*;
 import java.net.*;
+import java.nio.channels.*;
 import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 import java.util.function.*;
 import java.util.logging.*;
+import java.util.stream.*;
 import org.apache.commons.io.*;
 import org.apache.http.*;
+import org.apache.http.client.cache.*;
 import org.apache.http.client.config.*;
 import org.apache.http.client.methods.*;
+import org.apache.http.client.protocol.*;
 import org.apache.http.client.utils.*;
+import org.apache.http.concurrent.*;
 import org.apache.http.impl.client.*;
+import org.apache.http.impl.nio.client.*;
 import org.apache.http.message.*;
+import org.apache.http.util.*;
+import org.reactivestreams.*;
 
 /**
  * a direct implementation of the HttpRequestStream
@@ -29,6 +43,29 @@ import org.apache.http.message.*;
  */
 public class HttpRequestStreamImpl implements HttpRequestStream {
 
+    /**
+     * the context attribute holding the URI of the executed request
+     */
+    private static final String URI_KEY = "jttp.uri";
+
+    /**
+     * the context attribute holding the executed request, so it can be
+     * aborted
+     */
+    private static final String REQUEST_KEY = "jttp.request";
+
+    /**
+     * the context attribute holding the permits of the rate limiters taken
+     * before the request was handed to the executor
+     */
+    private static final String THROTTLE_KEY = "jttp.throttle";
+
+    /**
+     * the context attribute marking a response that is still read after its
+     * handler returned, its timer is completed once it has been released
+     */
+    private static final String STREAMED_KEY = "jttp.streamed";
+
     /**
      * the base (no queries) url of the request
      */
@@ -75,6 +112,21 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
      */
     protected Optional<Integer> connectionTimeout;
 
+    /**
+     * the policy retrying the request when it fails, or {@code null} if the
+     * request is sent only once.
+     */
+    protected RetryPolicy retryPolicy;
+
+    /**
+     * the policy hedging the request when it is slow, or {@code null} if the
+     * request is never hedged. Only safe requests are hedged.
+     */
+    protected HedgingPolicy hedgingPolicy;
+    private final CircuitBreakers circuitBreakers;
+    private final ConcurrencyLimiters concurrencyLimiters;
+    private final RateLimiters rateLimiters;
+
     /**
      * an optional {@link String} containing the Base64 encoded username +
      * password. An empty value represents no basicAuth.
@@ -87,6 +139,13 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
     protected final List<NameValuePair> queries;
     private final RequestSupplier<? extends HttpRequestBase> requestSupplier;
     private final CloseableHttpClient client;
+    private final CloseableHttpAsyncClient asyncClient;
+    private final MetricsListener metricsListener;
+    private final HttpCache httpCache;
+    private final ObjectCache objectCache;
+    private final RequestCoalescer coalescer;
+    private final boolean recordTimings;
+    private final Jttp.JTTPConfig config;
 
     /**
      * creates a HttpRequestStream with the default supplied values, an empty
@@ -94,12 +153,15 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
      * list and an empty {@code connectionTimeout}.
      *
      * @param client      the client to execute the request with
+     * @param asyncClient the non-blocking client to execute async requests
+     *                    with, or {@code null} to use the executor instead
      * @param requestType the HTTP request type
      * @param supplier    the HttpRequestBase supplier
      * @param url         the base url
      * @param config      the config containing user defined default values
      */
     HttpRequestStreamImpl(CloseableHttpClient client,
+                                 CloseableHttpAsyncClient asyncClient,
                                  HttpRequestType requestType,
                                  RequestSupplier<? extends HttpRequestBase> supplier,
                                  String url, Jttp.JTTPConfig config)
@@ -112,6 +174,18 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
         this.requestType = requestType;
         this.requestSupplier = supplier;
         this.client = client;
+        this.asyncClient = asyncClient;
+        this.metricsListener = config.getMetricsListener();
+        this.recordTimings = config.isRecordTimings();
+        this.httpCache = config.getHttpCache();
+        this.objectCache = config.getObjectCache();
+        this.coalescer = config.getRequestCoalescer();
+        this.retryPolicy = config.getRetryPolicy();
+        this.hedgingPolicy = config.getHedgingPolicy();
+        this.circuitBreakers = config.getCircuitBreakers();
+        this.concurrencyLimiters = config.getConcurrencyLimiters();
+        this.rateLimiters = config.getRateLimiters();
+        this.config = config;
 
         basicAuth = Optional.empty();
         headers = new ArrayList<>();
@@ -194,30 +268,69 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
         return this;
     }
 
+    @Override
+    public HttpRequestStream acceptEncoding(String... encodings)
+    {
+        headers.removeIf(header -> header.getName()
+                .equalsIgnoreCase(HttpHeaders.ACCEPT_ENCODING));
+        headers.add(new BasicHeader(HttpHeaders.ACCEPT_ENCODING,
+                encodings.length == 0
+                ? "identity"
+                : String.join(", ", encodings)));
+        return this;
+    }
+
+    @Override
+    public HttpRequestStream retry(RetryPolicy policy)
+    {
+        this.retryPolicy = policy;
+        return this;
+    }
+
+    @Override
+    public HttpRequestStream hedge(HedgingPolicy policy)
+    {
+        this.hedgingPolicy = policy;
+        return this;
+    }
+
+    /**
+     * files are uploaded as parts of a multipart/form-data body, which a
+     * request without a body, such as get, delete or head, can not carry
+     *
+     * @return the exception to throw when uploading with such a request
+     */
+    private UnsupportedOperationException bodilessUpload()
+    {
+        return new UnsupportedOperationException(requestType
+                + " requests have no body to upload files in as multipart parts,"
+                + " use a post, put or patch request instead");
+    }
+
     @Override
     public HttpRequestStream header(String key, File file, String fileName)
     {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        throw bodilessUpload();
     }
 
     @Override
     public HttpRequestStream header(String key, Path path, String pathName)
     {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        throw bodilessUpload();
     }
 
     @Override
     public HttpRequestStream header(String key, InputStream stream,
                                     String streamObjectName)
     {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        throw bodilessUpload();
     }
 
     @Override
     public HttpRequestStream header(String key, byte[] bytes,
                                     String byteObjectName)
     {
-        throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
+        throw bodilessUpload();
     }
 
     /**
@@ -262,6 +375,37 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
         return builder.build();
     }
 
+    /**
+     * builds the request to execute, configured with the fields of this
+     * stream.
+     *
+     * @return a new HttpRequestBase ready for execution
+     * @throws URISyntaxException if the URI contains bad syntax
+     */
+    protected HttpRequestBase buildRequest() throws URISyntaxException
+    {
+        HttpRequestBase request = requestSupplier.get(requestType, buildUri());
+        configRequest(request);
+
+        request.setConfig(buildRequestConfig(request));
+
+        return request;
+    }
+
+    /**
+     * creates the context to execute the request in, holding the
+     * {@link RequestTimer RequestTimer} of the request.
+     *
+     * @return a new context for a single execution of this request
+     */
+    protected HttpClientContext createContext()
+    {
+        HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(RequestTimer.CONTEXT_KEY, RequestTimer.start(
+                metricsListener, requestType, recordTimings));
+        return context;
+    }
+
     /**
      * executes the response and returns the ClosableHttpResponse response of
      * the request
@@ -271,21 +415,703 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
      */
     protected CloseableHttpResponse executeRequest()
     {
+        return executeRequest(createContext());
+    }
+
+    /**
+     * executes the response in the given context and returns the
+     * ClosableHttpResponse response of the request
+     *
+     * @param context the context to execute the request in
+     * @return the ClosableHttpResponse generated by this request and the
+     *         ClosableHttpClient
+     */
+    protected CloseableHttpResponse executeRequest(HttpClientContext context)
+    {
+        RequestTimer timer = RequestTimer.from(context);
+        timer.bind();
+        HttpRequestBase request = null;
+        RequestAdmission admission = null;
         try {
-            URI uri = buildUri();
-            HttpRequestBase request = requestSupplier.get(requestType, uri);
-            configRequest(request);
+            request = buildRequest();
+            timer.host(request.getURI()
+                    .getHost());
+            context.setAttribute(URI_KEY, request.getURI());
+            context.setAttribute(REQUEST_KEY, request);
+            admission = admit(request.getURI(), context);
+            admission.sending();
+            CloseableHttpResponse response = client.execute(request, context);
+            admission.completed(response);
+            return response;
+
+        } catch (CircuitBreakerOpenException
+                 | RateLimitExceededException
+                 | ConcurrencyLimitExceededException ex) {
+            Logger.getLogger(this.getClass()
+                    .getName())
+                    .log(Level.FINE, ex.getMessage(), ex);
+            timer.fail(ex);
+            throw ex;
+        } catch (URISyntaxException | IOException ex) {
+            if (request != null && request.isAborted()) {
+                // aborted on purpose, such as a hedged copy that lost
+                if (admission != null) {
+                    admission.ignored();
+                }
+                Logger.getLogger(this.getClass()
+                        .getName())
+                        .log(Level.FINE, ex.getMessage(), ex);
+                throw new RuntimeException(ex);
+            }
+            if (admission != null) {
+                admission.failed();
+            }
+            Logger.getLogger(this.getClass()
+                    .getName())
+                    .log(Level.SEVERE, ex.getMessage(), ex);
+            timer.fail(ex);
+            throw new RuntimeException(ex);
+        } catch (RuntimeException ex) {
+            if (admission != null) {
+                admission.ignored();
+            }
+            throw ex;
+        } finally {
+            timer.unbind();
+        }
+    }
+
+    /**
+     *
+     * @param uri the URI of the request
+     * @return the admission of the request by the circuit breaker and the
+     *         concurrency limiter of its host, either of which may be
+     *         disabled
+     */
+    private RequestAdmission admissionOf(URI uri)
+    {
+        HttpHost host = URIUtils.extractHost(uri);
+        if (host == null) {
+            return new RequestAdmission(null, null);
+        }
+        String name = host.toHostString();
+        return new RequestAdmission(circuitBreakers == null
+                                    ? null
+                                    : circuitBreakers.forHost(name),
+                concurrencyLimiters == null
+                ? null
+                : concurrencyLimiters.forHost(name));
+    }
 
-            request.setConfig(buildRequestConfig(request));
+    /**
+     * waits until the request may be sent to its host
+     *
+     * @param uri     the URI of the request
+     * @param context the context to execute the request in
+     * @return the admission of the request
+     * @throws CircuitBreakerOpenException       if the circuit of the host is
+     *                                           open
+     * @throws RateLimitExceededException        if a rate limit would not
+     *                                           allow the request in time
+     * @throws ConcurrencyLimitExceededException if the limit of the host did
+     *                                           not allow the request in time
+     */
+    private RequestAdmission admit(URI uri, HttpClientContext context)
+    {
+        RequestAdmission admission = admissionOf(uri);
+        CompletableFuture<Void> permit = admission.acquire(takeThrottle(
+                context), config.getScheduler());
+        try {
+            permit.get();
+            return admission;
+        } catch (InterruptedException ex) {
+            if (!permit.cancel(false)) {
+                // granted in the meantime
+                admission.ignored();
+            }
+            Thread.currentThread()
+                    .interrupt();
+            throw new RuntimeException(ex);
+        } catch (ExecutionException ex) {
+            throw (RuntimeException) ex.getCause();
+        }
+    }
 
-            return client.execute(request);
+    /**
+     * takes the permits of the rate limiters for the next attempt of the
+     * request in the given context, unless they were taken already. The
+     * returned future completes on the scheduler once they are available,
+     * so waiting for them occupies no thread.
+     *
+     * @param context the context to execute the request in
+     * @return a future completing with the time waited in nanoseconds
+     */
+    private CompletableFuture<Long> throttle(HttpClientContext context)
+    {
+        @SuppressWarnings("unchecked")
+        CompletableFuture<Long> throttle = (CompletableFuture<Long>) context
+                .getAttribute(THROTTLE_KEY);
+        if (throttle != null) {
+            return throttle;
+        }
+        if (rateLimiters == null) {
+            throttle = CompletableFuture.completedFuture(0L);
+        } else {
+            try {
+                throttle = rateLimiters.acquire(buildUri(), config
+                        .getScheduler());
+            } catch (URISyntaxException ex) {
+                // reported once the request is built
+                throttle = CompletableFuture.completedFuture(0L);
+            }
+            RequestTimer timer = RequestTimer.from(context);
+            throttle.thenAccept(timer::throttled);
+        }
+        context.setAttribute(THROTTLE_KEY, throttle);
+        return throttle;
+    }
 
-        } catch (URISyntaxException | IOException ex) {
+    /**
+     * takes the permits of the rate limiters for the current attempt, so the
+     * next attempt in the same context takes its own
+     *
+     * @param context the context to execute the request in
+     * @return a future completing with the time waited in nanoseconds
+     */
+    private CompletableFuture<Long> takeThrottle(HttpClientContext context)
+    {
+        CompletableFuture<Long> throttle = throttle(context);
+        context.removeAttribute(THROTTLE_KEY);
+        return throttle;
+    }
+
+    /**
+     * executes the request on the non-blocking client. The returned future
+     * completes on an I/O dispatcher thread once the complete response has
+     * been received, cancelling it aborts the request.
+     *
+     * @return a future of the buffered response generated by this request
+     */
+    protected CompletableFuture<CloseableHttpResponse> executeRequestNonBlocking()
+    {
+        return executeRequestNonBlocking(createContext());
+    }
+
+    /**
+     * executes the request in the given context on the non-blocking client.
+     * The returned future completes on an I/O dispatcher thread once the
+     * complete response has been received, cancelling it aborts the request.
+     *
+     * @param context the context to execute the request in
+     * @return a future of the buffered response generated by this request
+     */
+    protected CompletableFuture<CloseableHttpResponse> executeRequestNonBlocking(
+            HttpClientContext context)
+    {
+        CompletableFuture<CloseableHttpResponse> future = new CompletableFuture<>();
+        RequestTimer timer = RequestTimer.from(context);
+        HttpRequestBase request;
+        try {
+            request = buildRequest();
+        } catch (URISyntaxException ex) {
             Logger.getLogger(this.getClass()
                     .getName())
                     .log(Level.SEVERE, ex.getMessage(), ex);
-            throw new RuntimeException(ex);
+            timer.fail(ex);
+            future.completeExceptionally(new RuntimeException(ex));
+            return future;
+        }
+
+        timer.host(request.getURI()
+                .getHost());
+        context.setAttribute(URI_KEY, request.getURI());
+        context.setAttribute(REQUEST_KEY, request);
+        RequestAdmission admission = admissionOf(request.getURI());
+        CompletableFuture<Void> permit = admission.acquire(takeThrottle(
+                context), config.getScheduler());
+        AtomicReference<Future<?>> pending = new AtomicReference<>();
+        future.whenComplete((response, ex) -> {
+            if (future.isCancelled()) {
+                permit.cancel(false);
+                Future<?> sent = pending.get();
+                if (sent != null) {
+                    sent.cancel(true);
+                }
+            }
+        });
+        permit.whenComplete((granted, rejection) -> {
+            if (rejection != null) {
+                if (!future.isDone()) {
+                    Logger.getLogger(HttpRequestStreamImpl.class.getName())
+                            .log(Level.FINE, rejection.getMessage(), rejection);
+                    timer.fail(rejection);
+                    future.completeExceptionally(rejection);
+                }
+                return;
+            }
+            if (future.isDone()) {
+                admission.ignored();
+                return;
+            }
+            pending.set(send(request, context, admission, future));
+            if (future.isCancelled()) {
+                pending.get()
+                        .cancel(true);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * sends an admitted request on the non-blocking client
+     *
+     * @param request   the request to send
+     * @param context   the context to execute the request in
+     * @param admission the admission of the request
+     * @param future    the future completed with the response
+     * @return the future of the non-blocking client
+     */
+    private Future<org.apache.http.HttpResponse> send(HttpRequestBase request,
+                                                      HttpClientContext context,
+                                                      RequestAdmission admission,
+                                                      CompletableFuture<CloseableHttpResponse> future)
+    {
+        RequestTimer timer = RequestTimer.from(context);
+        admission.sending();
+        timer.sending();
+        return asyncClient.execute(request, context,
+                new FutureCallback<org.apache.http.HttpResponse>() {
+            @Override
+            public void completed(org.apache.http.HttpResponse response)
+            {
+                admission.completed(response);
+                timer.received();
+                timer.enqueued();
+                try {
+                    ContentDecodingInterceptor.decode(response);
+                } catch (HttpException ex) {
+                    fail(ex);
+                    return;
+                }
+                future.complete(new NonBlockingHttpResponse(response));
+            }
+
+            @Override
+            public void failed(Exception ex)
+            {
+                admission.failed();
+                fail(ex);
+            }
+
+            private void fail(Exception ex)
+            {
+                Logger.getLogger(HttpRequestStreamImpl.class.getName())
+                        .log(Level.SEVERE, ex.getMessage(), ex);
+                timer.fail(ex);
+                future.completeExceptionally(new RuntimeException(ex));
+            }
+
+            @Override
+            public void cancelled()
+            {
+                admission.ignored();
+                future.cancel(false);
+            }
+        });
+    }
+
+    /**
+     *
+     * @return {@code true} if this request runs async on the non-blocking
+     *         client
+     */
+    protected final boolean isNonBlocking()
+    {
+        return async && asyncClient != null && !streamsBody();
+    }
+
+    /**
+     * the non-blocking client reads request bodies through
+     * {@link HttpEntity#getContent() getContent()} on its I/O threads. Bodies
+     * that can only be streamed by writing them, or that would block those
+     * threads, are sent on the blocking client instead.
+     *
+     * @return {@code true} if the body of this request must be sent on the
+     *         blocking client
+     */
+    protected boolean streamsBody()
+    {
+        return false;
+    }
+
+    /**
+     * executes the request and converts the response with the given handler.
+     * Non-blocking requests run the handler on the executor once the response
+     * has been received, all other requests are run through
+     * {@link #executeBlocking(BiFunction) executeBlocking}.
+     *
+     * @param <T>     the type of completableFuture
+     * @param handler the function converting the response
+     * @return a completableFuture of the converted response
+     */
+    protected final <T> CompletableFuture<T> executeAndHandle(
+            BiFunction<CloseableHttpResponse, HttpClientContext, T> handler)
+    {
+        if (isNonBlocking()) {
+            HttpClientContext context = createContext();
+            CompletableFuture<CloseableHttpResponse> response = executeRetrying(
+                    context, this::executeRequestNonBlocking);
+            return cancelling(response, response.thenApplyAsync(received -> {
+                RequestTimer.from(context)
+                        .dequeued();
+                return handleTimed(context, handler, received);
+            }, executor));
+        }
+        return executeBlocking(handler);
+    }
+
+    /**
+     * propagates the cancellation of the future handed to the caller to the
+     * future of the response it was derived from, which aborts the exchange.
+     * A response that was received already is closed, as it will not be
+     * handled.
+     *
+     * @param <T>      the type of the handled response
+     * @param response the future of the response
+     * @param result   the future derived from the response
+     * @return the given result
+     */
+    private static <T> CompletableFuture<T> cancelling(
+            CompletableFuture<CloseableHttpResponse> response,
+            CompletableFuture<T> result)
+    {
+        result.whenComplete((value, ex) -> {
+            if (result.isCancelled() && !response.cancel(true)) {
+                response.thenAccept(received -> {
+                    try {
+                        received.close();
+                    } catch (IOException closeEx) {
+                        Logger.getLogger(HttpRequestStreamImpl.class.getName())
+                                .log(Level.FINE, null, closeEx);
+                    }
+                });
+            }
+        });
+        return result;
+    }
+
+    /**
+     * executes the request on the blocking client and converts the response
+     * with the given handler, through
+     * {@link #wrapInCompletableFuture(Supplier) wrapInCompletableFuture}.
+     *
+     * @param <T>     the type of completableFuture
+     * @param handler the function converting the response
+     * @return a completableFuture of the converted response
+     */
+    protected final <T> CompletableFuture<T> executeBlocking(
+            BiFunction<CloseableHttpResponse, HttpClientContext, T> handler)
+    {
+        HttpClientContext context = createContext();
+        boolean resilient = retryPolicy != null || isHedged();
+        if (async && (resilient || rateLimiters != null)) {
+            // every attempt is a separate task, so no thread waits on backoff
+            // or rate limits
+            CompletableFuture<CloseableHttpResponse> response = executeRetrying(
+                    context, this::executeRequestAsync);
+            return cancelling(response, response.thenApply(received
+                    -> handleTimed(context, handler, received)));
+        }
+
+        RequestTimer timer = RequestTimer.from(context);
+        if (async) {
+            timer.enqueued();
+        }
+        return wrapInCompletableFuture(() -> {
+            timer.dequeued();
+            return handleTimed(context, handler, resilient
+                                                 ? awaitRetrying(context)
+                                                 : executeRequest(context));
+        });
+    }
+
+    /**
+     * executes the request on the blocking client in a task on the executor.
+     *
+     * @param context the context to execute the request in
+     * @return a future of the response
+     */
+    private CompletableFuture<CloseableHttpResponse> executeRequestAsync(
+            HttpClientContext context)
+    {
+        RequestTimer timer = RequestTimer.from(context);
+        // wait for the rate limiters before taking an executor thread, a
+        // rejection is reported by executeRequest
+        return throttle(context).handle((waited, ex) -> null)
+                .thenCompose(ready -> {
+                    timer.enqueued();
+                    return CompletableFuture.supplyAsync(() -> {
+                        timer.dequeued();
+                        return executeRequest(context);
+                    }, executor);
+                });
+    }
+
+    /**
+     * executes the request on the blocking client in the current thread,
+     * retrying it according to the retry policy. The thread sleeps while
+     * backing off.
+     *
+     * @param context the context to execute the request in
+     * @return the response of the last attempt
+     */
+    private CloseableHttpResponse awaitRetrying(HttpClientContext context)
+    {
+        try {
+            return executeRetrying(context, attempt -> CompletableFuture
+                    .completedFuture(executeRequest(attempt)))
+                    .join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * executes the request with the given attempt function, sending it again
+     * while the {@link RetryPolicy RetryPolicy} decides a failure or response
+     * should be retried. Every attempt is executed in the same context with a
+     * new {@link RequestTimer RequestTimer}, and is hedged if a
+     * {@link HedgingPolicy HedgingPolicy} applies. Async requests wait for
+     * their next attempt on the scheduler, synchronous requests sleep.
+     * Cancelling the returned future stops further attempts.
+     *
+     * @param context the context to execute the request in
+     * @param send    the function executing a single attempt
+     * @return a future of the response of the last attempt
+     */
+    private CompletableFuture<CloseableHttpResponse> executeRetrying(
+            HttpClientContext context,
+            Function<HttpClientContext, CompletableFuture<CloseableHttpResponse>> send)
+    {
+        Function<HttpClientContext, CompletableFuture<CloseableHttpResponse>> attempt
+                = hedged(send);
+        RetryPolicy policy = retryPolicy;
+        if (policy == null) {
+            return attempt.apply(context);
+        }
+
+        policy.onRequest();
+        CompletableFuture<CloseableHttpResponse> result = new CompletableFuture<>();
+        executeAttempt(context, attempt, policy, 1, result);
+        return result;
+    }
+
+    private void executeAttempt(HttpClientContext context,
+                                Function<HttpClientContext, CompletableFuture<CloseableHttpResponse>> attempt,
+                                RetryPolicy policy, int number,
+                                CompletableFuture<CloseableHttpResponse> result)
+    {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<CloseableHttpResponse> pending;
+        try {
+            pending = attempt.apply(context);
+        } catch (RuntimeException ex) {
+            pending = new CompletableFuture<>();
+            pending.completeExceptionally(ex);
         }
+        CompletableFuture<CloseableHttpResponse> current = pending;
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                current.cancel(true);
+            }
+        });
+
+        current.whenComplete((response, ex) -> {
+            long delay = !isRepeatable(context)
+                         ? -1
+                         : ex != null
+                           ? policy.retryDelay(requestType, number, ex)
+                           : policy.retryDelay(requestType, number, response);
+            if (delay < 0 || result.isDone()) {
+                if (ex != null) {
+                    result.completeExceptionally(ex);
+                } else if (!result.complete(response)) {
+                    closeQuietly(response);
+                }
+                return;
+            }
+
+            if (response != null) {
+                RequestTimer.from(context)
+                        .complete(response);
+                closeQuietly(response);
+            }
+            context.setAttribute(RequestTimer.CONTEXT_KEY, RequestTimer.start(
+                    metricsListener, requestType, recordTimings));
+
+            Runnable next = () -> executeAttempt(context, attempt, policy,
+                    number + 1, result);
+            if (async) {
+                config.getScheduler()
+                        .schedule(next, delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException interrupted) {
+                Thread.currentThread()
+                        .interrupt();
+                result.completeExceptionally(new RuntimeException(interrupted));
+                return;
+            }
+            next.run();
+        });
+    }
+
+    /**
+     *
+     * @return true if this request is hedged when it is slow
+     */
+    private boolean isHedged()
+    {
+        return hedgingPolicy != null && requestType.isSafe();
+    }
+
+    /**
+     * wraps the attempt function so every attempt is hedged according to
+     * the {@link HedgingPolicy HedgingPolicy}. Copies of the request are sent
+     * without blocking a thread, on the non-blocking client if available.
+     *
+     * @param send the function executing a single attempt
+     * @return the function executing a single hedged attempt, or the given
+     *         function if the request is not hedged
+     */
+    private Function<HttpClientContext, CompletableFuture<CloseableHttpResponse>> hedged(
+            Function<HttpClientContext, CompletableFuture<CloseableHttpResponse>> send)
+    {
+        HedgingPolicy policy = hedgingPolicy;
+        if (!isHedged()) {
+            return send;
+        }
+        String host;
+        try {
+            host = buildUri().getHost();
+        } catch (URISyntaxException ex) {
+            return send;
+        }
+        return context -> new HedgedExecution(policy, config.getScheduler(),
+                host, this::createContext, copy -> isNonBlocking()
+                                                  ? executeRequestNonBlocking(copy)
+                                                  : executeRequestAsync(copy),
+                HttpRequestStreamImpl::adoptContext,
+                HttpRequestStreamImpl::abortRequest)
+                .execute(context, send);
+    }
+
+    /**
+     * copies the state of a finished execution into another context, so the
+     * response can be handled in the context of the original request.
+     *
+     * @param from the context the response was received in
+     * @param to   the context the response is handled in
+     */
+    private static void adoptContext(HttpClientContext from,
+                                     HttpClientContext to)
+    {
+        to.setAttribute(RequestTimer.CONTEXT_KEY, from.getAttribute(
+                RequestTimer.CONTEXT_KEY));
+        to.setAttribute(URI_KEY, from.getAttribute(URI_KEY));
+        to.setAttribute(HttpCacheContext.CACHE_RESPONSE_STATUS, from
+                .getAttribute(HttpCacheContext.CACHE_RESPONSE_STATUS));
+    }
+
+    /**
+     * decides whether the request sent in the given context can be sent
+     * again. A streamed body, such as an inputstream, may have been consumed
+     * by the previous attempt.
+     *
+     * @param context the context of the request
+     * @return true if the request has no body or a repeatable body
+     */
+    private static boolean isRepeatable(HttpClientContext context)
+    {
+        Object request = context.getAttribute(REQUEST_KEY);
+        if (!(request instanceof HttpEntityEnclosingRequest)) {
+            return true;
+        }
+        HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+        return entity == null || entity.isRepeatable();
+    }
+
+    /**
+     * aborts the request executing in the given context, releasing its
+     * connection. A request that has not been sent yet fails once it is.
+     *
+     * @param context the context of the request
+     */
+    private static void abortRequest(HttpClientContext context)
+    {
+        Object request = context.getAttribute(REQUEST_KEY);
+        if (request instanceof HttpRequestBase) {
+            ((HttpRequestBase) request).abort();
+        }
+    }
+
+    /**
+     * releases a response that is not handed to a handler, reading the
+     * remainder of its body so the connection can be reused.
+     *
+     * @param response the response to release
+     */
+    private static void closeQuietly(CloseableHttpResponse response)
+    {
+        try {
+            EntityUtils.consume(response.getEntity());
+            response.close();
+        } catch (IOException ex) {
+            Logger.getLogger(HttpRequestStreamImpl.class.getName())
+                    .log(Level.FINE, null, ex);
+        }
+    }
+
+    /**
+     * applies the handler to the response and reports the outcome to the
+     * timer of the request. Reads from the response body are timed separately
+     * from the rest of the handler, which is recorded as mapping time.
+     *
+     * @param <T>      the type of the converted response
+     * @param context  the context the request was executed in
+     * @param handler  the function converting the response
+     * @param response the response to convert
+     * @return the converted response
+     */
+    private <T> T handleTimed(HttpClientContext context,
+                              BiFunction<CloseableHttpResponse, HttpClientContext, T> handler,
+                              CloseableHttpResponse response)
+    {
+        RequestTimer timer = RequestTimer.from(context);
+        if (timer.isEnabled() && response.getEntity() != null) {
+            response.setEntity(new TimedEntity(response.getEntity(), timer));
+        }
+
+        T result;
+        try {
+            timer.handling();
+            result = handler.apply(response, context);
+            timer.handled();
+        } catch (RuntimeException ex) {
+            timer.fail(ex);
+            throw ex;
+        }
+        if (context.getAttribute(STREAMED_KEY) == null) {
+            timer.complete(response);
+        }
+        return result;
     }
 
     /**
@@ -336,32 +1162,237 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
         return statusCode >= 200 && statusCode < 300;
     }
 
+    /**
+     * returns the response cached in the {@link ObjectCache ObjectCache} for
+     * this request, or executes the request and caches its response if it
+     * is successful. Only {@code GET} requests are cached.
+     *
+     * @param <T>     the type of the mapped object
+     * @param type    the type the response is mapped to
+     * @param handler the function converting the response
+     * @return a completableFuture of the cached or converted response
+     */
+    protected final <T> CompletableFuture<JsonHttpResponse<T>> executeCached(
+            Object type,
+            BiFunction<CloseableHttpResponse, HttpClientContext, JsonHttpResponse<T>> handler)
+    {
+        if (objectCache == null || requestType != HttpRequestType.GET) {
+            return executeCoalesced(type, handler);
+        }
+
+        ObjectCache.Key key;
+        try {
+            key = objectCache.keyOf(buildUri(), getKeyHeaders(), type);
+        } catch (URISyntaxException ex) {
+            return executeAndHandle(handler);
+        }
+
+        JsonHttpResponse<T> cached = objectCache.get(key);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<JsonHttpResponse<T>> executed = executeCoalesced(
+                type, handler);
+        CompletableFuture<JsonHttpResponse<T>> result = executed.thenApply(
+                response -> {
+                    if (response.isSuccess()) {
+                        objectCache.put(key, response);
+                    }
+                    return response;
+                });
+        result.whenComplete((response, ex) -> {
+            if (result.isCancelled()) {
+                executed.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * executes the request through the {@link RequestCoalescer
+     * RequestCoalescer}, so identical concurrent safe requests share a single
+     * execution. Synchronous callers sharing an execution wait for its
+     * result, a failure of the execution is thrown to them just like the
+     * failure of a request that is not coalesced.
+     *
+     * @param <T>     the type of completableFuture
+     * @param type    the type the response is converted to
+     * @param handler the function converting the response
+     * @return a completableFuture of the shared converted response
+     */
+    protected final <T> CompletableFuture<T> executeCoalesced(Object type,
+            BiFunction<CloseableHttpResponse, HttpClientContext, T> handler)
+    {
+        if (coalescer == null || !requestType.isSafe()) {
+            return executeAndHandle(handler);
+        }
+
+        CompletableFuture<T> shared;
+        try {
+            shared = coalescer.coalesce(requestType, buildUri(),
+                    getKeyHeaders(), type, () -> executeAndHandle(handler));
+        } catch (URISyntaxException ex) {
+            return executeAndHandle(handler);
+        }
+
+        if (!async) {
+            try {
+                shared.join();
+            } catch (CompletionException ex) {
+                // thrown like the failure of a request that is not coalesced
+                if (ex.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) ex.getCause();
+                }
+                throw ex;
+            } catch (CancellationException ex) {
+                // the leading request was cancelled, surfaced through the
+                // returned future
+            }
+        }
+        return shared;
+    }
+
+    /**
+     *
+     * @return the headers of the request including the authorization header,
+     *         used to tell cached and coalesced requests apart
+     */
+    private List<Header> getKeyHeaders()
+    {
+        List<Header> keyHeaders = new ArrayList<>(headers);
+        basicAuth.ifPresent(auth -> keyHeaders.add(new BasicHeader(
+                "Authorization", "Basic " + auth)));
+        return keyHeaders;
+    }
+
+    /**
+     * maps the body of a successful response with the given reader. When the
+     * response was served or revalidated by the {@link HttpCache HttpCache},
+     * the object mapped earlier from the same representation is returned
+     * instead, without reading the body again.
+     *
+     * @param <T>      the type of the mapped object
+     * @param response the successful response
+     * @param context  the context the request was executed in
+     * @param type     the type the body is mapped to
+     * @param reader   the function mapping the body
+     * @return the mapped object
+     */
+    protected final <T> T readMapped(CloseableHttpResponse response,
+                                     HttpClientContext context, Object type,
+                                     Function<InputStream, T> reader)
+    {
+        Object uri = context.getAttribute(URI_KEY);
+        String validator = validatorOf(response);
+        if (httpCache == null || uri == null || validator == null) {
+            return reader.apply(getStreamQuietly(response));
+        }
+        String credentials = credentialsOf(context);
+
+        CacheResponseStatus status = HttpCacheContext.adapt(context)
+                .getCacheResponseStatus();
+        if (status == CacheResponseStatus.CACHE_HIT
+                || status == CacheResponseStatus.VALIDATED) {
+            T cached = httpCache.getMapped(uri.toString(), credentials,
+                    validator, type);
+            if (cached != null) {
+                try {
+                    response.close();
+                } catch (IOException ex) {
+                    Logger.getLogger(HttpRequestStreamImpl.class.getName())
+                            .log(Level.FINE, null, ex);
+                }
+                return cached;
+            }
+        }
+
+        T value = reader.apply(getStreamQuietly(response));
+        if (value != null) {
+            httpCache.putMapped(uri.toString(), credentials, validator, type,
+                    value);
+        }
+        return value;
+    }
+
+    /**
+     *
+     * @param context the context the request was executed in
+     * @return the {@code Authorization} header of the request, or
+     *         {@code null} if it has none
+     */
+    private static String credentialsOf(HttpClientContext context)
+    {
+        Object request = context.getAttribute(REQUEST_KEY);
+        if (!(request instanceof HttpRequest)) {
+            return null;
+        }
+        Header authorization = ((HttpRequest) request).getFirstHeader(
+                HttpHeaders.AUTHORIZATION);
+        return authorization == null ? null : authorization.getValue();
+    }
+
+    /**
+     *
+     * @param response the response
+     * @return the {@code ETag} of the response, its {@code Last-Modified}
+     *         date if it has no {@code ETag}, or {@code null} if it has
+     *         neither
+     */
+    private static String validatorOf(CloseableHttpResponse response)
+    {
+        Header validator = response.getFirstHeader(HttpHeaders.ETAG);
+        if (validator == null) {
+            validator = response.getFirstHeader(HttpHeaders.LAST_MODIFIED);
+        }
+        return validator == null ? null : validator.getName() + ":"
+                + validator.getValue();
+    }
+
     @Override
     public <T> CompletableFuture<JsonHttpResponse<T>> asObject(
             Class<? extends T> clazz)
     {
-        Supplier<JsonHttpResponse<T>> supplier = () -> {
-            CloseableHttpResponse response = executeRequest();
+        BiFunction<CloseableHttpResponse, HttpClientContext, JsonHttpResponse<T>> handler = (response, context) -> {
+            RequestTimings timings = RequestTimer.from(context);
+            if (isSuccess(response)) {
+                return JsonHttpResponse.ofSuccess(response, readMapped(response,
+                        context, clazz, stream -> mapper.readValue(stream, clazz)),
+                        timings);
+            } else {
+                return JsonHttpResponse.ofFailure(response, mapper, timings);
+            }
+        };
+
+        return executeCached(clazz, handler);
+    }
+
+    @Override
+    public <T> CompletableFuture<JsonHttpResponse<T>> asObject(
+            TypeReference<T> type)
+    {
+        BiFunction<CloseableHttpResponse, HttpClientContext, JsonHttpResponse<T>> handler = (response, context) -> {
+            RequestTimings timings = RequestTimer.from(context);
             if (isSuccess(response)) {
-                return JsonHttpResponse.ofSuccess(response, mapper
-                        .readValue(getStreamQuietly(response), clazz));
+                return JsonHttpResponse.ofSuccess(response, readMapped(response,
+                        context, type.getType(), stream -> mapper.readValue(
+                                stream, type)), timings);
             } else {
-                return JsonHttpResponse.ofFailure(response, mapper);
+                return JsonHttpResponse.ofFailure(response, mapper, timings);
             }
         };
 
-        return wrapInCompletableFuture(supplier);
+        return executeCached(type.getType(), handler);
     }
 
     @Override
     public CompletableFuture<JsonHttpResponse<String>> asString()
     {
-        Supplier<JsonHttpResponse<String>> supplier = () -> {
+        BiFunction<CloseableHttpResponse, HttpClientContext, JsonHttpResponse<String>> handler = (response, context) -> {
+            RequestTimings timings = RequestTimer.from(context);
             try {
-                CloseableHttpResponse response = executeRequest();
                 return JsonHttpResponse.ofSuccess(response, IOUtils
                         .toString(new InputStreamReader(getStreamQuietly(
-                                response))));
+                                response))), timings);
             } catch (IOException ex) {
                 Logger.getLogger(HttpRequestStreamImpl.class.getName())
                         .log(Level.SEVERE, null, ex);
@@ -369,57 +1400,239 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
             }
         };
 
-        return wrapInCompletableFuture(supplier);
+        // keyed by operation, a String class key would match asObject
+        return executeCoalesced("asString", handler);
+    }
+
+    @Override
+    public <T> CompletableFuture<JsonHttpResponse<Stream<T>>> asStream(
+            Class<T> clazz)
+    {
+        BiFunction<CloseableHttpResponse, HttpClientContext, JsonHttpResponse<Stream<T>>> handler = (response, context) -> {
+            RequestTimer timings = RequestTimer.from(context);
+            if (isSuccess(response)) {
+                InputStream stream = getStreamQuietly(response);
+                Iterator<T> iterator;
+                try {
+                    iterator = mapper.readValueIterator(stream, clazz);
+                } catch (RuntimeException ex) {
+                    // the body is malformed, the response is never handed out
+                    try {
+                        response.close();
+                    } catch (IOException closeEx) {
+                        ex.addSuppressed(closeEx);
+                    }
+                    throw ex;
+                }
+                // the body is read while the stream is consumed
+                context.setAttribute(STREAMED_KEY, Boolean.TRUE);
+                Stream<T> values = StreamSupport.stream(Spliterators
+                        .spliteratorUnknownSize(iterator, Spliterator.ORDERED
+                                | Spliterator.NONNULL), false)
+                        .onClose(() -> {
+                            closeStreamed(response, stream, iterator);
+                            timings.complete(response);
+                        });
+                return JsonHttpResponse.ofSuccess(response, values, timings);
+            } else {
+                return JsonHttpResponse.ofFailure(response, mapper, timings);
+            }
+        };
+
+        // streamed responses read from the connection, so never non-blocking
+        return executeBlocking(handler);
+    }
+
+    @Override
+    public <T> Publisher<T> asPublisher(Class<T> clazz)
+    {
+        return new ElementPublisher<>(() -> asStream(clazz).thenApply(
+                response -> {
+                    if (!response.isSuccess()) {
+                        try {
+                            response.close();
+                        } catch (IOException ex) {
+                            Logger.getLogger(HttpRequestStreamImpl.class
+                                    .getName())
+                                    .log(Level.FINE, null, ex);
+                        }
+                        throw new IllegalStateException(
+                                "response contains failure code " + response
+                                .getStatusCode());
+                    }
+                    return response.getResponse();
+                }), executor);
+    }
+
+    @Override
+    public <P, T> Stream<T> paginate(Pagination<P, T> pagination)
+    {
+        URI first;
+        try {
+            first = buildUri();
+        } catch (URISyntaxException ex) {
+            Logger.getLogger(HttpRequestStreamImpl.class.getName())
+                    .log(Level.SEVERE, null, ex);
+            throw new RuntimeException(ex);
+        }
+        PageIterator<P, T> pages = new PageIterator<>(pagination,
+                uri -> pagination.read(forPage(uri)), first);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(pages,
+                Spliterator.ORDERED), false)
+                .onClose(pages::close);
+    }
+
+    /**
+     * creates the async request of a page, with the headers and settings of
+     * this request. The query string is taken from the URI of the page.
+     *
+     * @param uri the URI of the page
+     * @return the request of the page
+     */
+    private HttpRequestStream forPage(URI uri)
+    {
+        HttpRequestStreamImpl page = new HttpRequestStreamImpl(client,
+                asyncClient, requestType, requestSupplier, uri.toString(),
+                config);
+        page.async = true;
+        page.proxy = proxy;
+        page.basicAuth = basicAuth;
+        page.connectionTimeout = connectionTimeout;
+        page.retryPolicy = retryPolicy;
+        page.hedgingPolicy = hedgingPolicy;
+        page.headers.addAll(headers);
+        return page;
+    }
+
+    /**
+     * releases a streamed response. A fully consumed body is closed so the
+     * connection can be reused, a partially consumed body closes the response
+     * instead of reading the remainder of a possibly huge payload.
+     *
+     * @param response the streamed response
+     * @param stream   the body inputstream
+     * @param iterator the iterator reading from the body
+     */
+    private void closeStreamed(CloseableHttpResponse response,
+                               InputStream stream, Iterator<?> iterator)
+    {
+        try {
+            if (iterator.hasNext()) {
+                response.close();
+            } else {
+                stream.close();
+            }
+        } catch (IOException | RuntimeException ex) {
+            Logger.getLogger(HttpRequestStreamImpl.class.getName())
+                    .log(Level.SEVERE, null, ex);
+            try {
+                response.close();
+            } catch (IOException closeEx) {
+                ex.addSuppressed(closeEx);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<JsonHttpResponse<DownloadedFile>> asFile(
+            Path path)
+    {
+        BiFunction<CloseableHttpResponse, HttpClientContext, JsonHttpResponse<DownloadedFile>> handler = (response, context) -> {
+            RequestTimings timings = RequestTimer.from(context);
+            if (!isSuccess(response)) {
+                return JsonHttpResponse.ofFailure(response, mapper, timings);
+            }
+            try (InputStream stream = getStreamQuietly(response);
+                 FileChannel file = FileChannel.open(path,
+                         StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                         StandardOpenOption.TRUNCATE_EXISTING)) {
+                long length = ChannelTransfer.transfer(stream, file);
+                return JsonHttpResponse.ofSuccess(response, new DownloadedFile(
+                        path, length), timings);
+            } catch (IOException ex) {
+                Logger.getLogger(HttpRequestStreamImpl.class.getName())
+                        .log(Level.SEVERE, null, ex);
+                throw new CompletionException(ex);
+            }
+        };
+
+        // downloads read from the connection, so never non-blocking
+        return executeBlocking(handler);
+    }
+
+    @Override
+    public CompletableFuture<JsonHttpResponse<Long>> asChannel(
+            WritableByteChannel channel)
+    {
+        BiFunction<CloseableHttpResponse, HttpClientContext, JsonHttpResponse<Long>> handler = (response, context) -> {
+            RequestTimings timings = RequestTimer.from(context);
+            if (!isSuccess(response)) {
+                return JsonHttpResponse.ofFailure(response, mapper, timings);
+            }
+            try (InputStream stream = getStreamQuietly(response)) {
+                return JsonHttpResponse.ofSuccess(response, ChannelTransfer
+                        .transfer(stream, channel), timings);
+            } catch (IOException ex) {
+                Logger.getLogger(HttpRequestStreamImpl.class.getName())
+                        .log(Level.SEVERE, null, ex);
+                throw new CompletionException(ex);
+            }
+        };
+
+        // downloads read from the connection, so never non-blocking
+        return executeBlocking(handler);
     }
 
     @Override
     public <T, C extends Collection> CompletableFuture<JsonHttpResponse<C>> asObjects(
             Class<C> collectionClass, Class<T> clazz)
     {
-        Supplier<JsonHttpResponse<C>> supplier = () -> {
-            CloseableHttpResponse response = executeRequest();
+        BiFunction<CloseableHttpResponse, HttpClientContext, JsonHttpResponse<C>> handler = (response, context) -> {
+            RequestTimings timings = RequestTimer.from(context);
             if (isSuccess(response)) {
-                return JsonHttpResponse.ofSuccess(response, mapper
-                        .readValues(getStreamQuietly(response), collectionClass,
-                                clazz));
+                return JsonHttpResponse.ofSuccess(response, readMapped(response,
+                        context, Arrays.asList(collectionClass, clazz),
+                        stream -> mapper.readValues(stream, collectionClass,
+                                clazz)), timings);
             } else {
-                return JsonHttpResponse.ofFailure(response, mapper);
+                return JsonHttpResponse.ofFailure(response, mapper, timings);
             }
         };
 
-        return wrapInCompletableFuture(supplier);
+        return executeCached(Arrays.asList(collectionClass, clazz), handler);
     }
 
     @Override
     public <M extends Map<K, V>, K, V> CompletableFuture<JsonHttpResponse<Map<K, V>>> asMap(
             Class<M> mapClass, Class<K> keyClass, Class<V> valueClass)
     {
-        Supplier<JsonHttpResponse<Map<K, V>>> supplier = () -> {
-            CloseableHttpResponse response = executeRequest();
+        BiFunction<CloseableHttpResponse, HttpClientContext, JsonHttpResponse<Map<K, V>>> handler = (response, context) -> {
+            RequestTimings timings = RequestTimer.from(context);
             if (isSuccess(response)) {
-                return JsonHttpResponse.ofSuccess(response, mapper
-                        .readValues(getStreamQuietly(response), mapClass,
-                                keyClass, valueClass));
+                return JsonHttpResponse.ofSuccess(response, readMapped(response,
+                        context, Arrays.asList(mapClass, keyClass, valueClass),
+                        stream -> mapper.readValues(stream, mapClass, keyClass,
+                                valueClass)), timings);
             } else {
-                return JsonHttpResponse.ofFailure(response, mapper);
+                return JsonHttpResponse.ofFailure(response, mapper, timings);
             }
         };
 
-        return wrapInCompletableFuture(supplier);
+        return executeCached(Arrays.asList(mapClass, keyClass, valueClass),
+                handler);
     }
 
     @Override
     public CompletableFuture<HttpResponse> execute()
     {
-        return wrapInCompletableFuture(() -> {
-            CloseableHttpResponse resp = executeRequest();
+        return executeCoalesced("execute", (resp, context) -> {
             try {
                 resp.close();
             } catch (IOException ex) {
                 Logger.getLogger(HttpRequestStreamImpl.class.getName())
                         .log(Level.SEVERE, null, ex);
             }
-            return HttpResponse.of(resp);
+            return HttpResponse.of(resp, RequestTimer.from(context));
         });
     }
 
@@ -463,6 +1676,16 @@ public class HttpRequestStreamImpl implements HttpRequestStream {
         return client;
     }
 
+    /**
+     *
+     * @return the non-blocking client used to execute async requests, or
+     *         {@code null} if async requests run on the executor
+     */
+    protected CloseableHttpAsyncClient getAsyncClient()
+    {
+        return asyncClient;
+    }
+
     /**
      *
      * @return the executor used to run the request in async
@@ -0,0 +1,56 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.mapper.*;
+import java.io.*;
+import org.apache.http.entity.*;
+import org.apache.http.entity.mime.*;
+import org.apache.http.entity.mime.content.*;
+
+/**
+ * a multipart body that serializes an object directly into the connection's
+ * outputstream with a {@link com.numbers.jttp.mapper.JsonMapper JsonMapper}.
+ *
+ * @author Numbers
+ */
+class JsonContentBody extends AbstractContentBody {
+
+    private final Object value;
+    private final JsonMapper mapper;
+
+    /**
+     *
+     * @param value  the object to serialize
+     * @param mapper the mapper used to serialize the object
+     */
+    JsonContentBody(Object value, JsonMapper mapper)
+    {
+        super(ContentType.APPLICATION_JSON);
+        this.value = value;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public String getFilename()
+    {
+        return null;
+    }
+
+    @Override
+    public void writeTo(OutputStream out) throws IOException
+    {
+        mapper.writeValue(value, out);
+    }
+
+    @Override
+    public String getTransferEncoding()
+    {
+        return MIME.ENC_8BIT;
+    }
+
+    @Override
+    public long getContentLength()
+    {
+        return -1;
+    }
+
+}
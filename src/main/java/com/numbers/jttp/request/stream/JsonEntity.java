@@ -0,0 +1,106 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.mapper.*;
+import java.io.*;
+import org.apache.http.entity.*;
+
+/**
+ * an entity that serializes an object directly into the connection's
+ * outputstream with a {@link com.numbers.jttp.mapper.JsonMapper JsonMapper},
+ * without building an intermediate String or byte array. The object is
+ * serialized again for every write, so the entity is repeatable but its
+ * content length is unknown and it is sent with chunked transfer encoding.
+ *
+ * @author Numbers
+ */
+class JsonEntity extends AbstractHttpEntity {
+
+    private final Object value;
+    private final JsonMapper mapper;
+
+    /**
+     *
+     * @param value  the object to serialize
+     * @param mapper the mapper used to serialize the object
+     */
+    JsonEntity(Object value, JsonMapper mapper)
+    {
+        this.value = value;
+        this.mapper = mapper;
+        setContentType(ContentType.APPLICATION_JSON.toString());
+        setChunked(true);
+    }
+
+    /**
+     * serializes the object once into memory. The entity created from the
+     * buffer has a known content length and sends the exact same bytes when
+     * repeated.
+     *
+     * @return a buffer with the serialized object
+     * @throws IOException if serialization fails
+     */
+    SerializedBuffer buffer() throws IOException
+    {
+        SerializedBuffer buffer = new SerializedBuffer();
+        mapper.writeValue(value, buffer);
+        return buffer;
+    }
+
+    @Override
+    public boolean isRepeatable()
+    {
+        return true;
+    }
+
+    @Override
+    public long getContentLength()
+    {
+        return -1;
+    }
+
+    /**
+     * serializes the object into memory, only {@link #writeTo(OutputStream)
+     * writeTo} streams it. Requests with this entity are therefore sent on
+     * the blocking client, as the non-blocking client reads the content.
+     *
+     * @return a stream of the serialized object
+     * @throws IOException if serialization fails
+     */
+    @Override
+    public InputStream getContent() throws IOException
+    {
+        return buffer().toEntity().getContent();
+    }
+
+    @Override
+    public void writeTo(OutputStream outstream) throws IOException
+    {
+        mapper.writeValue(value, outstream);
+        outstream.flush();
+    }
+
+    @Override
+    public boolean isStreaming()
+    {
+        return false;
+    }
+
+    /**
+     * a byte array outputstream that hands its internal array to the entity
+     * instead of copying it.
+     */
+    static final class SerializedBuffer extends ByteArrayOutputStream {
+
+        /**
+         *
+         * @return a JSON entity backed by the written bytes
+         */
+        ByteArrayEntity toEntity()
+        {
+            return new ByteArrayEntity(buf, 0, count,
+                    ContentType.APPLICATION_JSON);
+        }
+
+    }
+
+}
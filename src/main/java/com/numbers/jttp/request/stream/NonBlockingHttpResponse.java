@@ -0,0 +1,36 @@
+package com.numbers.jttp.request.stream;
+
+import java.io.*;
+import org.apache.http.client.methods.*;
+import org.apache.http.message.*;
+import org.apache.http.util.*;
+
+/**
+ * a CloseableHttpResponse view of a response received by the non-blocking
+ * client, so it can be handled the same way as a response of the blocking
+ * client. The entity of the response is already buffered in memory.
+ *
+ * @author Numbers
+ */
+class NonBlockingHttpResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+    /**
+     * copies the status line, headers, entity and locale of the given response
+     *
+     * @param response the response received by the non-blocking client
+     */
+    NonBlockingHttpResponse(org.apache.http.HttpResponse response)
+    {
+        super(response.getStatusLine());
+        setHeaders(response.getAllHeaders());
+        setEntity(response.getEntity());
+        setLocale(response.getLocale());
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        EntityUtils.consume(getEntity());
+    }
+
+}
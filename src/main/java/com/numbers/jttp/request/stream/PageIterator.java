@@ -0,0 +1,139 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.pagination.*;
+import com.numbers.jttp.response.*;
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import java.util.logging.*;
+
+/**
+ * the items of all pages of a paginated endpoint. Once a page has been
+ * received and its items are being consumed, the next page is already
+ * requested, so the latency of the next request overlaps with the processing
+ * of the current page. At most one page is requested ahead of the consumer.
+ *
+ * @author Numbers
+ * @param <P> the type of the pages
+ * @param <T> the type of the items
+ */
+final class PageIterator<P, T> implements Iterator<T> {
+
+    private final Pagination<P, T> pagination;
+    private final Function<URI, CompletableFuture<JsonHttpResponse<P>>> fetch;
+    private Iterator<? extends T> items = Collections.emptyIterator();
+    private CompletableFuture<JsonHttpResponse<P>> request;
+    private CompletableFuture<Page> next;
+    private boolean closed;
+
+    /**
+     * requests the first page right away
+     *
+     * @param pagination the pagination of the endpoint
+     * @param fetch      the function requesting and mapping the page at a URI
+     * @param first      the URI of the first page
+     */
+    PageIterator(Pagination<P, T> pagination,
+                 Function<URI, CompletableFuture<JsonHttpResponse<P>>> fetch,
+                 URI first)
+    {
+        this.pagination = pagination;
+        this.fetch = fetch;
+        request(first);
+    }
+
+    private void request(URI uri)
+    {
+        request = fetch.apply(uri);
+        next = request.thenApply(response -> {
+            if (!response.isSuccess()) {
+                try {
+                    response.close();
+                } catch (IOException ex) {
+                    Logger.getLogger(PageIterator.class.getName())
+                            .log(Level.FINE, null, ex);
+                }
+                throw new IllegalStateException("page " + uri
+                        + " contains failure code " + response.getStatusCode());
+            }
+            P page = response.getResponse();
+            try {
+                URI following = pagination.next(uri, response);
+                // a page linking to itself would be requested forever
+                return new Page(pagination.items(page), uri.equals(following)
+                                                        ? null
+                                                        : following);
+            } catch (URISyntaxException ex) {
+                Logger.getLogger(PageIterator.class.getName())
+                        .log(Level.SEVERE, null, ex);
+                throw new CompletionException(ex);
+            }
+        });
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while (!items.hasNext()) {
+            if (closed || next == null) {
+                return false;
+            }
+            Page page;
+            try {
+                page = next.join();
+            } catch (CompletionException ex) {
+                next = null;
+                throw ex.getCause() instanceof RuntimeException
+                      ? (RuntimeException) ex.getCause()
+                      : ex;
+            }
+            items = page.items.iterator();
+            if (page.next == null) {
+                next = null;
+            } else {
+                request(page.next);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public T next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return items.next();
+    }
+
+    /**
+     * stops the iteration, cancelling the request of the next page
+     */
+    void close()
+    {
+        closed = true;
+        if (next != null) {
+            request.cancel(true);
+            next = null;
+        }
+    }
+
+    /**
+     * a received page
+     */
+    private final class Page {
+
+        private final Collection<? extends T> items;
+        private final URI next;
+
+        private Page(Collection<? extends T> items, URI next)
+        {
+            this.items = items;
+            this.next = next;
+        }
+
+    }
+
+}
@@ -0,0 +1,157 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.resilience.*;
+import java.util.concurrent.*;
+import org.apache.http.*;
+
+/**
+ * the permission of a single attempt to send a request to its host, granted
+ * by the {@link CircuitBreaker CircuitBreaker} and the
+ * {@link ConcurrencyLimiter ConcurrencyLimiter} of the host, either of which
+ * may be disabled. The outcome of the attempt must be reported exactly once,
+ * so the circuit is updated and the permit of the limiter is released.
+ *
+ * @author Numbers
+ */
+final class RequestAdmission {
+
+    private final CircuitBreaker breaker;
+    private final ConcurrencyLimiter limiter;
+    private long sent = System.nanoTime();
+
+    /**
+     *
+     * @param breaker the circuit breaker of the host, or {@code null}
+     * @param limiter the concurrency limiter of the host, or {@code null}
+     */
+    RequestAdmission(CircuitBreaker breaker, ConcurrencyLimiter limiter)
+    {
+        this.breaker = breaker;
+        this.limiter = limiter;
+    }
+
+    /**
+     * asks the circuit breaker for permission, then waits for the permits
+     * of the rate limiters and then for the concurrency limiter. An open
+     * circuit fails the returned future right away, without waiting.
+     * Cancelling the returned future gives up waiting.
+     *
+     * @param throttle  the future completing once the permits of the rate
+     *                  limiters are available
+     * @param scheduler the scheduler timing the wait for the limiter
+     * @return a future completing once the request may be sent
+     */
+    CompletableFuture<Void> acquire(CompletableFuture<?> throttle,
+                                    ScheduledExecutorService scheduler)
+    {
+        CompletableFuture<Void> permit = new CompletableFuture<>();
+        if (breaker != null) {
+            try {
+                breaker.acquire();
+            } catch (CircuitBreakerOpenException ex) {
+                permit.completeExceptionally(ex);
+                return permit;
+            }
+            permit.whenComplete((granted, ex) -> {
+                if (ex != null) {
+                    breaker.onIgnored();
+                }
+            });
+        }
+        permit.whenComplete((granted, ex) -> {
+            if (permit.isCancelled()) {
+                throttle.cancel(false);
+            }
+        });
+
+        throttle.whenComplete((waited, rejection) -> {
+            if (rejection != null) {
+                permit.completeExceptionally(rejection);
+                return;
+            }
+            if (limiter == null) {
+                permit.complete(null);
+                return;
+            }
+            CompletableFuture<Void> admitted = limiter.acquire(scheduler);
+            permit.whenComplete((granted, ex) -> {
+                if (permit.isCancelled()) {
+                    admitted.cancel(false);
+                }
+            });
+            admitted.whenComplete((granted, ex) -> {
+                if (ex != null) {
+                    permit.completeExceptionally(ex);
+                } else if (!permit.complete(null)) {
+                    // gave up waiting in the meantime
+                    limiter.onIgnored();
+                }
+            });
+        });
+        return permit;
+    }
+
+    /**
+     * marks the moment the request is sent
+     */
+    void sending()
+    {
+        sent = System.nanoTime();
+    }
+
+    /**
+     * reports a received response. A server error counts as a failure of
+     * the circuit, {@code 429} and {@code 503} as overload of the host.
+     *
+     * @param response the received response
+     */
+    void completed(HttpResponse response)
+    {
+        long nanos = System.nanoTime() - sent;
+        int status = response.getStatusLine()
+                .getStatusCode();
+        if (breaker != null) {
+            if (status >= 500) {
+                breaker.onFailure(nanos);
+            } else {
+                breaker.onSuccess(nanos);
+            }
+        }
+        if (limiter != null) {
+            if (status == 429
+                    || status == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+                limiter.onDropped();
+            } else {
+                limiter.onSuccess(nanos);
+            }
+        }
+    }
+
+    /**
+     * reports a request that failed to receive a response
+     */
+    void failed()
+    {
+        if (breaker != null) {
+            breaker.onFailure(System.nanoTime() - sent);
+        }
+        if (limiter != null) {
+            limiter.onDropped();
+        }
+    }
+
+    /**
+     * reports a request without counting it, such as a request that was
+     * aborted on purpose
+     */
+    void ignored()
+    {
+        if (breaker != null) {
+            breaker.onIgnored();
+        }
+        if (limiter != null) {
+            limiter.onIgnored();
+        }
+    }
+
+}
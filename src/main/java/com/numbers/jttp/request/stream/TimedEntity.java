@@ -0,0 +1,80 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.metrics.*;
+import java.io.*;
+import org.apache.http.*;
+import org.apache.http.entity.*;
+
+/**
+ * a response entity wrapper recording the time spent reading its content into
+ * the {@link RequestTimer RequestTimer} of the request.
+ *
+ * @author Numbers
+ */
+class TimedEntity extends HttpEntityWrapper {
+
+    private final RequestTimer timer;
+
+    /**
+     *
+     * @param entity the response entity to time
+     * @param timer  the timer to record the read time in
+     */
+    TimedEntity(HttpEntity entity, RequestTimer timer)
+    {
+        super(entity);
+        this.timer = timer;
+    }
+
+    @Override
+    public InputStream getContent() throws IOException
+    {
+        return new TimedInputStream(super.getContent());
+    }
+
+    /**
+     * an inputstream adding the time spent in its read calls to the timer
+     */
+    private final class TimedInputStream extends FilterInputStream {
+
+        TimedInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            long start = System.nanoTime();
+            try {
+                return super.read();
+            } finally {
+                timer.bodyRead(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            long start = System.nanoTime();
+            try {
+                return in.read(b, off, len);
+            } finally {
+                timer.bodyRead(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long start = System.nanoTime();
+            try {
+                return super.skip(n);
+            } finally {
+                timer.bodyRead(System.nanoTime() - start);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,319 @@
+package com.numbers.jttp.resilience;
+
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+/**
+ * the circuit breaker of a single host. While closed, the outcomes of the
+ * requests are counted in a sliding window of time buckets. Once enough
+ * requests have been counted and the rate of failures or slow calls reaches
+ * its threshold, the circuit opens and requests fail right away with a
+ * {@link CircuitBreakerOpenException CircuitBreakerOpenException}. After the
+ * open duration the circuit is half open: a limited amount of trial requests
+ * is let through, a single failure opens the circuit again, enough successes
+ * close it.
+ * <p>
+ * All state is kept in atomic counters, so requests are never blocked on a
+ * lock. Circuits are created and configured by {@link CircuitBreakers
+ * CircuitBreakers}.
+ *
+ * @author Numbers
+ */
+public class CircuitBreaker {
+
+    /**
+     * the states of a circuit
+     */
+    public enum State {
+        /**
+         * requests are sent and their outcomes counted
+         */
+        CLOSED,
+        /**
+         * requests fail without being sent
+         */
+        OPEN,
+        /**
+         * a limited amount of trial requests is sent
+         */
+        HALF_OPEN
+    }
+
+    private static final int CALLS = 0;
+    private static final int FAILURES = 1;
+    private static final int SLOW = 2;
+
+    private final String host;
+    private final CircuitBreakers settings;
+    private final int buckets;
+    private final AtomicLongArray epochs;
+    private final AtomicLongArray counts;
+
+    private final AtomicReference<Phase> phase = new AtomicReference<>(
+            new Phase(State.CLOSED, 0, 0));
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     *
+     * @param host     the host of the circuit
+     * @param settings the thresholds and durations of the circuit
+     */
+    CircuitBreaker(String host, CircuitBreakers settings)
+    {
+        this.host = host;
+        this.settings = settings;
+        this.buckets = CircuitBreakers.BUCKETS;
+        this.epochs = new AtomicLongArray(buckets);
+        this.counts = new AtomicLongArray(buckets * 3);
+        reset();
+    }
+
+    /**
+     * asks permission to send a request. A permitted request must report its
+     * outcome with {@link #onSuccess(long) onSuccess},
+     * {@link #onFailure(long) onFailure} or {@link #onIgnored() onIgnored}.
+     *
+     * @throws CircuitBreakerOpenException if the circuit does not let the
+     *                                     request through
+     */
+    public void acquire() throws CircuitBreakerOpenException
+    {
+        Phase current = phase.get();
+        switch (current.state) {
+            case CLOSED:
+                return;
+            case OPEN:
+                long remaining = current.openedAt + settings.getOpenDuration()
+                        - System.nanoTime();
+                if (remaining <= 0) {
+                    // the winner takes the first of the fresh trial permits
+                    if (phase.compareAndSet(current, new Phase(State.HALF_OPEN,
+                            0, settings.getHalfOpenCalls() - 1))) {
+                        return;
+                    }
+                    acquire();
+                    return;
+                }
+                rejected.increment();
+                throw new CircuitBreakerOpenException(host, remaining / 1_000_000);
+            default:
+                if (current.permits.getAndDecrement() > 0) {
+                    return;
+                }
+                current.permits.incrementAndGet();
+                rejected.increment();
+                throw new CircuitBreakerOpenException(host, 0);
+        }
+    }
+
+    /**
+     * reports a request that received a response
+     *
+     * @param nanos the time it took to receive the response
+     */
+    public void onSuccess(long nanos)
+    {
+        record(false, nanos);
+    }
+
+    /**
+     * reports a request that failed, or received a server error
+     *
+     * @param nanos the time until the request failed
+     */
+    public void onFailure(long nanos)
+    {
+        record(true, nanos);
+    }
+
+    /**
+     * reports a permitted request without counting it, such as a request
+     * that was aborted on purpose.
+     */
+    public void onIgnored()
+    {
+        Phase current = phase.get();
+        if (current.state == State.HALF_OPEN) {
+            current.permits.incrementAndGet();
+        }
+    }
+
+    private void record(boolean failure, long nanos)
+    {
+        boolean slow = nanos >= settings.getSlowCallDuration();
+        Phase current = phase.get();
+        switch (current.state) {
+            case HALF_OPEN:
+                if (failure || slow) {
+                    open(current);
+                } else if (current.successes.incrementAndGet() >= settings
+                        .getHalfOpenCalls()
+                        && phase.compareAndSet(current, new Phase(State.CLOSED,
+                                0, 0))) {
+                    reset();
+                    Logger.getLogger(CircuitBreaker.class.getName())
+                            .log(Level.INFO, "circuit breaker closed for {0}",
+                                    host);
+                }
+                return;
+            case OPEN:
+                return;
+            default:
+                count(failure, slow);
+                if (isTripped()) {
+                    open(current);
+                }
+        }
+    }
+
+    private void count(boolean failure, boolean slow)
+    {
+        long epoch = System.nanoTime() / settings.getBucketDuration();
+        int bucket = (int) Math.floorMod(epoch, (long) buckets);
+        long current = epochs.get(bucket);
+        if (current != epoch && epochs.compareAndSet(bucket, current, epoch)) {
+            // first outcome in a new time slice, forget the old slice
+            counts.set(bucket * 3 + CALLS, 0);
+            counts.set(bucket * 3 + FAILURES, 0);
+            counts.set(bucket * 3 + SLOW, 0);
+        }
+        counts.incrementAndGet(bucket * 3 + CALLS);
+        if (failure) {
+            counts.incrementAndGet(bucket * 3 + FAILURES);
+        }
+        if (slow) {
+            counts.incrementAndGet(bucket * 3 + SLOW);
+        }
+    }
+
+    private boolean isTripped()
+    {
+        long[] totals = totals();
+        if (totals[CALLS] < settings.getMinimumCalls()) {
+            return false;
+        }
+        return 100.0 * totals[FAILURES] / totals[CALLS] >= settings
+                .getFailureRateThreshold()
+                || 100.0 * totals[SLOW] / totals[CALLS] >= settings
+                .getSlowCallRateThreshold();
+    }
+
+    /**
+     *
+     * @return the calls, failures and slow calls within the window
+     */
+    private long[] totals()
+    {
+        long oldest = System.nanoTime() / settings.getBucketDuration()
+                - buckets + 1;
+        long[] totals = new long[3];
+        for (int i = 0; i < buckets; i++) {
+            if (epochs.get(i) >= oldest) {
+                totals[CALLS] += counts.get(i * 3 + CALLS);
+                totals[FAILURES] += counts.get(i * 3 + FAILURES);
+                totals[SLOW] += counts.get(i * 3 + SLOW);
+            }
+        }
+        return totals;
+    }
+
+    private void open(Phase from)
+    {
+        if (phase.compareAndSet(from, new Phase(State.OPEN, System.nanoTime(),
+                0))) {
+            Logger.getLogger(CircuitBreaker.class.getName())
+                    .log(Level.WARNING, "circuit breaker opened for {0}", host);
+        }
+    }
+
+    private void reset()
+    {
+        for (int i = 0; i < buckets; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     *
+     * @return the host of the circuit
+     */
+    public String getHost()
+    {
+        return host;
+    }
+
+    /**
+     *
+     * @return the current state of the circuit
+     */
+    public State getState()
+    {
+        return phase.get().state;
+    }
+
+    /**
+     *
+     * @return the percentage of failed requests within the window
+     */
+    public double getFailureRate()
+    {
+        long[] totals = totals();
+        return totals[CALLS] == 0 ? 0 : 100.0 * totals[FAILURES]
+                / totals[CALLS];
+    }
+
+    /**
+     *
+     * @return the percentage of slow requests within the window
+     */
+    public double getSlowCallRate()
+    {
+        long[] totals = totals();
+        return totals[CALLS] == 0 ? 0 : 100.0 * totals[SLOW] / totals[CALLS];
+    }
+
+    /**
+     *
+     * @return the amount of requests that failed without being sent
+     */
+    public long getRejectedCount()
+    {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CircuitBreaker{" + "host=" + host + ", state=" + getState()
+                + '}';
+    }
+
+    /**
+     * a state of the circuit together with the values that belong to it.
+     * Every transition installs a new phase with a single compare and set, so
+     * the trial permits and the opening time can never be seen paired with
+     * another phase.
+     */
+    private static final class Phase {
+
+        private final State state;
+        private final long openedAt;
+        private final AtomicInteger permits;
+        private final AtomicInteger successes = new AtomicInteger();
+
+        /**
+         *
+         * @param state    the state of the circuit
+         * @param openedAt the time the circuit opened, in nanos
+         * @param permits  the trial requests still let through
+         */
+        private Phase(State state, long openedAt, int permits)
+        {
+            this.state = state;
+            this.openedAt = openedAt;
+            this.permits = new AtomicInteger(permits);
+        }
+
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.numbers.jttp.resilience;
+
+/**
+ * thrown instead of sending a request to a host whose {@link CircuitBreaker
+ * CircuitBreaker} is open, so the request fails right away rather than
+ * waiting for a server that is known to be failing.
+ *
+ * @author Numbers
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String host;
+    private final long retryAfter;
+
+    /**
+     *
+     * @param host       the host of the open circuit
+     * @param retryAfter the time in milliseconds until the circuit lets trial
+     *                   requests through again
+     */
+    public CircuitBreakerOpenException(String host, long retryAfter)
+    {
+        super("circuit breaker open for " + host + ", retry after "
+                + retryAfter + " ms");
+        this.host = host;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     *
+     * @return the host of the open circuit
+     */
+    public String getHost()
+    {
+        return host;
+    }
+
+    /**
+     *
+     * @return the time in milliseconds until the circuit lets trial requests
+     *         through again, or {@code 0} if trial requests are already in
+     *         flight
+     */
+    public long getRetryAfter()
+    {
+        return retryAfter;
+    }
+
+}
@@ -0,0 +1,166 @@
+package com.numbers.jttp.resilience;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * the {@link CircuitBreaker circuit breakers} of all hosts, created on first
+ * use with the thresholds and durations of this object. By default a circuit
+ * opens once half of at least 20 requests in the last 10 seconds failed, or
+ * received a server error, and stays open for 30 seconds. It also opens once
+ * every request in the window took 5 seconds or more, see
+ * {@link #setSlowCallRateThreshold(double) setSlowCallRateThreshold}. Install
+ * it with
+ * {@link com.numbers.jttp.Jttp.JTTPConfig#setCircuitBreakers(CircuitBreakers)
+ * setCircuitBreakers(CircuitBreakers)}.
+ *
+ * @author Numbers
+ */
+public class CircuitBreakers {
+
+    /**
+     * the amount of time buckets in the sliding window
+     */
+    static final int BUCKETS = 10;
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers
+            = new ConcurrentHashMap<>();
+    private volatile double failureRateThreshold = 50;
+    private volatile double slowCallRateThreshold = 100;
+    private volatile long slowCallDuration = TimeUnit.SECONDS.toNanos(5);
+    private volatile int minimumCalls = 20;
+    private volatile long bucketDuration = TimeUnit.SECONDS.toNanos(10)
+            / BUCKETS;
+    private volatile long openDuration = TimeUnit.SECONDS.toNanos(30);
+    private volatile int halfOpenCalls = 5;
+
+    /**
+     *
+     * @param percentage the percentage of failed requests within the window
+     *                   at which the circuit opens, defaults to 50
+     */
+    public void setFailureRateThreshold(double percentage)
+    {
+        this.failureRateThreshold = percentage;
+    }
+
+    /**
+     *
+     * @param percentage the percentage of slow requests within the window at
+     *                   which the circuit opens, defaults to 100
+     */
+    public void setSlowCallRateThreshold(double percentage)
+    {
+        this.slowCallRateThreshold = percentage;
+    }
+
+    /**
+     *
+     * @param duration the time after which a request without response is
+     *                 counted as slow, defaults to 5 seconds
+     * @param unit     the unit of the duration
+     */
+    public void setSlowCallDuration(long duration, TimeUnit unit)
+    {
+        this.slowCallDuration = unit.toNanos(duration);
+    }
+
+    /**
+     *
+     * @param calls the amount of requests within the window before the rates
+     *              are considered, defaults to 20
+     */
+    public void setMinimumCalls(int calls)
+    {
+        this.minimumCalls = calls;
+    }
+
+    /**
+     *
+     * @param window the length of the sliding window over which the rates are
+     *               computed, defaults to 10 seconds
+     * @param unit   the unit of the window
+     */
+    public void setWindow(long window, TimeUnit unit)
+    {
+        this.bucketDuration = Math.max(1, unit.toNanos(window) / BUCKETS);
+    }
+
+    /**
+     *
+     * @param duration the time a circuit stays open before trial requests are
+     *                 let through, defaults to 30 seconds
+     * @param unit     the unit of the duration
+     */
+    public void setOpenDuration(long duration, TimeUnit unit)
+    {
+        this.openDuration = unit.toNanos(duration);
+    }
+
+    /**
+     *
+     * @param calls the amount of trial requests that must succeed in a half
+     *              open circuit before it closes, defaults to 5
+     */
+    public void setHalfOpenCalls(int calls)
+    {
+        this.halfOpenCalls = Math.max(1, calls);
+    }
+
+    /**
+     *
+     * @param host the host
+     * @return the circuit breaker of the host, created if needed
+     */
+    public CircuitBreaker forHost(String host)
+    {
+        return breakers.computeIfAbsent(host, key -> new CircuitBreaker(key,
+                this));
+    }
+
+    /**
+     *
+     * @return an unmodifiable view of the circuit breakers created so far,
+     *         by host
+     */
+    public Map<String, CircuitBreaker> getBreakers()
+    {
+        return Collections.unmodifiableMap(breakers);
+    }
+
+    double getFailureRateThreshold()
+    {
+        return failureRateThreshold;
+    }
+
+    double getSlowCallRateThreshold()
+    {
+        return slowCallRateThreshold;
+    }
+
+    long getSlowCallDuration()
+    {
+        return slowCallDuration;
+    }
+
+    int getMinimumCalls()
+    {
+        return minimumCalls;
+    }
+
+    long getBucketDuration()
+    {
+        return bucketDuration;
+    }
+
+    long getOpenDuration()
+    {
+        return openDuration;
+    }
+
+    int getHalfOpenCalls()
+    {
+        return halfOpenCalls;
+    }
+
+}
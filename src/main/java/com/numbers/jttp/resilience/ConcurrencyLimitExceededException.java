@@ -0,0 +1,48 @@
+package com.numbers.jttp.resilience;
+
+/**
+ * thrown instead of sending a request to a host that already has as many
+ * requests in flight as its {@link ConcurrencyLimiter ConcurrencyLimiter}
+ * allows, once the request could not be queued or waited too long for its
+ * turn.
+ *
+ * @author Numbers
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String host;
+    private final int limit;
+
+    /**
+     *
+     * @param host  the host of the limiter
+     * @param limit the limit of the host when the request was rejected
+     */
+    public ConcurrencyLimitExceededException(String host, int limit)
+    {
+        super("concurrency limit of " + limit + " exceeded for " + host);
+        this.host = host;
+        this.limit = limit;
+    }
+
+    /**
+     *
+     * @return the host of the limiter
+     */
+    public String getHost()
+    {
+        return host;
+    }
+
+    /**
+     *
+     * @return the limit of the host when the request was rejected
+     */
+    public int getLimit()
+    {
+        return limit;
+    }
+
+}
@@ -0,0 +1,243 @@
+package com.numbers.jttp.resilience;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * the adaptive concurrency limit of a single host. The limit follows the
+ * capacity of the host by additive increase and multiplicative decrease:
+ * every fast response while the limit is in use raises it by one, every
+ * response whose round trip time exceeds the lowest one measured by the
+ * tolerance, every timeout and every {@code 429} or {@code 503} response
+ * lowers it by the backoff ratio. Requests over the limit wait in a bounded
+ * queue and are rejected with a {@link ConcurrencyLimitExceededException
+ * ConcurrencyLimitExceededException} once it is full or they waited too long.
+ * <p>
+ * Limiters are created and configured by {@link ConcurrencyLimiters
+ * ConcurrencyLimiters}.
+ *
+ * @author Numbers
+ */
+public class ConcurrencyLimiter {
+
+    private final String host;
+    private final ConcurrencyLimiters settings;
+    private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<>();
+    private final LongAdder rejected = new LongAdder();
+
+    private double limit;
+    private int inFlight;
+    private long minRtt = Long.MAX_VALUE;
+    private long windowMinRtt = Long.MAX_VALUE;
+    private int samples;
+
+    /**
+     *
+     * @param host     the host of the limiter
+     * @param settings the settings of the limiter
+     */
+    ConcurrencyLimiter(String host, ConcurrencyLimiters settings)
+    {
+        this.host = host;
+        this.settings = settings;
+        this.limit = settings.getInitialLimit();
+    }
+
+    /**
+     * asks permission to send a request. The returned future completes once
+     * the request may be sent, or exceptionally with a
+     * {@link ConcurrencyLimitExceededException ConcurrencyLimitExceededException}
+     * if it is rejected. Cancelling the future gives up waiting. A permitted
+     * request must report its outcome with {@link #onSuccess(long) onSuccess},
+     * {@link #onDropped() onDropped} or {@link #onIgnored() onIgnored}.
+     *
+     * @param scheduler the scheduler timing the maximum wait
+     * @return a future completing once the request may be sent
+     */
+    public CompletableFuture<Void> acquire(ScheduledExecutorService scheduler)
+    {
+        CompletableFuture<Void> waiter = new CompletableFuture<>();
+        synchronized (this) {
+            if (inFlight < currentLimit() && waiters.isEmpty()) {
+                inFlight++;
+                waiter.complete(null);
+                return waiter;
+            }
+            if (waiters.size() >= settings.getMaxQueued()
+                    || settings.getMaxWait() <= 0) {
+                rejected.increment();
+                waiter.completeExceptionally(
+                        new ConcurrencyLimitExceededException(host,
+                                currentLimit()));
+                return waiter;
+            }
+            waiters.add(waiter);
+        }
+
+        ScheduledFuture<?> timeout = scheduler.schedule(() -> {
+            int current;
+            synchronized (this) {
+                if (!waiters.remove(waiter)) {
+                    return;
+                }
+                rejected.increment();
+                current = currentLimit();
+            }
+            waiter.completeExceptionally(new ConcurrencyLimitExceededException(
+                    host, current));
+        }, settings.getMaxWait(), TimeUnit.NANOSECONDS);
+        waiter.whenComplete((permit, ex) -> {
+            timeout.cancel(false);
+            if (ex != null) {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * reports a request that received a response in time. A response that
+     * took much longer than the fastest one counts as a sign of overload.
+     *
+     * @param rtt the time it took to receive the response, in nanoseconds
+     */
+    public void onSuccess(long rtt)
+    {
+        synchronized (this) {
+            // only grow a limit that is actually in use
+            boolean inUse = inFlight * 2 >= currentLimit();
+            inFlight--;
+            windowMinRtt = Math.min(windowMinRtt, rtt);
+            if (++samples >= settings.getRttWindow()) {
+                // measure the lowest round trip time anew
+                minRtt = windowMinRtt;
+                windowMinRtt = Long.MAX_VALUE;
+                samples = 0;
+            }
+            minRtt = Math.min(minRtt, rtt);
+
+            if (rtt > minRtt * settings.getRttTolerance()) {
+                decrease();
+            } else if (inUse) {
+                limit = Math.min(settings.getMaxLimit(), limit + 1);
+            }
+        }
+        grant();
+    }
+
+    /**
+     * reports a request that timed out or was refused as the host is
+     * overloaded
+     */
+    public void onDropped()
+    {
+        synchronized (this) {
+            inFlight--;
+            decrease();
+        }
+        grant();
+    }
+
+    /**
+     * reports a permitted request without adjusting the limit, such as a
+     * request that was aborted on purpose or failed before it was sent.
+     */
+    public void onIgnored()
+    {
+        synchronized (this) {
+            inFlight--;
+        }
+        grant();
+    }
+
+    private void decrease()
+    {
+        limit = Math.max(settings.getMinLimit(), limit * settings
+                .getBackoffRatio());
+    }
+
+    private int currentLimit()
+    {
+        return Math.max(1, (int) limit);
+    }
+
+    /**
+     * lets waiting requests through while the limit allows. The waiters are
+     * completed outside of the lock, as completing them sends their request.
+     */
+    private void grant()
+    {
+        while (true) {
+            CompletableFuture<Void> next;
+            synchronized (this) {
+                if (inFlight >= currentLimit() || waiters.isEmpty()) {
+                    return;
+                }
+                next = waiters.poll();
+                inFlight++;
+            }
+            if (!next.complete(null)) {
+                // gave up waiting in the meantime
+                synchronized (this) {
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @return the host of the limiter
+     */
+    public String getHost()
+    {
+        return host;
+    }
+
+    /**
+     *
+     * @return the current limit of requests in flight
+     */
+    public synchronized int getLimit()
+    {
+        return currentLimit();
+    }
+
+    /**
+     *
+     * @return the amount of requests in flight
+     */
+    public synchronized int getInFlight()
+    {
+        return inFlight;
+    }
+
+    /**
+     *
+     * @return the amount of requests waiting for their turn
+     */
+    public synchronized int getQueued()
+    {
+        return waiters.size();
+    }
+
+    /**
+     *
+     * @return the amount of requests that were rejected
+     */
+    public long getRejectedCount()
+    {
+        return rejected.sum();
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "ConcurrencyLimiter{" + "host=" + host + ", limit="
+                + currentLimit() + ", inFlight=" + inFlight + '}';
+    }
+
+}
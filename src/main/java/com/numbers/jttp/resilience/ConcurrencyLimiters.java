@@ -0,0 +1,162 @@
+package com.numbers.jttp.resilience;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * the {@link ConcurrencyLimiter concurrency limiters} of all hosts, created on
+ * first use with the settings of this object. By default every host starts
+ * with a limit of 20 requests in flight, which grows while responses stay
+ * fast and shrinks once the round trip time doubles or requests time out.
+ * Requests over the limit wait up to a second in a queue of at most 100
+ * requests. Install it with
+ * {@link com.numbers.jttp.Jttp.JTTPConfig#setConcurrencyLimiters(ConcurrencyLimiters)
+ * setConcurrencyLimiters(ConcurrencyLimiters)}.
+ *
+ * @author Numbers
+ */
+public class ConcurrencyLimiters {
+
+    private final ConcurrentMap<String, ConcurrencyLimiter> limiters
+            = new ConcurrentHashMap<>();
+    private volatile int initialLimit = 20;
+    private volatile int minLimit = 1;
+    private volatile int maxLimit = 200;
+    private volatile double backoffRatio = 0.9;
+    private volatile double rttTolerance = 2;
+    private volatile int rttWindow = 500;
+    private volatile int maxQueued = 100;
+    private volatile long maxWait = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     *
+     * @param initial the limit of a host before any response was received,
+     *                defaults to 20
+     * @param min     the lowest limit, defaults to 1
+     * @param max     the highest limit, defaults to 200
+     */
+    public void setLimits(int initial, int min, int max)
+    {
+        if (min < 1 || initial < min || max < initial) {
+            throw new IllegalArgumentException(
+                    "limits must satisfy 1 <= min <= initial <= max");
+        }
+        this.initialLimit = initial;
+        this.minLimit = min;
+        this.maxLimit = max;
+    }
+
+    /**
+     *
+     * @param ratio the factor the limit is multiplied with once a host is
+     *              overloaded, defaults to 0.9
+     */
+    public void setBackoffRatio(double ratio)
+    {
+        if (ratio <= 0 || ratio >= 1) {
+            throw new IllegalArgumentException("ratio must be within (0, 1)");
+        }
+        this.backoffRatio = ratio;
+    }
+
+    /**
+     *
+     * @param tolerance the factor by which the round trip time may exceed the
+     *                  lowest one measured before the host counts as
+     *                  overloaded, defaults to 2
+     */
+    public void setRttTolerance(double tolerance)
+    {
+        this.rttTolerance = Math.max(1, tolerance);
+    }
+
+    /**
+     *
+     * @param samples the amount of responses after which the lowest round
+     *                trip time is measured anew, so a host that became slower
+     *                for good does not keep its limit low forever, defaults to
+     *                500
+     */
+    public void setRttWindow(int samples)
+    {
+        this.rttWindow = Math.max(1, samples);
+    }
+
+    /**
+     * sets how requests over the limit are handled. A request is rejected
+     * with a {@link ConcurrencyLimitExceededException
+     * ConcurrencyLimitExceededException} if the queue is full or once it
+     * waited the given time.
+     *
+     * @param maxQueued the maximum amount of waiting requests per host, or
+     *                  {@code 0} to reject requests over the limit right away
+     * @param maxWait   the maximum time a request waits for its turn
+     * @param unit      the unit of the time
+     */
+    public void setQueue(int maxQueued, long maxWait, TimeUnit unit)
+    {
+        this.maxQueued = Math.max(0, maxQueued);
+        this.maxWait = unit.toNanos(maxWait);
+    }
+
+    /**
+     *
+     * @param host the host
+     * @return the limiter of the host, created if needed
+     */
+    public ConcurrencyLimiter forHost(String host)
+    {
+        return limiters.computeIfAbsent(host, key -> new ConcurrencyLimiter(
+                key, this));
+    }
+
+    /**
+     *
+     * @return an unmodifiable view of the limiters created so far, by host
+     */
+    public Map<String, ConcurrencyLimiter> getLimiters()
+    {
+        return Collections.unmodifiableMap(limiters);
+    }
+
+    int getInitialLimit()
+    {
+        return initialLimit;
+    }
+
+    int getMinLimit()
+    {
+        return minLimit;
+    }
+
+    int getMaxLimit()
+    {
+        return maxLimit;
+    }
+
+    double getBackoffRatio()
+    {
+        return backoffRatio;
+    }
+
+    double getRttTolerance()
+    {
+        return rttTolerance;
+    }
+
+    int getRttWindow()
+    {
+        return rttWindow;
+    }
+
+    int getMaxQueued()
+    {
+        return maxQueued;
+    }
+
+    long getMaxWait()
+    {
+        return maxWait;
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.numbers.jttp.resilience;
+
+import com.numbers.jttp.metrics.*;
+import java.util.concurrent.*;
+
+/**
+ * decides when a second copy of a slow safe request is sent (hedging). If no
+ * response has arrived once the hedge delay has passed, another copy of the
+ * request is sent and the first response to arrive is used, cutting off the
+ * tail of the latency distribution caused by rare slow servers. Only
+ * {@code GET} and {@code HEAD} requests are hedged. Install it with
+ * {@link com.numbers.jttp.Jttp.JTTPConfig#setHedgingPolicy(HedgingPolicy)
+ * setHedgingPolicy(HedgingPolicy)}, or per request.
+ * <p>
+ * The delay is either fixed, or a percentile of the latencies observed per
+ * host, for example the 95th percentile so about one in twenty requests is
+ * hedged.
+ *
+ * @author Numbers
+ */
+public class HedgingPolicy {
+
+    private static final long MIN_SAMPLES = 100;
+
+    /**
+     * creates a policy hedging requests after a fixed delay.
+     *
+     * @param delay the time to wait for a response before hedging
+     * @param unit  the unit of the delay
+     * @return a new hedging policy
+     */
+    public static HedgingPolicy fixed(long delay, TimeUnit unit)
+    {
+        return new HedgingPolicy(-1, unit.toMillis(delay));
+    }
+
+    /**
+     * creates a policy hedging requests once they take longer than the given
+     * percentile of the latencies observed for their host. Until enough
+     * latencies have been observed, and whenever the percentile is lower,
+     * the minimum delay is used.
+     *
+     * @param percentile the percentile of observed latencies after which to
+     *                   hedge, between {@code 0} and {@code 100}
+     * @param minDelay   the minimum time to wait for a response before
+     *                   hedging
+     * @param unit       the unit of the minimum delay
+     * @return a new hedging policy
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    public static HedgingPolicy percentile(double percentile, long minDelay,
+                                           TimeUnit unit) throws
+            IllegalArgumentException
+    {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("percentile out of range: "
+                    + percentile);
+        }
+        return new HedgingPolicy(percentile, unit.toMillis(minDelay));
+    }
+
+    private final double percentile;
+    private final long minDelay;
+    private final ConcurrentMap<String, LatencyHistogram> latencies
+            = new ConcurrentHashMap<>();
+    private volatile int maxHedges = 1;
+
+    private HedgingPolicy(double percentile, long minDelay)
+    {
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+    }
+
+    /**
+     *
+     * @param max the maximum amount of copies sent besides the original
+     *            request, each after another hedge delay, defaults to 1
+     */
+    public void setMaxHedges(int max)
+    {
+        this.maxHedges = max;
+    }
+
+    /**
+     *
+     * @return the maximum amount of copies sent besides the original request
+     */
+    public int getMaxHedges()
+    {
+        return maxHedges;
+    }
+
+    /**
+     *
+     * @param host the host of the request
+     * @return the time in milliseconds to wait for a response of the host
+     *         before sending another copy of the request
+     */
+    public long hedgeDelay(String host)
+    {
+        if (percentile < 0) {
+            return minDelay;
+        }
+        LatencyHistogram histogram = latencies.get(host);
+        if (histogram == null || histogram.getCount() < MIN_SAMPLES) {
+            return minDelay;
+        }
+        return Math.max(minDelay, TimeUnit.NANOSECONDS.toMillis(histogram
+                .getValueAtPercentile(percentile)));
+    }
+
+    /**
+     * records the latency of a request to the host. Copies that were
+     * cancelled because another copy responded first are recorded with their
+     * latency up to the cancellation, which keeps slow hosts from hiding in
+     * the statistics.
+     *
+     * @param host  the host of the request
+     * @param nanos the latency of the request in nanoseconds
+     */
+    public void record(String host, long nanos)
+    {
+        if (percentile >= 0 && host != null) {
+            latencies.computeIfAbsent(host, key -> new LatencyHistogram())
+                    .record(nanos);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "HedgingPolicy{" + "percentile=" + percentile + ", minDelay="
+                + minDelay + ", maxHedges=" + maxHedges + '}';
+    }
+
+}
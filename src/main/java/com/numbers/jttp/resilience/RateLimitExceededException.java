@@ -0,0 +1,48 @@
+package com.numbers.jttp.resilience;
+
+/**
+ * thrown instead of sending a request that would have to wait longer than
+ * allowed for a permit of a {@link RateLimiter RateLimiter}.
+ *
+ * @author Numbers
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String limiter;
+    private final long retryAfter;
+
+    /**
+     *
+     * @param limiter    the name of the limiter
+     * @param retryAfter the time in milliseconds the request would have had
+     *                   to wait
+     */
+    public RateLimitExceededException(String limiter, long retryAfter)
+    {
+        super("rate limit of " + limiter + " exceeded, retry after "
+                + retryAfter + " ms");
+        this.limiter = limiter;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     *
+     * @return the name of the limiter
+     */
+    public String getLimiter()
+    {
+        return limiter;
+    }
+
+    /**
+     *
+     * @return the time in milliseconds the request would have had to wait
+     */
+    public long getRetryAfter()
+    {
+        return retryAfter;
+    }
+
+}
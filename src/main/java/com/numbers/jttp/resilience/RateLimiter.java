@@ -0,0 +1,190 @@
+package com.numbers.jttp.resilience;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * a token bucket allowing a steady rate of requests with bursts up to the
+ * size of the bucket. A request takes a token, if the bucket is empty it
+ * reserves the next token to be added and waits until then, so waiting
+ * requests are let through in the order they arrived at exactly the allowed
+ * rate. The time requests waited is kept as metrics.
+ * <p>
+ * Limiters are created and configured by {@link RateLimiters RateLimiters}.
+ *
+ * @author Numbers
+ */
+public class RateLimiter {
+
+    private final String name;
+    private final double permitsPerSecond;
+    private final int burst;
+    private final LongAdder permits = new LongAdder();
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder totalWait = new LongAdder();
+    private final AtomicLong maxWait = new AtomicLong();
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    /**
+     *
+     * @param name             the name of the limiter, such as the host or
+     *                         route it applies to
+     * @param permitsPerSecond the rate at which tokens are added
+     * @param burst            the size of the bucket, which starts full
+     */
+    RateLimiter(String name, double permitsPerSecond, int burst)
+    {
+        if (permitsPerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException(
+                    "rate must be positive and burst at least 1");
+        }
+        this.name = name;
+        this.permitsPerSecond = permitsPerSecond;
+        this.burst = burst;
+        this.tokens = burst;
+    }
+
+    /**
+     * takes a token, reserving the next one to be added if the bucket is
+     * empty
+     *
+     * @return the time in nanoseconds until the token is available
+     */
+    synchronized long reserve()
+    {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - refilledAt)
+                * permitsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        refilledAt = now;
+        tokens--;
+        return tokens >= 0
+               ? 0
+               : (long) Math.ceil(-tokens * TimeUnit.SECONDS.toNanos(1)
+                       / permitsPerSecond);
+    }
+
+    /**
+     * gives back a reserved token that will not be used
+     */
+    synchronized void refund()
+    {
+        tokens = Math.min(burst, tokens + 1);
+    }
+
+    /**
+     *
+     * @param wait the time in nanoseconds a permitted request waits
+     */
+    void granted(long wait)
+    {
+        permits.increment();
+        if (wait > 0) {
+            delayed.increment();
+            totalWait.add(wait);
+            maxWait.accumulateAndGet(wait, Math::max);
+        }
+    }
+
+    /**
+     * counts a request that would have waited too long
+     */
+    void rejected()
+    {
+        rejected.increment();
+    }
+
+    /**
+     *
+     * @return the name of the limiter
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     *
+     * @return the rate at which requests are allowed
+     */
+    public double getPermitsPerSecond()
+    {
+        return permitsPerSecond;
+    }
+
+    /**
+     *
+     * @return the amount of requests allowed at once after a quiet period
+     */
+    public int getBurst()
+    {
+        return burst;
+    }
+
+    /**
+     *
+     * @return the amount of requests permitted, including those that had to
+     *         wait
+     */
+    public long getPermitCount()
+    {
+        return permits.sum();
+    }
+
+    /**
+     *
+     * @return the amount of permitted requests that had to wait
+     */
+    public long getDelayedCount()
+    {
+        return delayed.sum();
+    }
+
+    /**
+     *
+     * @return the amount of requests rejected as they would have waited
+     *         longer than allowed
+     */
+    public long getRejectedCount()
+    {
+        return rejected.sum();
+    }
+
+    /**
+     *
+     * @return the total time permitted requests waited, in nanoseconds
+     */
+    public long getTotalWaitNanos()
+    {
+        return totalWait.sum();
+    }
+
+    /**
+     *
+     * @return the longest time a permitted request waited, in nanoseconds
+     */
+    public long getMaxWaitNanos()
+    {
+        return maxWait.get();
+    }
+
+    /**
+     *
+     * @return the average time a permitted request waited, in nanoseconds
+     */
+    public long getAverageWaitNanos()
+    {
+        long count = permits.sum();
+        return count == 0 ? 0 : totalWait.sum() / count;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RateLimiter{" + "name=" + name + ", permitsPerSecond="
+                + permitsPerSecond + ", burst=" + burst + '}';
+    }
+
+}
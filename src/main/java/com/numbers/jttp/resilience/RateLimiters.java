@@ -0,0 +1,230 @@
+package com.numbers.jttp.resilience;
+
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.regex.*;
+
+/**
+ * the {@link RateLimiter rate limiters} applied to requests: a global limit
+ * for all requests, limits per host name and limits per route. A request
+ * takes a permit of every limit that applies to it, and is sent once the
+ * last of them is available. Waiting never occupies a thread of the executor,
+ * the request is handed to it once the permits are available. Install it with
+ * {@link com.numbers.jttp.Jttp.JTTPConfig#setRateLimiters(RateLimiters)
+ * setRateLimiters(RateLimiters)}.
+ *
+ * @author Numbers
+ */
+public class RateLimiters {
+
+    private volatile RateLimiter global;
+    private final ConcurrentMap<String, RateLimiter> hosts
+            = new ConcurrentHashMap<>();
+    private final List<Route> routes = new CopyOnWriteArrayList<>();
+    private volatile long maxWait = Long.MAX_VALUE;
+
+    /**
+     * sets the limit of all requests
+     *
+     * @param permitsPerSecond the allowed rate of requests
+     * @param burst            the amount of requests allowed at once after a
+     *                         quiet period
+     * @return the new limiter
+     */
+    public RateLimiter setGlobalLimit(double permitsPerSecond, int burst)
+    {
+        global = new RateLimiter("*", permitsPerSecond, burst);
+        return global;
+    }
+
+    /**
+     * sets the limit of the requests to a host
+     *
+     * @param host             the host name, without port
+     * @param permitsPerSecond the allowed rate of requests
+     * @param burst            the amount of requests allowed at once after a
+     *                         quiet period
+     * @return the new limiter
+     */
+    public RateLimiter setHostLimit(String host, double permitsPerSecond,
+                                    int burst)
+    {
+        RateLimiter limiter = new RateLimiter(host, permitsPerSecond, burst);
+        hosts.put(host.toLowerCase(Locale.ROOT), limiter);
+        return limiter;
+    }
+
+    /**
+     * sets the limit of the requests to a route. The pattern is matched
+     * against the whole URI of the request without its query, such as
+     * {@code https://api\.example\.com/v1/search.*}. Only the first route
+     * that matches applies.
+     *
+     * @param regex            the regular expression of the route
+     * @param permitsPerSecond the allowed rate of requests
+     * @param burst            the amount of requests allowed at once after a
+     *                         quiet period
+     * @return the new limiter
+     */
+    public RateLimiter setRouteLimit(String regex, double permitsPerSecond,
+                                     int burst)
+    {
+        RateLimiter limiter = new RateLimiter(regex, permitsPerSecond, burst);
+        routes.add(new Route(Pattern.compile(regex), limiter));
+        return limiter;
+    }
+
+    /**
+     * sets the maximum time a request waits for its permits. A request that
+     * would wait longer fails right away with a
+     * {@link RateLimitExceededException RateLimitExceededException}, without
+     * taking any permit. By default requests wait as long as needed.
+     *
+     * @param maxWait the maximum time to wait
+     * @param unit    the unit of the time
+     */
+    public void setMaxWait(long maxWait, TimeUnit unit)
+    {
+        this.maxWait = unit.toNanos(maxWait);
+    }
+
+    /**
+     *
+     * @param uri the URI of the request
+     * @return the limiters applying to the request
+     */
+    public List<RateLimiter> limitersFor(URI uri)
+    {
+        List<RateLimiter> limiters = new ArrayList<>(3);
+        if (global != null) {
+            limiters.add(global);
+        }
+        if (uri.getHost() != null) {
+            RateLimiter host = hosts.get(uri.getHost()
+                    .toLowerCase(Locale.ROOT));
+            if (host != null) {
+                limiters.add(host);
+            }
+        }
+        if (!routes.isEmpty()) {
+            String route = route(uri);
+            for (Route candidate : routes) {
+                if (candidate.pattern.matcher(route)
+                        .matches()) {
+                    limiters.add(candidate.limiter);
+                    break;
+                }
+            }
+        }
+        return limiters;
+    }
+
+    /**
+     * takes a permit of every limiter applying to the request. The returned
+     * future completes on the scheduler once the permits are available, with
+     * the time waited in nanoseconds, or exceptionally with a
+     * {@link RateLimitExceededException RateLimitExceededException} if the
+     * request would wait too long. Cancelling the future gives the permits
+     * back.
+     *
+     * @param uri       the URI of the request
+     * @param scheduler the scheduler timing the wait
+     * @return a future completing once the request may be sent
+     */
+    public CompletableFuture<Long> acquire(URI uri,
+                                           ScheduledExecutorService scheduler)
+    {
+        List<RateLimiter> limiters = limitersFor(uri);
+        long wait = 0;
+        RateLimiter slowest = null;
+        for (RateLimiter limiter : limiters) {
+            long reserved = limiter.reserve();
+            if (reserved >= wait) {
+                wait = reserved;
+                slowest = limiter;
+            }
+        }
+
+        if (wait > maxWait) {
+            limiters.forEach(RateLimiter::refund);
+            slowest.rejected();
+            CompletableFuture<Long> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new RateLimitExceededException(
+                    slowest.getName(), TimeUnit.NANOSECONDS.toMillis(wait)));
+            return rejected;
+        }
+        long waited = wait;
+        limiters.forEach(limiter -> limiter.granted(waited));
+        if (wait == 0) {
+            return CompletableFuture.completedFuture(0L);
+        }
+
+        CompletableFuture<Long> permit = new CompletableFuture<>();
+        ScheduledFuture<?> scheduled = scheduler.schedule(() -> permit
+                .complete(waited), wait, TimeUnit.NANOSECONDS);
+        permit.whenComplete((result, ex) -> {
+            if (permit.isCancelled() && scheduled.cancel(false)) {
+                limiters.forEach(RateLimiter::refund);
+            }
+        });
+        return permit;
+    }
+
+    /**
+     *
+     * @return the global limiter, or {@code null} if there is no global
+     *         limit
+     */
+    public RateLimiter getGlobalLimiter()
+    {
+        return global;
+    }
+
+    /**
+     *
+     * @return an unmodifiable view of the limiters by host name
+     */
+    public Map<String, RateLimiter> getHostLimiters()
+    {
+        return Collections.unmodifiableMap(hosts);
+    }
+
+    /**
+     *
+     * @return the limiters of the routes, in the order they are matched
+     */
+    public List<RateLimiter> getRouteLimiters()
+    {
+        List<RateLimiter> limiters = new ArrayList<>();
+        routes.forEach(route -> limiters.add(route.limiter));
+        return limiters;
+    }
+
+    private static String route(URI uri)
+    {
+        String route = uri.toString();
+        int end = route.indexOf('?');
+        if (end < 0) {
+            end = route.indexOf('#');
+        }
+        return end < 0 ? route : route.substring(0, end);
+    }
+
+    /**
+     * a limiter applying to the URIs matching a pattern
+     */
+    private static final class Route {
+
+        private final Pattern pattern;
+        private final RateLimiter limiter;
+
+        private Route(Pattern pattern, RateLimiter limiter)
+        {
+            this.pattern = pattern;
+            this.limiter = limiter;
+        }
+
+    }
+
+}
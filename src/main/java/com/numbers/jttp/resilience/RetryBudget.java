@@ -0,0 +1,115 @@
+package com.numbers.jttp.resilience;
+
+import java.util.concurrent.*;
+
+/**
+ * a token bucket limiting the amount of retries relative to the amount of
+ * requests, so retries can not multiply the load on a server that is already
+ * failing. Every request deposits a fraction of a token, every retry
+ * withdraws a whole token. A small amount of tokens is added over time as
+ * well, so a client sending few requests can still retry.
+ * <p>
+ * With a ratio of {@code 0.1}, at most one retry per ten requests is sent
+ * once the initial tokens are spent, however many requests fail.
+ *
+ * @author Numbers
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double minPerSecond;
+    private final double capacity;
+
+    private double tokens;
+    private long refilled;
+    private long exhausted;
+
+    /**
+     * creates a full retry budget.
+     *
+     * @param ratio        the tokens deposited per request, the fraction of
+     *                     requests that may be retried
+     * @param minPerSecond the tokens added per second regardless of the
+     *                     amount of requests
+     * @param capacity     the maximum amount of tokens, which limits the
+     *                     burst of retries after a quiet period
+     * @throws IllegalArgumentException if a value is negative or the capacity
+     *                                  is less than a single token
+     */
+    public RetryBudget(double ratio, double minPerSecond, double capacity) throws
+            IllegalArgumentException
+    {
+        if (ratio < 0 || minPerSecond < 0 || capacity < 1) {
+            throw new IllegalArgumentException(
+                    "ratio and rate must be positive and capacity at least 1");
+        }
+        this.ratio = ratio;
+        this.minPerSecond = minPerSecond;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.refilled = System.nanoTime();
+    }
+
+    /**
+     * deposits the tokens of a single request.
+     */
+    public synchronized void deposit()
+    {
+        refill();
+        tokens = Math.min(capacity, tokens + ratio);
+    }
+
+    /**
+     * withdraws the token of a single retry, if available.
+     *
+     * @return true if the retry may be sent
+     */
+    public synchronized boolean tryWithdraw()
+    {
+        refill();
+        if (tokens < 1) {
+            exhausted++;
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+
+    /**
+     *
+     * @return the amount of tokens currently available
+     */
+    public synchronized double getAvailable()
+    {
+        refill();
+        return tokens;
+    }
+
+    /**
+     *
+     * @return the amount of retries refused because the budget was spent
+     */
+    public synchronized long getExhaustedCount()
+    {
+        return exhausted;
+    }
+
+    private void refill()
+    {
+        long now = System.nanoTime();
+        if (minPerSecond > 0) {
+            tokens = Math.min(capacity, tokens + (now - refilled)
+                    * minPerSecond / TimeUnit.SECONDS.toNanos(1));
+        }
+        refilled = now;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return "RetryBudget{" + "ratio=" + ratio + ", minPerSecond="
+                + minPerSecond + ", capacity=" + capacity + ", available="
+                + tokens + '}';
+    }
+
+}
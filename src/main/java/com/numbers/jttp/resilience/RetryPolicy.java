@@ -0,0 +1,315 @@
+package com.numbers.jttp.resilience;
+
+import com.numbers.jttp.request.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.apache.http.*;
+import org.apache.http.client.utils.*;
+import org.apache.http.conn.*;
+
+/**
+ * decides whether and when a failed request is sent again. A request is
+ * retried when it failed with one of the {@link #setRetryableExceptions(Class[])
+ * retryable exceptions} or a response with one of the
+ * {@link #setRetryableStatusCodes(int...) retryable status codes}, up to the
+ * maximum amount of attempts and as long as the {@link RetryBudget
+ * RetryBudget} allows it.
+ * <p>
+ * Retries back off exponentially, with a random part (jitter) so clients
+ * failing at the same moment do not retry in lockstep. A {@code Retry-After}
+ * header on the response is honored. Only
+ * {@link HttpRequestType#isIdempotent() idempotent} requests are retried,
+ * unless {@link #setRetryNonIdempotent(boolean) enabled} otherwise; other
+ * requests are only retried if they failed to connect, as they can not have
+ * reached the server. Install it with
+ * {@link com.numbers.jttp.Jttp.JTTPConfig#setRetryPolicy(RetryPolicy)
+ * setRetryPolicy(RetryPolicy)}, or per request.
+ *
+ * @author Numbers
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private long initialDelay = 100;
+    private long maxDelay = 10_000;
+    private double multiplier = 2;
+    private double jitter = 1;
+    private Set<Integer> retryableStatusCodes = new HashSet<>(Arrays.asList(
+            429, 502, 503, 504));
+    private List<Class<? extends Throwable>> retryableExceptions = Arrays
+            .asList(SocketException.class, SocketTimeoutException.class,
+                    ConnectTimeoutException.class,
+                    NoHttpResponseException.class);
+    private boolean retryNonIdempotent = false;
+    private RetryBudget budget = new RetryBudget(0.1, 1, 10);
+
+    /**
+     * creates a retry policy backing off from 100 milliseconds up to 10
+     * seconds with full jitter, limited by a budget of one retry per ten
+     * requests.
+     *
+     * @param maxAttempts the maximum amount of times a request is sent,
+     *                    including the first attempt
+     * @throws IllegalArgumentException if the maximum is less than 1
+     */
+    public RetryPolicy(int maxAttempts) throws IllegalArgumentException
+    {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("at least one attempt is needed");
+        }
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * sets the delay before the first retry and the maximum delay between
+     * attempts. Every further retry waits {@link #setMultiplier(double)
+     * multiplier} times as long as the previous one.
+     *
+     * @param initial the delay before the first retry
+     * @param max     the maximum delay before a retry
+     * @param unit    the unit of the delays
+     */
+    public void setBackoff(long initial, long max, TimeUnit unit)
+    {
+        this.initialDelay = unit.toMillis(initial);
+        this.maxDelay = unit.toMillis(max);
+    }
+
+    /**
+     *
+     * @param multiplier the factor by which the delay grows per retry,
+     *                   defaults to 2
+     */
+    public void setMultiplier(double multiplier)
+    {
+        this.multiplier = multiplier;
+    }
+
+    /**
+     * sets the random part of the delay. With a jitter of {@code 1} (full
+     * jitter, the default) the delay is anywhere between zero and the backoff,
+     * with {@code 0} it is exactly the backoff.
+     *
+     * @param jitter the fraction of the backoff that is random, between 0
+     *               and 1
+     */
+    public void setJitter(double jitter)
+    {
+        this.jitter = Math.max(0, Math.min(1, jitter));
+    }
+
+    /**
+     *
+     * @param codes the status codes of responses to retry, by default
+     *              {@code 429}, {@code 502}, {@code 503} and {@code 504}
+     */
+    public void setRetryableStatusCodes(int... codes)
+    {
+        Set<Integer> retryable = new HashSet<>();
+        for (int code : codes) {
+            retryable.add(code);
+        }
+        this.retryableStatusCodes = retryable;
+    }
+
+    /**
+     * sets the failures to retry. A failure is retried if it, or one of its
+     * causes, is an instance of one of the types. By default connection
+     * failures, timeouts and connections closed without response are retried,
+     * unknown hosts and SSL failures are not.
+     *
+     * @param types the types of the failures to retry
+     */
+    @SafeVarargs
+    public final void setRetryableExceptions(Class<? extends Throwable>... types)
+    {
+        List<Class<? extends Throwable>> retryable = new ArrayList<>();
+        for (Class<? extends Throwable> type : types) {
+            retryable.add(type);
+        }
+        this.retryableExceptions = retryable;
+    }
+
+    /**
+     *
+     * @param retry whether {@code POST} and {@code PATCH} requests are retried
+     *              like idempotent requests, even though the server may have
+     *              processed them already
+     */
+    public void setRetryNonIdempotent(boolean retry)
+    {
+        this.retryNonIdempotent = retry;
+    }
+
+    /**
+     *
+     * @param budget the budget limiting the amount of retries, or
+     *               {@code null} to retry every failed request
+     */
+    public void setBudget(RetryBudget budget)
+    {
+        this.budget = budget;
+    }
+
+    /**
+     *
+     * @return the maximum amount of times a request is sent
+     */
+    public int getMaxAttempts()
+    {
+        return maxAttempts;
+    }
+
+    /**
+     *
+     * @return the budget limiting the amount of retries, or {@code null} if
+     *         unlimited
+     */
+    public RetryBudget getBudget()
+    {
+        return budget;
+    }
+
+    /**
+     * registers a new request with the budget, called once per request
+     * before its first attempt.
+     */
+    public void onRequest()
+    {
+        RetryBudget current = budget;
+        if (current != null) {
+            current.deposit();
+        }
+    }
+
+    /**
+     * decides whether a request that received the given response is retried.
+     *
+     * @param method   the method of the request
+     * @param attempt  the attempt that received the response, starting at 1
+     * @param response the response
+     * @return the delay in milliseconds before the next attempt, or
+     *         {@code -1} if the request is not retried
+     */
+    public long retryDelay(HttpRequestType method, int attempt,
+                           HttpResponse response)
+    {
+        if (attempt >= maxAttempts
+                || !retryableStatusCodes.contains(response.getStatusLine()
+                        .getStatusCode())
+                || !(method.isIdempotent() || retryNonIdempotent)) {
+            return -1;
+        }
+
+        long delay = backoff(attempt);
+        long retryAfter = retryAfter(response);
+        if (retryAfter > maxDelay) {
+            return -1;
+        }
+        return withdraw() ? Math.max(delay, retryAfter) : -1;
+    }
+
+    /**
+     * decides whether a request that failed with the given exception is
+     * retried.
+     *
+     * @param method  the method of the request
+     * @param attempt the attempt that failed, starting at 1
+     * @param failure the failure, possibly wrapped
+     * @return the delay in milliseconds before the next attempt, or
+     *         {@code -1} if the request is not retried
+     */
+    public long retryDelay(HttpRequestType method, int attempt,
+                           Throwable failure)
+    {
+        if (attempt >= maxAttempts || !isRetryable(failure)
+                || !(method.isIdempotent() || retryNonIdempotent
+                || isNotSent(failure))) {
+            return -1;
+        }
+        return withdraw() ? backoff(attempt) : -1;
+    }
+
+    /**
+     * computes the delay before the retry following the given attempt,
+     * without regard for the budget.
+     *
+     * @param attempt the attempt that failed, starting at 1
+     * @return the delay in milliseconds
+     */
+    public long backoff(int attempt)
+    {
+        double exponential = initialDelay * Math.pow(multiplier, attempt - 1);
+        long delay = (long) Math.min(maxDelay, exponential);
+        return delay - (long) (delay * jitter * ThreadLocalRandom.current()
+                .nextDouble());
+    }
+
+    private boolean withdraw()
+    {
+        RetryBudget current = budget;
+        return current == null || current.tryWithdraw();
+    }
+
+    private boolean isRetryable(Throwable failure)
+    {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Throwable> type : retryableExceptions) {
+                if (type.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @param failure the failure
+     * @return true if the failure happened before the request was sent
+     */
+    private static boolean isNotSent(Throwable failure)
+    {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException
+                    || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     *
+     * @param response the response
+     * @return the delay in milliseconds requested by the {@code Retry-After}
+     *         header, or {@code 0} if absent or invalid
+     */
+    private static long retryAfter(HttpResponse response)
+    {
+        Header header = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null) {
+            return 0;
+        }
+        String value = header.getValue()
+                .trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException ex) {
+            Date date = DateUtils.parseDate(value);
+            return date == null
+                   ? 0
+                   : Math.max(0, date.getTime() - System.currentTimeMillis());
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "RetryPolicy{" + "maxAttempts=" + maxAttempts + ", initialDelay="
+                + initialDelay + ", maxDelay=" + maxDelay + ", budget="
+                + budget + '}';
+    }
+
+}
@@ -0,0 +1,5 @@
+/**
+ * contains the policies keeping requests resilient against failing or slow
+ * servers
+ */
+package com.numbers.jttp.resilience;
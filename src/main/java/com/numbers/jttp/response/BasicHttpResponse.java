@@ -1,5 +1,6 @@
 package com.numbers.jttp.response;
 
+import com.numbers.jttp.metrics.*;
 import org.apache.http.*;
 import org.apache.http.client.methods.*;
 
@@ -13,6 +14,7 @@ import org.apache.http.client.methods.*;
 class BasicHttpResponse implements HttpResponse {
 
     private final CloseableHttpResponse response;
+    private final RequestTimings timings;
 
     /**
      * creates a BasicHttpResponse based on the given CloseableHttpResponse
@@ -21,8 +23,21 @@ class BasicHttpResponse implements HttpResponse {
      * @param response the underlying response
      */
     BasicHttpResponse(CloseableHttpResponse response)
+    {
+        this(response, RequestTimer.NONE);
+    }
+
+    /**
+     * creates a BasicHttpResponse based on the given CloseableHttpResponse
+     * response
+     *
+     * @param response the underlying response
+     * @param timings  the timings of the request
+     */
+    BasicHttpResponse(CloseableHttpResponse response, RequestTimings timings)
     {
         this.response = response;
+        this.timings = timings;
     }
 
     @Override
@@ -51,6 +66,12 @@ class BasicHttpResponse implements HttpResponse {
         return response.getAllHeaders();
     }
 
+    @Override
+    public RequestTimings getTimings()
+    {
+        return timings;
+    }
+
     /**
      *
      * @return the underlying CloseableHttpResponse
@@ -0,0 +1,52 @@
+package com.numbers.jttp.response;
+
+import java.nio.file.*;
+
+/**
+ * a response body written to a file, together with the amount of bytes that
+ * were written to it.
+ *
+ * @author Numbers
+ */
+public final class DownloadedFile {
+
+    private final Path path;
+    private final long length;
+
+    /**
+     * creates a DownloadedFile for the given file
+     *
+     * @param path   the file the body was written to
+     * @param length the amount of bytes written
+     */
+    public DownloadedFile(Path path, long length)
+    {
+        this.path = path;
+        this.length = length;
+    }
+
+    /**
+     *
+     * @return the file the body was written to
+     */
+    public Path getPath()
+    {
+        return path;
+    }
+
+    /**
+     *
+     * @return the amount of bytes written to the file
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    @Override
+    public String toString()
+    {
+        return path + " (" + length + " bytes)";
+    }
+
+}
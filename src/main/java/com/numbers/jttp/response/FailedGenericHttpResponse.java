@@ -1,6 +1,7 @@
 package com.numbers.jttp.response;
 
 import com.numbers.jttp.mapper.*;
+import com.numbers.jttp.metrics.*;
 import java.io.*;
 import java.util.logging.*;
 import org.apache.http.client.methods.*;
@@ -39,7 +40,22 @@ class FailedGenericHttpResponse<T> extends BasicHttpResponse implements JsonHttp
     FailedGenericHttpResponse(CloseableHttpResponse response,
                                      JsonMapper mapper)
     {
-        super(response);
+        this(response, mapper, RequestTimer.NONE);
+    }
+
+    /**
+     * Creates a failed HTTP response with a
+     * {@link com.numbers.jttp.mapper.JsonMapper JsonMpper} to map the error
+     * response from the {@link java.io.InputStream inputstream}.
+     *
+     * @param response the response generated by the HTTP request
+     * @param mapper   the objectMapper to map the error response
+     * @param timings  the timings of the request
+     */
+    FailedGenericHttpResponse(CloseableHttpResponse response,
+                              JsonMapper mapper, RequestTimings timings)
+    {
+        super(response, timings);
 
         this.mapper = mapper;
         try {
@@ -58,7 +74,7 @@ class FailedGenericHttpResponse<T> extends BasicHttpResponse implements JsonHttp
     }
 
     @Override
-    public <U> U mapToErrorResponse(Class<U> errorClass) throws
+    public synchronized <U> U mapToErrorResponse(Class<U> errorClass) throws
             UnsupportedOperationException, IllegalStateException
     {
         if (errorResponse == null) {
@@ -68,7 +84,7 @@ class FailedGenericHttpResponse<T> extends BasicHttpResponse implements JsonHttp
     }
 
     @Override
-    public void close() throws IOException
+    public synchronized void close() throws IOException
     {
         if (errorResponse == null) {
             stream.close();
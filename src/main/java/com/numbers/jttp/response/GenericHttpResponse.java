@@ -1,5 +1,6 @@
 package com.numbers.jttp.response;
 
+import com.numbers.jttp.metrics.*;
 import org.apache.http.client.methods.*;
 
 /**
@@ -20,7 +21,19 @@ class GenericHttpResponse<T> extends BasicHttpResponse implements JsonHttpRespon
      */
     GenericHttpResponse(CloseableHttpResponse chr, T response)
     {
-        super(chr);
+        this(chr, response, RequestTimer.NONE);
+    }
+
+    /**
+     *
+     * @param chr      the underlying http response
+     * @param response the mapped body response
+     * @param timings  the timings of the request
+     */
+    GenericHttpResponse(CloseableHttpResponse chr, T response,
+                        RequestTimings timings)
+    {
+        super(chr, timings);
         this.response = response;
     }
 
@@ -1,5 +1,6 @@
 package com.numbers.jttp.response;
 
+import com.numbers.jttp.metrics.*;
 import com.numbers.jttp.response.HttpResponse;
 import org.apache.http.*;
 import org.apache.http.client.methods.*;
@@ -21,6 +22,18 @@ public interface HttpResponse {
     public static HttpResponse of(CloseableHttpResponse response){
         return new BasicHttpResponse(response);
     }
+
+    /**
+     *
+     * @param response the underlying response
+     * @param timings  the timings of the request
+     * @return a response without body carrying the given timings
+     */
+    public static HttpResponse of(CloseableHttpResponse response,
+                                  RequestTimings timings)
+    {
+        return new BasicHttpResponse(response, timings);
+    }
     
     /**
      *
@@ -47,6 +60,22 @@ public interface HttpResponse {
      */
     String getStatusText();
 
+    /**
+     * returns the timing breakdown of the request, such as the time spent
+     * waiting for a pooled connection, connecting, waiting for the first byte,
+     * reading the body and mapping it. Timings are only recorded if enabled
+     * with {@link com.numbers.jttp.Jttp.JTTPConfig#setRecordTimings(boolean)
+     * setRecordTimings(boolean)} or a
+     * {@link com.numbers.jttp.metrics.MetricsListener MetricsListener}, all
+     * timings are {@code 0} otherwise.
+     *
+     * @return the timings of the request
+     */
+    public default RequestTimings getTimings()
+    {
+        return RequestTimer.NONE;
+    }
+
     /**
      * a utility method to quickly check if a response is considered successful
      * based on the HTTP statuscode
@@ -1,6 +1,7 @@
 package com.numbers.jttp.response;
 
 import com.numbers.jttp.mapper.*;
+import com.numbers.jttp.metrics.*;
 import java.io.*;
 import java.util.*;
 import java.util.function.*;
@@ -27,6 +28,20 @@ public interface JsonHttpResponse<T> extends HttpResponse, Closeable {
                                      T value){
         return new GenericHttpResponse<>(response,value);
     }
+
+    /**
+     *
+     * @param <T>      the type of the mapped value
+     * @param response the underlying response
+     * @param value    the value mapped from the response body
+     * @param timings  the timings of the request, including the mapping time
+     * @return a successful response carrying the given timings
+     */
+    public static <T> JsonHttpResponse<T> ofSuccess(
+            CloseableHttpResponse response, T value, RequestTimings timings)
+    {
+        return new GenericHttpResponse<>(response, value, timings);
+    }
     
     /**
      *
@@ -38,6 +53,21 @@ public interface JsonHttpResponse<T> extends HttpResponse, Closeable {
     public static<T> JsonHttpResponse<T> ofFailure(CloseableHttpResponse response, JsonMapper mapper){
         return new FailedGenericHttpResponse<>(response, mapper);
     }
+
+    /**
+     *
+     * @param <T>      the type the response would have been mapped to
+     * @param response the underlying response
+     * @param mapper   the mapper to map the error response with
+     * @param timings  the timings of the request
+     * @return a failed response carrying the given timings
+     */
+    public static <T> JsonHttpResponse<T> ofFailure(
+            CloseableHttpResponse response, JsonMapper mapper,
+            RequestTimings timings)
+    {
+        return new FailedGenericHttpResponse<>(response, mapper, timings);
+    }
     
     /**
      * return an instance of a java object which contains the values of the
@@ -1,6 +1,20 @@
 package com.numbers.jttp;
 
+import com.numbers.jttp.request.stream.*;
+import com.numbers.jttp.response.HttpResponse;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.apache.commons.io.*;
+import org.apache.http.*;
+import org.apache.http.conn.routing.*;
+import org.apache.http.impl.conn.*;
 import org.junit.Test;
+import static org.junit.Assert.*;
 
 /**
  *
@@ -12,6 +26,43 @@ public class JttpTest {
     {
     }
 
+    /**
+     * sends a request to a server answering with the method and body of the
+     * request
+     *
+     * @param request the function creating the request for a url
+     * @return the method and body received by the server
+     */
+    private static String echo(
+            BiFunction<Jttp, String, BodyResponselessHttpRequestStream> request)
+            throws Exception
+    {
+        HttpServer server = HttpServer.create(new InetSocketAddress(
+                "127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = IOUtils.toString(exchange.getRequestBody(),
+                    StandardCharsets.UTF_8);
+            exchange.getResponseHeaders()
+                    .add("X-Echo", exchange.getRequestMethod() + " " + body);
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        Jttp jttp = Jttp.newDefault();
+        try {
+            HttpResponse response = request.apply(jttp, "http://127.0.0.1:"
+                    + server.getAddress()
+                            .getPort())
+                    .execute()
+                    .get(5, TimeUnit.SECONDS);
+            return response.getHeaderField("X-Echo")[0].getValue();
+        } finally {
+            jttp.close();
+            jttp.shutdown();
+            server.stop(0);
+        }
+    }
+
     /**
      * Test of newDefault method, of class Jttp.
      */
@@ -24,8 +75,111 @@ public class JttpTest {
      * Test of fromConfig method, of class Jttp.
      */
     @Test
-    public void testFromConfig()
+    public void testFromConfig() throws Exception
     {
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setMaxConnections(50);
+        config.setMaxConnectionsPerRoute(10);
+        config.setMaxConnectionsPerHost(new HttpHost("localhost", -1, "https"), 40);
+        config.setConnectionTimeToLive(30_000);
+        config.setIdleConnectionTimeout(5_000);
+
+        try (Jttp jttp = Jttp.fromConfig(config)) {
+            PoolingHttpClientConnectionManager manager = jttp
+                    .getConnectionManager();
+            assertEquals(50, manager.getMaxTotal());
+            assertEquals(10, manager.getDefaultMaxPerRoute());
+            assertEquals(40, manager.getMaxPerRoute(new HttpRoute(new HttpHost(
+                    "localhost", 443, "https"), null, true)));
+            assertEquals(10, manager.getMaxPerRoute(new HttpRoute(new HttpHost(
+                    "localhost", 80, "http"))));
+            assertEquals(30_000, config.getConnectionTimeToLive());
+            assertEquals(5_000, config.getIdleConnectionTimeout());
+            jttp.shutdown();
+        }
+    }
+
+    /**
+     * sends two requests to a local server, pausing between them
+     *
+     * @param config the config of the JTTP sending the requests
+     * @param pause  the pause between the requests in milliseconds
+     * @return the amount of connections the requests were sent over
+     */
+    private static int connections(Jttp.JTTPConfig config, long pause) throws
+            Exception
+    {
+        Set<Integer> ports = ConcurrentHashMap.newKeySet();
+        HttpServer server = HttpServer.create(new InetSocketAddress(
+                "127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            ports.add(exchange.getRemoteAddress()
+                    .getPort());
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress()
+                .getPort();
+        Jttp jttp = Jttp.fromConfig(config);
+        try {
+            jttp.get(url)
+                    .asString()
+                    .get(5, TimeUnit.SECONDS);
+            Thread.sleep(pause);
+            jttp.get(url)
+                    .asString()
+                    .get(5, TimeUnit.SECONDS);
+            return ports.size();
+        } finally {
+            jttp.close();
+            jttp.shutdown();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testConnectionsAreReused() throws Exception
+    {
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setIdleConnectionTimeout(0);
+
+        assertEquals(1, connections(config, 500));
+    }
+
+    @Test
+    public void testConnectionsExpireAfterTimeToLive() throws Exception
+    {
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setIdleConnectionTimeout(0);
+        config.setConnectionTimeToLive(100);
+
+        assertEquals(2, connections(config, 500));
+    }
+
+    @Test
+    public void testIdleConnectionsAreEvicted() throws Exception
+    {
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setIdleConnectionTimeout(100);
+
+        assertEquals(2, connections(config, 500));
+    }
+
+    /**
+     * Test of setVirtualThreads method, of class Jttp.JTTPConfig.
+     */
+    @Test
+    public void testSetVirtualThreadsRunsTasks() throws Exception
+    {
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setVirtualThreads(true);
+
+        assertEquals("done", config.getService().submit(() -> "done").get());
+        config.getService().shutdown();
     }
 
     /**
@@ -48,16 +202,22 @@ public class JttpTest {
      * Test of patch method, of class Jttp.
      */
     @Test
-    public void testPatch()
+    public void testPatch() throws Exception
     {
+        // patch keeps its declared type, but the stream can carry a body
+        assertEquals("PATCH {}", echo((jttp, url)
+                -> ((HttpBodyRequestStream) jttp.patch(url)).body("{}"
+                        .getBytes(StandardCharsets.UTF_8))));
     }
 
     /**
      * Test of put method, of class Jttp.
      */
     @Test
-    public void testPut()
+    public void testPut() throws Exception
     {
+        assertEquals("PUT {}", echo((jttp, url) -> jttp.put(url)
+                .body("{}".getBytes(StandardCharsets.UTF_8))));
     }
 
     /**
@@ -72,8 +232,9 @@ public class JttpTest {
      * Test of head method, of class Jttp.
      */
     @Test
-    public void testHead()
+    public void testHead() throws Exception
     {
+        assertEquals("HEAD", echo(Jttp::head));
     }
 
     /**
@@ -0,0 +1,287 @@
+package com.numbers.jttp.batch;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+import org.junit.*;
+import org.reactivestreams.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class BatchTest {
+
+    private ScheduledExecutorService scheduler;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @Before
+    public void setUp()
+    {
+        scheduler = Executors.newScheduledThreadPool(4);
+    }
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * a request completing with the doubled item after the item in
+     * milliseconds, failing for negative items
+     */
+    private CompletableFuture<Integer> request(int item)
+    {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        scheduler.schedule(() -> {
+            inFlight.decrementAndGet();
+            if (item < 0) {
+                future.completeExceptionally(new IllegalStateException(
+                        "failed " + item));
+            } else {
+                future.complete(item * 2);
+            }
+        }, Math.abs(item), TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    @Test
+    public void testExecuteKeepsMaxInFlightAndInputOrder() throws Exception
+    {
+        List<Integer> items = IntStream.range(0, 40)
+                .map(i -> (i * 7) % 13)
+                .boxed()
+                .collect(Collectors.toList());
+
+        List<BatchResult<Integer, Integer>> results = Batch.of(items.stream(),
+                this::request, 4)
+                .execute()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(40, results.size());
+        for (int i = 0; i < 40; i++) {
+            assertEquals(i, results.get(i)
+                    .getIndex());
+            assertEquals(Integer.valueOf(items.get(i) * 2), results.get(i)
+                    .getValue());
+        }
+        assertTrue("max in flight " + maxInFlight.get(), maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testStreamInCompletionOrder()
+    {
+        List<Integer> values = Batch.of(Stream.of(60, 30, 0), this::request, 3)
+                .stream()
+                .map(BatchResult::getValue)
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(0, 60, 120), values);
+    }
+
+    @Test
+    public void testStreamInInputOrder()
+    {
+        List<Integer> values = Batch.of(Stream.of(60, 30, 0), this::request, 3)
+                .inputOrder()
+                .stream()
+                .map(BatchResult::getValue)
+                .collect(Collectors.toList());
+
+        assertEquals(Arrays.asList(120, 60, 0), values);
+    }
+
+    @Test
+    public void testFailuresAreKeptPerItem() throws Exception
+    {
+        List<BatchResult<Integer, Integer>> results = Batch.<Integer, Integer>of(
+                Stream.of(1, -2, 3, null), item -> request(item), 2)
+                .execute()
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(results.get(0)
+                .isSuccess());
+        assertTrue(results.get(1)
+                .getFailure() instanceof IllegalStateException);
+        assertEquals(Integer.valueOf(6), results.get(2)
+                .getValue());
+        assertTrue(results.get(3)
+                .getFailure() instanceof NullPointerException);
+        assertFalse(results.get(3)
+                .getOptionalValue()
+                .isPresent());
+    }
+
+    @Test
+    public void testStreamTakesItemsLazily()
+    {
+        AtomicInteger taken = new AtomicInteger();
+        Iterator<BatchResult<Integer, Integer>> results = Batch.of(IntStream
+                .range(0, 1000)
+                .boxed()
+                .peek(item -> taken.incrementAndGet()), this::request, 5)
+                .stream()
+                .iterator();
+
+        results.next();
+        assertTrue("taken " + taken.get(), taken.get() <= 6);
+    }
+
+    @Test
+    public void testSynchronousRequestsDoNotGrowTheStack() throws Exception
+    {
+        List<BatchResult<Integer, Integer>> results = Batch.of(IntStream
+                .range(0, 100_000)
+                .boxed(), item -> CompletableFuture.completedFuture(item), 8)
+                .execute()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(100_000, results.size());
+        assertEquals(Integer.valueOf(99_999), results.get(99_999)
+                .getValue());
+    }
+
+    @Test
+    public void testCancelStopsBatch() throws Exception
+    {
+        AtomicInteger started = new AtomicInteger();
+        CompletableFuture<List<BatchResult<Integer, Integer>>> all = Batch
+                .<Integer, Integer>of(IntStream.range(0, 100)
+                        .boxed(), item -> {
+                    started.incrementAndGet();
+                    return new CompletableFuture<>();
+                }, 3)
+                .execute();
+
+        all.cancel(false);
+
+        assertEquals(3, started.get());
+        assertTrue(all.isCancelled());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testExecutesOnlyOnce()
+    {
+        Batch<Integer, Integer> batch = Batch.of(Stream.of(1), this::request,
+                1);
+        batch.execute();
+        batch.stream();
+    }
+
+    /**
+     * a subscriber collecting the signals it receives
+     */
+    private static final class CollectingSubscriber<T> implements Subscriber<T> {
+
+        private final List<T> values = new CopyOnWriteArrayList<>();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription)
+        {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T value)
+        {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable error)
+        {
+            this.error = error;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            terminated.countDown();
+        }
+
+    }
+
+    @Test
+    public void testPublisherStartsRequestsOnDemand() throws Exception
+    {
+        AtomicInteger started = new AtomicInteger();
+        CollectingSubscriber<BatchResult<Integer, Integer>> subscriber
+                = new CollectingSubscriber<>();
+        Batch.<Integer, Integer>of(IntStream.range(0, 10)
+                .boxed(), item -> {
+                    started.incrementAndGet();
+                    return request(item);
+                }, 4)
+                .inputOrder()
+                .publisher()
+                .subscribe(subscriber);
+
+        assertEquals(0, started.get());
+        subscriber.subscription.request(2);
+        Thread.sleep(100);
+        assertEquals(2, started.get());
+        assertEquals(2, subscriber.values.size());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertEquals(10, started.get());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i, subscriber.values.get(i)
+                    .getIndex());
+        }
+        assertTrue(maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testPublisherCancelStopsBatch() throws Exception
+    {
+        AtomicInteger started = new AtomicInteger();
+        List<CompletableFuture<Integer>> requests = new CopyOnWriteArrayList<>();
+        CollectingSubscriber<BatchResult<Integer, Integer>> subscriber
+                = new CollectingSubscriber<>();
+        Batch.<Integer, Integer>of(IntStream.range(0, 10)
+                .boxed(), item -> {
+                    started.incrementAndGet();
+                    CompletableFuture<Integer> future = new CompletableFuture<>();
+                    requests.add(future);
+                    return future;
+                }, 4)
+                .publisher()
+                .subscribe(subscriber);
+
+        subscriber.subscription.request(3);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(3);
+
+        assertEquals(3, started.get());
+        assertTrue(requests.stream()
+                .allMatch(CompletableFuture::isCancelled));
+        assertTrue(subscriber.values.isEmpty());
+    }
+
+    @Test
+    public void testPublisherRejectsNonPositiveRequest() throws Exception
+    {
+        CollectingSubscriber<BatchResult<Integer, Integer>> subscriber
+                = new CollectingSubscriber<>();
+        Batch.of(Stream.of(1), this::request, 1)
+                .publisher()
+                .subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+}
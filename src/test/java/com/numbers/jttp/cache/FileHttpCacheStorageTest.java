@@ -0,0 +1,93 @@
+package com.numbers.jttp.cache;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.apache.http.*;
+import org.apache.http.client.cache.*;
+import org.apache.http.impl.client.cache.*;
+import org.apache.http.message.*;
+import org.junit.*;
+import org.junit.rules.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class FileHttpCacheStorageTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static HttpCacheEntry entry(String etag)
+    {
+        Date now = new Date();
+        return new HttpCacheEntry(now, now, new BasicStatusLine(
+                HttpVersion.HTTP_1_1, 200, "OK"), new Header[]{
+                    new BasicHeader("ETag", etag)},
+                new HeapResource(etag.getBytes()));
+    }
+
+    @Test
+    public void testPutAndGetEntry() throws IOException
+    {
+        FileHttpCacheStorage storage = new FileHttpCacheStorage(folder.getRoot()
+                .toPath(), 10);
+
+        storage.putEntry("http://example.com/a", entry("a"));
+
+        assertEquals("a", storage.getEntry("http://example.com/a")
+                .getFirstHeader("ETag")
+                .getValue());
+        assertNull(storage.getEntry("http://example.com/b"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() throws IOException
+    {
+        FileHttpCacheStorage storage = new FileHttpCacheStorage(folder.getRoot()
+                .toPath(), 2);
+
+        storage.putEntry("a", entry("a"));
+        storage.putEntry("b", entry("b"));
+        storage.getEntry("a");
+        storage.putEntry("c", entry("c"));
+
+        assertEquals(2, storage.size());
+        assertNotNull(storage.getEntry("a"));
+        assertNull(storage.getEntry("b"));
+        assertNotNull(storage.getEntry("c"));
+    }
+
+    @Test
+    public void testEntriesSurviveRestart() throws IOException
+    {
+        Path directory = folder.getRoot()
+                .toPath();
+        new FileHttpCacheStorage(directory, 10).putEntry("a", entry("a"));
+
+        FileHttpCacheStorage reopened = new FileHttpCacheStorage(directory, 10);
+
+        assertEquals(1, reopened.size());
+        assertNotNull(reopened.getEntry("a"));
+    }
+
+    @Test
+    public void testUpdateAndRemoveEntry() throws Exception
+    {
+        FileHttpCacheStorage storage = new FileHttpCacheStorage(folder.getRoot()
+                .toPath(), 10);
+        storage.putEntry("a", entry("a"));
+
+        storage.updateEntry("a", existing -> entry("b"));
+        assertEquals("b", storage.getEntry("a")
+                .getFirstHeader("ETag")
+                .getValue());
+
+        storage.removeEntry("a");
+        assertNull(storage.getEntry("a"));
+        assertEquals(0, storage.size());
+    }
+
+}
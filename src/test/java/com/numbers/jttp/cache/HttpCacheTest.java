@@ -0,0 +1,165 @@
+package com.numbers.jttp.cache;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.*;
+import com.numbers.jttp.mapper.jackson.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class HttpCacheTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final TypeReference<Map<String, Object>> JSON_OBJECT
+            = new TypeReference<Map<String, Object>>() {
+    };
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger served = new AtomicInteger();
+    private final AtomicInteger mapped = new AtomicInteger();
+    private final AtomicInteger revalidated = new AtomicInteger();
+    private String url;
+    private Jttp jttp;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/public", exchange -> respond(exchange,
+                "public, max-age=60"));
+        server.createContext("/private", exchange -> respond(exchange,
+                "max-age=60"));
+        server.createContext("/validated", exchange -> {
+            if (ETAG.equals(exchange.getRequestHeaders()
+                    .getFirst("If-None-Match"))) {
+                served.incrementAndGet();
+                revalidated.incrementAndGet();
+                exchange.getResponseHeaders()
+                        .add("ETag", ETAG);
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            respond(exchange, "max-age=0");
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress()
+                .getPort();
+
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setHttpCache(HttpCache.inMemory(100));
+        config.setJsonMapper(new JacksonJsonMapper() {
+            @Override
+            public <T> T readValue(InputStream json, TypeReference<T> type)
+            {
+                mapped.incrementAndGet();
+                return super.readValue(json, type);
+            }
+        });
+        jttp = Jttp.fromConfig(config);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        jttp.close();
+        jttp.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private void respond(HttpExchange exchange, String cacheControl) throws
+            IOException
+    {
+        served.incrementAndGet();
+        exchange.getResponseHeaders()
+                .add("Cache-Control", cacheControl);
+        exchange.getResponseHeaders()
+                .add("ETag", ETAG);
+        exchange.getResponseHeaders()
+                .add("Content-Type", "application/json");
+        byte[] body = "{\"name\":\"value\"}".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private Map<String, Object> get(String path) throws Exception
+    {
+        return jttp.get(url + path)
+                .asObject(JSON_OBJECT)
+                .get(5, TimeUnit.SECONDS)
+                .getResponse();
+    }
+
+    private Map<String, Object> get(String path, String user) throws Exception
+    {
+        return jttp.get(url + path)
+                .basicAuth(user, "secret")
+                .asObject(JSON_OBJECT)
+                .get(5, TimeUnit.SECONDS)
+                .getResponse();
+    }
+
+    @Test
+    public void testCacheHitReturnsMappedObject() throws Exception
+    {
+        Map<String, Object> first = get("/public");
+        Map<String, Object> second = get("/public");
+
+        assertEquals(1, served.get());
+        assertSame(first, second);
+        assertEquals(1, mapped.get());
+    }
+
+    @Test
+    public void testValidatedResponseReturnsMappedObject() throws Exception
+    {
+        Map<String, Object> first = get("/validated");
+        Map<String, Object> second = get("/validated");
+
+        assertEquals(2, served.get());
+        assertEquals(1, revalidated.get());
+        assertSame(first, second);
+        assertEquals(1, mapped.get());
+    }
+
+    @Test
+    public void testAuthorizedResponsesAreNotStoredUnlessPublic() throws
+            Exception
+    {
+        get("/private", "alice");
+        get("/private", "alice");
+
+        assertEquals(2, served.get());
+    }
+
+    @Test
+    public void testMappedObjectsAreNotSharedBetweenCredentials() throws
+            Exception
+    {
+        Map<String, Object> alice = get("/public", "alice");
+        Map<String, Object> bob = get("/public", "bob");
+
+        // the public response is served from the cache to both users
+        assertEquals(1, served.get());
+        assertEquals(alice, bob);
+        assertNotSame(alice, bob);
+        assertEquals(2, mapped.get());
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.numbers.jttp.cache;
+
+import com.numbers.jttp.response.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.apache.http.*;
+import org.apache.http.client.methods.*;
+import org.apache.http.message.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class ObjectCacheTest {
+
+    private static final URI URI_A = URI.create("http://example.com/a");
+
+    private static JsonHttpResponse<String> response(String value)
+    {
+        return JsonHttpResponse.ofSuccess(mock(CloseableHttpResponse.class),
+                value);
+    }
+
+    private static ObjectCache.Key key(ObjectCache cache, String path,
+                                       Header... headers)
+    {
+        return cache.keyOf(URI.create("http://example.com/" + path), Arrays
+                .asList(headers), String.class);
+    }
+
+    @Test
+    public void testHitAfterPut()
+    {
+        ObjectCache cache = new ObjectCache(1, TimeUnit.MINUTES, 10);
+        JsonHttpResponse<String> response = response("a");
+
+        assertNull(cache.get(key(cache, "a")));
+        cache.put(key(cache, "a"), response);
+
+        assertSame(response, cache.get(key(cache, "a")));
+        assertEquals(1, cache.getStats()
+                .getHitCount());
+        assertEquals(1, cache.getStats()
+                .getMissCount());
+    }
+
+    @Test
+    public void testKeyHeadersSeparateEntries()
+    {
+        ObjectCache cache = new ObjectCache(1, TimeUnit.MINUTES, 10);
+        cache.put(key(cache, "a", new BasicHeader("Authorization", "alice")),
+                response("alice"));
+
+        assertNull(cache.get(key(cache, "a", new BasicHeader("Authorization",
+                "bob"))));
+        assertNotNull(cache.get(key(cache, "a", new BasicHeader(
+                "authorization", "alice"), new BasicHeader("X-Trace", "1"))));
+        assertNotEquals(cache.keyOf(URI_A, Collections.emptyList(),
+                String.class), cache.keyOf(URI_A, Collections.emptyList(),
+                Integer.class));
+    }
+
+    @Test
+    public void testExpiredEntriesAreRemoved()
+    {
+        ObjectCache cache = new ObjectCache(0, TimeUnit.MILLISECONDS, 10);
+        List<ObjectCache.RemovalCause> causes = new ArrayList<>();
+        cache.setRemovalListener((key, value, cause) -> causes.add(cause));
+
+        cache.put(key(cache, "a"), response("a"));
+
+        assertNull(cache.get(key(cache, "a")));
+        assertEquals(Arrays.asList(ObjectCache.RemovalCause.EXPIRED), causes);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEvictsUnreferencedEntriesFirst()
+    {
+        ObjectCache cache = new ObjectCache(1, TimeUnit.MINUTES, 2);
+        cache.put(key(cache, "a"), response("a"));
+        cache.put(key(cache, "b"), response("b"));
+        cache.get(key(cache, "a"));
+
+        cache.put(key(cache, "c"), response("c"));
+
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get(key(cache, "a")));
+        assertNull(cache.get(key(cache, "b")));
+        assertEquals(1, cache.getStats()
+                .getEvictionCount());
+    }
+
+    @Test
+    public void testWeigherBoundsTotalWeight()
+    {
+        ObjectCache cache = new ObjectCache(1, TimeUnit.MINUTES, 10);
+        cache.setWeigher(value -> ((String) value).length());
+
+        cache.put(key(cache, "a"), response("aaaaaa"));
+        cache.put(key(cache, "b"), response("bbbbbb"));
+        cache.put(key(cache, "c"), response("ccccccccccc"));
+
+        assertEquals(6, cache.getWeight());
+        assertNull(cache.get(key(cache, "c")));
+    }
+
+}
@@ -0,0 +1,160 @@
+package com.numbers.jttp.compression;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.zip.*;
+import org.apache.commons.io.*;
+import org.apache.http.*;
+import org.apache.http.entity.*;
+import org.apache.http.message.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class ContentDecodingInterceptorTest {
+
+    private static final String BODY;
+
+    static {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 5_000; i++) {
+            body.append("{\"id\":")
+                    .append(i)
+                    .append(",\"name\":\"item\"},");
+        }
+        BODY = body.append("{}]")
+                .toString();
+    }
+
+    private static HttpResponse response(byte[] body, String encoding)
+    {
+        HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1,
+                200, "OK");
+        ByteArrayEntity entity = new ByteArrayEntity(body);
+        entity.setContentEncoding(encoding);
+        response.setEntity(entity);
+        response.addHeader("Content-Encoding", encoding);
+        response.addHeader("Content-Length", String.valueOf(body.length));
+        return response;
+    }
+
+    private static String decode(HttpResponse response) throws Exception
+    {
+        ContentDecodingInterceptor.decode(response);
+        try (InputStream in = response.getEntity()
+                .getContent()) {
+            return IOUtils.toString(in, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static byte[] gzip(String body) throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(String body, boolean nowrap) throws
+            IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflate = new DeflaterOutputStream(out,
+                new Deflater(Deflater.DEFAULT_COMPRESSION, nowrap))) {
+            deflate.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testDecodesGzip() throws Exception
+    {
+        HttpResponse response = response(gzip(BODY), "gzip");
+
+        assertEquals(BODY, decode(response));
+        assertNull(response.getFirstHeader("Content-Encoding"));
+        assertNull(response.getFirstHeader("Content-Length"));
+        assertEquals(-1, response.getEntity()
+                .getContentLength());
+    }
+
+    @Test
+    public void testDecodesZlibAndRawDeflate() throws Exception
+    {
+        assertEquals(BODY, decode(response(deflate(BODY, false), "deflate")));
+        assertEquals(BODY, decode(response(deflate(BODY, true), "deflate")));
+    }
+
+    @Test
+    public void testDecodesStackedEncodingsInReverseOrder() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(deflate(BODY, false));
+        }
+
+        assertEquals(BODY, decode(response(out.toByteArray(),
+                "deflate, gzip")));
+    }
+
+    @Test
+    public void testLeavesIdentityUntouched() throws Exception
+    {
+        HttpResponse response = response(BODY.getBytes(
+                StandardCharsets.UTF_8), "identity");
+
+        assertEquals(BODY, decode(response));
+        assertNotNull(response.getFirstHeader("Content-Length"));
+    }
+
+    @Test(expected = HttpException.class)
+    public void testRejectsUnknownEncoding() throws Exception
+    {
+        ContentDecodingInterceptor.decode(response(new byte[]{1}, "zstd"));
+    }
+
+    @Test(expected = ZipException.class)
+    public void testDetectsCorruptGzipTrailer() throws Exception
+    {
+        byte[] corrupt = gzip(BODY);
+        corrupt[corrupt.length - 5] ^= 1;
+
+        decode(response(corrupt, "gzip"));
+    }
+
+    @Test
+    public void testInflatersAreReturnedToPool() throws Exception
+    {
+        InflaterPool pool = new InflaterPool(2);
+        for (int i = 0; i < 3; i++) {
+            try (InputStream in = new GzipInputStream(new ByteArrayInputStream(
+                    gzip(BODY)), pool)) {
+                assertEquals(BODY, IOUtils.toString(in, StandardCharsets.UTF_8));
+            }
+        }
+
+        assertEquals(1, pool.idle(true));
+        assertEquals(0, pool.idle(false));
+    }
+
+    @Test
+    public void testSupportedEncodings()
+    {
+        List<String> expected = new ArrayList<>(Arrays.asList("gzip",
+                "deflate"));
+        try {
+            Class.forName("org.brotli.dec.BrotliInputStream");
+            expected.add("br");
+        } catch (ClassNotFoundException ex) {
+            // the optional brotli decoder is not on the classpath
+        }
+
+        assertEquals(expected, AcceptEncodingInterceptor.supportedEncodings());
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.numbers.jttp.compression;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.zip.*;
+import org.apache.commons.io.*;
+import org.apache.http.entity.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class GzipCompressingEntityTest {
+
+    private static String body()
+    {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            body.append("{\"id\":")
+                    .append(i)
+                    .append("}");
+        }
+        return body.toString();
+    }
+
+    @Test
+    public void testWritesValidGzip() throws IOException
+    {
+        String body = body();
+        DeflaterPool pool = new DeflaterPool(1);
+        GzipCompressingEntity entity = new GzipCompressingEntity(
+                new StringEntity(body, StandardCharsets.UTF_8), pool);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        entity.writeTo(out);
+        entity.writeTo(new ByteArrayOutputStream());
+
+        assertTrue(out.size() < body.length() / 2);
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(
+                out.toByteArray()))) {
+            assertEquals(body, IOUtils.toString(in, StandardCharsets.UTF_8));
+        }
+        assertEquals("gzip", entity.getContentEncoding()
+                .getValue());
+        assertEquals(-1, entity.getContentLength());
+        assertEquals(1, pool.idle());
+    }
+
+    @Test
+    public void testShouldCompressAboveThreshold()
+    {
+        assertFalse(GzipCompressingEntity.shouldCompress(new ByteArrayEntity(
+                new byte[1024]), 1024));
+        assertTrue(GzipCompressingEntity.shouldCompress(new ByteArrayEntity(
+                new byte[1025]), 1024));
+        assertTrue(GzipCompressingEntity.shouldCompress(new InputStreamEntity(
+                new ByteArrayInputStream(new byte[1])), 1024));
+
+        ByteArrayEntity encoded = new ByteArrayEntity(new byte[2048]);
+        encoded.setContentEncoding("br");
+        assertFalse(GzipCompressingEntity.shouldCompress(encoded, 1024));
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.numbers.jttp.mapper;
+
+import com.numbers.jttp.mapper.jackson.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class JsonMapperTest {
+
+    /**
+     * a mapper relying on the default implementation of readValueIterator
+     */
+    private final JsonMapper fallback = new JsonMapper() {
+        private final JsonMapper jackson = new JacksonJsonMapper();
+
+        @Override
+        public <T> T readValue(InputStream json, Class<T> valueClass)
+        {
+            return jackson.readValue(json, valueClass);
+        }
+
+        @Override
+        public <T, C extends Collection> C readValues(InputStream json,
+                                                      Class<C> collectionClass,
+                                                      Class<T> valueClass)
+        {
+            return jackson.readValues(json, collectionClass, valueClass);
+        }
+
+        @Override
+        public <M extends Map<K, V>, K, V> Map<K, V> readValues(
+                InputStream json, Class<M> mapClass, Class<K> keyClass,
+                Class<V> valueClass)
+        {
+            return jackson.readValues(json, mapClass, keyClass, valueClass);
+        }
+
+        @Override
+        public String writeValue(Object o)
+        {
+            return jackson.writeValue(o);
+        }
+    };
+
+    private static InputStream json(String json)
+    {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testDiscoverPrefersJackson()
+    {
+        assertTrue(JsonMapper.discover()
+                .get() instanceof JacksonJsonMapper);
+    }
+
+    @Test
+    public void testDefaultIteratorSplitsElements()
+    {
+        Iterator<Map> values = fallback.readValueIterator(json(
+                " [ {\"a\":\"x,]}\\\"\"} ,{\"b\":[1,{\"c\":2}]},\n{\"d\":\"é\"} ] "),
+                Map.class);
+
+        assertEquals("x,]}\"", values.next()
+                .get("a"));
+        assertEquals(Arrays.asList(1, Collections.singletonMap("c", 2)),
+                values.next()
+                        .get("b"));
+        assertEquals("é", values.next()
+                .get("d"));
+        assertFalse(values.hasNext());
+    }
+
+    @Test
+    public void testDefaultIteratorMapsScalarsAndEmptyArrays()
+    {
+        Iterator<Integer> values = fallback.readValueIterator(json("[1, 2,3]"),
+                Integer.class);
+        List<Integer> read = new ArrayList<>();
+        values.forEachRemaining(read::add);
+
+        assertEquals(Arrays.asList(1, 2, 3), read);
+        assertFalse(fallback.readValueIterator(json("[ ]"), Integer.class)
+                .hasNext());
+    }
+
+    @Test
+    public void testDefaultIteratorReadsLazily()
+    {
+        StringBuilder array = new StringBuilder("[0");
+        for (int i = 1; i < 100_000; i++) {
+            array.append(',')
+                    .append(i);
+        }
+        AtomicLong read = new AtomicLong();
+        InputStream counting = new FilterInputStream(json(array.append(']')
+                .toString())) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException
+            {
+                int n = super.read(b, off, len);
+                read.addAndGet(Math.max(n, 0));
+                return n;
+            }
+        };
+
+        Iterator<Integer> values = fallback.readValueIterator(counting,
+                Integer.class);
+
+        assertEquals(Integer.valueOf(0), values.next());
+        assertTrue("read " + read.get(), read.get() < array.length() / 10);
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testDefaultIteratorRejectsTruncatedArray()
+    {
+        Iterator<Integer> values = fallback.readValueIterator(json("[1,2"),
+                Integer.class);
+        values.next();
+        values.next();
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.numbers.jttp.mapper.jackson;
+
+import com.numbers.jttp.mapper.*;
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class JacksonJsonMapperTest {
+
+    private final JsonMapper testMapper = new JacksonJsonMapper();
+
+    private static InputStream json(String value)
+    {
+        return new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testReadValue()
+    {
+        Item item = testMapper.readValue(json("{\"id\":3,\"name\":\"x\"}"),
+                Item.class);
+
+        assertEquals(3, item.id);
+        assertEquals("x", item.name);
+    }
+
+    @Test
+    public void testReadValueWithTypeReference()
+    {
+        Map<String, List<Integer>> value = testMapper.readValue(json(
+                "{\"a\":[1,2]}"), new TypeReference<Map<String, List<Integer>>>() {
+        });
+
+        assertEquals(Arrays.asList(1, 2), value.get("a"));
+    }
+
+    @Test
+    public void testReadValues()
+    {
+        List<Item> items = testMapper.readValues(json(
+                "[{\"id\":1},{\"id\":2}]"), ArrayList.class, Item.class);
+
+        assertEquals(2, items.size());
+        assertEquals(2, items.get(1).id);
+    }
+
+    @Test
+    public void testReadValueIterator()
+    {
+        Iterator<Item> items = testMapper.readValueIterator(json(
+                "[{\"id\":1},{\"id\":2}]"), Item.class);
+
+        assertEquals(1, items.next().id);
+        assertEquals(2, items.next().id);
+        assertFalse(items.hasNext());
+    }
+
+    @Test
+    public void testWriteValueToStreamLeavesStreamOpen() throws IOException
+    {
+        Item item = new Item();
+        item.id = 5;
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public void close()
+            {
+                fail("stream must not be closed");
+            }
+        };
+
+        testMapper.writeValue(item, out);
+
+        assertEquals(5, testMapper.readValue(out.toByteArray(), Item.class).id);
+    }
+
+    public static class Item {
+
+        public long id;
+        public String name;
+
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.numbers.jttp.metrics;
+
+import com.numbers.jttp.request.*;
+import org.apache.http.*;
+import org.apache.http.message.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmptyHistogram()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getValueAtPercentile(99), 0);
+        assertEquals(0, histogram.getMean(), 0);
+    }
+
+    @Test
+    public void testPercentilesWithinPrecision()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000_000, histogram.getMax());
+        assertEquals(5_000_500, histogram.getMean(), 1);
+        assertEquals(5_000_000, histogram.getValueAtPercentile(50), 5_000_000
+                * 0.04);
+        assertEquals(9_900_000, histogram.getValueAtPercentile(99), 9_900_000
+                * 0.04);
+        assertEquals(10_000_000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testBucketBoundsContainValue()
+    {
+        long[] values = {0, 1, 31, 32, 33, 1_000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.indexOf(value);
+            assertTrue(value <= LatencyHistogram.upperBoundOf(index));
+            assertTrue(index == 0 || value > LatencyHistogram.upperBoundOf(
+                    index - 1));
+        }
+    }
+
+    @Test
+    public void testListenerTagsByHostAndMethod()
+    {
+        HistogramMetricsListener listener = new HistogramMetricsListener();
+        RequestTimer timer = RequestTimer.start(listener, HttpRequestType.GET);
+        timer.host("example.com");
+        timer.transferred(10, 20);
+        timer.complete(new BasicHttpResponse(HttpVersion.HTTP_1_1, 204,
+                "No Content"));
+
+        assertEquals(1, listener.getHistogram("total", "example.com",
+                HttpRequestType.GET)
+                .getCount());
+        assertEquals(Long.valueOf(1), listener.getCounters()
+                .get("requests{host=example.com,method=GET,status=2xx}"));
+        assertEquals(Long.valueOf(20), listener.getCounters()
+                .get("response_bytes{host=example.com,method=GET}"));
+    }
+
+}
@@ -0,0 +1,113 @@
+package com.numbers.jttp.pagination;
+
+import com.numbers.jttp.response.*;
+import java.net.*;
+import java.util.*;
+import org.apache.http.*;
+import org.apache.http.client.methods.*;
+import org.apache.http.message.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class PaginationTest {
+
+    private static final URI CURRENT = URI.create(
+            "https://api.example.com/users?limit=10&cursor=a");
+
+    /**
+     * a page of users carrying the cursor of the next page
+     */
+    public static class UserPage {
+
+        private final List<String> users;
+        private final String next;
+
+        public UserPage(List<String> users, String next)
+        {
+            this.users = users;
+            this.next = next;
+        }
+
+        public List<String> getUsers()
+        {
+            return users;
+        }
+
+        public String getNext()
+        {
+            return next;
+        }
+
+    }
+
+    private static <T> JsonHttpResponse<T> response(T value, String... links)
+    {
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(
+                HttpVersion.HTTP_1_1, 200, "OK"));
+        when(response.getHeaders("Link")).thenReturn(Arrays.stream(links)
+                .map(link -> new BasicHeader("Link", link))
+                .toArray(Header[]::new));
+        return JsonHttpResponse.ofSuccess(response, value);
+    }
+
+    @Test
+    public void testNextLinkIsFoundAmongRelations() throws Exception
+    {
+        URI next = Pagination.nextLink(CURRENT, response(null,
+                "<https://api.example.com/users?page=1>; rel=\"first\", "
+                + "<https://api.example.com/users?page=3>; rel=\"next last\""));
+
+        assertEquals(URI.create("https://api.example.com/users?page=3"), next);
+    }
+
+    @Test
+    public void testNextLinkIsResolvedAndSpreadOverHeaders() throws Exception
+    {
+        URI next = Pagination.nextLink(CURRENT, response(null,
+                "</users?page=1>; rel=prev",
+                "</users?page=3>; title=\"more\"; REL=next"));
+
+        assertEquals(URI.create("https://api.example.com/users?page=3"), next);
+    }
+
+    @Test
+    public void testNoNextLinkOnLastPage() throws Exception
+    {
+        assertNull(Pagination.nextLink(CURRENT, response(null,
+                "</users?page=1>; rel=\"first\"")));
+        assertNull(Pagination.nextLink(CURRENT, response(null)));
+    }
+
+    @Test
+    public void testCursorReplacesQueryParameter() throws Exception
+    {
+        Pagination<UserPage, String> pagination = Pagination.cursor(
+                UserPage.class, UserPage::getUsers, UserPage::getNext, "cursor");
+
+        UserPage page = new UserPage(Arrays.asList("alice", "bob"), "b c");
+        URI next = pagination.next(CURRENT, response(page));
+
+        assertEquals(URI.create(
+                "https://api.example.com/users?limit=10&cursor=b+c"), next);
+        assertEquals(Arrays.asList("alice", "bob"), pagination.items(page));
+    }
+
+    @Test
+    public void testEmptyCursorEndsPagination() throws Exception
+    {
+        Pagination<UserPage, String> pagination = Pagination.cursor(
+                UserPage.class, UserPage::getUsers, UserPage::getNext, "cursor");
+
+        assertNull(pagination.next(CURRENT, response(new UserPage(null, ""))));
+        assertNull(pagination.next(CURRENT, response(new UserPage(null, null))));
+        assertTrue(pagination.items(new UserPage(null, null))
+                .isEmpty());
+    }
+
+}
@@ -1,17 +1,301 @@
 package com.numbers.jttp.request;
 
-import org.junit.Test;
+import com.numbers.jttp.*;
+import com.numbers.jttp.request.stream.*;
+import com.numbers.jttp.request.supplier.*;
+import com.numbers.jttp.resilience.*;
+import com.numbers.jttp.response.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import org.apache.http.*;
+import org.apache.http.client.methods.*;
+import org.apache.http.entity.*;
+import org.apache.http.impl.client.*;
+import org.apache.http.message.*;
+import org.apache.http.protocol.*;
+import org.apache.http.util.*;
+import org.junit.*;
+import org.junit.rules.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
 
 /**
  *
  * @author Numbers
  */
 public class HttpBodyRequestStreamImplTest {
+
+    private static final byte[] CONTENT = "request body".getBytes(
+            StandardCharsets.UTF_8);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private CloseableHttpClient client;
+    private HttpEntity sent;
+    private int status = 200;
     
     public HttpBodyRequestStreamImplTest()
     {
     }
 
+    @Before
+    public void setUp() throws Exception
+    {
+        client = mock(CloseableHttpClient.class);
+        when(client.execute(any(HttpUriRequest.class), any(HttpContext.class)))
+                .thenAnswer(invocation -> {
+                    sent = ((HttpEntityEnclosingRequest) invocation
+                            .getArguments()[0]).getEntity();
+                    CloseableHttpResponse response = mock(
+                            CloseableHttpResponse.class);
+                    when(response.getStatusLine()).thenReturn(
+                            new BasicStatusLine(HttpVersion.HTTP_1_1, status, ""));
+                    when(response.getEntity()).thenReturn(new StringEntity(""));
+                    return response;
+                });
+    }
+
+    private HttpBodyRequestStream post()
+    {
+        return request(HttpRequestType.POST);
+    }
+
+    private HttpBodyRequestStream put()
+    {
+        return request(HttpRequestType.PUT);
+    }
+
+    private HttpBodyRequestStream request(HttpRequestType type)
+    {
+        return HttpBodyRequestStream.of(client, type,
+                RequestSupplier.enclosingRequestSupplier(),
+                "http://localhost/upload", new Jttp.JTTPConfig());
+    }
+
+    private static void send(HttpBodyRequestStream request) throws Exception
+    {
+        request.asString()
+                .get(5, TimeUnit.SECONDS);
+    }
+
+    private File file() throws IOException
+    {
+        File file = folder.newFile();
+        Files.write(file.toPath(), CONTENT);
+        return file;
+    }
+
+    private void assertSent(String type, long length,
+                            boolean chunked) throws IOException
+    {
+        assertEquals(type, sent.getClass()
+                .getSimpleName());
+        assertEquals(length, sent.getContentLength());
+        assertEquals(chunked, sent.isChunked());
+        assertArrayEquals(CONTENT, EntityUtils.toByteArray(sent));
+    }
+
+    @Test
+    public void testBody_File() throws Exception
+    {
+        send(post().body(file()));
+
+        assertSent("FileEntity", CONTENT.length, false);
+    }
+
+    @Test
+    public void testBody_Path() throws Exception
+    {
+        send(post().body(file().toPath()));
+
+        assertSent("FileEntity", CONTENT.length, false);
+    }
+
+    @Test
+    public void testBody_InputStream() throws Exception
+    {
+        send(post().body(new ByteArrayInputStream(CONTENT)));
+
+        assertSent("InputStreamEntity", -1, true);
+    }
+
+    @Test
+    public void testBody_InputStream_Length() throws Exception
+    {
+        send(post().body(new ByteArrayInputStream(CONTENT), CONTENT.length));
+
+        assertSent("InputStreamEntity", CONTENT.length, false);
+    }
+
+    @Test
+    public void testBody_ByteBuffer() throws Exception
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(CONTENT.length + 4);
+        buffer.put(new byte[2])
+                .put(CONTENT)
+                .flip()
+                .position(2);
+
+        send(post().body(buffer));
+
+        // only the remaining bytes of the buffer are sent
+        assertSent("ByteBufferEntity", CONTENT.length, false);
+    }
+
+    @Test
+    public void testBody_ByteArray() throws Exception
+    {
+        send(post().body(CONTENT));
+
+        assertSent("ByteArrayEntity", CONTENT.length, false);
+    }
+
+    @Test
+    public void testMoreThanOneBodyIsRejected() throws Exception
+    {
+        HttpBodyRequestStream request = post().body(CONTENT)
+                .body(new ByteArrayInputStream(CONTENT));
+
+        try {
+            send(request);
+            fail("two bodies can not be sent");
+        } catch (IllegalStateException ex) {
+            assertEquals("only a single body can be sent, use parts instead",
+                    ex.getMessage());
+        }
+        verify(client, never()).execute(any(HttpUriRequest.class),
+                any(HttpContext.class));
+    }
+
+    private String sentMultipart() throws IOException
+    {
+        String contentType = sent.getContentType()
+                .getValue();
+        assertTrue(contentType, contentType.startsWith(
+                "multipart/form-data; boundary="));
+        String boundary = contentType.substring(contentType.indexOf('=') + 1);
+
+        // written as it would be sent, as unbuffered parts have no content
+        ByteArrayOutputStream written = new ByteArrayOutputStream();
+        sent.writeTo(written);
+        String body = new String(written.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(body.startsWith("--" + boundary + "\r\n"));
+        assertTrue(body.endsWith("--" + boundary + "--\r\n"));
+        return body;
+    }
+
+    @Test
+    public void testParts() throws Exception
+    {
+        send(post().part("name", "value")
+                .part("file", file())
+                .part("path", file().toPath()));
+
+        String body = sentMultipart();
+        assertTrue(body.contains(
+                "Content-Disposition: form-data; name=\"name\"\r\n"));
+        assertTrue(body.contains("\r\n\r\nvalue\r\n"));
+        assertTrue(body.contains("form-data; name=\"file\"; filename="));
+        assertTrue(body.contains("form-data; name=\"path\"; filename="));
+        assertTrue(body.contains("\r\n\r\nrequest body\r\n"));
+    }
+
+    @Test
+    public void testFileHeadersArePartsWithFileName() throws Exception
+    {
+        send(post().header("file", file(), "upload.txt")
+                .header("bytes", CONTENT, "bytes.bin")
+                .header("stream", new ByteArrayInputStream(CONTENT),
+                        "stream.bin"));
+
+        String body = sentMultipart();
+        assertTrue(body.contains(
+                "form-data; name=\"file\"; filename=\"upload.txt\""));
+        assertTrue(body.contains(
+                "form-data; name=\"bytes\"; filename=\"bytes.bin\""));
+        assertTrue(body.contains(
+                "form-data; name=\"stream\"; filename=\"stream.bin\""));
+    }
+
+    @Test
+    public void testStreamPartIsSentUnbuffered() throws Exception
+    {
+        InputStream stream = spy(new ByteArrayInputStream(CONTENT));
+
+        send(post().part("stream", stream, "stream.bin"));
+
+        // the stream is only read while the body is written
+        verify(stream, never()).read();
+        verify(stream, never()).read(any(byte[].class));
+        verify(stream, never()).read(any(byte[].class), anyInt(), anyInt());
+        assertEquals(-1, sent.getContentLength());
+        assertTrue(sent.isChunked());
+        assertFalse(sent.isRepeatable());
+
+        assertTrue(sentMultipart().contains("\r\n\r\nrequest body\r\n"));
+    }
+
+    @Test
+    public void testBodyCanNotBeCombinedWithParts() throws Exception
+    {
+        HttpBodyRequestStream request = post().body(CONTENT)
+                .part("name", "value");
+
+        try {
+            send(request);
+            fail("a body can not be sent with parts");
+        } catch (IllegalStateException ex) {
+            assertEquals("a body can not be combined with multipart parts",
+                    ex.getMessage());
+        }
+        verify(client, never()).execute(any(HttpUriRequest.class),
+                any(HttpContext.class));
+    }
+
+    private static RetryPolicy retryPolicy()
+    {
+        RetryPolicy policy = new RetryPolicy(3);
+        policy.setBackoff(1, 1, TimeUnit.MILLISECONDS);
+        policy.setBudget(null);
+        return policy;
+    }
+
+    private int sendRetrying(HttpBodyRequestStream request) throws Exception
+    {
+        status = 503;
+        JsonHttpResponse<String> response = request.retry(retryPolicy())
+                .asString()
+                .get(5, TimeUnit.SECONDS);
+        assertEquals(503, response.getStatusCode());
+        return mockingDetails(client).getInvocations()
+                .size();
+    }
+
+    @Test
+    public void testRepeatableBodyIsRetried() throws Exception
+    {
+        assertEquals(3, sendRetrying(put().body(CONTENT)));
+    }
+
+    @Test
+    public void testStreamedBodyIsNotRetried() throws Exception
+    {
+        assertEquals(1, sendRetrying(put().body(new ByteArrayInputStream(
+                CONTENT))));
+    }
+
+    @Test
+    public void testCompressedStreamedBodyIsNotRetried() throws Exception
+    {
+        assertEquals(1, sendRetrying(put().body(new ByteArrayInputStream(
+                CONTENT))
+                .compress()));
+    }
+
     /**
      * Test of body method, of class HttpBodyRequestStreamImpl.
      */
@@ -1,6 +1,13 @@
 package com.numbers.jttp.request;
 
+import com.numbers.jttp.*;
+import com.numbers.jttp.request.stream.*;
+import com.numbers.jttp.request.supplier.*;
+import java.io.*;
+import java.nio.file.*;
+import org.apache.http.impl.client.*;
 import org.junit.Test;
+import static org.mockito.Mockito.*;
 
 /**
  *
@@ -12,6 +19,13 @@ public class HttpRequestStreamImplTest {
     {
     }
 
+    private static HttpRequestStream get()
+    {
+        return HttpRequestStream.of(mock(CloseableHttpClient.class),
+                HttpRequestType.GET, RequestSupplier.baseRequestSuppulier(),
+                "http://localhost/download", new Jttp.JTTPConfig());
+    }
+
     /**
      * Test of async method, of class HttpRequestStreamImpl.
      */
@@ -79,33 +93,38 @@ public class HttpRequestStreamImplTest {
     /**
      * Test of header method, of class HttpRequestStreamImpl.
      */
-    @Test
+    @Test(expected = UnsupportedOperationException.class)
     public void testHeader_3args_1()
     {
+        get().header("file", new File("upload.txt"), "upload.txt");
     }
 
     /**
      * Test of header method, of class HttpRequestStreamImpl.
      */
-    @Test
+    @Test(expected = UnsupportedOperationException.class)
     public void testHeader_3args_2()
     {
+        get().header("file", Paths.get("upload.txt"), "upload.txt");
     }
 
     /**
      * Test of header method, of class HttpRequestStreamImpl.
      */
-    @Test
+    @Test(expected = UnsupportedOperationException.class)
     public void testHeader_3args_3()
     {
+        get().header("file", new ByteArrayInputStream(new byte[1]),
+                "upload.txt");
     }
 
     /**
      * Test of header method, of class HttpRequestStreamImpl.
      */
-    @Test
+    @Test(expected = UnsupportedOperationException.class)
     public void testHeader_3args_4()
     {
+        get().header("file", new byte[1], "upload.txt");
     }
 
     /**
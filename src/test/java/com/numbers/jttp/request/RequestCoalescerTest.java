@@ -0,0 +1,100 @@
+package com.numbers.jttp.request;
+
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.apache.http.*;
+import org.apache.http.message.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class RequestCoalescerTest {
+
+    private static final URI URI_A = URI.create("http://example.com/a");
+
+    @Test
+    public void testIdenticalRequestsShareExecution() throws Exception
+    {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger executions = new AtomicInteger();
+
+        CompletableFuture<String> first = coalescer.coalesce(
+                HttpRequestType.GET, URI_A, Collections.emptyList(),
+                String.class, () -> {
+                    executions.incrementAndGet();
+                    return upstream;
+                });
+        CompletableFuture<String> second = coalescer.coalesce(
+                HttpRequestType.GET, URI_A, Collections.emptyList(),
+                String.class, () -> {
+                    executions.incrementAndGet();
+                    return upstream;
+                });
+        upstream.complete("body");
+
+        assertEquals("body", first.get());
+        assertEquals("body", second.get());
+        assertEquals(1, executions.get());
+        assertEquals(1, coalescer.getCoalescedCount());
+        assertEquals(0, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void testDifferentKeyHeadersExecuteSeparately()
+    {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger executions = new AtomicInteger();
+        List<Header> alice = Arrays.asList(new BasicHeader("Authorization",
+                "alice"));
+        List<Header> bob = Arrays.asList(new BasicHeader("Authorization",
+                "bob"));
+
+        coalescer.coalesce(HttpRequestType.GET, URI_A, alice, String.class,
+                () -> {
+                    executions.incrementAndGet();
+                    return new CompletableFuture<>();
+                });
+        coalescer.coalesce(HttpRequestType.GET, URI_A, bob, String.class,
+                () -> {
+                    executions.incrementAndGet();
+                    return new CompletableFuture<>();
+                });
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    public void testCompletedExecutionIsForgotten() throws Exception
+    {
+        RequestCoalescer coalescer = new RequestCoalescer();
+        AtomicInteger executions = new AtomicInteger();
+
+        for (int i = 0; i < 2; i++) {
+            coalescer.coalesce(HttpRequestType.GET, URI_A, Collections
+                    .emptyList(), String.class, () -> CompletableFuture
+                    .completedFuture("call " + executions.incrementAndGet()))
+                    .get();
+        }
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test(expected = ExecutionException.class)
+    public void testFailureIsShared() throws Exception
+    {
+        RequestCoalescer coalescer = new RequestCoalescer();
+
+        coalescer.coalesce(HttpRequestType.GET, URI_A, Collections.emptyList(),
+                String.class, () -> {
+                    throw new IllegalStateException("unreachable");
+                })
+                .get();
+    }
+
+}
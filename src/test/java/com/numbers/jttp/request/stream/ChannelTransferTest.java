@@ -0,0 +1,69 @@
+package com.numbers.jttp.request.stream;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class ChannelTransferTest {
+
+    @Test
+    public void testTransferCopiesAllBytes() throws IOException
+    {
+        byte[] body = new byte[200_000];
+        new Random(7).nextBytes(body);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long copied = ChannelTransfer.transfer(new ByteArrayInputStream(body),
+                Channels.newChannel(out));
+
+        assertEquals(body.length, copied);
+        assertArrayEquals(body, out.toByteArray());
+    }
+
+    @Test
+    public void testTransferOfEmptyStream() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long copied = ChannelTransfer.transfer(new ByteArrayInputStream(
+                new byte[0]), Channels.newChannel(out));
+
+        assertEquals(0, copied);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    public void testTransferToFile() throws IOException
+    {
+        byte[] body = new byte[200_000];
+        new Random(7).nextBytes(body);
+        Path path = Files.createTempFile("transfer", ".bin");
+        try {
+            long copied;
+            try (FileChannel file = FileChannel.open(path,
+                    StandardOpenOption.WRITE)) {
+                file.write(ByteBuffer.wrap(new byte[]{1, 2}));
+                copied = ChannelTransfer.transfer(new ByteArrayInputStream(
+                        body), file);
+                assertEquals(body.length + 2, file.position());
+            }
+
+            assertEquals(body.length, copied);
+            byte[] written = Files.readAllBytes(path);
+            assertEquals(body.length + 2, written.length);
+            assertArrayEquals(body, Arrays.copyOfRange(written, 2,
+                    written.length));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+}
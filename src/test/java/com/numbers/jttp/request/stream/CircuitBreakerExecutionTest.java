@@ -0,0 +1,135 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.jackson.*;
+import com.numbers.jttp.resilience.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class CircuitBreakerExecutionTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final AtomicInteger served = new AtomicInteger();
+    private volatile int status = 500;
+    private final CircuitBreakers breakers = new CircuitBreakers();
+    private Jttp.JTTPConfig config;
+    private String host;
+    private String url;
+    private Jttp jttp;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            served.incrementAndGet();
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        host = "127.0.0.1:" + server.getAddress()
+                .getPort();
+        url = "http://" + host + "/";
+
+        breakers.setMinimumCalls(2);
+        breakers.setOpenDuration(1, TimeUnit.MINUTES);
+        config = new Jttp.JTTPConfig();
+        config.setJsonMapper(new JacksonJsonMapper());
+        config.setCircuitBreakers(breakers);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        jttp.close();
+        jttp.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private void openCircuit() throws Exception
+    {
+        for (int i = 0; i < 2; i++) {
+            assertEquals(500, jttp.get(url)
+                    .asString()
+                    .get(5, TimeUnit.SECONDS)
+                    .getStatusCode());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breakers.forHost(host)
+                .getState());
+    }
+
+    @Test
+    public void testOpenCircuitIsNotSent() throws Exception
+    {
+        jttp = Jttp.fromConfig(config);
+        openCircuit();
+
+        try {
+            jttp.get(url)
+                    .asString();
+            fail("the circuit is open");
+        } catch (CircuitBreakerOpenException ex) {
+            assertEquals(host, ex.getHost());
+        }
+        assertEquals(2, served.get());
+        assertEquals(1, breakers.forHost(host)
+                .getRejectedCount());
+    }
+
+    @Test
+    public void testOpenCircuitIsNotSentNonBlocking() throws Exception
+    {
+        config.setDefaultAsync(true);
+        config.setNonBlocking(true);
+        jttp = Jttp.fromConfig(config);
+        openCircuit();
+
+        try {
+            jttp.get(url)
+                    .asString()
+                    .get(5, TimeUnit.SECONDS);
+            fail("the circuit is open");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof CircuitBreakerOpenException);
+        }
+        assertEquals(2, served.get());
+    }
+
+    @Test
+    public void testTrialRequestClosesCircuit() throws Exception
+    {
+        breakers.setOpenDuration(100, TimeUnit.MILLISECONDS);
+        breakers.setHalfOpenCalls(1);
+        jttp = Jttp.fromConfig(config);
+        openCircuit();
+
+        status = 200;
+        Thread.sleep(200);
+
+        assertEquals(200, jttp.get(url)
+                .asString()
+                .get(5, TimeUnit.SECONDS)
+                .getStatusCode());
+        assertEquals(3, served.get());
+        assertEquals(CircuitBreaker.State.CLOSED, breakers.forHost(host)
+                .getState());
+    }
+
+}
@@ -0,0 +1,135 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.response.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class CoalescedExecutionTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private ExecutorService callers;
+    private final AtomicInteger served = new AtomicInteger();
+    private final CountDownLatch received = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private Jttp.JTTPConfig config;
+    private String url;
+    private Jttp jttp;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        serverThreads = Executors.newCachedThreadPool();
+        callers = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/value", exchange -> {
+            awaitRelease();
+            byte[] body = "value".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/fail", exchange -> {
+            awaitRelease();
+            // closed without a response
+            exchange.close();
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress()
+                .getPort();
+
+        config = new Jttp.JTTPConfig();
+        config.setCoalesceRequests(true);
+        jttp = Jttp.fromConfig(config);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        release.countDown();
+        jttp.close();
+        jttp.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+        callers.shutdownNow();
+    }
+
+    private void awaitRelease()
+    {
+        served.incrementAndGet();
+        received.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread()
+                    .interrupt();
+        }
+    }
+
+    /**
+     * sends two identical synchronous requests, the second while the first
+     * is in flight
+     */
+    private List<Future<JsonHttpResponse<String>>> sendTwice(String path)
+            throws Exception
+    {
+        List<Future<JsonHttpResponse<String>>> futures = new ArrayList<>();
+        futures.add(callers.submit(() -> jttp.get(url + path)
+                .asString()
+                .join()));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        futures.add(callers.submit(() -> jttp.get(url + path)
+                .asString()
+                .join()));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (config.getRequestCoalescer()
+                .getCoalescedCount() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(1, config.getRequestCoalescer()
+                .getCoalescedCount());
+        release.countDown();
+        return futures;
+    }
+
+    @Test
+    public void testIdenticalRequestsShareExecution() throws Exception
+    {
+        for (Future<JsonHttpResponse<String>> future : sendTwice("/value")) {
+            assertEquals("value", future.get(5, TimeUnit.SECONDS)
+                    .getResponse());
+        }
+        assertEquals(1, served.get());
+    }
+
+    @Test
+    public void testSharedFailureIsThrownToSyncCallers() throws Exception
+    {
+        for (Future<JsonHttpResponse<String>> future : sendTwice("/fail")) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("the failure should be thrown");
+            } catch (ExecutionException ex) {
+                // thrown by asString itself, not by joining a failed future
+                assertFalse(ex.getCause() instanceof CompletionException);
+                assertTrue(ex.getCause() instanceof RuntimeException);
+            }
+        }
+        assertEquals(1, served.get());
+    }
+
+}
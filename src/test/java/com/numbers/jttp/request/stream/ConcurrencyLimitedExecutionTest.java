@@ -0,0 +1,215 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.jackson.*;
+import com.numbers.jttp.resilience.*;
+import com.numbers.jttp.response.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class ConcurrencyLimitedExecutionTest {
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger slowServed = new AtomicInteger();
+    private final AtomicInteger served = new AtomicInteger();
+    private final ConcurrencyLimiters limiters = new ConcurrencyLimiters();
+    private Jttp.JTTPConfig config;
+    private String host;
+    private String url;
+    private Jttp jttp;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            served.incrementAndGet();
+            respond(exchange);
+        });
+        server.createContext("/slow", exchange -> {
+            // only the first request waits until released
+            if (slowServed.getAndIncrement() == 0) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread()
+                            .interrupt();
+                }
+            }
+            respond(exchange);
+        });
+        server.start();
+        host = "127.0.0.1:" + server.getAddress()
+                .getPort();
+        url = "http://" + host;
+
+        limiters.setLimits(1, 1, 1);
+        config = new Jttp.JTTPConfig();
+        config.setJsonMapper(new JacksonJsonMapper());
+        config.setConcurrencyLimiters(limiters);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        release.countDown();
+        jttp.close();
+        jttp.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException
+    {
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    /**
+     * waits until no permit of the limiter is taken
+     *
+     * @param limiter the limiter to wait for
+     */
+    private static void awaitReleased(ConcurrencyLimiter limiter) throws
+            InterruptedException
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (limiter.getInFlight() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    public void testCompletedRequestReleasesPermit() throws Exception
+    {
+        jttp = Jttp.fromConfig(config);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, jttp.get(url)
+                    .asString()
+                    .get(5, TimeUnit.SECONDS)
+                    .getStatusCode());
+            assertEquals(0, limiters.forHost(host)
+                    .getInFlight());
+        }
+        assertEquals(3, served.get());
+    }
+
+    @Test
+    public void testFailedRequestReleasesPermit() throws Exception
+    {
+        jttp = Jttp.fromConfig(config);
+        int port;
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress
+                .getByName("127.0.0.1"))) {
+            port = socket.getLocalPort();
+        }
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                jttp.get("http://127.0.0.1:" + port)
+                        .asString();
+                fail("nothing listens on the port");
+            } catch (RuntimeException ex) {
+                assertTrue(ex.getCause() instanceof IOException);
+            }
+        }
+        assertEquals(0, limiters.forHost("127.0.0.1:" + port)
+                .getInFlight());
+    }
+
+    @Test
+    public void testCancelledWaitReleasesPermit() throws Exception
+    {
+        config.setDefaultAsync(true);
+        config.setNonBlocking(true);
+        jttp = Jttp.fromConfig(config);
+        ConcurrencyLimiter limiter = limiters.forHost(host);
+
+        CompletableFuture<JsonHttpResponse<String>> first = jttp.get(url
+                + "/slow")
+                .asString();
+        CompletableFuture<JsonHttpResponse<String>> waiting = jttp.get(url)
+                .asString();
+        assertEquals(1, limiter.getInFlight());
+        assertEquals(1, limiter.getQueued());
+
+        waiting.cancel(true);
+        release.countDown();
+
+        assertEquals(200, first.get(5, TimeUnit.SECONDS)
+                .getStatusCode());
+        awaitReleased(limiter);
+        assertEquals(0, served.get());
+    }
+
+    @Test
+    public void testFullQueueRejectsRequest() throws Exception
+    {
+        limiters.setQueue(0, 1, TimeUnit.SECONDS);
+        config.setDefaultAsync(true);
+        jttp = Jttp.fromConfig(config);
+        ConcurrencyLimiter limiter = limiters.forHost(host);
+
+        CompletableFuture<JsonHttpResponse<String>> first = jttp.get(url
+                + "/slow")
+                .asString();
+        while (slowServed.get() == 0) {
+            Thread.sleep(10);
+        }
+        try {
+            jttp.get(url)
+                    .asString()
+                    .get(5, TimeUnit.SECONDS);
+            fail("the limit is taken and nothing may wait");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof ConcurrencyLimitExceededException);
+        }
+        release.countDown();
+
+        assertEquals(200, first.get(5, TimeUnit.SECONDS)
+                .getStatusCode());
+        awaitReleased(limiter);
+        assertEquals(0, served.get());
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testAbortedHedgeReleasesPermit() throws Exception
+    {
+        limiters.setLimits(2, 2, 2);
+        config.setHedgingPolicy(HedgingPolicy.fixed(50,
+                TimeUnit.MILLISECONDS));
+        jttp = Jttp.fromConfig(config);
+        ConcurrencyLimiter limiter = limiters.forHost(host);
+
+        // the hedge answers while the original still waits for the server
+        assertEquals(200, jttp.get(url + "/slow")
+                .asString()
+                .get(5, TimeUnit.SECONDS)
+                .getStatusCode());
+
+        assertEquals(2, slowServed.get());
+        awaitReleased(limiter);
+    }
+
+}
@@ -0,0 +1,97 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.jackson.*;
+import com.numbers.jttp.response.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class DownloadTest {
+
+    private static final byte[] BODY = new byte[200_000];
+
+    static {
+        new Random(7).nextBytes(BODY);
+    }
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private String url;
+    private Jttp jttp;
+    private Path path;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/download", exchange -> {
+            // chunked, the length is only known once the body is read
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress()
+                .getPort();
+
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setJsonMapper(new JacksonJsonMapper());
+        jttp = Jttp.fromConfig(config);
+        path = Files.createTempFile("download", ".bin");
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        Files.deleteIfExists(path);
+        jttp.close();
+        jttp.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void testFileReportsWrittenBytes() throws Exception
+    {
+        // a longer existing file is replaced
+        Files.write(path, new byte[BODY.length + 100]);
+
+        DownloadedFile file = jttp.get(url + "/download")
+                .asFile(path)
+                .get(5, TimeUnit.SECONDS)
+                .getResponse();
+
+        assertEquals(path, file.getPath());
+        assertEquals(BODY.length, file.getLength());
+        assertArrayEquals(BODY, Files.readAllBytes(path));
+    }
+
+    @Test
+    public void testChannelReportsWrittenBytes() throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long written = jttp.get(url + "/download")
+                .asChannel(Channels.newChannel(out))
+                .get(5, TimeUnit.SECONDS)
+                .getResponse();
+
+        assertEquals(BODY.length, written);
+        assertArrayEquals(BODY, out.toByteArray());
+    }
+
+}
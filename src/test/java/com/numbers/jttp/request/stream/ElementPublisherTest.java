@@ -0,0 +1,153 @@
+package com.numbers.jttp.request.stream;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.stream.*;
+import org.junit.*;
+import org.reactivestreams.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class ElementPublisherTest {
+
+    private ExecutorService executor;
+    private final AtomicInteger read = new AtomicInteger();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    @Before
+    public void setUp()
+    {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    private ElementPublisher<Integer> publisher(int elements)
+    {
+        return new ElementPublisher<>(() -> CompletableFuture.completedFuture(
+                IntStream.range(0, elements)
+                        .boxed()
+                        .peek(element -> read.incrementAndGet())
+                        .onClose(() -> closed.set(true))), executor);
+    }
+
+    /**
+     * a subscriber collecting the signals it receives
+     */
+    private static final class CollectingSubscriber implements Subscriber<Integer> {
+
+        private final List<Integer> values = new CopyOnWriteArrayList<>();
+        private final CountDownLatch terminated = new CountDownLatch(1);
+        private volatile Subscription subscription;
+        private volatile Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription)
+        {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Integer value)
+        {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable error)
+        {
+            this.error = error;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete()
+        {
+            terminated.countDown();
+        }
+
+    }
+
+    /**
+     * waits until the executor ran the work submitted so far
+     */
+    private void settle() throws Exception
+    {
+        executor.submit(() -> {
+        })
+                .get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testElementsAreReadOnDemand() throws Exception
+    {
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher(100).subscribe(subscriber);
+
+        settle();
+        assertEquals(0, read.get());
+
+        subscriber.subscription.request(3);
+        settle();
+        assertEquals(Arrays.asList(0, 1, 2), subscriber.values);
+        assertEquals(3, read.get());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertEquals(100, subscriber.values.size());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void testCancelClosesStream() throws Exception
+    {
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher(100).subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        settle();
+        subscriber.subscription.cancel();
+        settle();
+
+        assertTrue(closed.get());
+        assertEquals(1, subscriber.terminated.getCount());
+        assertEquals(2, subscriber.values.size());
+    }
+
+    @Test
+    public void testFailedRequestIsSignalled() throws Exception
+    {
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        CompletableFuture<Stream<Integer>> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new CompletionException(
+                new IllegalStateException("response contains failure code")));
+        new ElementPublisher<>(() -> failed, executor).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testNonPositiveRequestIsSignalled() throws Exception
+    {
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        publisher(1).subscribe(subscriber);
+
+        subscriber.subscription.request(-1);
+
+        assertTrue(subscriber.terminated.await(1, TimeUnit.SECONDS));
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+}
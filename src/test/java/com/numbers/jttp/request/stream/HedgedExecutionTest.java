@@ -0,0 +1,179 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.resilience.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.apache.http.*;
+import org.apache.http.client.methods.*;
+import org.apache.http.client.protocol.*;
+import org.apache.http.message.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class HedgedExecutionTest {
+
+    private ScheduledExecutorService scheduler;
+    private final List<HttpClientContext> aborted = new CopyOnWriteArrayList<>();
+    private final AtomicReference<HttpClientContext> adopted = new AtomicReference<>();
+
+    @Before
+    public void setUp()
+    {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+    }
+
+    private static CloseableHttpResponse response(int status)
+    {
+        return new NonBlockingHttpResponse(new BasicHttpResponse(
+                new BasicStatusLine(HttpVersion.HTTP_1_1, status, null), null,
+                Locale.ROOT));
+    }
+
+    private HedgedExecution execution(HedgingPolicy policy,
+                                      CompletableFuture<CloseableHttpResponse> hedged)
+    {
+        return new HedgedExecution(policy, scheduler, "example.com",
+                HttpClientContext::create, context -> hedged,
+                (from, to) -> adopted.set(from), aborted::add);
+    }
+
+    @Test
+    public void testSlowOriginalIsHedgedAndAborted() throws Exception
+    {
+        CompletableFuture<CloseableHttpResponse> original = new CompletableFuture<>();
+        CompletableFuture<CloseableHttpResponse> hedged = new CompletableFuture<>();
+        HttpClientContext context = HttpClientContext.create();
+        CloseableHttpResponse fast = response(200);
+
+        CompletableFuture<CloseableHttpResponse> result = execution(
+                HedgingPolicy.fixed(10, TimeUnit.MILLISECONDS), hedged)
+                .execute(context, ctx -> original);
+        scheduler.schedule(() -> hedged.complete(fast), 50,
+                TimeUnit.MILLISECONDS);
+
+        assertSame(fast, result.get(1, TimeUnit.SECONDS));
+        assertEquals(Collections.singletonList(context), aborted);
+        // the non-blocking client only stops on cancellation
+        assertTrue(original.isCancelled());
+        assertNotNull(adopted.get());
+        assertNotSame(context, adopted.get());
+    }
+
+    @Test
+    public void testFastOriginalIsNotHedged() throws Exception
+    {
+        AtomicInteger hedges = new AtomicInteger();
+        CloseableHttpResponse fast = response(200);
+        HedgedExecution execution = new HedgedExecution(HedgingPolicy.fixed(
+                50, TimeUnit.MILLISECONDS), scheduler, "example.com",
+                HttpClientContext::create, context -> {
+                    hedges.incrementAndGet();
+                    return new CompletableFuture<>();
+                }, (from, to) -> adopted.set(from), aborted::add);
+
+        CompletableFuture<CloseableHttpResponse> result = execution.execute(
+                HttpClientContext.create(), ctx -> CompletableFuture
+                .completedFuture(fast));
+        Thread.sleep(100);
+
+        assertSame(fast, result.get());
+        assertEquals(0, hedges.get());
+        assertTrue(aborted.isEmpty());
+        assertNull(adopted.get());
+    }
+
+    @Test
+    public void testServerErrorWaitsForOtherCopy() throws Exception
+    {
+        CompletableFuture<CloseableHttpResponse> original = new CompletableFuture<>();
+        CompletableFuture<CloseableHttpResponse> hedged = new CompletableFuture<>();
+        CloseableHttpResponse success = response(200);
+        CountDownLatch hedgeSent = new CountDownLatch(1);
+        HedgedExecution execution = new HedgedExecution(HedgingPolicy.fixed(
+                10, TimeUnit.MILLISECONDS), scheduler, "example.com",
+                HttpClientContext::create, context -> {
+                    hedgeSent.countDown();
+                    return hedged;
+                }, (from, to) -> adopted.set(from), aborted::add);
+
+        CompletableFuture<CloseableHttpResponse> result = execution.execute(
+                HttpClientContext.create(), ctx -> original);
+        assertTrue(hedgeSent.await(1, TimeUnit.SECONDS));
+        original.complete(response(503));
+
+        assertFalse(result.isDone());
+        hedged.complete(success);
+        assertSame(success, result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelCancelsAllCopies() throws Exception
+    {
+        CompletableFuture<CloseableHttpResponse> original = new CompletableFuture<>();
+        CompletableFuture<CloseableHttpResponse> hedged = new CompletableFuture<>();
+        CountDownLatch hedgeSent = new CountDownLatch(1);
+        HedgedExecution execution = new HedgedExecution(HedgingPolicy.fixed(
+                10, TimeUnit.MILLISECONDS), scheduler, "example.com",
+                HttpClientContext::create, context -> {
+                    hedgeSent.countDown();
+                    return hedged;
+                }, (from, to) -> adopted.set(from), aborted::add);
+
+        CompletableFuture<CloseableHttpResponse> result = execution.execute(
+                HttpClientContext.create(), ctx -> original);
+        assertTrue(hedgeSent.await(1, TimeUnit.SECONDS));
+        result.cancel(true);
+
+        assertTrue(original.isCancelled());
+        try {
+            // the hedge may still be starting on the scheduler
+            hedged.get(1, TimeUnit.SECONDS);
+            fail("hedge should be cancelled");
+        } catch (CancellationException ex) {
+            assertTrue(hedged.isCancelled());
+        }
+        assertEquals(2, aborted.size());
+    }
+
+    @Test
+    public void testFailureBeforeHedgeIsReturned() throws Exception
+    {
+        CompletableFuture<CloseableHttpResponse> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("refused"));
+
+        CompletableFuture<CloseableHttpResponse> result = execution(
+                HedgingPolicy.fixed(1, TimeUnit.SECONDS),
+                new CompletableFuture<>())
+                .execute(HttpClientContext.create(), ctx -> failed);
+
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testPercentileDelayFollowsObservedLatency()
+    {
+        HedgingPolicy policy = HedgingPolicy.percentile(95, 5,
+                TimeUnit.MILLISECONDS);
+        assertEquals(5, policy.hedgeDelay("example.com"));
+
+        for (int i = 1; i <= 100; i++) {
+            policy.record("example.com", TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        long delay = policy.hedgeDelay("example.com");
+        assertTrue("delay " + delay, delay >= 92 && delay <= 100);
+        assertEquals(5, policy.hedgeDelay("other.com"));
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.mapper.*;
+import java.io.*;
+import java.nio.charset.*;
+import org.apache.http.*;
+import org.apache.http.util.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+import org.junit.runner.*;
+import org.mockito.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+import org.mockito.runners.*;
+
+/**
+ *
+ * @author Numbers
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class JsonEntityTest {
+
+    @Mock JsonMapper mockMapper;
+
+    private final Object value = new Object();
+    private JsonEntity testEntity;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        doAnswer(invocation -> {
+            ((OutputStream) invocation.getArguments()[1])
+                    .write("{\"a\":1}".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(mockMapper).writeValue(eq(value), any(OutputStream.class));
+
+        testEntity = new JsonEntity(value, mockMapper);
+    }
+
+    @Test
+    public void testWriteToSerializesIntoStream() throws IOException
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        testEntity.writeTo(out);
+
+        assertEquals("{\"a\":1}", out.toString("UTF-8"));
+        assertEquals(-1, testEntity.getContentLength());
+        assertTrue(testEntity.isChunked());
+        verify(mockMapper, never()).writeValue(value);
+    }
+
+    @Test
+    public void testBufferedEntityHasContentLength() throws IOException
+    {
+        HttpEntity buffered = testEntity.buffer()
+                .toEntity();
+
+        assertEquals(7, buffered.getContentLength());
+        assertEquals("{\"a\":1}", EntityUtils.toString(buffered));
+        verify(mockMapper, times(1)).writeValue(eq(value),
+                any(OutputStream.class));
+    }
+
+}
@@ -0,0 +1,259 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.jackson.*;
+import com.numbers.jttp.response.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class NonBlockingExecutionTest {
+
+    private static final String UPLOADED = "end of upload";
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<OutputStream> serializedTo = new CopyOnWriteArrayList<>();
+    private String url;
+    private Jttp jttp;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/items", exchange -> respond(exchange, 200,
+                "[1,2,3]".getBytes(StandardCharsets.UTF_8), null));
+        server.createContext("/missing", exchange -> respond(exchange, 404,
+                "{}".getBytes(StandardCharsets.UTF_8), null));
+        server.createContext("/gzip", exchange -> {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (GZIPOutputStream gzip = new GZIPOutputStream(body)) {
+                gzip.write("compressed".getBytes(StandardCharsets.UTF_8));
+            }
+            respond(exchange, 200, body.toByteArray(), "gzip");
+        });
+        server.createContext("/upload", exchange -> {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            boolean gzip = "gzip".equals(exchange.getRequestHeaders()
+                    .getFirst("Content-Encoding"));
+            try (InputStream in = gzip
+                                  ? new GZIPInputStream(exchange
+                                          .getRequestBody())
+                                  : exchange.getRequestBody()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    body.write(buffer, 0, read);
+                }
+            }
+            String received = new String(body.toByteArray(),
+                    StandardCharsets.ISO_8859_1);
+            respond(exchange, 200, (exchange.getRequestHeaders()
+                    .getFirst("Content-Type") + "\n" + received.length()
+                    + "\n" + received.indexOf(UPLOADED)).getBytes(
+                            StandardCharsets.UTF_8), null);
+        });
+        server.createContext("/hang", exchange -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread()
+                        .interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress()
+                .getPort();
+
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setNonBlocking(true);
+        config.setDefaultAsync(true);
+        config.setJsonMapper(new JacksonJsonMapper() {
+            @Override
+            public void writeValue(Object o, OutputStream out) throws
+                    IOException
+            {
+                serializedTo.add(out);
+                super.writeValue(o, out);
+            }
+        });
+        config.setMaxConnectionsPerRoute(1);
+        jttp = Jttp.fromConfig(config);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        release.countDown();
+        jttp.close();
+        jttp.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body,
+                                String encoding) throws IOException
+    {
+        if (encoding != null) {
+            exchange.getResponseHeaders()
+                    .add("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Test
+    public void testSuccessIsMapped() throws Exception
+    {
+        JsonHttpResponse<ArrayList> response = jttp.get(url + "/items")
+                .asObjects(ArrayList.class, Integer.class)
+                .get(5, TimeUnit.SECONDS);
+
+        assertTrue(response.isSuccess());
+        assertEquals(Arrays.asList(1, 2, 3), response.getResponse());
+    }
+
+    @Test
+    public void testErrorCodeIsFailedResponse() throws Exception
+    {
+        JsonHttpResponse<String> response = jttp.get(url + "/missing")
+                .asString()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals(404, response.getStatusCode());
+        assertFalse(response.isSuccess());
+    }
+
+    @Test
+    public void testCompressedResponseIsDecoded() throws Exception
+    {
+        JsonHttpResponse<String> response = jttp.get(url + "/gzip")
+                .asString()
+                .get(5, TimeUnit.SECONDS);
+
+        assertEquals("compressed", response.getResponse());
+    }
+
+    @Test
+    public void testConnectionFailureFailsFuture() throws Exception
+    {
+        int port;
+        try (ServerSocket closed = new ServerSocket(0)) {
+            port = closed.getLocalPort();
+        }
+
+        try {
+            jttp.get("http://127.0.0.1:" + port + "/items")
+                    .asString()
+                    .get(5, TimeUnit.SECONDS);
+            fail("connection should be refused");
+        } catch (ExecutionException ex) {
+            assertNotNull(ex.getCause());
+        }
+    }
+
+    @Test
+    public void testLargeMultipartStreamIsUploaded() throws Exception
+    {
+        // larger than the 25 KB a multipart body can be buffered up to
+        byte[] content = new byte[64 * 1024];
+        byte[] end = UPLOADED.getBytes(StandardCharsets.ISO_8859_1);
+        System.arraycopy(end, 0, content, content.length - end.length,
+                end.length);
+
+        String[] received = jttp.post(url + "/upload")
+                .part("name", "value")
+                .part("file", new ByteArrayInputStream(content), "file.bin")
+                .asString()
+                .get(5, TimeUnit.SECONDS)
+                .getResponse()
+                .split("\n");
+
+        assertTrue(received[0].startsWith("multipart/form-data; boundary="));
+        assertTrue(Integer.parseInt(received[1]) > content.length);
+        assertTrue(Integer.parseInt(received[2]) > 0);
+    }
+
+    @Test
+    public void testMappedBodyIsSerializedIntoConnection() throws Exception
+    {
+        String[] received = jttp.post(url + "/upload")
+                .body(Collections.singletonMap("name", UPLOADED))
+                .asString()
+                .get(5, TimeUnit.SECONDS)
+                .getResponse()
+                .split("\n");
+
+        assertTrue(received[0].startsWith("application/json"));
+        assertTrue(Integer.parseInt(received[2]) > 0);
+        assertEquals(1, serializedTo.size());
+        assertFalse(serializedTo.get(0) instanceof JsonEntity.SerializedBuffer);
+    }
+
+    @Test
+    public void testCompressedBodyIsUploaded() throws Exception
+    {
+        byte[] content = new byte[64 * 1024];
+        byte[] end = UPLOADED.getBytes(StandardCharsets.ISO_8859_1);
+        System.arraycopy(end, 0, content, content.length - end.length,
+                end.length);
+
+        HttpBodyRequestStream request = jttp.post(url + "/upload")
+                .body(content)
+                .compress();
+        // only the blocking client compresses while streaming
+        assertTrue(((HttpBodyRequestStreamImpl) request).streamsBody());
+        String[] received = request.asString()
+                .get(5, TimeUnit.SECONDS)
+                .getResponse()
+                .split("\n");
+
+        assertEquals(content.length, Integer.parseInt(received[1]));
+        assertEquals(content.length - end.length, Integer.parseInt(
+                received[2]));
+    }
+
+    @Test
+    public void testSmallCompressedBodyIsSentNonBlocking()
+    {
+        HttpBodyRequestStream request = jttp.post(url + "/upload")
+                .body(new byte[16])
+                .compress();
+
+        assertFalse(((HttpBodyRequestStreamImpl) request).streamsBody());
+    }
+
+    @Test
+    public void testCancelAbortsExchange() throws Exception
+    {
+        CompletableFuture<JsonHttpResponse<String>> hanging = jttp.get(url
+                + "/hang")
+                .asString();
+        Thread.sleep(100);
+
+        assertTrue(hanging.cancel(true));
+
+        // the only connection of the route is released by the abort
+        JsonHttpResponse<ArrayList> response = jttp.get(url + "/items")
+                .asObjects(ArrayList.class, Integer.class)
+                .get(5, TimeUnit.SECONDS);
+        assertTrue(response.isSuccess());
+    }
+
+}
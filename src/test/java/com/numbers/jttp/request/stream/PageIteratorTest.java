@@ -0,0 +1,117 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.pagination.*;
+import com.numbers.jttp.response.*;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.apache.http.*;
+import org.apache.http.client.methods.*;
+import org.apache.http.message.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class PageIteratorTest {
+
+    private final Map<URI, CompletableFuture<JsonHttpResponse<List<Integer>>>> requested
+            = new LinkedHashMap<>();
+    private final Pagination<List<Integer>, Integer> pagination
+            = Pagination.of(page -> null, page -> page,
+                    (current, response) -> Pagination.nextLink(current,
+                            response));
+
+    private static URI page(int page)
+    {
+        return URI.create("http://localhost/items?page=" + page);
+    }
+
+    private static JsonHttpResponse<List<Integer>> response(int status,
+                                                            List<Integer> items,
+                                                            String link)
+    {
+        CloseableHttpResponse response = mock(CloseableHttpResponse.class);
+        when(response.getStatusLine()).thenReturn(new BasicStatusLine(
+                HttpVersion.HTTP_1_1, status, ""));
+        when(response.getHeaders("Link")).thenReturn(link == null
+                                                     ? new Header[0]
+                                                     : new Header[]{
+                                                         new BasicHeader(
+                                                                 "Link", link)});
+        return JsonHttpResponse.ofSuccess(response, items);
+    }
+
+    private PageIterator<List<Integer>, Integer> iterator()
+    {
+        return new PageIterator<>(pagination, uri -> requested.computeIfAbsent(
+                uri, key -> new CompletableFuture<>()), page(1));
+    }
+
+    @Test
+    public void testNextPageIsRequestedWhileConsumingCurrent()
+    {
+        PageIterator<List<Integer>, Integer> items = iterator();
+        assertEquals(Collections.singleton(page(1)), requested.keySet());
+
+        requested.get(page(1))
+                .complete(response(200, Arrays.asList(1, 2), "<?page=2>; rel=next"));
+        assertEquals(Integer.valueOf(1), items.next());
+        assertTrue(requested.containsKey(page(2)));
+        assertFalse(requested.containsKey(page(3)));
+
+        requested.get(page(2))
+                .complete(response(200, Collections.emptyList(),
+                        "<?page=3>; rel=next"));
+        assertEquals(Integer.valueOf(2), items.next());
+        assertFalse(requested.containsKey(page(3)));
+
+        requested.computeIfAbsent(page(3), key -> new CompletableFuture<>())
+                .complete(response(200, Arrays.asList(3), null));
+        assertTrue(items.hasNext());
+        assertEquals(Integer.valueOf(3), items.next());
+        assertFalse(items.hasNext());
+        assertEquals(3, requested.size());
+    }
+
+    @Test
+    public void testPageLinkingToItselfEndsIteration()
+    {
+        PageIterator<List<Integer>, Integer> items = iterator();
+        requested.get(page(1))
+                .complete(response(200, Arrays.asList(1), "<?page=1>; rel=next"));
+
+        assertEquals(Integer.valueOf(1), items.next());
+        assertFalse(items.hasNext());
+        assertEquals(1, requested.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailedPageIsThrown()
+    {
+        PageIterator<List<Integer>, Integer> items = iterator();
+        requested.get(page(1))
+                .complete(response(503, null, null));
+
+        items.hasNext();
+    }
+
+    @Test
+    public void testCloseCancelsNextPage()
+    {
+        PageIterator<List<Integer>, Integer> items = iterator();
+        requested.get(page(1))
+                .complete(response(200, Arrays.asList(1), "<?page=2>; rel=next"));
+        items.next();
+
+        items.close();
+
+        assertTrue(requested.get(page(2))
+                .isCancelled());
+        assertFalse(items.hasNext());
+    }
+
+}
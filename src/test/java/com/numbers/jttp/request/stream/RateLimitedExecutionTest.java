@@ -0,0 +1,129 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.jackson.*;
+import com.numbers.jttp.resilience.*;
+import com.numbers.jttp.response.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class RateLimitedExecutionTest {
+
+    private static final int REQUESTS = 10;
+    private static final double PERMITS_PER_SECOND = 20;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private ScheduledThreadPoolExecutor scheduler;
+    private final AtomicInteger served = new AtomicInteger();
+    private final RateLimiters rateLimiters = new RateLimiters();
+    private RateLimiter limiter;
+    private Jttp.JTTPConfig config;
+    private String url;
+    private Jttp jttp;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/", exchange -> {
+            served.incrementAndGet();
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress()
+                .getPort();
+
+        limiter = rateLimiters.setHostLimit("127.0.0.1", PERMITS_PER_SECOND,
+                1);
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        config = new Jttp.JTTPConfig();
+        config.setJsonMapper(new JacksonJsonMapper());
+        config.setRateLimiters(rateLimiters);
+        config.setScheduler(scheduler);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        jttp.close();
+        jttp.shutdown();
+        scheduler.shutdownNow();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void testAsyncRequestsWaitOnScheduler() throws Exception
+    {
+        config.setDefaultAsync(true);
+        jttp = Jttp.fromConfig(config);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) config.getService();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<JsonHttpResponse<String>>> responses
+                = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            responses.add(jttp.get(url)
+                    .asString());
+        }
+        for (CompletableFuture<JsonHttpResponse<String>> response : responses) {
+            assertEquals(200, response.get(5, TimeUnit.SECONDS)
+                    .getStatusCode());
+        }
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+                - start);
+
+        assertEquals(REQUESTS, served.get());
+        assertEquals(REQUESTS - 1, limiter.getDelayedCount());
+        assertTrue("elapsed " + elapsed, elapsed >= (REQUESTS - 1) * 1000
+                / PERMITS_PER_SECOND * 0.8);
+        // the waits are timed on the scheduler
+        assertTrue(scheduler.getCompletedTaskCount() >= REQUESTS - 1);
+        // a request only takes a thread once it may be sent, so the threads
+        // of the executor are reused rather than parked while waiting
+        assertTrue("threads " + executor.getLargestPoolSize(), executor
+                .getLargestPoolSize() <= 2);
+    }
+
+    @Test
+    public void testRequestOverMaxWaitIsNotSent() throws Exception
+    {
+        limiter = rateLimiters.setHostLimit("127.0.0.1", 1, 1);
+        rateLimiters.setMaxWait(10, TimeUnit.MILLISECONDS);
+        jttp = Jttp.fromConfig(config);
+
+        assertEquals(200, jttp.get(url)
+                .asString()
+                .get(5, TimeUnit.SECONDS)
+                .getStatusCode());
+        try {
+            jttp.get(url)
+                    .asString();
+            fail("the next permit is only available after a second");
+        } catch (RateLimitExceededException ex) {
+            // expected
+        }
+
+        assertEquals(1, served.get());
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+}
@@ -0,0 +1,148 @@
+package com.numbers.jttp.request.stream;
+
+import com.numbers.jttp.*;
+import com.numbers.jttp.mapper.jackson.*;
+import com.numbers.jttp.metrics.*;
+import com.sun.net.httpserver.*;
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class StreamedResponseTest {
+
+    private static final long SERVER_DELAY_MS = 200;
+
+    private HttpServer server;
+    private ExecutorService serverThreads;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<RequestTimings> completed = new CopyOnWriteArrayList<>();
+    private String url;
+    private Jttp jttp;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        serverThreads = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/array", exchange -> {
+            // chunked, the second half is only sent once released
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write("[1,2,".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                release.await(5, TimeUnit.SECONDS);
+                out.write("3]".getBytes(StandardCharsets.UTF_8));
+            } catch (InterruptedException ex) {
+                Thread.currentThread()
+                        .interrupt();
+            }
+        });
+        server.createContext("/text", exchange -> {
+            byte[] body = "<html>not found</html>".getBytes(
+                    StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress()
+                .getPort();
+
+        Jttp.JTTPConfig config = new Jttp.JTTPConfig();
+        config.setJsonMapper(new JacksonJsonMapper());
+        config.setMaxConnectionsPerRoute(1);
+        config.setMetricsListener(new MetricsListener() {
+            @Override
+            public void onComplete(RequestTimings timings)
+            {
+                completed.add(timings);
+            }
+        });
+        jttp = Jttp.fromConfig(config);
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        release.countDown();
+        jttp.close();
+        jttp.shutdown();
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    public void testElementsArePulledLazily() throws Exception
+    {
+        long start = System.nanoTime();
+        try (Stream<Integer> values = jttp.get(url + "/array")
+                .asStream(Integer.class)
+                .get(5, TimeUnit.SECONDS)
+                .getResponse()) {
+            Iterator<Integer> iterator = values.iterator();
+
+            assertEquals(Integer.valueOf(1), iterator.next());
+            assertEquals(Integer.valueOf(2), iterator.next());
+            // read before the server sent the rest of the array
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(3));
+
+            release.countDown();
+            assertEquals(Integer.valueOf(3), iterator.next());
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    public void testMalformedBodyReleasesConnection() throws Exception
+    {
+        try {
+            jttp.get(url + "/text")
+                    .asStream(Integer.class);
+            fail("a malformed body can not be streamed");
+        } catch (UncheckedIOException ex) {
+            // expected
+        }
+
+        // the only connection of the route is available again
+        assertEquals("<html>not found</html>", jttp.get(url + "/text")
+                .setConnectionTimeout(5000)
+                .asString()
+                .get(5, TimeUnit.SECONDS)
+                .getResponse());
+    }
+
+    @Test
+    public void testTimerCompletesWhenStreamIsClosed() throws Exception
+    {
+        Stream<Integer> values = jttp.get(url + "/array")
+                .asStream(Integer.class)
+                .get(5, TimeUnit.SECONDS)
+                .getResponse();
+        assertTrue(completed.isEmpty());
+
+        Thread.sleep(SERVER_DELAY_MS);
+        release.countDown();
+        assertEquals(6, values.mapToInt(Integer::intValue)
+                .sum());
+        assertTrue(completed.isEmpty());
+
+        values.close();
+        assertEquals(1, completed.size());
+        RequestTimings timings = completed.get(0);
+        assertEquals(200, timings.getStatusCode());
+        assertTrue(timings.getTotalNanos() >= TimeUnit.MILLISECONDS.toNanos(
+                SERVER_DELAY_MS));
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.numbers.jttp.resilience;
+
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class CircuitBreakerTest {
+
+    private CircuitBreakers breakers;
+    private CircuitBreaker breaker;
+
+    @Before
+    public void setUp()
+    {
+        breakers = new CircuitBreakers();
+        breakers.setMinimumCalls(4);
+        breakers.setOpenDuration(50, TimeUnit.MILLISECONDS);
+        breakers.setHalfOpenCalls(2);
+        breaker = breakers.forHost("example.com");
+    }
+
+    private void trip()
+    {
+        for (int i = 0; i < 4; i++) {
+            breaker.acquire();
+            breaker.onFailure(0);
+        }
+    }
+
+    @Test
+    public void testStaysClosedBelowMinimumCalls()
+    {
+        for (int i = 0; i < 3; i++) {
+            breaker.acquire();
+            breaker.onFailure(0);
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(100, breaker.getFailureRate(), 0.001);
+    }
+
+    @Test
+    public void testStaysClosedBelowFailureRate()
+    {
+        for (int i = 0; i < 10; i++) {
+            breaker.acquire();
+            if (i % 3 == 2) {
+                breaker.onFailure(0);
+            } else {
+                breaker.onSuccess(0);
+            }
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void testOpensAndFailsFast()
+    {
+        trip();
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        try {
+            breaker.acquire();
+            fail("open circuit let a request through");
+        } catch (CircuitBreakerOpenException ex) {
+            assertEquals("example.com", ex.getHost());
+            assertTrue(ex.getRetryAfter() <= 50);
+        }
+        assertEquals(1, breaker.getRejectedCount());
+    }
+
+    @Test
+    public void testOpensOnSlowCalls()
+    {
+        breakers.setSlowCallDuration(10, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 4; i++) {
+            breaker.acquire();
+            breaker.onSuccess(TimeUnit.MILLISECONDS.toNanos(20));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testHalfOpenClosesAfterTrialSuccesses() throws Exception
+    {
+        trip();
+        Thread.sleep(60);
+
+        breaker.acquire();
+        breaker.acquire();
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        try {
+            breaker.acquire();
+            fail("half open circuit let too many requests through");
+        } catch (CircuitBreakerOpenException ex) {
+            assertEquals(0, ex.getRetryAfter());
+        }
+
+        breaker.onSuccess(0);
+        breaker.onSuccess(0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureRate(), 0.001);
+    }
+
+    @Test
+    public void testHalfOpenReopensOnTrialFailure() throws Exception
+    {
+        trip();
+        Thread.sleep(60);
+
+        breaker.acquire();
+        breaker.onFailure(0);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        try {
+            breaker.acquire();
+            fail("reopened circuit let a request through");
+        } catch (CircuitBreakerOpenException ex) {
+            assertTrue(ex.getRetryAfter() > 0);
+        }
+    }
+
+    @Test
+    public void testIgnoredTrialReturnsPermit() throws Exception
+    {
+        trip();
+        Thread.sleep(60);
+
+        breaker.acquire();
+        breaker.acquire();
+        breaker.onIgnored();
+        breaker.acquire();
+
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    @Test
+    public void testConcurrentHalfOpenLetsOnlyTrialsThrough() throws Exception
+    {
+        // leaves an unused trial permit behind in the reopened circuit
+        trip();
+        Thread.sleep(60);
+        breaker.acquire();
+        breaker.onFailure(0);
+        Thread.sleep(60);
+
+        ExecutorService threads = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Boolean>> permitted = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                permitted.add(threads.submit(() -> {
+                    start.await();
+                    try {
+                        breaker.acquire();
+                        return true;
+                    } catch (CircuitBreakerOpenException ex) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+
+            int trials = 0;
+            for (Future<Boolean> future : permitted) {
+                trials += future.get(5, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(2, trials);
+            assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        } finally {
+            threads.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testHostsHaveSeparateCircuits()
+    {
+        trip();
+
+        breakers.forHost("other.com").acquire();
+        assertSame(breaker, breakers.forHost("example.com"));
+        assertEquals(2, breakers.getBreakers().size());
+    }
+
+}
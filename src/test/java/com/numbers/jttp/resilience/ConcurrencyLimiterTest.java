@@ -0,0 +1,145 @@
+package com.numbers.jttp.resilience;
+
+import java.util.concurrent.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class ConcurrencyLimiterTest {
+
+    private ScheduledExecutorService scheduler;
+    private ConcurrencyLimiters limiters;
+
+    @Before
+    public void setUp()
+    {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        limiters = new ConcurrencyLimiters();
+        limiters.setLimits(2, 1, 4);
+        limiters.setQueue(1, 50, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+    }
+
+    private static void assertRejected(CompletableFuture<Void> permit)
+            throws InterruptedException
+    {
+        try {
+            permit.get(1, TimeUnit.SECONDS);
+            fail("request over the limit was let through");
+        } catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof ConcurrencyLimitExceededException);
+        } catch (TimeoutException ex) {
+            fail("request over the limit was not rejected");
+        }
+    }
+
+    @Test
+    public void testQueuesAndRejectsOverLimit() throws Exception
+    {
+        ConcurrencyLimiter limiter = limiters.forHost("example.com");
+
+        assertTrue(limiter.acquire(scheduler).isDone());
+        assertTrue(limiter.acquire(scheduler).isDone());
+        CompletableFuture<Void> queued = limiter.acquire(scheduler);
+        CompletableFuture<Void> full = limiter.acquire(scheduler);
+
+        assertFalse(queued.isDone());
+        assertRejected(full);
+        assertEquals(1, limiter.getQueued());
+
+        limiter.onIgnored();
+        assertTrue(queued.isDone());
+        assertFalse(queued.isCompletedExceptionally());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    public void testWaitTimesOut() throws Exception
+    {
+        ConcurrencyLimiter limiter = limiters.forHost("example.com");
+        limiter.acquire(scheduler);
+        limiter.acquire(scheduler);
+
+        CompletableFuture<Void> queued = limiter.acquire(scheduler);
+
+        assertRejected(queued);
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getRejectedCount());
+    }
+
+    @Test
+    public void testRejectsRightAwayWithoutQueue() throws Exception
+    {
+        limiters.setQueue(0, 1, TimeUnit.SECONDS);
+        ConcurrencyLimiter limiter = limiters.forHost("example.com");
+        limiter.acquire(scheduler);
+        limiter.acquire(scheduler);
+
+        assertTrue(limiter.acquire(scheduler).isCompletedExceptionally());
+    }
+
+    @Test
+    public void testLimitGrowsWhileFast()
+    {
+        ConcurrencyLimiter limiter = limiters.forHost("example.com");
+
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire(scheduler);
+            limiter.acquire(scheduler);
+            limiter.onSuccess(1000);
+            limiter.onSuccess(1000);
+        }
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitShrinksOnRisingLatencyAndDrops()
+    {
+        limiters.setLimits(4, 1, 4);
+        limiters.setBackoffRatio(0.5);
+        ConcurrencyLimiter limiter = limiters.forHost("example.com");
+
+        limiter.acquire(scheduler);
+        limiter.onSuccess(1000);
+        limiter.acquire(scheduler);
+        limiter.onSuccess(3000);
+        assertEquals(2, limiter.getLimit());
+
+        limiter.acquire(scheduler);
+        limiter.onDropped();
+        assertEquals(1, limiter.getLimit());
+
+        limiter.acquire(scheduler);
+        limiter.onDropped();
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void testCancelledWaiterIsSkipped() throws Exception
+    {
+        limiters.setQueue(2, 1, TimeUnit.SECONDS);
+        ConcurrencyLimiter limiter = limiters.forHost("example.com");
+        limiter.acquire(scheduler);
+        limiter.acquire(scheduler);
+        CompletableFuture<Void> cancelled = limiter.acquire(scheduler);
+        CompletableFuture<Void> waiting = limiter.acquire(scheduler);
+
+        cancelled.cancel(false);
+        limiter.onIgnored();
+
+        assertTrue(waiting.isDone());
+        assertFalse(waiting.isCompletedExceptionally());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+}
@@ -0,0 +1,140 @@
+package com.numbers.jttp.resilience;
+
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class RateLimiterTest {
+
+    private static final URI SEARCH = URI.create(
+            "https://api.example.com/v1/search?q=jttp");
+
+    private ScheduledExecutorService scheduler;
+    private RateLimiters limiters;
+
+    @Before
+    public void setUp()
+    {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+        limiters = new RateLimiters();
+    }
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testBurstIsNotDelayed()
+    {
+        RateLimiter limiter = limiters.setGlobalLimit(10, 3);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Long.valueOf(0), limiters.acquire(SEARCH, scheduler)
+                    .getNow(null));
+        }
+        assertEquals(3, limiter.getPermitCount());
+        assertEquals(0, limiter.getDelayedCount());
+    }
+
+    @Test
+    public void testDelaysBeyondBurstAtRate() throws Exception
+    {
+        RateLimiter limiter = limiters.setGlobalLimit(20, 1);
+        limiters.acquire(SEARCH, scheduler);
+
+        long start = System.nanoTime();
+        CompletableFuture<Long> second = limiters.acquire(SEARCH, scheduler);
+        CompletableFuture<Long> third = limiters.acquire(SEARCH, scheduler);
+
+        assertFalse(second.isDone());
+        long waited = third.get(1, TimeUnit.SECONDS);
+        long elapsed = System.nanoTime() - start;
+        assertTrue("waited " + waited, waited > TimeUnit.MILLISECONDS
+                .toNanos(80) && waited <= TimeUnit.MILLISECONDS.toNanos(100));
+        assertTrue(elapsed >= waited);
+        assertTrue(second.isDone());
+        assertEquals(2, limiter.getDelayedCount());
+        assertEquals(waited, limiter.getMaxWaitNanos());
+    }
+
+    @Test
+    public void testRejectsBeyondMaxWaitWithoutTakingPermit()
+    {
+        RateLimiter limiter = limiters.setGlobalLimit(1, 1);
+        limiters.setMaxWait(100, TimeUnit.MILLISECONDS);
+        limiters.acquire(SEARCH, scheduler);
+
+        CompletableFuture<Long> rejected = limiters.acquire(SEARCH, scheduler);
+        CompletableFuture<Long> again = limiters.acquire(SEARCH, scheduler);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        try {
+            again.join();
+            fail("request waiting too long was not rejected");
+        } catch (CompletionException ex) {
+            RateLimitExceededException cause = (RateLimitExceededException) ex
+                    .getCause();
+            assertEquals("*", cause.getLimiter());
+            assertTrue(cause.getRetryAfter() > 900);
+        }
+        assertEquals(2, limiter.getRejectedCount());
+        assertEquals(1, limiter.getPermitCount());
+    }
+
+    @Test
+    public void testCancelReturnsPermit()
+    {
+        limiters.setGlobalLimit(1, 1);
+        limiters.acquire(SEARCH, scheduler);
+        CompletableFuture<Long> waiting = limiters.acquire(SEARCH, scheduler);
+
+        waiting.cancel(false);
+        limiters.setMaxWait(1500, TimeUnit.MILLISECONDS);
+
+        // without the refund the next permit would be two seconds away
+        assertFalse(limiters.acquire(SEARCH, scheduler)
+                .isCompletedExceptionally());
+    }
+
+    @Test
+    public void testHostAndFirstMatchingRouteApply()
+    {
+        RateLimiter global = limiters.setGlobalLimit(100, 10);
+        RateLimiter host = limiters.setHostLimit("API.example.com", 10, 5);
+        RateLimiter search = limiters.setRouteLimit(
+                "https://api\\.example\\.com/v1/search.*", 1, 1);
+        RateLimiter other = limiters.setRouteLimit(".*", 1, 1);
+
+        assertEquals(Arrays.asList(global, host, search), limiters
+                .limitersFor(SEARCH));
+        assertEquals(Arrays.asList(global, other), limiters.limitersFor(URI
+                .create("https://example.com/v1/search")));
+        assertEquals(Arrays.asList(search, other), limiters
+                .getRouteLimiters());
+    }
+
+    @Test
+    public void testSlowestLimiterDecidesWait()
+    {
+        limiters.setGlobalLimit(100, 10);
+        RateLimiter route = limiters.setRouteLimit(".*/search", 1, 1);
+        limiters.setMaxWait(10, TimeUnit.MILLISECONDS);
+
+        limiters.acquire(SEARCH, scheduler);
+        CompletableFuture<Long> rejected = limiters.acquire(SEARCH, scheduler);
+
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(1, route.getRejectedCount());
+        assertEquals(1, limiters.getGlobalLimiter()
+                .getPermitCount());
+    }
+
+}
@@ -0,0 +1,150 @@
+package com.numbers.jttp.resilience;
+
+import com.numbers.jttp.request.*;
+import java.io.*;
+import java.net.*;
+import java.util.concurrent.*;
+import org.apache.http.*;
+import org.apache.http.message.*;
+import org.junit.*;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Numbers
+ */
+public class RetryPolicyTest {
+
+    private static HttpResponse response(int status)
+    {
+        return new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null);
+    }
+
+    private static RetryPolicy fixedPolicy(int maxAttempts)
+    {
+        RetryPolicy policy = new RetryPolicy(maxAttempts);
+        policy.setBackoff(100, 1000, TimeUnit.MILLISECONDS);
+        policy.setJitter(0);
+        policy.setBudget(null);
+        return policy;
+    }
+
+    @Test
+    public void testBackoffGrowsExponentiallyUpToMax()
+    {
+        RetryPolicy policy = fixedPolicy(10);
+
+        assertEquals(100, policy.backoff(1));
+        assertEquals(200, policy.backoff(2));
+        assertEquals(400, policy.backoff(3));
+        assertEquals(1000, policy.backoff(5));
+    }
+
+    @Test
+    public void testJitterStaysWithinBackoff()
+    {
+        RetryPolicy policy = fixedPolicy(10);
+        policy.setJitter(1);
+
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.backoff(3);
+            assertTrue(delay >= 0 && delay <= 400);
+        }
+    }
+
+    @Test
+    public void testRetriesRetryableStatusUntilMaxAttempts()
+    {
+        RetryPolicy policy = fixedPolicy(3);
+
+        assertEquals(100, policy.retryDelay(HttpRequestType.GET, 1,
+                response(503)));
+        assertEquals(200, policy.retryDelay(HttpRequestType.GET, 2,
+                response(503)));
+        assertEquals(-1, policy.retryDelay(HttpRequestType.GET, 3,
+                response(503)));
+        assertEquals(-1, policy.retryDelay(HttpRequestType.GET, 1,
+                response(500)));
+        assertEquals(-1, policy.retryDelay(HttpRequestType.GET, 1,
+                response(200)));
+    }
+
+    @Test
+    public void testNonIdempotentRequestsOnlyRetriedIfNotSent()
+    {
+        RetryPolicy policy = fixedPolicy(3);
+
+        assertEquals(-1, policy.retryDelay(HttpRequestType.POST, 1,
+                response(503)));
+        assertEquals(-1, policy.retryDelay(HttpRequestType.POST, 1,
+                new RuntimeException(new NoHttpResponseException("closed"))));
+        assertEquals(100, policy.retryDelay(HttpRequestType.POST, 1,
+                new RuntimeException(new ConnectException("refused"))));
+        assertEquals(100, policy.retryDelay(HttpRequestType.PUT, 1,
+                new RuntimeException(new NoHttpResponseException("closed"))));
+
+        policy.setRetryNonIdempotent(true);
+        assertEquals(100, policy.retryDelay(HttpRequestType.POST, 1,
+                response(503)));
+    }
+
+    @Test
+    public void testOnlyRetryableExceptionsAreRetried()
+    {
+        RetryPolicy policy = fixedPolicy(3);
+
+        assertEquals(-1, policy.retryDelay(HttpRequestType.GET, 1,
+                new RuntimeException(new UnknownHostException("nowhere"))));
+        assertEquals(-1, policy.retryDelay(HttpRequestType.GET, 1,
+                new IllegalStateException()));
+
+        policy.setRetryableExceptions(IOException.class);
+        assertEquals(100, policy.retryDelay(HttpRequestType.GET, 1,
+                new RuntimeException(new UnknownHostException("nowhere"))));
+    }
+
+    @Test
+    public void testRetryAfterIsHonored()
+    {
+        RetryPolicy policy = fixedPolicy(3);
+        HttpResponse shortWait = response(429);
+        shortWait.addHeader(HttpHeaders.RETRY_AFTER, "1");
+        HttpResponse longWait = response(429);
+        longWait.addHeader(HttpHeaders.RETRY_AFTER, "60");
+
+        assertEquals(-1, policy.retryDelay(HttpRequestType.GET, 1, longWait));
+        policy.setBackoff(100, 5000, TimeUnit.MILLISECONDS);
+        assertEquals(1000, policy.retryDelay(HttpRequestType.GET, 1, shortWait));
+    }
+
+    @Test
+    public void testBudgetLimitsRetries()
+    {
+        RetryPolicy policy = fixedPolicy(3);
+        RetryBudget budget = new RetryBudget(0.5, 0, 2);
+        policy.setBudget(budget);
+
+        assertTrue(policy.retryDelay(HttpRequestType.GET, 1, response(503)) >= 0);
+        assertTrue(policy.retryDelay(HttpRequestType.GET, 1, response(503)) >= 0);
+        assertEquals(-1, policy.retryDelay(HttpRequestType.GET, 1,
+                response(503)));
+        assertEquals(1, budget.getExhaustedCount());
+
+        policy.onRequest();
+        policy.onRequest();
+        assertTrue(policy.retryDelay(HttpRequestType.GET, 1, response(503)) >= 0);
+        assertEquals(0, budget.getAvailable(), 0.001);
+    }
+
+    @Test
+    public void testBudgetDoesNotExceedCapacity()
+    {
+        RetryBudget budget = new RetryBudget(1, 0, 3);
+        for (int i = 0; i < 10; i++) {
+            budget.deposit();
+        }
+
+        assertEquals(3, budget.getAvailable(), 0.001);
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.numbers.jttp.response;
 
+import com.numbers.jttp.metrics.*;
+import com.numbers.jttp.request.*;
 import com.numbers.jttp.response.BasicHttpResponse;
 import org.apache.http.*;
 import org.apache.http.client.methods.*;
@@ -95,4 +97,30 @@ public class BasicHttpResponseTest {
         assertEquals(closableMock, testResponse.getHttpResponse());
     }
     
+    /**
+     * Test of getTimings method, of class BasicHttpResponse.
+     */
+    @Test
+    public void testGetTimingsDefaultsToNone()
+    {
+        assertSame(RequestTimer.NONE, testResponse.getTimings());
+        assertEquals(0, testResponse.getTimings().getTotalNanos());
+    }
+
+    @Test
+    public void testGetTimingsReturnsRecordedTimings()
+    {
+        RequestTimer timer = RequestTimer.start(MetricsListener.NOOP,
+                HttpRequestType.GET, true);
+        timer.handling();
+        timer.bodyRead(5);
+        timer.handled();
+
+        BasicHttpResponse timed = new BasicHttpResponse(closableMock, timer);
+
+        assertSame(timer, timed.getTimings());
+        assertEquals(5, timed.getTimings().getBodyReadNanos());
+        assertTrue(timed.getTimings().getMappingNanos() >= 0);
+    }
+
 }